@@ -22,6 +22,13 @@ import biz.source_code.dsp.util.ArrayUtils;
 */
 public class BesselFilterDesign {
 
+/**
+* The maximum filter order for which the poles are kept in the pole table of {@link #computePoles}.
+*/
+public static final int      maxTableOrder = 40;
+
+private static final Complex[][] poleTable = new Complex[maxTableOrder + 1][];    // lazily filled, indexed by filter order
+
 // Dummy default constructor to suppress Javadoc.
 private BesselFilterDesign() {}
 
@@ -148,12 +155,39 @@ public static double findFrequencyScalingFactor (double[] polyCoeffs) {
 /**
 * Returns the frequency normalized s-plane poles for a Bessel filter.
 *
+* <p>
+* The poles for the orders 1 to {@link #maxTableOrder} are computed only once and kept in a table.
+* Higher orders are computed on each call.
+*
 * @param n
 *    The filter order.
 * @return
 *    The complex poles of the filter,
 */
 public static Complex[] computePoles (int n) {
+   if (n < 1 || n > maxTableOrder) {
+      return computePolesDirect(n); }
+   Complex[] poles;
+   synchronized (poleTable) {
+      poles = poleTable[n]; }
+   if (poles == null) {
+      poles = computePolesDirect(n);                       // computed outside of the lock
+      synchronized (poleTable) {
+         if (poleTable[n] == null) {
+            poleTable[n] = poles; }
+         poles = poleTable[n]; }}
+   return poles.clone(); }
+
+/**
+* Computes the frequency normalized s-plane poles for a Bessel filter, without using the pole table.
+* The Bessel polynomial is solved with a root finder and the frequency scaling factor is found by approximation.
+*
+* @param n
+*    The filter order.
+* @return
+*    The complex poles of the filter,
+*/
+public static Complex[] computePolesDirect (int n) {
    double[] besselPolyCoeffs = computePolynomialCoefficients(n);
    double[] polyCoeffs = ArrayUtils.reverse(besselPolyCoeffs);
    double scalingFactor = findFrequencyScalingFactor(polyCoeffs);
@@ -0,0 +1,206 @@
+// Copyright 2015 Christian d'Heureuse, Inventec Informatik AG, Zurich, Switzerland
+// www.source-code.biz, www.inventec.ch/chdh
+//
+// This module is multi-licensed and may be used under the terms
+// of any of the following licenses:
+//
+//  EPL, Eclipse Public License, V1.0 or later, http://www.eclipse.org/legal
+//  LGPL, GNU Lesser General Public License, V2.1 or later, http://www.gnu.org/licenses/lgpl.html
+//
+// Please contact the author if you need another license.
+// This module is provided "as is", without warranties of any kind.
+
+package biz.source_code.dsp.filter;
+
+import biz.source_code.dsp.math.Complex;
+
+/**
+* Elliptic (Cauer) filter design routines.
+*
+* <p>
+* The analog prototype is computed with Jacobi elliptic functions, which are evaluated
+* by Landen transformations. The passband edge of the prototype is at the frequency 1 (rad/s).
+* The stopband edge is at <code>1 / k</code>, where <code>k</code> is the selectivity factor
+* determined by the filter order, the passband ripple and the stopband gain.
+*
+* <p>
+* Reference: <a href="http://en.wikipedia.org/wiki/Elliptic_filter">Wikipedia</a>,
+* S. J. Orfanidis, "Lecture Notes on Elliptic Filter Design", Rutgers University, 2006.
+*/
+public class EllipticFilterDesign {
+
+private static final int     landenSteps = 10;             // enough for full double precision for k < 1 - 1E-15
+
+// Dummy constructor to suppress Javadoc.
+private EllipticFilterDesign() {}
+
+/**
+* Returns the s-plane poles for an elliptic lowpass prototype filter.
+*
+* @param n
+*    The filter order.
+* @param ripple
+*    Passband ripple in dB. Must be negative.
+* @param stopbandGain
+*    Stopband gain in dB. Must be less than <code>ripple</code>.
+* @return
+*    The complex poles of the filter.
+*/
+public static Complex[] computePoles (int n, double ripple, double stopbandGain) {
+   double ep = computeEpsilon(ripple);
+   double k1 = ep / computeEpsilon(stopbandGain);
+   double k = computeSelectivity(n, k1);
+   Complex v0 = asne(new Complex(0, 1 / ep), k1).mul(new Complex(0, -1.0 / n));
+   Complex[] poles = new Complex[n];
+   int l = n / 2;
+   for (int i = 1; i <= l; i++) {
+      double u = (2.0 * i - 1) / n;
+      Complex p = cde(new Complex(u).sub(v0.mul(Complex.I)), k).mul(Complex.I);
+      poles[2 * i - 2] = p;
+      poles[2 * i - 1] = p.conj(); }
+   if (n % 2 == 1) {
+      Complex p0 = sne(v0.mul(Complex.I), k).mul(Complex.I);
+      poles[n - 1] = new Complex(p0.re()); }                // real pole
+   return poles; }
+
+/**
+* Returns the s-plane zeros for an elliptic lowpass prototype filter.
+* The zeros are on the imaginary axis. For odd orders, there is an additional zero at infinity, which is not returned.
+*
+* @param n
+*    The filter order.
+* @param ripple
+*    Passband ripple in dB. Must be negative.
+* @param stopbandGain
+*    Stopband gain in dB. Must be less than <code>ripple</code>.
+* @return
+*    The finite complex zeros of the filter.
+*/
+public static Complex[] computeZeros (int n, double ripple, double stopbandGain) {
+   double k1 = computeEpsilon(ripple) / computeEpsilon(stopbandGain);
+   double k = computeSelectivity(n, k1);
+   int l = n / 2;
+   Complex[] zeros = new Complex[2 * l];
+   for (int i = 1; i <= l; i++) {
+      double u = (2.0 * i - 1) / n;
+      double zeta = cde(new Complex(u), k).re();
+      zeros[2 * i - 2] = new Complex(0,  1 / (k * zeta));
+      zeros[2 * i - 1] = new Complex(0, -1 / (k * zeta)); }
+   return zeros; }
+
+/**
+* Returns the selectivity factor <code>k</code> of an elliptic filter, which is the ratio
+* of the passband edge frequency to the stopband edge frequency.
+*
+* @param n
+*    The filter order.
+* @param ripple
+*    Passband ripple in dB. Must be negative.
+* @param stopbandGain
+*    Stopband gain in dB. Must be less than <code>ripple</code>.
+*/
+public static double computeSelectivity (int n, double ripple, double stopbandGain) {
+   return computeSelectivity(n, computeEpsilon(ripple) / computeEpsilon(stopbandGain)); }
+
+/**
+* Returns the minimum order of an elliptic filter for a given selectivity.
+*
+* @param selectivity
+*    The ratio of the passband edge frequency to the stopband edge frequency. Must be between 0 and 1.
+* @param ripple
+*    Passband ripple in dB. Must be negative.
+* @param stopbandGain
+*    Stopband gain in dB. Must be less than <code>ripple</code>.
+*/
+public static int computeMinOrder (double selectivity, double ripple, double stopbandGain) {
+   double k = selectivity;
+   double k1 = computeEpsilon(ripple) / computeEpsilon(stopbandGain);
+   if (!(k > 0 && k < 1)) {
+      throw new IllegalArgumentException("Invalid selectivity."); }
+   if (!(k1 > 0 && k1 < 1)) {
+      throw new IllegalArgumentException("The stopband gain must be less than the passband ripple."); }
+   double n = computeCompleteIntegral(k) * computeCompleteIntegral(Math.sqrt(1 - k1 * k1)) /
+              (computeCompleteIntegral(Math.sqrt(1 - k * k)) * computeCompleteIntegral(k1));   // degree equation
+   return Math.max(1, (int)Math.ceil(n - 1E-9)); }
+
+// Computes the ripple factor epsilon for a gain in dB.
+private static double computeEpsilon (double gain) {
+   if (gain >= 0) {
+      throw new IllegalArgumentException("Ripple and stopband gain must be negative."); }
+   return Math.sqrt(Math.pow(10, -gain / 10) - 1); }
+
+// Solves the degree equation for the selectivity factor k, given the discrimination factor k1.
+private static double computeSelectivity (int n, double k1) {
+   if (n < 1) {
+      throw new IllegalArgumentException("Invalid filter order."); }
+   if (!(k1 > 0 && k1 < 1)) {
+      throw new IllegalArgumentException("The stopband gain must be less than the passband ripple."); }
+   double k1p = Math.sqrt(1 - k1 * k1);
+   double prod = 1;
+   for (int i = 1; i <= n / 2; i++) {
+      double s = sne(new Complex((2.0 * i - 1) / n), k1p).re();
+      prod *= s * s * s * s; }
+   double kp = Math.pow(k1p, n) * prod;
+   return Math.sqrt(1 - kp * kp); }
+
+//--- Jacobi elliptic functions ------------------------------------------------
+
+// Returns the descending Landen sequence of the modulus k.
+private static double[] landen (double k) {
+   double[] v = new double[landenSteps];
+   for (int i = 0; i < landenSteps; i++) {
+      double kp = Math.sqrt(1 - k * k);
+      k = k / (1 + kp);
+      k = k * k;
+      v[i] = k; }
+   return v; }
+
+// Computes cd(u * K, k), with K = K(k), using ascending Landen transformations.
+private static Complex cde (Complex u, double k) {
+   double[] v = landen(k);
+   Complex w = cos(u.mul(Math.PI / 2));
+   for (int i = v.length - 1; i >= 0; i--) {
+      w = w.mul(1 + v[i]).div(w.sqr().mul(v[i]).add(1)); }
+   return w; }
+
+// Computes sn(u * K, k).
+private static Complex sne (Complex u, double k) {
+   return cde(u.sub(1), k); }
+
+// Computes the inverse of cd(u * K, k), with the result normalized to the fundamental period.
+private static Complex acde (Complex w, double k) {
+   double[] v = landen(k);
+   double v1 = k;
+   for (int i = 0; i < v.length; i++) {
+      w = w.div(Complex.sub(1, w.sqr().mul(v1 * v1)).sqrt().add(1)).mul(2 / (1 + v[i]));
+      v1 = v[i]; }
+   Complex u = acos(w).mul(2 / Math.PI);
+   double r = computeCompleteIntegral(Math.sqrt(1 - k * k)) / computeCompleteIntegral(k);
+   return new Complex(srem(u.re(), 4), srem(u.im(), 2 * r)); }
+
+// Computes the inverse of sn(u * K, k).
+private static Complex asne (Complex w, double k) {
+   return Complex.sub(1, acde(w, k)); }
+
+// Computes the complete elliptic integral of the first kind K(k).
+private static double computeCompleteIntegral (double k) {
+   double[] v = landen(k);
+   double prod = 1;
+   for (int i = 0; i < v.length; i++) {
+      prod *= 1 + v[i]; }
+   return prod * Math.PI / 2; }
+
+private static Complex cos (Complex x) {
+   Complex e = x.mul(Complex.I).exp();
+   return e.add(e.reciprocal()).div(2); }
+
+private static Complex acos (Complex x) {
+   // acos(x) = -j * log(x + j * sqrt(1 - x^2))
+   Complex t = x.add(Complex.sub(1, x.sqr()).sqrt().mul(Complex.I));
+   return t.log().mul(new Complex(0, -1)); }
+
+// Symmetric remainder, in the range -y/2 to y/2.
+private static double srem (double x, double y) {
+   return x - y * Math.rint(x / y); }
+
+}
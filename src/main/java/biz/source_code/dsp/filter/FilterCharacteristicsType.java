@@ -14,6 +14,11 @@ package biz.source_code.dsp.filter;
 
 /**
 * The filter characteristics type.
+*
+* <p>
+* <code>chebyshev</code> is Chebyshev type 1 (passband ripple), <code>chebyshev2</code> is Chebyshev type 2
+* (inverse Chebyshev, stopband ripple) and <code>elliptic</code> is the elliptic (Cauer) filter
+* (passband and stopband ripple).
 */
 public enum FilterCharacteristicsType {
-   butterworth, chebyshev, bessel};
+   butterworth, chebyshev, bessel, chebyshev2, elliptic};
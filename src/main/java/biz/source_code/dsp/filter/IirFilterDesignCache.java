@@ -0,0 +1,209 @@
+// Copyright 2015 Christian d'Heureuse, Inventec Informatik AG, Zurich, Switzerland
+// www.source-code.biz, www.inventec.ch/chdh
+//
+// This module is multi-licensed and may be used under the terms
+// of any of the following licenses:
+//
+//  EPL, Eclipse Public License, V1.0 or later, http://www.eclipse.org/legal
+//  LGPL, GNU Lesser General Public License, V2.1 or later, http://www.gnu.org/licenses/lgpl.html
+//
+// Please contact the author if you need another license.
+// This module is provided "as is", without warranties of any kind.
+
+package biz.source_code.dsp.filter;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+* A memoizing cache for IIR filter designs.
+*
+* <p>The designs of {@link IirFilterDesignFisher} and {@link IirFilterDesignExstrom} are cached,
+* keyed by the design method and all design parameters. The cache is shared, thread-safe and size-bounded
+* (least recently used entries are evicted first).
+*
+* <p>The cached coefficients are never handed out directly. Each call returns a new copy, so the caller
+* may modify the returned object without affecting other users of the same design.
+*/
+public class IirFilterDesignCache {
+
+/**
+* The filter design method.
+*/
+public enum DesignMethod {
+   /** {@link IirFilterDesignFisher} */
+   fisher,
+   /** {@link IirFilterDesignExstrom} */
+   exstrom };
+
+/**
+* The default maximum number of cached designs.
+*/
+public static final int      defaultMaxSize = 256;
+
+private static int           maxSize = defaultMaxSize;
+private static long          hitCount;
+private static long          missCount;
+
+private static final LinkedHashMap<CacheKey,IirFilterCoefficients> cache = new LinkedHashMap<CacheKey,IirFilterCoefficients>(16, 0.75f, true) {
+   private static final long serialVersionUID = 1;
+   @Override protected boolean removeEldestEntry (Map.Entry<CacheKey,IirFilterCoefficients> eldest) {
+      return size() > maxSize; }};
+
+// Dummy constructor to suppress Javadoc.
+private IirFilterDesignCache() {}
+
+/**
+* Returns a cached design of {@link IirFilterDesignFisher#design}.
+* The parameters are the same as for <code>IirFilterDesignFisher.design()</code>.
+*
+* @return
+*    A copy of the cached IIR filter coefficients.
+*/
+public static IirFilterCoefficients getFisher (FilterPassType filterPassType, FilterCharacteristicsType filterCharacteristicsType,
+      int filterOrder, double ripple, double fcf1, double fcf2) {
+   return get(DesignMethod.fisher, filterPassType, filterCharacteristicsType, filterOrder, ripple, Double.NaN, fcf1, fcf2); }
+
+/**
+* Returns a cached design of {@link IirFilterDesignFisher#design(FilterPassType, FilterCharacteristicsType, int, double, double, double, double)}.
+* This variant must be used for Chebyshev type 2 and elliptic filters.
+*
+* @return
+*    A copy of the cached IIR filter coefficients.
+*/
+public static IirFilterCoefficients getFisher (FilterPassType filterPassType, FilterCharacteristicsType filterCharacteristicsType,
+      int filterOrder, double ripple, double stopbandGain, double fcf1, double fcf2) {
+   return get(DesignMethod.fisher, filterPassType, filterCharacteristicsType, filterOrder, ripple, stopbandGain, fcf1, fcf2); }
+
+/**
+* Returns a cached design of {@link IirFilterDesignExstrom#design}.
+* The parameters are the same as for <code>IirFilterDesignExstrom.design()</code>.
+*
+* @return
+*    A copy of the cached IIR filter coefficients.
+*/
+public static IirFilterCoefficients getExstrom (FilterPassType filterPassType, int filterOrder, double fcf1, double fcf2) {
+   return get(DesignMethod.exstrom, filterPassType, FilterCharacteristicsType.butterworth, filterOrder, 0, 0, fcf1, fcf2); }
+
+/**
+* Returns a cached filter design.
+*
+* @param designMethod
+*    The design method. {@link DesignMethod#exstrom} only supports Butterworth filters.
+* @param stopbandGain
+*    The stopband gain in dB for Chebyshev type 2 and elliptic filters, ignored for other filters.
+* @return
+*    A copy of the cached IIR filter coefficients.
+*/
+public static IirFilterCoefficients get (DesignMethod designMethod, FilterPassType filterPassType, FilterCharacteristicsType filterCharacteristicsType,
+      int filterOrder, double ripple, double stopbandGain, double fcf1, double fcf2) {
+   if (designMethod == DesignMethod.exstrom && filterCharacteristicsType != FilterCharacteristicsType.butterworth) {
+      throw new IllegalArgumentException("The Exstrom design method only supports Butterworth filters."); }
+   // Unused parameters are normalized to avoid duplicate cache entries.
+   if (filterCharacteristicsType != FilterCharacteristicsType.chebyshev && filterCharacteristicsType != FilterCharacteristicsType.elliptic) {
+      ripple = 0; }
+   if (filterCharacteristicsType != FilterCharacteristicsType.chebyshev2 && filterCharacteristicsType != FilterCharacteristicsType.elliptic) {
+      stopbandGain = 0; }
+   if (filterPassType == FilterPassType.lowpass || filterPassType == FilterPassType.highpass) {
+      fcf2 = 0; }
+   CacheKey key = new CacheKey(designMethod, filterPassType, filterCharacteristicsType, filterOrder, ripple, stopbandGain, fcf1, fcf2);
+   synchronized (cache) {
+      IirFilterCoefficients coeffs = cache.get(key);
+      if (coeffs != null) {
+         hitCount++;
+         return copy(coeffs); }
+      missCount++; }
+   IirFilterCoefficients coeffs = design(key);             // computed outside of the lock
+   synchronized (cache) {
+      IirFilterCoefficients coeffs2 = cache.get(key);
+      if (coeffs2 != null) {
+         return copy(coeffs2); }
+      cache.put(key, coeffs);
+      return copy(coeffs); }}
+
+private static IirFilterCoefficients copy (IirFilterCoefficients coeffs) {
+   IirFilterCoefficients c = new IirFilterCoefficients();
+   c.a = coeffs.a.clone();
+   c.b = coeffs.b.clone();
+   return c; }
+
+private static IirFilterCoefficients design (CacheKey key) {
+   switch (key.designMethod) {
+      case fisher:  return IirFilterDesignFisher.design(key.passType, key.characteristicsType, key.order, key.ripple, key.stopbandGain, key.fcf1, key.fcf2);
+      case exstrom: return IirFilterDesignExstrom.design(key.passType, key.order, key.fcf1, key.fcf2);
+      default: throw new AssertionError(); }}
+
+/**
+* Returns the number of cache hits since the last call of {@link #clear}.
+*/
+public static long getHitCount() {
+   synchronized (cache) {
+      return hitCount; }}
+
+/**
+* Returns the number of cache misses (designs computed) since the last call of {@link #clear}.
+*/
+public static long getMissCount() {
+   synchronized (cache) {
+      return missCount; }}
+
+/**
+* Returns the number of cached designs.
+*/
+public static int getSize() {
+   synchronized (cache) {
+      return cache.size(); }}
+
+/**
+* Sets the maximum number of cached designs.
+*/
+public static void setMaxSize (int newMaxSize) {
+   if (newMaxSize < 0) {
+      throw new IllegalArgumentException(); }
+   synchronized (cache) {
+      maxSize = newMaxSize;
+      while (cache.size() > maxSize) {                    // evict the least recently used entries
+         CacheKey eldest = cache.keySet().iterator().next();
+         cache.remove(eldest); }}}
+
+/**
+* Removes all cached designs and resets the hit and miss counters.
+*/
+public static void clear() {
+   synchronized (cache) {
+      cache.clear();
+      hitCount = 0;
+      missCount = 0; }}
+
+//--- Cache key ----------------------------------------------------------------
+
+private static class CacheKey {
+   private final DesignMethod designMethod;
+   private final FilterPassType passType;
+   private final FilterCharacteristicsType characteristicsType;
+   private final int         order;
+   private final double      ripple;
+   private final double      stopbandGain;
+   private final double      fcf1;
+   private final double      fcf2;
+   CacheKey (DesignMethod designMethod, FilterPassType passType, FilterCharacteristicsType characteristicsType, int order, double ripple, double stopbandGain, double fcf1, double fcf2) {
+      this.designMethod = designMethod; this.passType = passType; this.characteristicsType = characteristicsType;
+      this.order = order; this.ripple = ripple; this.stopbandGain = stopbandGain; this.fcf1 = fcf1; this.fcf2 = fcf2; }
+   @Override public boolean equals (Object obj) {
+      if (!(obj instanceof CacheKey)) {
+         return false; }
+      CacheKey k = (CacheKey)obj;
+      return designMethod == k.designMethod && passType == k.passType && characteristicsType == k.characteristicsType && order == k.order &&
+             Double.compare(ripple, k.ripple) == 0 && Double.compare(stopbandGain, k.stopbandGain) == 0 &&
+             Double.compare(fcf1, k.fcf1) == 0 && Double.compare(fcf2, k.fcf2) == 0; }
+   @Override public int hashCode() {
+      int h = designMethod.hashCode();
+      h = h * 31 + passType.hashCode();
+      h = h * 31 + characteristicsType.hashCode();
+      h = h * 31 + order;
+      h = h * 31 + Double.valueOf(ripple).hashCode();
+      h = h * 31 + Double.valueOf(stopbandGain).hashCode();
+      h = h * 31 + Double.valueOf(fcf1).hashCode();
+      return h * 31 + Double.valueOf(fcf2).hashCode(); }}
+
+}
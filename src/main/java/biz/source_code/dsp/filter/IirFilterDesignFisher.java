@@ -31,6 +31,8 @@ package biz.source_code.dsp.filter;
 import biz.source_code.dsp.math.Complex;
 import biz.source_code.dsp.math.PolynomialUtils;
 import biz.source_code.dsp.util.ArrayUtils;
+import java.util.ArrayList;
+import java.util.Collections;
 
 /**
 * Calculates the coefficients of an IIR filter.
@@ -56,15 +58,17 @@ private IirFilterDesignFisher() {}
 *
 * @param filterCharacteristicsType
 *    The filter characteristics type.
-*    The following filters are implemented: Butterworth, Chebyshev (type 1), Bessel.
+*    The following filters are implemented: Butterworth, Chebyshev (type 1 and 2), Bessel, elliptic.
 * @param filterOrder
 *    The filter order.
 * @param ripple
-*    Passband ripple in dB. Must be negative. Only used for Chebyshev filter, ignored for other filters.
+*    Passband ripple in dB. Must be negative. Only used for Chebyshev type 1 and elliptic filters, ignored for other filters.
+* @param stopbandGain
+*    Stopband gain in dB. Must be negative. Only used for Chebyshev type 2 and elliptic filters, ignored for other filters.
 * @return
 *    The s-plane poles.
 */
-private static Complex[] getPoles (FilterCharacteristicsType filterCharacteristicsType, int filterOrder, double ripple) {
+private static Complex[] getPoles (FilterCharacteristicsType filterCharacteristicsType, int filterOrder, double ripple, double stopbandGain) {
    switch (filterCharacteristicsType) {
       case bessel: {
          Complex[] poles = BesselFilterDesign.computePoles(filterOrder);
@@ -81,22 +85,67 @@ private static Complex[] getPoles (FilterCharacteristicsType filterCharacteristi
       case chebyshev: {
          if (ripple >= 0.0) {
             throw new IllegalArgumentException("Chebyshev ripple must be negative."); }
-         Complex[] poles = getPoles(FilterCharacteristicsType.butterworth, filterOrder, 0);
-         double rip = Math.pow(10, -ripple / 10);          // ( "/10" is correct here, because we need the square)
-         double eps = Math.sqrt(rip - 1);
-         double y = asinh(1.0 / eps) / filterOrder;
-         if (y <= 0) {
-            throw new AssertionError(); }
-         double sinhY = Math.sinh(y);
-         double coshY = Math.cosh(y);
+         return getChebyshevPoles(filterOrder, ripple); }
+      case chebyshev2: {
+         // The poles are the reciprocals of the Chebyshev type 1 poles for the stopband ripple.
+         // The stopband edge is at the frequency 1.
+         if (!(stopbandGain < 0.0)) {
+            throw new IllegalArgumentException("Chebyshev type 2 stopband gain must be negative."); }
+         double eps = 1 / Math.sqrt(Math.pow(10, -stopbandGain / 10) - 1);
+         Complex[] poles = getChebyshevPoles(filterOrder, -10 * Math.log10(1 + eps * eps));
          for (int i = 0; i < filterOrder; i++) {
-            poles[i] = new Complex(poles[i].re() * sinhY, poles[i].im() * coshY); }
+            poles[i] = poles[i].reciprocal(); }
          return poles; }
+      case elliptic: {
+         checkEllipticParms(ripple, stopbandGain);
+         return EllipticFilterDesign.computePoles(filterOrder, ripple, stopbandGain); }
       default:
          throw new UnsupportedOperationException("Filter characteristics type " + filterCharacteristicsType + " not yet implemented."); }}
 
+private static Complex[] getChebyshevPoles (int filterOrder, double ripple) {
+   Complex[] poles = getPoles(FilterCharacteristicsType.butterworth, filterOrder, 0, 0);
+   double rip = Math.pow(10, -ripple / 10);                // ( "/10" is correct here, because we need the square)
+   double eps = Math.sqrt(rip - 1);
+   double y = asinh(1.0 / eps) / filterOrder;
+   if (y <= 0) {
+      throw new AssertionError(); }
+   double sinhY = Math.sinh(y);
+   double coshY = Math.cosh(y);
+   for (int i = 0; i < filterOrder; i++) {
+      poles[i] = new Complex(poles[i].re() * sinhY, poles[i].im() * coshY); }
+   return poles; }
+
+private static void checkEllipticParms (double ripple, double stopbandGain) {
+   if (!(ripple < 0.0)) {
+      throw new IllegalArgumentException("Elliptic ripple must be negative."); }
+   if (!(stopbandGain < ripple)) {
+      throw new IllegalArgumentException("Elliptic stopband gain must be less than the ripple."); }}
+
+/**
+* Returns the finite s-plane zeros for a prototype LP filter.
+* The remaining zeros (up to the number of poles) are at infinity.
+*
+* @return
+*    The s-plane zeros. Empty for all-pole filters (Butterworth, Chebyshev type 1, Bessel).
+*/
+private static Complex[] getZeros (FilterCharacteristicsType filterCharacteristicsType, int filterOrder, double ripple, double stopbandGain) {
+   switch (filterCharacteristicsType) {
+      case chebyshev2: {
+         // Zeros at +-j / cos(theta). For odd orders, the middle zero is at infinity.
+         Complex[] zeros = new Complex[filterOrder / 2 * 2];
+         for (int i = 0; i < filterOrder / 2; i++) {
+            double theta = (2 * i + 1) * Math.PI / (2 * filterOrder);
+            zeros[2 * i]     = new Complex(0,  1 / Math.cos(theta));
+            zeros[2 * i + 1] = new Complex(0, -1 / Math.cos(theta)); }
+         return zeros; }
+      case elliptic: {
+         checkEllipticParms(ripple, stopbandGain);
+         return EllipticFilterDesign.computeZeros(filterOrder, ripple, stopbandGain); }
+      default: {
+         return new Complex[0]; }}}
+
 /**
-* Transforms the s-plane poles of the prototype filter into the s-plane poles and zeros
+* Transforms the s-plane poles and zeros of the prototype filter into the s-plane poles and zeros
 * for a filter with the specified pass type and cutoff frequencies.
 *
 * <p>
@@ -105,6 +154,8 @@ private static Complex[] getPoles (FilterCharacteristicsType filterCharacteristi
 *
 * @param poles
 *    The s-plane poles of the prototype LP filter.
+* @param zeros
+*    The finite s-plane zeros of the prototype LP filter. The remaining zeros are at infinity.
 * @param filterPassType
 *    The filter pass type (Lowpass, highpass, bandpass, bandstop).
 * @param fcf1
@@ -117,8 +168,9 @@ private static Complex[] getPoles (FilterCharacteristicsType filterCharacteristi
 * @return
 *    The s-plane poles and zeros for the specific filter.
 */
-private static PolesAndZeros normalize (Complex[] poles, FilterPassType filterPassType, double fcf1, double fcf2, boolean preWarp) {
+private static PolesAndZeros normalize (Complex[] poles, Complex[] zeros, FilterPassType filterPassType, double fcf1, double fcf2, boolean preWarp) {
    int n = poles.length;
+   int m = zeros.length;
    boolean fcf2IsRelevant = filterPassType == FilterPassType.bandpass || filterPassType == FilterPassType.bandstop;
    if (fcf1 <= 0 || fcf1 >= 0.5) {
       throw new IllegalArgumentException("Invalid fcf1."); }
@@ -132,14 +184,16 @@ private static PolesAndZeros normalize (Complex[] poles, FilterPassType filterPa
       case lowpass: {
          PolesAndZeros sPlane = new PolesAndZeros();
          sPlane.poles = ArrayUtils.multiply(poles, w1);
-         sPlane.zeros = new Complex[0];                    // no zeros
+         sPlane.zeros = ArrayUtils.multiply(zeros, w1);    // the zeros at infinity remain at infinity
          return sPlane; }
       case highpass: {
          PolesAndZeros sPlane = new PolesAndZeros();
          sPlane.poles = new Complex[n];
          for (int i = 0; i < n; i++) {
             sPlane.poles[i] = Complex.div(w1, poles[i]); }
-         sPlane.zeros = ArrayUtils.zeros(n);               // n zeros at (0, 0)
+         sPlane.zeros = ArrayUtils.zeros(n);               // the zeros at infinity are mapped to (0, 0)
+         for (int i = 0; i < m; i++) {
+            sPlane.zeros[i] = Complex.div(w1, zeros[i]); }
          return sPlane; }
       case bandpass: {
          double w0 = Math.sqrt(w1 * w2);
@@ -151,7 +205,12 @@ private static PolesAndZeros normalize (Complex[] poles, FilterPassType filterPa
             Complex temp = Complex.sub(1, Complex.div(w0, hba).sqr()).sqrt();
             sPlane.poles[i]     = hba.mul(temp.add(1));
             sPlane.poles[n + i] = hba.mul(Complex.sub(1, temp)); }
-         sPlane.zeros = ArrayUtils.zeros(n);               // n zeros at (0, 0)
+         sPlane.zeros = ArrayUtils.zeros(n + m);           // n - m zeros at (0, 0), the others remain at infinity
+         for (int i = 0; i < m; i++) {
+            Complex hba = zeros[i].mul(bw / 2);
+            Complex temp = Complex.sub(1, Complex.div(w0, hba).sqr()).sqrt();
+            sPlane.zeros[i]     = hba.mul(temp.add(1));
+            sPlane.zeros[m + i] = hba.mul(Complex.sub(1, temp)); }
          return sPlane; }
      case bandstop: {
          double w0 = Math.sqrt(w1 * w2);
@@ -164,8 +223,13 @@ private static PolesAndZeros normalize (Complex[] poles, FilterPassType filterPa
             sPlane.poles[i]     = hba.mul(temp.add(1));
             sPlane.poles[n + i] = hba.mul(Complex.sub(1, temp)); }
          sPlane.zeros = new Complex[2 * n];
-         for (int i = 0; i < n; i++) {                     // 2n zeros at (0, +-w0)
-            sPlane.zeros[i]     = new Complex(0,  w0);
+         for (int i = 0; i < m; i++) {
+            Complex hba = Complex.div(bw / 2, zeros[i]);
+            Complex temp = Complex.sub(1, Complex.div(w0, hba).sqr()).sqrt();
+            sPlane.zeros[i]     = hba.mul(temp.add(1));
+            sPlane.zeros[m + i] = hba.mul(Complex.sub(1, temp)); }
+         for (int i = m; i < n; i++) {                     // the zeros at infinity are mapped to (0, +-w0)
+            sPlane.zeros[m + i] = new Complex(0,  w0);
             sPlane.zeros[n + i] = new Complex(0, -w0); }
          return sPlane; }
       default:
@@ -306,6 +370,34 @@ private static IirFilterCoefficients computeIirFilterCoefficients (PolynomialUti
    coeffs.b = ArrayUtils.divide(tf.top, scale);
    return coeffs; }
 
+/**
+* Designs an IIR filter and returns the IIR filter coefficients.
+*
+* <p>
+* This method cannot be used for Chebyshev type 2 and elliptic filters, because they need the stopband gain.
+* See {@link #design(FilterPassType, FilterCharacteristicsType, int, double, double, double, double)}
+* for a description of the parameters.
+*
+* @param filterPassType
+*    The filter pass type (Lowpass, highpass, bandpass, bandstop).
+* @param filterCharacteristicsType
+*    The filter characteristics type.
+*    The following filters are implemented: Butterworth, Chebyshev (type 1), Bessel.
+* @param filterOrder
+*    The filter order.
+* @param ripple
+*    Passband ripple in dB. Must be negative. Only used for Chebyshev filter, ignored for other filters.
+* @param fcf1
+*    The relative filter cutoff frequency for lowpass/highpass, lower cutoff frequency for bandpass/bandstop.
+* @param fcf2
+*    Ignored for lowpass/highpass, the relative upper cutoff frequency for bandpass/bandstop,
+* @return
+*    The IIR filter coefficients.
+*/
+public static IirFilterCoefficients design (FilterPassType filterPassType, FilterCharacteristicsType filterCharacteristicsType,
+      int filterOrder, double ripple, double fcf1, double fcf2) {
+   return design(filterPassType, filterCharacteristicsType, filterOrder, ripple, Double.NaN, fcf1, fcf2); }
+
 /**
 * Designs an IIR filter and returns the IIR filter coefficients.
 *
@@ -318,15 +410,26 @@ private static IirFilterCoefficients computeIirFilterCoefficients (PolynomialUti
 * <p>
 * For Bessel filters, matched Z-transform is used to design the filter.
 *
+* <p>
+* For Chebyshev type 1 and elliptic filters, the cutoff frequency is the passband edge, where the gain falls below the ripple.
+* For Chebyshev type 2 filters, it is the stopband edge, where the gain reaches the stopband gain.
+* Elliptic filters reach the stopband gain at a frequency which depends on the filter order, see
+* {@link EllipticFilterDesign#computeSelectivity}.
+* Chebyshev type 2 and elliptic filters have finite zeros and reach a given stopband attenuation
+* with a lower filter order than the other filter types.
+*
 * @param filterPassType
 *    The filter pass type (Lowpass, highpass, bandpass, bandstop).
 * @param filterCharacteristicsType
 *    The filter characteristics type.
-*    The following filters are implemented: Butterworth, Chebyshev (type 1), Bessel.
+*    The following filters are implemented: Butterworth, Chebyshev (type 1 and 2), Bessel, elliptic.
 * @param filterOrder
 *    The filter order.
 * @param ripple
-*    Passband ripple in dB. Must be negative. Only used for Chebyshev filter, ignored for other filters.
+*    Passband ripple in dB. Must be negative. Only used for Chebyshev type 1 and elliptic filters, ignored for other filters.
+* @param stopbandGain
+*    Stopband gain in dB. Must be negative (and less than <code>ripple</code> for elliptic filters).
+*    Only used for Chebyshev type 2 and elliptic filters, ignored for other filters.
 * @param fcf1
 *    The relative filter cutoff frequency for lowpass/highpass, lower cutoff frequency for bandpass/bandstop.
 *    This value is relative to the sampling rate (see above for more details).
@@ -337,13 +440,8 @@ private static IirFilterCoefficients computeIirFilterCoefficients (PolynomialUti
 *    The IIR filter coefficients.
 */
 public static IirFilterCoefficients design (FilterPassType filterPassType, FilterCharacteristicsType filterCharacteristicsType,
-      int filterOrder, double ripple, double fcf1, double fcf2) {
-   Complex[] poles = getPoles(filterCharacteristicsType, filterOrder, ripple);
-   SToZMappingMethod sToZMappingMethod = (filterCharacteristicsType == FilterCharacteristicsType.bessel) ? SToZMappingMethod.matchedZTransform : SToZMappingMethod.bilinearTransform;
-   boolean preWarp = sToZMappingMethod == SToZMappingMethod.bilinearTransform;
-   PolesAndZeros sPlane = normalize(poles, filterPassType, fcf1, fcf2, preWarp);
-   // System.out.println(ArrayUtils.toString(sPlane.poles));
-   PolesAndZeros zPlane = MapSPlaneToZPlane(sPlane, sToZMappingMethod);
+      int filterOrder, double ripple, double stopbandGain, double fcf1, double fcf2) {
+   PolesAndZeros zPlane = computeZPlanePolesAndZeros(filterPassType, filterCharacteristicsType, filterOrder, ripple, stopbandGain, fcf1, fcf2);
    // System.out.println(ArrayUtils.toString(zPlane.zeros));
    // System.out.println(ArrayUtils.toString(zPlane.poles));
    PolynomialUtils.RationalFraction tf = computeTransferFunction(zPlane);
@@ -355,6 +453,177 @@ public static IirFilterCoefficients design (FilterPassType filterPassType, Filte
    coeffs.b = ArrayUtils.divide(coeffs.b, gain);           // gain normalization
    return coeffs; }
 
+/**
+* Designs an IIR filter and returns the coefficients as cascaded second-order sections.
+* This method cannot be used for Chebyshev type 2 and elliptic filters, see
+* {@link #designSos(FilterPassType, FilterCharacteristicsType, int, double, double, double, double)}.
+*/
+public static SosFilterCoefficients designSos (FilterPassType filterPassType, FilterCharacteristicsType filterCharacteristicsType,
+      int filterOrder, double ripple, double fcf1, double fcf2) {
+   return designSos(filterPassType, filterCharacteristicsType, filterOrder, ripple, Double.NaN, fcf1, fcf2); }
+
+/**
+* Designs an IIR filter and returns the coefficients as cascaded second-order sections.
+*
+* <p>
+* The z-plane poles and zeros are grouped into sections directly, without expanding them into polynomials.
+* This avoids the loss of precision of the polynomial coefficients, which limits the usable filter order
+* of {@link #design}.
+*
+* <p>
+* Each complex pole pair is combined with the nearest zeros, beginning with the poles closest to the unit circle.
+* The sections are ordered so that the section with the poles closest to the unit circle (the highest Q factor) comes last.
+* The gain of each section is normalized to 1 at the reference frequency, which is the same as for {@link #design}
+* (DC for lowpass, the Nyquist frequency for highpass, the center frequency for bandpass,
+* the geometric mean of the DC and Nyquist gains for bandstop).
+*
+* <p>
+* The parameters are the same as for
+* {@link #design(FilterPassType, FilterCharacteristicsType, int, double, double, double, double)}.
+*
+* @return
+*    The coefficients of the second-order sections.
+*/
+public static SosFilterCoefficients designSos (FilterPassType filterPassType, FilterCharacteristicsType filterCharacteristicsType,
+      int filterOrder, double ripple, double stopbandGain, double fcf1, double fcf2) {
+   PolesAndZeros zPlane = computeZPlanePolesAndZeros(filterPassType, filterCharacteristicsType, filterOrder, ripple, stopbandGain, fcf1, fcf2);
+   return computeSosCoefficients(zPlane, filterPassType, fcf1, fcf2); }
+
+private static PolesAndZeros computeZPlanePolesAndZeros (FilterPassType filterPassType, FilterCharacteristicsType filterCharacteristicsType,
+      int filterOrder, double ripple, double stopbandGain, double fcf1, double fcf2) {
+   Complex[] poles = getPoles(filterCharacteristicsType, filterOrder, ripple, stopbandGain);
+   Complex[] zeros = getZeros(filterCharacteristicsType, filterOrder, ripple, stopbandGain);
+   SToZMappingMethod sToZMappingMethod = (filterCharacteristicsType == FilterCharacteristicsType.bessel) ? SToZMappingMethod.matchedZTransform : SToZMappingMethod.bilinearTransform;
+   boolean preWarp = sToZMappingMethod == SToZMappingMethod.bilinearTransform;
+   PolesAndZeros sPlane = normalize(poles, zeros, filterPassType, fcf1, fcf2, preWarp);
+   // System.out.println(ArrayUtils.toString(sPlane.poles));
+   return MapSPlaneToZPlane(sPlane, sToZMappingMethod); }
+
+//--- Second-order sections ----------------------------------------------------
+
+/**
+* Groups the z-plane poles and zeros into second-order sections.
+*
+* @param zPlane
+*    The poles and zeros of the z-plane. Complex poles and zeros must occur in conjugate pairs.
+* @return
+*    The coefficients of the sections.
+*/
+private static SosFilterCoefficients computeSosCoefficients (PolesAndZeros zPlane, FilterPassType filterPassType, double fcf1, double fcf2) {
+   ArrayList<Complex> complexPoles = new ArrayList<Complex>();       // poles with positive imaginary part
+   ArrayList<Complex> realPoles = new ArrayList<Complex>();
+   ArrayList<Complex> complexZeros = new ArrayList<Complex>();
+   ArrayList<Complex> realZeros = new ArrayList<Complex>();
+   splitRoots(zPlane.poles, complexPoles, realPoles);
+   splitRoots(zPlane.zeros, complexZeros, realZeros);
+   ArrayList<double[]> sections = new ArrayList<double[]>();
+   while (!complexPoles.isEmpty() || !realPoles.isEmpty()) {
+      // Select the pole closest to the unit circle. A single remaining real pole is processed last.
+      Complex p = findClosestToUnitCircle(complexPoles);
+      Complex pr = (realPoles.size() >= 2) ? findClosestToUnitCircle(realPoles) : null;
+      if (p == null || (pr != null && unitCircleDistance(pr) < unitCircleDistance(p))) {
+         p = (pr != null) ? pr : realPoles.get(0); }
+      double[] a;
+      int zeroCapacity;
+      if (p.im() != 0) {
+         complexPoles.remove(p);
+         a = new double[]{1, -2 * p.re(), p.re() * p.re() + p.im() * p.im()};
+         zeroCapacity = 2; }
+       else {
+         realPoles.remove(p);
+         if (realPoles.isEmpty()) {
+            a = new double[]{1, -p.re(), 0};
+            zeroCapacity = 1; }
+          else {
+            Complex p2 = findClosestToUnitCircle(realPoles);
+            realPoles.remove(p2);
+            a = new double[]{1, -(p.re() + p2.re()), p.re() * p2.re()};
+            zeroCapacity = 2; }}
+      // Select the zeros nearest to the pole.
+      double[] b = {1, 0, 0};
+      Complex z = findNearest(zeroCapacity == 2 ? complexZeros : null, realZeros, p);
+      if (z != null && z.im() != 0) {
+         complexZeros.remove(z);
+         b = new double[]{1, -2 * z.re(), z.re() * z.re() + z.im() * z.im()}; }
+       else if (z != null) {
+         realZeros.remove(z);
+         Complex z2 = (zeroCapacity == 2) ? findNearest(null, realZeros, p) : null;
+         if (z2 != null) {
+            realZeros.remove(z2);
+            b = new double[]{1, -(z.re() + z2.re()), z.re() * z2.re()}; }
+          else {
+            b = new double[]{1, -z.re(), 0}; }}
+      double gain = computeSectionGain(b, a, filterPassType, fcf1, fcf2);
+      sections.add(new double[]{b[0] / gain, b[1] / gain, b[2] / gain, a[0], a[1], a[2]}); }
+   if (!complexZeros.isEmpty() || !realZeros.isEmpty()) {
+      throw new RuntimeException("The zeros could not be assigned to second-order sections."); }
+   Collections.reverse(sections);                          // highest Q factor last
+   SosFilterCoefficients sosCoeffs = new SosFilterCoefficients();
+   sosCoeffs.sections = sections.toArray(new double[sections.size()][]);
+   return sosCoeffs; }
+
+// Splits the roots into the roots with a positive imaginary part and the real roots.
+// The complex conjugates of the complex roots are verified and skipped.
+private static void splitRoots (Complex[] roots, ArrayList<Complex> complexRoots, ArrayList<Complex> realRoots) {
+   final double eps = 1E-10;
+   int negativeCount = 0;
+   for (Complex r : roots) {
+      if (r.im() > eps) {
+         complexRoots.add(r); }
+       else if (r.im() < -eps) {
+         negativeCount++; }
+       else {
+         realRoots.add(new Complex(r.re())); }}
+   if (negativeCount != complexRoots.size()) {
+      throw new RuntimeException("Complex poles and zeros are not conjugate pairs."); }}
+
+private static double unitCircleDistance (Complex x) {
+   return Math.abs(1 - x.abs()); }
+
+private static Complex findClosestToUnitCircle (ArrayList<Complex> a) {
+   Complex best = null;
+   for (Complex x : a) {
+      if (best == null || unitCircleDistance(x) < unitCircleDistance(best)) {
+         best = x; }}
+   return best; }
+
+// Returns the root nearest to p, from the real roots and optionally from the complex roots.
+private static Complex findNearest (ArrayList<Complex> complexRoots, ArrayList<Complex> realRoots, Complex p) {
+   Complex best = findNearest(realRoots, p);
+   if (complexRoots != null) {
+      Complex c = findNearest(complexRoots, p);
+      if (c != null && (best == null || c.sub(p).abs() < best.sub(p).abs())) {
+         best = c; }}
+   return best; }
+
+private static Complex findNearest (ArrayList<Complex> a, Complex p) {
+   Complex best = null;
+   for (Complex x : a) {
+      if (best == null || x.sub(p).abs() < best.sub(p).abs()) {
+         best = x; }}
+   return best; }
+
+// Computes the gain of a section at the reference frequency of the filter pass type.
+// Also used by SosFilterCoefficientGrid.
+static double computeSectionGain (double[] b, double[] a, FilterPassType filterPassType, double fcf1, double fcf2) {
+   switch (filterPassType) {
+      case lowpass: {
+         return computeSectionGainAt(b, a, 0); }
+      case highpass: {
+         return computeSectionGainAt(b, a, 0.5); }
+      case bandpass: {
+         return computeSectionGainAt(b, a, (fcf1 + fcf2) / 2); }
+      case bandstop: {
+         return Math.sqrt(computeSectionGainAt(b, a, 0) * computeSectionGainAt(b, a, 0.5)); }
+      default: {
+         throw new RuntimeException("Unsupported filter pass type."); }}}
+
+private static double computeSectionGainAt (double[] b, double[] a, double f) {
+   Complex u = Complex.expj(-2 * Math.PI * f);             // z^-1
+   Complex vb = u.mul(b[2]).add(b[1]).mul(u).add(b[0]);
+   Complex va = u.mul(a[2]).add(a[1]).mul(u).add(a[0]);
+   return vb.abs() / va.abs(); }
+
 private static double asinh (double x) {
    return Math.log(x + Math.sqrt(1 + x * x)); }
 
@@ -0,0 +1,281 @@
+// Copyright 2015 Christian d'Heureuse, Inventec Informatik AG, Zurich, Switzerland
+// www.source-code.biz, www.inventec.ch/chdh
+//
+// This module is multi-licensed and may be used under the terms
+// of any of the following licenses:
+//
+//  EPL, Eclipse Public License, V1.0 or later, http://www.eclipse.org/legal
+//  LGPL, GNU Lesser General Public License, V2.1 or later, http://www.gnu.org/licenses/lgpl.html
+//
+// Please contact the author if you need another license.
+// This module is provided "as is", without warranties of any kind.
+
+package biz.source_code.dsp.filter;
+
+import biz.source_code.dsp.math.ComplexArray;
+import biz.source_code.dsp.transform.Fft;
+
+/**
+* Computes the frequency response of IIR filters on a fixed grid of frequencies.
+*
+* <p>The transfer function
+* <pre>
+*    H(z) = (b[0] + b[1] * z^-1 + b[2] * z^-2 + ...) / (a[0] + a[1] * z^-1 + a[2] * z^-2 + ...)
+* </pre>
+* is evaluated at <code>z = exp(j * 2 * PI * f)</code> for all frequencies <code>f</code> of the grid.
+* Two kinds of grids are supported:
+* <ul>
+* <li>A uniform grid from 0 to 0.5. Polynomials with many coefficients are evaluated
+*     by zero-padded FFTs of the coefficients.
+* <li>An arbitrary grid, e.g. with logarithmically spaced frequencies.
+* </ul>
+* All other polynomials are evaluated with the Horner scheme, using precomputed values of <code>exp(-j * 2 * PI * f)</code>.
+* For polynomials with less than about <code>2 * log2(fftSize)</code> coefficients, this is faster than an FFT.
+*
+* <p>The grid and the work buffers are allocated once, so the response of any number of filters can be
+* computed without allocating memory. An object of this class must not be used by multiple threads concurrently.
+*
+* <p>
+* Reference: <a href="http://en.wikipedia.org/wiki/Group_delay_and_phase_delay">Wikipedia</a>.
+*/
+public class IirFilterFrequencyResponse {
+
+private static final int     minFftLengthFactor = 2;       // the FFT is used for at least factor * log2(fftSize) coefficients
+
+private final int            pointCount;
+private final double[]       frequencies;                  // relative frequencies of the grid
+private final Fft            fft;                          // FFT for the uniform grid, or null for an arbitrary grid
+private final double[]       fftBuf;
+private final int            fftMinLength;                 // minimum number of coefficients for which the FFT is used
+private final double[]       uRe;                          // u = exp(-j * 2 * PI * f)
+private final double[]       uIm;
+private final double[]       bRe;                          // B(u)
+private final double[]       bIm;
+private final double[]       bdRe;                         // u * B'(u)
+private final double[]       bdIm;
+private final double[]       aRe;                          // A(u)
+private final double[]       aIm;
+private final double[]       adRe;                         // u * A'(u)
+private final double[]       adIm;
+
+/**
+* Creates a frequency response evaluator for a uniform grid.
+* The grid contains the <code>fftSize / 2 + 1</code> relative frequencies <code>k / fftSize</code>,
+* from 0 to 0.5.
+*
+* @param fftSize
+*    The FFT size. Must be a power of 2 and at least 2.
+*    Filters with more coefficients can be used, their coefficients are folded modulo <code>fftSize</code>.
+*/
+public IirFilterFrequencyResponse (int fftSize) {
+   if (fftSize < 2 || !Fft.isPowerOf2(fftSize)) {
+      throw new IllegalArgumentException("Invalid FFT size " + fftSize + "."); }
+   pointCount = fftSize / 2 + 1;
+   frequencies = new double[pointCount];
+   for (int i = 0; i < pointCount; i++) {
+      frequencies[i] = (double)i / fftSize; }
+   fft = Fft.getInstance(fftSize);
+   fftBuf = new double[fftSize];
+   fftMinLength = minFftLengthFactor * Integer.numberOfTrailingZeros(fftSize);
+   uRe = new double[pointCount];
+   uIm = new double[pointCount];
+   computeUTable();
+   bRe = new double[pointCount]; bIm = new double[pointCount]; bdRe = new double[pointCount]; bdIm = new double[pointCount];
+   aRe = new double[pointCount]; aIm = new double[pointCount]; adRe = new double[pointCount]; adIm = new double[pointCount]; }
+
+/**
+* Creates a frequency response evaluator for an arbitrary grid.
+*
+* @param frequencies
+*    The frequencies of the grid, relative to the sampling rate (normally between 0 and 0.5).
+*/
+public IirFilterFrequencyResponse (double[] frequencies) {
+   pointCount = frequencies.length;
+   this.frequencies = frequencies.clone();
+   fft = null;
+   fftBuf = null;
+   fftMinLength = Integer.MAX_VALUE;
+   uRe = new double[pointCount];
+   uIm = new double[pointCount];
+   computeUTable();
+   bRe = new double[pointCount]; bIm = new double[pointCount]; bdRe = new double[pointCount]; bdIm = new double[pointCount];
+   aRe = new double[pointCount]; aIm = new double[pointCount]; adRe = new double[pointCount]; adIm = new double[pointCount]; }
+
+private void computeUTable() {
+   for (int i = 0; i < pointCount; i++) {
+      double w = 2 * Math.PI * frequencies[i];
+      uRe[i] = Math.cos(w);
+      uIm[i] = -Math.sin(w); }}
+
+/**
+* Creates a frequency response evaluator for a logarithmic grid.
+*
+* @param minFrequency
+*    The first frequency of the grid, relative to the sampling rate. Must be above 0.
+* @param maxFrequency
+*    The last frequency of the grid, relative to the sampling rate.
+* @param pointCount
+*    The number of frequencies. Must be at least 2.
+*/
+public static IirFilterFrequencyResponse createLogarithmic (double minFrequency, double maxFrequency, int pointCount) {
+   if (!(minFrequency > 0) || !(maxFrequency > minFrequency) || pointCount < 2) {
+      throw new IllegalArgumentException(); }
+   double[] frequencies = new double[pointCount];
+   double r = Math.log(maxFrequency / minFrequency);
+   for (int i = 0; i < pointCount; i++) {
+      frequencies[i] = minFrequency * Math.exp(r * i / (pointCount - 1)); }
+   return new IirFilterFrequencyResponse(frequencies); }
+
+/**
+* Returns the number of frequencies of the grid.
+*/
+public int getPointCount() {
+   return pointCount; }
+
+/**
+* Returns a frequency of the grid, relative to the sampling rate.
+*/
+public double getFrequency (int i) {
+   return frequencies[i]; }
+
+/**
+* Computes the complex frequency response.
+*
+* @param coeffs
+*    The IIR filter coefficients.
+* @param out
+*    Receives the values of <code>H</code> for the frequencies of the grid.
+*    Must have the length <code>getPointCount()</code>.
+*/
+public void computeResponse (IirFilterCoefficients coeffs, ComplexArray out) {
+   if (out.length() != pointCount) {
+      throw new IllegalArgumentException("Wrong output array length."); }
+   evaluate(coeffs, false);
+   for (int i = 0; i < pointCount; i++) {
+      double m = aRe[i] * aRe[i] + aIm[i] * aIm[i];
+      out.re[i] = (bRe[i] * aRe[i] + bIm[i] * aIm[i]) / m;
+      out.im[i] = (bIm[i] * aRe[i] - bRe[i] * aIm[i]) / m; }}
+
+/**
+* Computes the magnitude response (linear gain).
+*
+* @param coeffs
+*    The IIR filter coefficients.
+* @param out
+*    Receives the gain values for the frequencies of the grid.
+*/
+public void computeMagnitudes (IirFilterCoefficients coeffs, double[] out) {
+   checkLength(out);
+   evaluate(coeffs, false);
+   for (int i = 0; i < pointCount; i++) {
+      out[i] = Math.sqrt((bRe[i] * bRe[i] + bIm[i] * bIm[i]) / (aRe[i] * aRe[i] + aIm[i] * aIm[i])); }}
+
+/**
+* Computes the phase response.
+*
+* @param coeffs
+*    The IIR filter coefficients.
+* @param out
+*    Receives the phase values in radians, in the range -PI to PI, for the frequencies of the grid.
+*/
+public void computePhases (IirFilterCoefficients coeffs, double[] out) {
+   checkLength(out);
+   evaluate(coeffs, false);
+   for (int i = 0; i < pointCount; i++) {
+      double re = bRe[i] * aRe[i] + bIm[i] * aIm[i];       // B * conj(A) has the same phase as B / A
+      double im = bIm[i] * aRe[i] - bRe[i] * aIm[i];
+      out[i] = Math.atan2(im, re); }}
+
+/**
+* Computes the group delay.
+*
+* <p>The group delay is computed analytically, as <code>Re(u * B'(u) / B(u)) - Re(u * A'(u) / A(u))</code>
+* with <code>u = exp(-j * 2 * PI * f)</code>. It is undefined at zeros of <code>B</code> on the unit circle.
+*
+* @param coeffs
+*    The IIR filter coefficients.
+* @param out
+*    Receives the group delay values in samples, for the frequencies of the grid.
+*/
+public void computeGroupDelays (IirFilterCoefficients coeffs, double[] out) {
+   checkLength(out);
+   evaluate(coeffs, true);
+   for (int i = 0; i < pointCount; i++) {
+      double tb = (bdRe[i] * bRe[i] + bdIm[i] * bIm[i]) / (bRe[i] * bRe[i] + bIm[i] * bIm[i]);
+      double ta = (adRe[i] * aRe[i] + adIm[i] * aIm[i]) / (aRe[i] * aRe[i] + aIm[i] * aIm[i]);
+      out[i] = tb - ta; }}
+
+private void checkLength (double[] out) {
+   if (out.length != pointCount) {
+      throw new IllegalArgumentException("Wrong output array length."); }}
+
+// Evaluates the numerator and denominator polynomials, and optionally u times their derivatives.
+private void evaluate (IirFilterCoefficients coeffs, boolean derivatives) {
+   evaluate(coeffs.b, derivatives, bRe, bIm, bdRe, bdIm);
+   evaluate(coeffs.a, derivatives, aRe, aIm, adRe, adIm); }
+
+private void evaluate (double[] c, boolean derivative, double[] re, double[] im, double[] dRe, double[] dIm) {
+   if (c.length >= fftMinLength) {
+      evaluateFft(c, false, re, im);
+      if (derivative) {
+         evaluateFft(c, true, dRe, dIm); }}
+    else if (derivative) {
+      evaluateHornerDerivative(c, re, im, dRe, dIm); }
+    else {
+      evaluateHorner(c, re, im); }}
+
+// Computes C(u) = sum(c[k] * u^k), or u * C'(u) = sum(k * c[k] * u^k), for the uniform grid.
+private void evaluateFft (double[] c, boolean derivative, double[] re, double[] im) {
+   int n = fftBuf.length;
+   for (int i = 0; i < n; i++) {
+      fftBuf[i] = 0; }
+   for (int k = 0; k < c.length; k++) {                    // coefficients beyond the FFT size are folded
+      fftBuf[k & (n - 1)] += derivative ? k * c[k] : c[k]; }
+   fft.realForward(fftBuf);
+   re[0] = fftBuf[0];
+   im[0] = 0;
+   re[n / 2] = fftBuf[1];
+   im[n / 2] = 0;
+   for (int i = 1; i < n / 2; i++) {
+      re[i] = fftBuf[2 * i];
+      im[i] = fftBuf[2 * i + 1]; }}
+
+// Computes C(u) = sum(c[k] * u^k) for the arbitrary grid.
+private void evaluateHorner (double[] c, double[] re, double[] im) {
+   int m = c.length - 1;
+   for (int i = 0; i < pointCount; i++) {
+      double ur = uRe[i];
+      double ui = uIm[i];
+      double sr = c[m];
+      double si = 0;
+      for (int k = m - 1; k >= 0; k--) {
+         double t = sr * ur - si * ui + c[k];
+         si = sr * ui + si * ur;
+         sr = t; }
+      re[i] = sr;
+      im[i] = si; }}
+
+// Computes C(u) and u * C'(u) for the arbitrary grid.
+private void evaluateHornerDerivative (double[] c, double[] re, double[] im, double[] dRe, double[] dIm) {
+   int m = c.length - 1;
+   for (int i = 0; i < pointCount; i++) {
+      double ur = uRe[i];
+      double ui = uIm[i];
+      double sr = c[m];
+      double si = 0;
+      double dr = 0;
+      double di = 0;
+      for (int k = m - 1; k >= 0; k--) {
+         double t;
+         t  = dr * ur - di * ui + sr;                      // d = d * u + s
+         di = dr * ui + di * ur + si;
+         dr = t;
+         t  = sr * ur - si * ui + c[k];                    // s = s * u + c[k]
+         si = sr * ui + si * ur;
+         sr = t; }
+      re[i] = sr;
+      im[i] = si;
+      dRe[i] = dr * ur - di * ui;                          // u * C'(u)
+      dIm[i] = dr * ui + di * ur; }}
+
+}
@@ -0,0 +1,248 @@
+// Copyright 2015 Christian d'Heureuse, Inventec Informatik AG, Zurich, Switzerland
+// www.source-code.biz, www.inventec.ch/chdh
+//
+// This module is multi-licensed and may be used under the terms
+// of any of the following licenses:
+//
+//  EPL, Eclipse Public License, V1.0 or later, http://www.eclipse.org/legal
+//  LGPL, GNU Lesser General Public License, V2.1 or later, http://www.gnu.org/licenses/lgpl.html
+//
+// Please contact the author if you need another license.
+// This module is provided "as is", without warranties of any kind.
+
+package biz.source_code.dsp.filter;
+
+/**
+* Designs IIR filters with the minimum order from passband and stopband specifications.
+*
+* <p>
+* The specification consists of the passband edges, the stopband edges, the maximum passband ripple
+* and the minimum stopband attenuation. The minimum filter order is computed with the closed-form
+* order formulas of the analog prototypes, after pre-warping the edge frequencies for the bilinear transform.
+* The filters are then designed with {@link IirFilterDesignFisher}.
+*
+* <p>
+* All frequencies are relative to the sampling rate and must be between 0 and 0.5.
+* The gains are in dB and relative to the maximum passband gain.
+* The edge frequencies must be ordered as follows:
+* <pre>
+*    lowpass:   fPass1 &lt; fStop1
+*    highpass:  fStop1 &lt; fPass1
+*    bandpass:  fStop1 &lt; fPass1 &lt; fPass2 &lt; fStop2
+*    bandstop:  fPass1 &lt; fStop1 &lt; fStop2 &lt; fPass2
+* </pre>
+* <code>fPass2</code> and <code>fStop2</code> are ignored for lowpass and highpass filters.
+*
+* <p>
+* Bessel filters are not supported, because their magnitude response is not specified by a passband ripple.
+*/
+public class IirFilterSpecDesign {
+
+/**
+* The result of a design.
+*/
+public static class Result {
+   /** The filter characteristics type. */
+   public FilterCharacteristicsType filterCharacteristicsType;
+   /** The order of the analog prototype filter, as passed to <code>IirFilterDesignFisher.design()</code>. */
+   public int                filterOrder;
+   /** The first cutoff frequency passed to <code>IirFilterDesignFisher.design()</code>. */
+   public double             fcf1;
+   /** The second cutoff frequency passed to <code>IirFilterDesignFisher.design()</code>. */
+   public double             fcf2;
+   /** The IIR filter coefficients. */
+   public IirFilterCoefficients coeffs;
+   /** The number of multiplications per sample of an {@link IirFilter} with these coefficients. */
+   public int                multiplicationsPerSample; }
+
+// The order of preference when several types have the same cost.
+private static final FilterCharacteristicsType[] selectableTypes = {
+   FilterCharacteristicsType.butterworth, FilterCharacteristicsType.chebyshev,
+   FilterCharacteristicsType.chebyshev2, FilterCharacteristicsType.elliptic };
+
+// Dummy constructor to suppress Javadoc.
+private IirFilterSpecDesign() {}
+
+/**
+* Designs the filter with the lowest cost that meets a specification.
+*
+* <p>
+* The minimum order is computed for the Butterworth, Chebyshev (type 1 and 2) and elliptic filter types
+* and the type with the lowest number of multiplications per sample is selected.
+* When several types have the same cost, the first type of this list is selected, because it has
+* the smoother magnitude response.
+*
+* @param filterPassType
+*    The filter pass type (Lowpass, highpass, bandpass, bandstop).
+* @param fPass1
+*    The (lower) passband edge frequency.
+* @param fPass2
+*    The upper passband edge frequency for bandpass/bandstop.
+* @param fStop1
+*    The (lower) stopband edge frequency.
+* @param fStop2
+*    The upper stopband edge frequency for bandpass/bandstop.
+* @param ripple
+*    The maximum passband ripple in dB. Must be negative.
+* @param stopbandGain
+*    The maximum stopband gain in dB. Must be less than <code>ripple</code>.
+* @return
+*    The filter design.
+*/
+public static Result design (FilterPassType filterPassType, double fPass1, double fPass2, double fStop1, double fStop2,
+      double ripple, double stopbandGain) {
+   FilterCharacteristicsType bestType = null;
+   int bestCost = Integer.MAX_VALUE;
+   for (FilterCharacteristicsType filterCharacteristicsType : selectableTypes) {
+      int order = computeMinOrder(filterCharacteristicsType, filterPassType, fPass1, fPass2, fStop1, fStop2, ripple, stopbandGain);
+      int cost = computeMultiplicationsPerSample(filterPassType, order);
+      if (cost < bestCost) {
+         bestType = filterCharacteristicsType;
+         bestCost = cost; }}
+   return design(bestType, filterPassType, fPass1, fPass2, fStop1, fStop2, ripple, stopbandGain); }
+
+/**
+* Designs a filter of a given type with the minimum order that meets a specification.
+*
+* <p>
+* The cutoff frequencies are chosen so that the passband edges are met exactly.
+* The surplus of the integer filter order is used to improve the stopband.
+* The parameters are the same as for {@link #design(FilterPassType, double, double, double, double, double, double)}.
+*
+* @param filterCharacteristicsType
+*    The filter characteristics type. Bessel filters are not supported.
+* @return
+*    The filter design.
+*/
+public static Result design (FilterCharacteristicsType filterCharacteristicsType, FilterPassType filterPassType,
+      double fPass1, double fPass2, double fStop1, double fStop2, double ripple, double stopbandGain) {
+   int order = computeMinOrder(filterCharacteristicsType, filterPassType, fPass1, fPass2, fStop1, fStop2, ripple, stopbandGain);
+   double scale = computeCutoffScale(filterCharacteristicsType, order, ripple, stopbandGain);
+   double wp1 = warp(fPass1);
+   double wp2 = warp(fPass2);
+   Result r = new Result();
+   r.filterCharacteristicsType = filterCharacteristicsType;
+   r.filterOrder = order;
+   switch (filterPassType) {
+      case lowpass: {
+         r.fcf1 = unwarp(wp1 * scale);
+         break; }
+      case highpass: {
+         r.fcf1 = unwarp(wp1 / scale);
+         break; }
+      case bandpass: {                                     // prototype frequency (w^2 - w0^2) / (w * bw) = +/- scale
+         double bw = (wp2 - wp1) * scale;
+         double w2 = (bw + Math.sqrt(bw * bw + 4 * wp1 * wp2)) / 2;
+         r.fcf1 = unwarp(wp1 * wp2 / w2);
+         r.fcf2 = unwarp(w2);
+         break; }
+      case bandstop: {                                     // prototype frequency w * bw / (w0^2 - w^2) = +/- scale
+         double bw = (wp2 - wp1) / scale;
+         double w1 = (-bw + Math.sqrt(bw * bw + 4 * wp1 * wp2)) / 2;
+         r.fcf1 = unwarp(w1);
+         r.fcf2 = unwarp(wp1 * wp2 / w1);
+         break; }
+      default: {
+         throw new RuntimeException("Unsupported filter pass type."); }}
+   r.coeffs = IirFilterDesignFisher.design(filterPassType, filterCharacteristicsType, order, ripple, stopbandGain, r.fcf1, r.fcf2);
+   r.multiplicationsPerSample = r.coeffs.b.length + r.coeffs.a.length - 1;
+   return r; }
+
+/**
+* Returns the minimum order of the analog prototype filter that meets a specification.
+* The parameters are the same as for {@link #design(FilterCharacteristicsType, FilterPassType, double, double, double, double, double, double)}.
+*/
+public static int computeMinOrder (FilterCharacteristicsType filterCharacteristicsType, FilterPassType filterPassType,
+      double fPass1, double fPass2, double fStop1, double fStop2, double ripple, double stopbandGain) {
+   if (!(ripple < 0 && stopbandGain < ripple)) {
+      throw new IllegalArgumentException("Invalid ripple or stopband gain."); }
+   double sel = computeSelectivity(filterPassType, fPass1, fPass2, fStop1, fStop2);
+   double d = computeEpsilon(stopbandGain) / computeEpsilon(ripple);     // discrimination
+   double n;
+   switch (filterCharacteristicsType) {
+      case butterworth: {
+         n = Math.log(d) / Math.log(sel);
+         break; }
+      case chebyshev: case chebyshev2: {
+         n = acosh(d) / acosh(sel);
+         break; }
+      case elliptic: {
+         return EllipticFilterDesign.computeMinOrder(1 / sel, ripple, stopbandGain); }
+      default: {
+         throw new IllegalArgumentException("Filter characteristics type " + filterCharacteristicsType + " is not supported."); }}
+   return Math.max(1, (int)Math.ceil(n - 1E-9)); }
+
+/**
+* Returns the number of multiplications per sample of an {@link IirFilter} for a designed filter.
+*
+* @param filterPassType
+*    The filter pass type.
+* @param filterOrder
+*    The order of the analog prototype filter. Bandpass and bandstop filters have twice this order.
+*/
+public static int computeMultiplicationsPerSample (FilterPassType filterPassType, int filterOrder) {
+   boolean doubled = filterPassType == FilterPassType.bandpass || filterPassType == FilterPassType.bandstop;
+   int n = doubled ? 2 * filterOrder : filterOrder;
+   return 2 * n + 1; }
+
+// Returns the ratio of the stopband edge to the passband edge of the analog lowpass prototype.
+// For bandpass and bandstop filters, the stopband edge that is closer to the passband determines the ratio.
+private static double computeSelectivity (FilterPassType filterPassType, double fPass1, double fPass2, double fStop1, double fStop2) {
+   double wp1 = warp(fPass1);
+   double ws1 = warp(fStop1);
+   switch (filterPassType) {
+      case lowpass: {
+         checkOrder(fPass1, fStop1);
+         return ws1 / wp1; }
+      case highpass: {
+         checkOrder(fStop1, fPass1);
+         return wp1 / ws1; }
+      case bandpass: {
+         checkOrder(fStop1, fPass1, fPass2, fStop2);
+         double wp2 = warp(fPass2);
+         double ws2 = warp(fStop2);
+         double w0s = wp1 * wp2;
+         double bw = wp2 - wp1;
+         return Math.min((w0s - ws1 * ws1) / (ws1 * bw), (ws2 * ws2 - w0s) / (ws2 * bw)); }
+      case bandstop: {
+         checkOrder(fPass1, fStop1, fStop2, fPass2);
+         double wp2 = warp(fPass2);
+         double ws2 = warp(fStop2);
+         double w0s = wp1 * wp2;
+         double bw = wp2 - wp1;
+         return Math.min(ws1 * bw / (w0s - ws1 * ws1), ws2 * bw / (ws2 * ws2 - w0s)); }
+      default: {
+         throw new RuntimeException("Unsupported filter pass type."); }}}
+
+// Returns the factor by which the cutoff frequency passed to the design method is above the passband edge
+// in the analog lowpass prototype.
+private static double computeCutoffScale (FilterCharacteristicsType filterCharacteristicsType, int order, double ripple, double stopbandGain) {
+   switch (filterCharacteristicsType) {
+      case butterworth: {                                  // the cutoff frequency is the -3 dB point
+         return Math.pow(computeEpsilon(ripple), -1.0 / order); }
+      case chebyshev2: {                                   // the cutoff frequency is the stopband edge
+         double d = computeEpsilon(stopbandGain) / computeEpsilon(ripple);
+         return Math.cosh(acosh(d) / order); }
+      default: {                                           // the cutoff frequency is the passband edge
+         return 1; }}}
+
+private static void checkOrder (double... f) {
+   for (int i = 0; i < f.length; i++) {
+      if (!(f[i] > 0 && f[i] < 0.5) || (i > 0 && f[i] <= f[i - 1])) {
+         throw new IllegalArgumentException("Invalid edge frequencies."); }}}
+
+// Computes the ripple factor epsilon for a gain in dB.
+private static double computeEpsilon (double gain) {
+   return Math.sqrt(Math.pow(10, -gain / 10) - 1); }
+
+private static double acosh (double x) {
+   return Math.log(x + Math.sqrt(x * x - 1)); }
+
+// Pre-warps a relative frequency for the bilinear transform.
+private static double warp (double f) {
+   return Math.tan(Math.PI * f); }
+
+private static double unwarp (double w) {
+   return Math.atan(w) / Math.PI; }
+
+}
@@ -0,0 +1,81 @@
+// Copyright 2015 Christian d'Heureuse, Inventec Informatik AG, Zurich, Switzerland
+// www.source-code.biz, www.inventec.ch/chdh
+//
+// This module is multi-licensed and may be used under the terms
+// of any of the following licenses:
+//
+//  EPL, Eclipse Public License, V1.0 or later, http://www.eclipse.org/legal
+//  LGPL, GNU Lesser General Public License, V2.1 or later, http://www.gnu.org/licenses/lgpl.html
+//
+// Please contact the author if you need another license.
+// This module is provided "as is", without warranties of any kind.
+
+package biz.source_code.dsp.filter;
+
+/**
+* An IIR filter implemented as a cascade of second-order sections (biquads).
+*
+* <p>
+* Each section uses the transposed direct form II:
+* <pre>
+*    y    = b0 * x + s1
+*    s1   = b1 * x - a1 * y + s2
+*    s2   = b2 * x - a2 * y
+* </pre>
+*
+* <p>
+* Reference: <a href="http://en.wikipedia.org/wiki/Digital_biquad_filter">Wikipedia</a>.
+*/
+public class SosFilter implements SignalFilter {
+
+private int                  n;                            // number of sections
+private double[]             coeffs;                       // b0, b1, b2, a1, a2 for each section
+private double[]             state;                        // s1, s2 for each section
+
+/**
+* Creates a cascaded second-order sections filter.
+*
+* @param sosCoeffs
+*    The coefficients of the sections. a0 must be 1 for all sections.
+*/
+public SosFilter (SosFilterCoefficients sosCoeffs) {
+   n = sosCoeffs.sections.length;
+   coeffs = new double[5 * n];
+   state = new double[2 * n];
+   for (int i = 0; i < n; i++) {
+      double[] s = sosCoeffs.sections[i];
+      if (s.length != 6 || s[3] != 1.0) {
+         throw new IllegalArgumentException("Invalid coefficients."); }
+      coeffs[5 * i]     = s[0];
+      coeffs[5 * i + 1] = s[1];
+      coeffs[5 * i + 2] = s[2];
+      coeffs[5 * i + 3] = s[4];
+      coeffs[5 * i + 4] = s[5]; }}
+
+/**
+* Replaces the coefficients of all sections. The state of the filter is retained.
+*
+* <p>
+* This method does not allocate memory and can be used to modulate the filter in real time,
+* e.g. with the coefficients of a {@link SosFilterCoefficientGrid}.
+*
+* @param packedCoeffs
+*    The coefficients <code>b0, b1, b2, a1, a2</code> for each section (a0 is 1).
+*/
+public void setCoefficients (double[] packedCoeffs) {
+   if (packedCoeffs.length != coeffs.length) {
+      throw new IllegalArgumentException("Invalid number of coefficients."); }
+   System.arraycopy(packedCoeffs, 0, coeffs, 0, coeffs.length); }
+
+@Override public double step (double inputValue) {
+   double x = inputValue;
+   for (int i = 0; i < n; i++) {
+      int p = 5 * i;
+      int q = 2 * i;
+      double y = coeffs[p] * x + state[q];
+      state[q]     = coeffs[p + 1] * x - coeffs[p + 3] * y + state[q + 1];
+      state[q + 1] = coeffs[p + 2] * x - coeffs[p + 4] * y;
+      x = y; }
+   return x; }
+
+}
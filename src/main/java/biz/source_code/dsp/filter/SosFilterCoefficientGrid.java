@@ -0,0 +1,321 @@
+// Copyright 2015 Christian d'Heureuse, Inventec Informatik AG, Zurich, Switzerland
+// www.source-code.biz, www.inventec.ch/chdh
+//
+// This module is multi-licensed and may be used under the terms
+// of any of the following licenses:
+//
+//  EPL, Eclipse Public License, V1.0 or later, http://www.eclipse.org/legal
+//  LGPL, GNU Lesser General Public License, V2.1 or later, http://www.gnu.org/licenses/lgpl.html
+//
+// Please contact the author if you need another license.
+// This module is provided "as is", without warranties of any kind.
+
+package biz.source_code.dsp.filter;
+
+import biz.source_code.dsp.math.Complex;
+import java.util.ArrayList;
+
+/**
+* A precomputed table of second-order sections coefficients for modulating the cutoff frequency of a filter in real time.
+*
+* <p>
+* The coefficients of {@link IirFilterDesignFisher#designSos} are computed once for a grid of frequencies,
+* which are spaced logarithmically, and stored in a single primitive array.
+* For bandpass and bandstop filters, the grid has a second dimension for the bandwidth, in octaves.
+* The coefficients for intermediate values are computed by linear (or bilinear) interpolation,
+* which is much faster than a new design and does not allocate memory.
+*
+* <p>
+* The interpolated sections are always stable, because the stability region of a second-order section
+* (<code>|a2| &lt; 1</code> and <code>|a1| &lt; 1 + a2</code>) is convex.
+* The interpolation error decreases quadratically with the grid density. It can be measured with {@link #computeMaxError}.
+*
+* <p>
+* The coefficients are stored in the same packed format that is used by {@link SosFilter#setCoefficients}:
+* <code>b0, b1, b2, a1, a2</code> for each section.
+*/
+public class SosFilterCoefficientGrid {
+
+private FilterPassType       filterPassType;
+private FilterCharacteristicsType filterCharacteristicsType;
+private int                  filterOrder;
+private double               ripple;
+private double               stopbandGain;
+private double               minFrequency;
+private double               maxFrequency;
+private int                  frequencyPointCount;
+private double               minBandwidth;                 // in octaves
+private double               maxBandwidth;                 // in octaves
+private int                  bandwidthPointCount;          // 1 for lowpass/highpass
+private double               logFrequencyStep;
+private double               bandwidthStep;
+private int                  sectionCount;
+private int                  rowLength;                    // number of values per grid point (5 * sectionCount)
+private double[]             table;
+
+/**
+* Creates a coefficient grid for a lowpass or highpass filter.
+*
+* <p>
+* The filter parameters are the same as for
+* {@link IirFilterDesignFisher#design(FilterPassType, FilterCharacteristicsType, int, double, double, double, double)}.
+*
+* @param minFrequency
+*    The lowest relative cutoff frequency of the grid.
+* @param maxFrequency
+*    The highest relative cutoff frequency of the grid. Must be less than 0.5.
+* @param frequencyPointCount
+*    The number of grid points. Must be at least 2.
+*/
+public SosFilterCoefficientGrid (FilterPassType filterPassType, FilterCharacteristicsType filterCharacteristicsType,
+      int filterOrder, double ripple, double stopbandGain, double minFrequency, double maxFrequency, int frequencyPointCount) {
+   this(filterPassType, filterCharacteristicsType, filterOrder, ripple, stopbandGain, minFrequency, maxFrequency, frequencyPointCount, 0, 0, 1); }
+
+/**
+* Creates a coefficient grid.
+*
+* <p>
+* For bandpass and bandstop filters, the frequency is the center frequency (the geometric mean of the
+* two cutoff frequencies) and the bandwidth is the distance of the cutoff frequencies in octaves.
+* The cutoff frequencies of all grid points must be less than 0.5.
+* For lowpass and highpass filters, the bandwidth parameters must be 0, 0 and 1.
+*
+* @param minBandwidth
+*    The lowest bandwidth of the grid, in octaves.
+* @param maxBandwidth
+*    The highest bandwidth of the grid, in octaves.
+* @param bandwidthPointCount
+*    The number of grid points for the bandwidth. Must be at least 2 for bandpass and bandstop filters.
+*/
+public SosFilterCoefficientGrid (FilterPassType filterPassType, FilterCharacteristicsType filterCharacteristicsType,
+      int filterOrder, double ripple, double stopbandGain, double minFrequency, double maxFrequency, int frequencyPointCount,
+      double minBandwidth, double maxBandwidth, int bandwidthPointCount) {
+   boolean hasBandwidth = filterPassType == FilterPassType.bandpass || filterPassType == FilterPassType.bandstop;
+   if (!(minFrequency > 0 && maxFrequency > minFrequency && maxFrequency < 0.5) || frequencyPointCount < 2) {
+      throw new IllegalArgumentException("Invalid frequency range."); }
+   if (hasBandwidth ? !(minBandwidth > 0 && maxBandwidth > minBandwidth && bandwidthPointCount >= 2) : bandwidthPointCount != 1) {
+      throw new IllegalArgumentException("Invalid bandwidth range."); }
+   this.filterPassType = filterPassType;
+   this.filterCharacteristicsType = filterCharacteristicsType;
+   this.filterOrder = filterOrder;
+   this.ripple = ripple;
+   this.stopbandGain = stopbandGain;
+   this.minFrequency = minFrequency;
+   this.maxFrequency = maxFrequency;
+   this.frequencyPointCount = frequencyPointCount;
+   this.minBandwidth = minBandwidth;
+   this.maxBandwidth = maxBandwidth;
+   this.bandwidthPointCount = bandwidthPointCount;
+   logFrequencyStep = Math.log(maxFrequency / minFrequency) / (frequencyPointCount - 1);
+   bandwidthStep = hasBandwidth ? (maxBandwidth - minBandwidth) / (bandwidthPointCount - 1) : 0;
+   buildTable(); }
+
+private void buildTable() {
+   for (int i = 0; i < frequencyPointCount; i++) {
+      double frequency = minFrequency * Math.exp(i * logFrequencyStep);
+      for (int j = 0; j < bandwidthPointCount; j++) {
+         double bandwidth = minBandwidth + j * bandwidthStep;
+         SosFilterCoefficients sosCoeffs = design(frequency, bandwidth);
+         int pos = (i * bandwidthPointCount + j) * rowLength;
+         if (table == null) {
+            sectionCount = sosCoeffs.getSectionCount();
+            rowLength = 5 * sectionCount;
+            table = new double[frequencyPointCount * bandwidthPointCount * rowLength]; }
+          else {                                           // the neighbor in the bandwidth or frequency direction
+            int refPos = (j > 0) ? pos - rowLength : pos - bandwidthPointCount * rowLength;
+            double[] fcf = computeCutoffFrequencies(frequency, bandwidth);
+            sosCoeffs = alignSections(sosCoeffs, refPos, fcf[0], fcf[1]); }
+         pack(sosCoeffs, table, pos); }}}
+
+// Re-pairs the poles and zeros of the sections so that the coefficients are continuous functions
+// of the grid position. The design method combines each pole pair with the nearest zeros, beginning with
+// the poles closest to the unit circle. This order and pairing can change abruptly between neighboring
+// grid points, which would make the interpolation invalid.
+// The poles and the zeros of the new design are assigned separately to the sections, so that they are
+// nearest to those of the reference grid point, and the section gains are normalized again.
+private SosFilterCoefficients alignSections (SosFilterCoefficients sosCoeffs, int refPos, double fcf1, double fcf2) {
+   double[][] refDens = new double[sectionCount][];
+   double[][] refNums = new double[sectionCount][];
+   double[][] dens = new double[sectionCount][];
+   double[][] nums = new double[sectionCount][];
+   for (int k = 0; k < sectionCount; k++) {
+      int p = refPos + 5 * k;
+      refNums[k] = new double[]{1, table[p + 1] / table[p], table[p + 2] / table[p]};
+      refDens[k] = new double[]{1, table[p + 3], table[p + 4]};
+      double[] s = sosCoeffs.sections[k];
+      nums[k] = new double[]{1, s[1] / s[0], s[2] / s[0]};
+      dens[k] = new double[]{1, s[4], s[5]}; }
+   dens = matchRoots(dens, refDens);
+   nums = matchRoots(nums, refNums);
+   SosFilterCoefficients aligned = new SosFilterCoefficients();
+   aligned.sections = new double[sectionCount][];
+   for (int k = 0; k < sectionCount; k++) {
+      double gain = IirFilterDesignFisher.computeSectionGain(nums[k], dens[k], filterPassType, fcf1, fcf2);
+      double[] b = nums[k];
+      double[] a = dens[k];
+      aligned.sections[k] = new double[]{b[0] / gain, b[1] / gain, b[2] / gain, a[0], a[1], a[2]}; }
+   return aligned; }
+
+// Regroups the roots of the quadratics <code>1 + c1 * z^-1 + c2 * z^-2</code> so that the roots of each
+// new quadratic are nearest to the roots of the reference quadratic with the same index.
+// Complex conjugate root pairs are kept together, real roots can be regrouped.
+private static double[][] matchRoots (double[][] q, double[][] ref) {
+   ArrayList<Complex[]> complexPairs = new ArrayList<Complex[]>();
+   ArrayList<Complex> realRoots = new ArrayList<Complex>();
+   for (double[] c : q) {
+      Complex[] r = computeQuadraticRoots(c);
+      if (r[0].im() != 0) {
+         complexPairs.add(r); }
+       else {
+         realRoots.add(r[0]);
+         realRoots.add(r[1]); }}
+   double[][] out = new double[q.length][];
+   for (int k = 0; k < ref.length; k++) {
+      Complex[] refRoots = computeQuadraticRoots(ref[k]);
+      Complex[] best = null;
+      double bestDist = Double.POSITIVE_INFINITY;
+      for (Complex[] pair : complexPairs) {
+         double dist = computeDistance(pair[0], pair[1], refRoots);
+         if (dist < bestDist) {
+            best = pair;
+            bestDist = dist; }}
+      for (int i = 0; i < realRoots.size(); i++) {
+         for (int j = i + 1; j < realRoots.size(); j++) {
+            double dist = computeDistance(realRoots.get(i), realRoots.get(j), refRoots);
+            if (dist < bestDist) {
+               best = new Complex[]{realRoots.get(i), realRoots.get(j)};
+               bestDist = dist; }}}
+      if (!complexPairs.remove(best)) {
+         realRoots.remove(best[0]);
+         realRoots.remove(best[1]); }
+      out[k] = new double[]{1, -best[0].add(best[1]).re(), best[0].mul(best[1]).re()}; }
+   return out; }
+
+private static double computeDistance (Complex x1, Complex x2, Complex[] refRoots) {
+   double d1 = x1.sub(refRoots[0]).abs() + x2.sub(refRoots[1]).abs();
+   double d2 = x1.sub(refRoots[1]).abs() + x2.sub(refRoots[0]).abs();
+   return Math.min(d1, d2); }
+
+// Returns the roots of 1 + c1 * z^-1 + c2 * z^-2. For a first-order section, one of the roots is 0.
+private static Complex[] computeQuadraticRoots (double[] c) {
+   double m = -c[1] / 2;
+   double d = m * m - c[2];
+   if (d >= 0) {
+      double s = Math.sqrt(d);
+      return new Complex[]{new Complex(m + s), new Complex(m - s)}; }
+   double s = Math.sqrt(-d);
+   return new Complex[]{new Complex(m, s), new Complex(m, -s)}; }
+
+// Returns fcf1 and fcf2 for the design method.
+private double[] computeCutoffFrequencies (double frequency, double bandwidth) {
+   if (bandwidthPointCount == 1) {
+      return new double[]{frequency, 0}; }
+   double r = Math.pow(2, bandwidth / 2);
+   return new double[]{frequency / r, frequency * r}; }
+
+// Designs the filter directly, without the table.
+private SosFilterCoefficients design (double frequency, double bandwidth) {
+   double[] fcf = computeCutoffFrequencies(frequency, bandwidth);
+   return IirFilterDesignFisher.designSos(filterPassType, filterCharacteristicsType, filterOrder, ripple, stopbandGain, fcf[0], fcf[1]); }
+
+private static void pack (SosFilterCoefficients sosCoeffs, double[] out, int pos) {
+   for (double[] s : sosCoeffs.sections) {
+      out[pos++] = s[0];
+      out[pos++] = s[1];
+      out[pos++] = s[2];
+      out[pos++] = s[4];
+      out[pos++] = s[5]; }}
+
+/**
+* Returns the number of second-order sections.
+*/
+public int getSectionCount() {
+   return sectionCount; }
+
+/**
+* Computes the interpolated coefficients of a lowpass or highpass filter.
+*
+* @param frequency
+*    The relative cutoff frequency. Values outside of the grid range are clipped.
+* @param out
+*    An array of length <code>5 * getSectionCount()</code> that receives the packed coefficients.
+*/
+public void interpolate (double frequency, double[] out) {
+   interpolate(frequency, minBandwidth, out); }
+
+/**
+* Computes the interpolated coefficients of a filter.
+*
+* @param frequency
+*    The relative cutoff frequency for lowpass/highpass, the relative center frequency for bandpass/bandstop.
+*    Values outside of the grid range are clipped.
+* @param bandwidth
+*    The bandwidth in octaves for bandpass/bandstop, ignored for lowpass/highpass.
+*    Values outside of the grid range are clipped.
+* @param out
+*    An array of length <code>5 * getSectionCount()</code> that receives the packed coefficients.
+*/
+public void interpolate (double frequency, double bandwidth, double[] out) {
+   double x = (frequency > 0) ? Math.log(frequency / minFrequency) / logFrequencyStep : 0;
+   x = Math.max(0, Math.min(frequencyPointCount - 1, x));
+   int i = Math.min((int)x, frequencyPointCount - 2);
+   double fx = x - i;
+   if (bandwidthPointCount == 1) {
+      int p0 = i * rowLength;
+      int p1 = p0 + rowLength;
+      for (int k = 0; k < rowLength; k++) {
+         out[k] = table[p0 + k] + fx * (table[p1 + k] - table[p0 + k]); }
+      return; }
+   double y = (bandwidth - minBandwidth) / bandwidthStep;
+   y = Math.max(0, Math.min(bandwidthPointCount - 1, y));
+   int j = Math.min((int)y, bandwidthPointCount - 2);
+   double fy = y - j;
+   int p00 = (i * bandwidthPointCount + j) * rowLength;
+   int p01 = p00 + rowLength;
+   int p10 = p00 + bandwidthPointCount * rowLength;
+   int p11 = p10 + rowLength;
+   for (int k = 0; k < rowLength; k++) {
+      double v0 = table[p00 + k] + fy * (table[p01 + k] - table[p00 + k]);
+      double v1 = table[p10 + k] + fy * (table[p11 + k] - table[p10 + k]);
+      out[k] = v0 + fx * (v1 - v0); }}
+
+/**
+* Returns the interpolated coefficients as a new <code>SosFilterCoefficients</code> object.
+* This method allocates memory and is intended for the initialization of a filter.
+*/
+public SosFilterCoefficients getSosFilterCoefficients (double frequency, double bandwidth) {
+   double[] packed = new double[rowLength];
+   interpolate(frequency, bandwidth, packed);
+   SosFilterCoefficients sosCoeffs = new SosFilterCoefficients();
+   sosCoeffs.sections = new double[sectionCount][];
+   for (int i = 0; i < sectionCount; i++) {
+      int p = 5 * i;
+      sosCoeffs.sections[i] = new double[]{packed[p], packed[p + 1], packed[p + 2], 1, packed[p + 3], packed[p + 4]}; }
+   return sosCoeffs; }
+
+/**
+* Returns the maximum absolute difference between the interpolated and the directly designed coefficients.
+*
+* <p>
+* The error is evaluated at the centers of all grid cells, where the interpolation error is largest.
+* The sections of the direct designs are paired and ordered in the same way as those of the table.
+* This method is slow, because it designs the filter for each grid cell.
+*/
+public double computeMaxError() {
+   double[] packed = new double[rowLength];
+   double[] exact = new double[rowLength];
+   double maxError = 0;
+   int bandwidthCellCount = Math.max(1, bandwidthPointCount - 1);
+   for (int i = 0; i < frequencyPointCount - 1; i++) {
+      double frequency = minFrequency * Math.exp((i + 0.5) * logFrequencyStep);
+      for (int j = 0; j < bandwidthCellCount; j++) {
+         double bandwidth = minBandwidth + (j + 0.5) * bandwidthStep;
+         interpolate(frequency, bandwidth, packed);
+         double[] fcf = computeCutoffFrequencies(frequency, bandwidth);
+         int refPos = (i * bandwidthPointCount + j) * rowLength;
+         pack(alignSections(design(frequency, bandwidth), refPos, fcf[0], fcf[1]), exact, 0);
+         for (int k = 0; k < rowLength; k++) {
+            maxError = Math.max(maxError, Math.abs(packed[k] - exact[k])); }}}
+   return maxError; }
+
+}
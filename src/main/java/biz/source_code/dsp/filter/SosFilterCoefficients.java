@@ -0,0 +1,84 @@
+// Copyright 2015 Christian d'Heureuse, Inventec Informatik AG, Zurich, Switzerland
+// www.source-code.biz, www.inventec.ch/chdh
+//
+// This module is multi-licensed and may be used under the terms
+// of any of the following licenses:
+//
+//  EPL, Eclipse Public License, V1.0 or later, http://www.eclipse.org/legal
+//  LGPL, GNU Lesser General Public License, V2.1 or later, http://www.gnu.org/licenses/lgpl.html
+//
+// Please contact the author if you need another license.
+// This module is provided "as is", without warranties of any kind.
+
+package biz.source_code.dsp.filter;
+
+import biz.source_code.dsp.math.PolynomialUtils;
+
+/**
+* The coefficients for an IIR filter in the form of cascaded second-order sections (biquads).
+*
+* <p>
+* Each section has the transfer function:
+* <pre>
+*    H(z) = (b0 + b1 * z^-1 + b2 * z^-2) / (a0 + a1 * z^-1 + a2 * z^-2)
+* </pre>
+* (a0 must be 1)
+*
+* <p>
+* In contrast to {@link IirFilterCoefficients}, the coefficients of the sections are computed directly
+* from the poles and zeros. High order filters can therefore be represented without loss of precision.
+*
+* <p>
+* Reference: <a href="http://en.wikipedia.org/wiki/Digital_biquad_filter">Wikipedia</a>.
+*/
+public class SosFilterCoefficients {
+
+/**
+* The sections. Each section is an array with the 6 coefficients <code>b0, b1, b2, a0, a1, a2</code>.
+*/
+public double[][]            sections;
+
+/**
+* Returns the number of sections.
+*/
+public int getSectionCount() {
+   return sections.length; }
+
+/**
+* Returns the coefficients of a single section as <code>IirFilterCoefficients</code>.
+*/
+public IirFilterCoefficients getSection (int i) {
+   double[] s = sections[i];
+   IirFilterCoefficients coeffs = new IirFilterCoefficients();
+   coeffs.b = new double[]{s[0], s[1], s[2]};
+   coeffs.a = new double[]{s[3], s[4], s[5]};
+   return coeffs; }
+
+/**
+* Multiplies out the sections into the coefficients of a single IIR filter.
+*
+* <p>
+* Note that for high filter orders the single IIR filter may be inaccurate or unstable.
+*/
+public IirFilterCoefficients toIirFilterCoefficients() {
+   double[] b = {1};
+   double[] a = {1};
+   for (double[] s : sections) {
+      b = PolynomialUtils.multiply(b, new double[]{s[0], s[1], s[2]});
+      a = PolynomialUtils.multiply(a, new double[]{s[3], s[4], s[5]}); }
+   IirFilterCoefficients coeffs = new IirFilterCoefficients();
+   coeffs.b = trimTrailingZeros(b);
+   coeffs.a = trimTrailingZeros(a);
+   return coeffs; }
+
+private static double[] trimTrailingZeros (double[] a) {
+   int n = a.length;
+   while (n > 1 && a[n - 1] == 0) {
+      n--; }
+   if (n == a.length) {
+      return a; }
+   double[] a2 = new double[n];
+   System.arraycopy(a, 0, a2, 0, n);
+   return a2; }
+
+}
@@ -0,0 +1,234 @@
+// Copyright 2015 Christian d'Heureuse, Inventec Informatik AG, Zurich, Switzerland
+// www.source-code.biz, www.inventec.ch/chdh
+//
+// This module is multi-licensed and may be used under the terms
+// of any of the following licenses:
+//
+//  EPL, Eclipse Public License, V1.0 or later, http://www.eclipse.org/legal
+//  LGPL, GNU Lesser General Public License, V2.1 or later, http://www.gnu.org/licenses/lgpl.html
+//
+// Please contact the author if you need another license.
+// This module is provided "as is", without warranties of any kind.
+
+package biz.source_code.dsp.math;
+
+/**
+* A mutable vector of complex numbers, stored in two separate arrays for the real and imaginary parts.
+*
+* <p>In contrast to {@link Complex}, the arithmetic operations of this class do not allocate objects.
+* They store their result into a destination vector, which may be the same as one of the operands
+* (in-place operation). All operands must have the same length.
+*/
+public final class ComplexArray {
+
+/**
+* The real parts.
+*/
+public final double[]        re;
+
+/**
+* The imaginary parts.
+*/
+public final double[]        im;
+
+/**
+* Creates a vector of <code>n</code> zeros.
+*/
+public ComplexArray (int n) {
+   re = new double[n];
+   im = new double[n]; }
+
+/**
+* Creates a vector that uses the specified arrays (without copying them).
+*
+* @param re
+*    The real parts.
+* @param im
+*    The imaginary parts. Must have the same length as <code>re</code>.
+*/
+public ComplexArray (double[] re, double[] im) {
+   if (re.length != im.length) {
+      throw new IllegalArgumentException("Array lengths are not equal."); }
+   this.re = re;
+   this.im = im; }
+
+/**
+* Creates a vector from an array of <code>Complex</code> objects.
+*/
+public static ComplexArray fromComplex (Complex[] a) {
+   ComplexArray v = new ComplexArray(a.length);
+   for (int i = 0; i < a.length; i++) {
+      v.re[i] = a[i].re();
+      v.im[i] = a[i].im(); }
+   return v; }
+
+/**
+* Creates a vector from an array of real numbers. The imaginary parts are 0.
+*/
+public static ComplexArray fromReal (double[] a) {
+   return new ComplexArray(a.clone(), new double[a.length]); }
+
+/**
+* Converts the vector into an array of <code>Complex</code> objects.
+*/
+public Complex[] toComplex() {
+   Complex[] a = new Complex[re.length];
+   for (int i = 0; i < a.length; i++) {
+      a[i] = new Complex(re[i], im[i]); }
+   return a; }
+
+/**
+* Returns the number of elements.
+*/
+public int length() {
+   return re.length; }
+
+/**
+* Returns an element as a <code>Complex</code>.
+*/
+public Complex get (int i) {
+   return new Complex(re[i], im[i]); }
+
+/**
+* Sets an element.
+*/
+public void set (int i, double re, double im) {
+   this.re[i] = re;
+   this.im[i] = im; }
+
+/**
+* Sets an element.
+*/
+public void set (int i, Complex c) {
+   re[i] = c.re();
+   im[i] = c.im(); }
+
+/**
+* Copies the values of another vector into this vector.
+*/
+public void copyFrom (ComplexArray a) {
+   checkLength(a);
+   System.arraycopy(a.re, 0, re, 0, re.length);
+   System.arraycopy(a.im, 0, im, 0, im.length); }
+
+/**
+* Sets all elements to 0.
+*/
+public void clear() {
+   for (int i = 0; i < re.length; i++) {
+      re[i] = 0;
+      im[i] = 0; }}
+
+//--- Arithmetic ---------------------------------------------------------------
+
+/**
+* Computes <code>dst = this + b</code>.
+*/
+public void add (ComplexArray b, ComplexArray dst) {
+   checkLength(b);
+   checkLength(dst);
+   for (int i = 0; i < re.length; i++) {
+      dst.re[i] = re[i] + b.re[i];
+      dst.im[i] = im[i] + b.im[i]; }}
+
+/**
+* Computes <code>dst = this - b</code>.
+*/
+public void sub (ComplexArray b, ComplexArray dst) {
+   checkLength(b);
+   checkLength(dst);
+   for (int i = 0; i < re.length; i++) {
+      dst.re[i] = re[i] - b.re[i];
+      dst.im[i] = im[i] - b.im[i]; }}
+
+/**
+* Computes the element-wise product <code>dst = this * b</code>.
+*/
+public void mul (ComplexArray b, ComplexArray dst) {
+   checkLength(b);
+   checkLength(dst);
+   for (int i = 0; i < re.length; i++) {
+      double ar = re[i];
+      double ai = im[i];
+      double br = b.re[i];
+      double bi = b.im[i];
+      dst.re[i] = ar * br - ai * bi;
+      dst.im[i] = ar * bi + ai * br; }}
+
+/**
+* Computes the element-wise quotient <code>dst = this / b</code>.
+*/
+public void div (ComplexArray b, ComplexArray dst) {
+   checkLength(b);
+   checkLength(dst);
+   for (int i = 0; i < re.length; i++) {
+      double ar = re[i];
+      double ai = im[i];
+      double br = b.re[i];
+      double bi = b.im[i];
+      double m = br * br + bi * bi;
+      dst.re[i] = (ar * br + ai * bi) / m;
+      dst.im[i] = (ai * br - ar * bi) / m; }}
+
+/**
+* Computes <code>dst = this * f</code>.
+*/
+public void scale (double f, ComplexArray dst) {
+   checkLength(dst);
+   for (int i = 0; i < re.length; i++) {
+      dst.re[i] = re[i] * f;
+      dst.im[i] = im[i] * f; }}
+
+/**
+* Multiplies all elements with a real factor, in-place.
+*/
+public void scale (double f) {
+   scale(f, this); }
+
+/**
+* Stores the complex conjugates into <code>dst</code>.
+*/
+public void conj (ComplexArray dst) {
+   checkLength(dst);
+   for (int i = 0; i < re.length; i++) {
+      dst.re[i] = re[i];
+      dst.im[i] = -im[i]; }}
+
+/**
+* Replaces all elements by their complex conjugates.
+*/
+public void conj() {
+   conj(this); }
+
+/**
+* Stores the absolute values (magnitudes) into <code>out</code>.
+*/
+public void abs (double[] out) {
+   for (int i = 0; i < re.length; i++) {
+      out[i] = Math.hypot(re[i], im[i]); }}
+
+/**
+* Stores the arguments (phase angles) into <code>out</code>.
+*/
+public void arg (double[] out) {
+   for (int i = 0; i < re.length; i++) {
+      out[i] = Math.atan2(im[i], re[i]); }}
+
+/**
+* Sets the elements from polar coordinates.
+*
+* @param abs
+*    The absolute values.
+* @param arg
+*    The arguments (phase angles).
+*/
+public void setPolar (double[] abs, double[] arg) {
+   for (int i = 0; i < re.length; i++) {
+      re[i] = abs[i] * Math.cos(arg[i]);
+      im[i] = abs[i] * Math.sin(arg[i]); }}
+
+private void checkLength (ComplexArray a) {
+   if (a.re.length != re.length) {
+      throw new IllegalArgumentException("Vector lengths are not equal."); }}
+
+}
@@ -0,0 +1,243 @@
+// Copyright 2015 Christian d'Heureuse, Inventec Informatik AG, Zurich, Switzerland
+// www.source-code.biz, www.inventec.ch/chdh
+//
+// This module is multi-licensed and may be used under the terms
+// of any of the following licenses:
+//
+//  EPL, Eclipse Public License, V1.0 or later, http://www.eclipse.org/legal
+//  LGPL, GNU Lesser General Public License, V2.1 or later, http://www.gnu.org/licenses/lgpl.html
+//
+// Please contact the author if you need another license.
+// This module is provided "as is", without warranties of any kind.
+
+package biz.source_code.dsp.math;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+* A root finder for polynomials with complex coefficients.
+* It uses the Aberth-Ehrlich method to find all zeros of a polynomial simultaneously.
+*
+* <p>
+* In contrast to {@link PolynomialRootFinderLaguerre} and {@link PolynomialRootFinderJenkinsTraub},
+* no deflation is used. All approximations are refined together with the original polynomial,
+* so the accuracy does not degrade for high degrees. The convergence is cubic for simple roots.
+*
+* <p>
+* The corrections for the individual roots of an iteration step are independent of each other.
+* For polynomials of high degree, they can be computed by multiple threads.
+*
+* <p>
+* Reference: <a href="http://en.wikipedia.org/wiki/Aberth_method">Wikipedia</a>.
+*/
+public class PolynomialRootFinderAberth {
+
+private static final double  EPS = 1E-15;                  // relative accuracy limit of the polynomial evaluation
+private static final int     maxIterations = 1000;
+private static final int     minParallelDegree = 100;      // minimum degree for parallel iterations
+private static final int     rootsPerTask = 16;            // minimum number of roots processed by a parallel task
+
+private static ForkJoinPool  forkJoinPool;                 // lazily created
+
+// Dummy constructor to suppress Javadoc.
+private PolynomialRootFinderAberth() {}
+
+/**
+* Finds the zeros of a real polynomial.
+*
+* @param coeffs
+*    The polynomial coefficients in order of decreasing powers.
+* @return
+*    The zeros of the polynomial.
+*/
+public static Complex[] findRoots (double[] coeffs) {
+   return findRoots(coeffs, false); }
+
+/**
+* Finds the zeros of a real polynomial.
+*
+* @param coeffs
+*    The polynomial coefficients in order of decreasing powers.
+* @param parallel
+*    <code>true</code> to compute the iterations with multiple threads.
+*    This is only done for polynomials with a degree above 100.
+* @return
+*    The zeros of the polynomial.
+*/
+public static Complex[] findRoots (double[] coeffs, boolean parallel) {
+   ComplexArray zeros = new ComplexArray(coeffs.length - 1);
+   findRoots(new ComplexArray(coeffs, new double[coeffs.length]), zeros, parallel);
+   return zeros.toComplex(); }
+
+/**
+* Finds the zeros of a complex polynomial.
+*
+* @param coeffs
+*    The polynomial coefficients in order of decreasing powers.
+* @return
+*    The zeros of the polynomial.
+*/
+public static Complex[] findRoots (Complex[] coeffs) {
+   ComplexArray zeros = new ComplexArray(coeffs.length - 1);
+   findRoots(ComplexArray.fromComplex(coeffs), zeros, false);
+   return zeros.toComplex(); }
+
+/**
+* Finds the zeros of a complex polynomial.
+*
+* @param coeffs
+*    The polynomial coefficients in order of decreasing powers. The first coefficient must not be 0.
+* @param zeros
+*    Receives the zeros of the polynomial. Must have the length <code>coeffs.length() - 1</code>.
+* @param parallel
+*    <code>true</code> to compute the iterations with multiple threads.
+*    This is only done for polynomials with a degree above 100.
+*/
+public static void findRoots (ComplexArray coeffs, ComplexArray zeros, boolean parallel) {
+   int n = coeffs.length() - 1;
+   if (n < 0 || zeros.length() != n) {
+      throw new IllegalArgumentException("Wrong length of zeros array."); }
+   if (coeffs.re[0] == 0 && coeffs.im[0] == 0) {
+      throw new IllegalArgumentException("The first coefficient must not be 0."); }
+   if (n == 0) {
+      return; }
+   Iteration it = new Iteration(coeffs, zeros);
+   boolean useThreads = parallel && n > minParallelDegree;
+   for (int iter = 0; iter < maxIterations; iter++) {
+      if (useThreads) {
+         getForkJoinPool().invoke(new IterationTask(it, 0, n)); }
+       else {
+         it.computeCorrections(0, n); }
+      if (it.applyCorrections()) {
+         return; }}
+   throw new RuntimeException("Root finding did not converge."); }
+
+private static synchronized ForkJoinPool getForkJoinPool() {
+   if (forkJoinPool == null) {
+      forkJoinPool = new ForkJoinPool(); }
+   return forkJoinPool; }
+
+//--- Iteration ----------------------------------------------------------------
+
+private static class Iteration {
+   final int                 n;                            // degree
+   final double[]            aRe;                          // coefficients
+   final double[]            aIm;
+   final double[]            zRe;                          // current approximations
+   final double[]            zIm;
+   final double[]            wRe;                          // corrections of the current step
+   final double[]            wIm;
+   final boolean[]           converged;
+
+   Iteration (ComplexArray coeffs, ComplexArray zeros) {
+      n = coeffs.length() - 1;
+      aRe = coeffs.re;
+      aIm = coeffs.im;
+      zRe = zeros.re;
+      zIm = zeros.im;
+      wRe = new double[n];
+      wIm = new double[n];
+      converged = new boolean[n];
+      initialize(); }
+
+   // The initial approximations are distributed on a circle around the centroid of the roots,
+   // with a radius estimated from the geometric mean of the root magnitudes.
+   private void initialize() {
+      double m0 = aRe[0] * aRe[0] + aIm[0] * aIm[0];
+      double cRe = -(aRe[1] * aRe[0] + aIm[1] * aIm[0]) / m0 / n;    // centroid = -a[1] / (n * a[0])
+      double cIm = -(aIm[1] * aRe[0] - aRe[1] * aIm[0]) / m0 / n;
+      double r = 0;
+      for (int i = 1; i <= n; i++) {                       // Fujiwara-type bound of the root magnitudes
+         double v = Math.pow(Math.hypot(aRe[i], aIm[i]) / Math.sqrt(m0), 1.0 / i);
+         r = Math.max(r, v); }
+      double g = Math.pow(Math.hypot(aRe[n], aIm[n]) / Math.sqrt(m0), 1.0 / n);
+      if (g > 0) {
+         r = Math.min(r, g); }
+      if (r == 0) {
+         r = 1; }
+      for (int k = 0; k < n; k++) {
+         double phi = 2 * Math.PI * k / n + 0.4;           // the offset avoids symmetries with real coefficients
+         zRe[k] = cRe + r * Math.cos(phi);
+         zIm[k] = cIm + r * Math.sin(phi); }}
+
+   // Computes the Aberth corrections for the roots k1 .. k2-1. Only wRe/wIm and converged are written.
+   void computeCorrections (int k1, int k2) {
+      for (int k = k1; k < k2; k++) {
+         if (converged[k]) {
+            wRe[k] = 0;
+            wIm[k] = 0;
+            continue; }
+         double xr = zRe[k];
+         double xi = zIm[k];
+         double absX = Math.sqrt(xr * xr + xi * xi);
+         double br = aRe[0];                               // Horner scheme for p(x) and p'(x)
+         double bi = aIm[0];
+         double dr = 0;
+         double di = 0;
+         double err = Math.sqrt(br * br + bi * bi);
+         for (int i = 1; i <= n; i++) {
+            double t;
+            t  = xr * dr - xi * di + br;                   // d = x * d + b
+            di = xr * di + xi * dr + bi;
+            dr = t;
+            t  = xr * br - xi * bi + aRe[i];               // b = x * b + a[i]
+            bi = xr * bi + xi * br + aIm[i];
+            br = t;
+            err = Math.sqrt(br * br + bi * bi) + absX * err; }
+         double pAbs = Math.sqrt(br * br + bi * bi);
+         if (pAbs <= EPS * err) {
+            converged[k] = true;
+            wRe[k] = 0;
+            wIm[k] = 0;
+            continue; }
+         double md = dr * dr + di * di;
+         double qr = (br * dr + bi * di) / md;             // q = p(x) / p'(x)
+         double qi = (bi * dr - br * di) / md;
+         double sr = 0;                                    // s = sum(j != k) 1 / (x - z[j])
+         double si = 0;
+         for (int j = 0; j < n; j++) {
+            if (j == k) {
+               continue; }
+            double ur = xr - zRe[j];
+            double ui = xi - zIm[j];
+            double mu = ur * ur + ui * ui;
+            sr += ur / mu;
+            si -= ui / mu; }
+         double er = 1 - (qr * sr - qi * si);              // w = q / (1 - q * s)
+         double ei = -(qr * si + qi * sr);
+         double me = er * er + ei * ei;
+         wRe[k] = (qr * er + qi * ei) / me;
+         wIm[k] = (qi * er - qr * ei) / me; }}
+
+   // Applies the corrections. Returns true when all roots have converged.
+   boolean applyCorrections() {
+      boolean allConverged = true;
+      for (int k = 0; k < n; k++) {
+         if (converged[k]) {
+            continue; }
+         double wr = wRe[k];
+         double wi = wIm[k];
+         zRe[k] -= wr;
+         zIm[k] -= wi;
+         if (Math.hypot(wr, wi) <= EPS * Math.hypot(zRe[k], zIm[k])) {
+            converged[k] = true;
+            continue; }
+         allConverged = false; }
+      return allConverged; }}
+
+private static class IterationTask extends RecursiveAction {
+   private static final long serialVersionUID = 1;
+   private final Iteration   it;
+   private final int         k1;                           // first root
+   private final int         k2;                           // last root + 1
+   IterationTask (Iteration it, int k1, int k2) {
+      this.it = it; this.k1 = k1; this.k2 = k2; }
+   @Override protected void compute() {
+      if (k2 - k1 <= rootsPerTask) {
+         it.computeCorrections(k1, k2);
+         return; }
+      int mid = (k1 + k2) >>> 1;
+      invokeAll(new IterationTask(it, k1, mid), new IterationTask(it, mid, k2)); }}
+
+}
@@ -38,15 +38,34 @@
 
 package biz.source_code.dsp.math;
 
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
 /**
 * A root finder for polynomials with real coefficients.
 * It uses the Jenkins-Traub algorithm to find the zeros of a polynomial.
 *
 * <p>
+* When the roots of many polynomials have to be found, a {@link Workspace} can be reused
+* to avoid the allocation of the work arrays for each polynomial.
+*
+* <p>
 * Reference: <a href="http://en.wikipedia.org/wiki/Jenkins%E2%80%93Traub_algorithm">Wikipedia</a>.
 */
 public class PolynomialRootFinderJenkinsTraub {
 
+private static final int     minPolynomialsPerTask = 64;   // minimum number of polynomials processed by a parallel task
+
+private static ForkJoinPool  forkJoinPool;                 // lazily created
+
+/**
+* Reusable work buffers for the root finder.
+* A workspace grows as needed and must not be used by multiple threads concurrently.
+*/
+public static final class Workspace {
+   private final GlobalEnvironment env = new GlobalEnvironment(); }
+
 // Dummy constructor to suppress Javadoc.
 private PolynomialRootFinderJenkinsTraub() {}
 
@@ -66,6 +85,63 @@ public static Complex[] findRoots (double[] coeffs) {
    GlobalEnvironment env = new GlobalEnvironment();
    return env.rpoly(coeffs); }
 
+/**
+* Finds the zeros of a real polynomial, using a reusable workspace.
+*
+* @param coeffs
+*    The polynomial coefficients in order of decreasing powers.
+* @param ws
+*    The workspace.
+* @return
+*    The zeros of the polynomial.
+*/
+public static Complex[] findRoots (double[] coeffs, Workspace ws) {
+   return ws.env.rpoly(coeffs); }
+
+/**
+* Finds the zeros of many real polynomials.
+*
+* @param coeffs
+*    The coefficients of the polynomials, each in order of decreasing powers.
+* @param parallel
+*    <code>true</code> to distribute the polynomials over multiple threads.
+*    Each thread uses its own workspace.
+* @return
+*    The zeros of the polynomials. <code>result[i]</code> contains the zeros of polynomial <code>coeffs[i]</code>.
+*/
+public static Complex[][] findRoots (double[][] coeffs, boolean parallel) {
+   Complex[][] result = new Complex[coeffs.length][];
+   if (!parallel || coeffs.length <= minPolynomialsPerTask) {
+      findRoots(coeffs, result, 0, coeffs.length);
+      return result; }
+   getForkJoinPool().invoke(new BatchTask(coeffs, result, 0, coeffs.length));
+   return result; }
+
+private static void findRoots (double[][] coeffs, Complex[][] result, int i1, int i2) {
+   Workspace ws = new Workspace();
+   for (int i = i1; i < i2; i++) {
+      result[i] = findRoots(coeffs[i], ws); }}
+
+private static synchronized ForkJoinPool getForkJoinPool() {
+   if (forkJoinPool == null) {
+      forkJoinPool = new ForkJoinPool(); }
+   return forkJoinPool; }
+
+private static class BatchTask extends RecursiveAction {
+   private static final long serialVersionUID = 1;
+   private final double[][]  coeffs;
+   private final Complex[][] result;
+   private final int         i1;                           // first polynomial
+   private final int         i2;                           // last polynomial + 1
+   BatchTask (double[][] coeffs, Complex[][] result, int i1, int i2) {
+      this.coeffs = coeffs; this.result = result; this.i1 = i1; this.i2 = i2; }
+   @Override protected void compute() {
+      if (i2 - i1 <= minPolynomialsPerTask) {
+         findRoots(coeffs, result, i1, i2);
+         return; }
+      int mid = (i1 + i2) >>> 1;
+      invokeAll(new BatchTask(coeffs, result, i1, mid), new BatchTask(coeffs, result, mid, i2)); }}
+
 //--- GlobalEnvironment routines -----------------------------------------------
 
 private static class GlobalEnvironment {
@@ -101,10 +177,29 @@ private static final double  sinr = Math.sin(rotationAngle);
 private int       n;
 private int       nn;                                      // is always n + 1
 private double[]  p, qp, k, qk;
+
+// Work arrays, reused for multiple polynomials:
+private int       capacity = -1;                           // the maximum degree, the arrays have capacity + 2 elements (indexes from 1 to capacity + 1)
+private double[]  pt, savedK, svk;
+private final double[] rem = new double[2];                // remainder of quadsd()
+private final double[] newestOut = new double[2];          // output of newest()
 private double    u, v, a, b, c, d, a1, a2, a3, a6, a7, e, f, g, h;
 private Complex   sz;                                      // small zero
 private Complex   lz;                                      // large zero
 
+private void ensureCapacity (int degree) {
+   if (degree <= capacity) {
+      return; }
+   int len = degree + 2;
+   p      = new double[len];
+   qp     = new double[len];
+   k      = new double[len];
+   qk     = new double[len];
+   pt     = new double[len];
+   savedK = new double[len];
+   svk    = new double[len];
+   capacity = degree; }
+
 private Complex[] rpoly (double[] coeffs) {
    // coeffs[] uses indexes from 0 to degree.
    final int degree = coeffs.length - 1;
@@ -121,8 +216,9 @@ private Complex[] rpoly (double[] coeffs) {
       zeros[degree - n] = Complex.ZERO;
       n--; }
    nn = n + 1;
+   ensureCapacity(n);
    // Make a copy of the coefficients.
-   p = new double[nn + 1];                                 // p[] uses indexes from 1 to n + 1
+   // p[] uses indexes from 1 to n + 1
    for (int i = 1; i <= nn; i++) {
       p[i] = coeffs[i - 1]; }
    // Start the algorithm for one zero.
@@ -164,7 +260,6 @@ private Complex[] rpoly (double[] coeffs) {
             for (int i = 1; i <= nn; i++) {
                p[i] = factor * p[i]; }}}
       // Compute lower bound on moduli of zeros.
-      double[] pt = new double[nn + 1];
       for (int i = 1; i <= nn; i++) {
          pt[i] = Math.abs(p[i]); }
       pt[nn] = -pt[nn];
@@ -198,7 +293,7 @@ private Complex[] rpoly (double[] coeffs) {
       double bnd = x;
       // Compute the derivative as the initial k polynomial and do 5 steps with no shift.
       int nm1 = n - 1;
-      k = new double[n + 1];
+      Arrays.fill(k, 0);
       for (int i = 2; i <= n; i++) {
          k[i] = (nn - i) * p[i] / n; }
       k[1] = p[1];
@@ -223,9 +318,8 @@ private Complex[] rpoly (double[] coeffs) {
             k[1] = p[1];
             zerok = Math.abs(k[n]) <= Math.abs(bb) * eta * 10; }}
       // Save k for restarts with new shifts.
-      double[] temp = new double[n + 1];
       for (int i = 1; i <= n; i++) {
-         temp[i] = k[i]; }
+         savedK[i] = k[i]; }
       // Loop to select the quadratic corresponding to each new shift.
       int cnt = 1;
       while (true) {
@@ -239,8 +333,8 @@ private Complex[] rpoly (double[] coeffs) {
          u = -2 * sr;
          v = bnd;
          // Second stage calculation, fixed quadratic.
-         qp = new double[nn + 1];
-         qk = new double[n + 1];
+         Arrays.fill(qp, 0);
+         Arrays.fill(qk, 0);
          int nz = fxshfr(20 * cnt, sr);
          if (nz > 0) {                                     // one or two zeros have been found
             // The second stage jumps directly to one of the third stage iterations and returns here if successful.
@@ -252,12 +346,10 @@ private Complex[] rpoly (double[] coeffs) {
             n = nn - 1;
             for (int i = 1; i <= nn; i++) {
                p[i] = qp[i]; }
-            qp = null;                                     // just to be sure that qp is no longer used from here on
-            qk = null;                                     // just to make sure that qk is no longer used from here on
             break; }                                       // continue with main loop, after zeros hav been found
          // If the iteration is unsuccessful another quadratic is chosen after restoring k.
          for (int i = 1; i <= n; i++) {
-            k[i] = temp[i]; }
+            k[i] = savedK[i]; }
          // Failure if no convergence with 20 shifts.
          if (cnt++ > 20) {
             throw new RuntimeException("No convergence."); }}}}
@@ -278,10 +370,9 @@ private int fxshfr (int l2, double sr) {
    double oss = sr;
    double ovv = v;
    // Evaluate polynomial by synthetic division.
-   double[] temp1 = new double[2];
-   quadsd(nn, u, v, p, qp, temp1);
-   a = temp1[0];
-   b = temp1[1];
+   quadsd(nn, u, v, p, qp, rem);
+   a = rem[0];
+   b = rem[1];
    int type = calcsc();
    for (int j = 1; j <= l2; j++) {
       // Calculate next k polynomial and estimate v.
@@ -313,7 +404,6 @@ private int fxshfr (int l2, double sr) {
             // At least one sequence has passed the convergence test. Store variables before iterating.
             double svu = u;
             double svv = v;
-            double[] svk = new double[n + 1];
             for (int i = 1; i <= n; i++) {
                svk[i] = k[i]; }
             double s = ss;
@@ -369,10 +459,9 @@ private int fxshfr (int l2, double sr) {
                         state = 20;
                         break; }
                      // Recompute qp and scalar values to continue the second stage.
-                     double[] temp3 = new double[2];
-                     quadsd(nn, u, v, p, qp, temp3);
-                     a = temp3[0];
-                     b = temp3[1];
+                     quadsd(nn, u, v, p, qp, rem);
+                     a = rem[0];
+                     b = rem[1];
                      type = calcsc();
                      state = 70;
                      break; }
@@ -406,10 +495,9 @@ private int quadit (double uu, double vv) {
       if (Math.abs(Math.abs(sz.re()) - Math.abs(lz.re())) > 0.01 * Math.abs(lz.re())) {
          return 0; }
       // Evaluate polynomial by quadratic synthetic division.
-      double[] temp1 = new double[2];
-      quadsd(nn, u, v, p, qp, temp1);
-      a = temp1[0];
-      b = temp1[1];
+      quadsd(nn, u, v, p, qp, rem);
+      a = rem[0];
+      b = rem[1];
       double mp = Math.abs(a - sz.re() * b) + Math.abs(sz.im() * b);
       // Compute a rigorous bound on the rounding error in evaluting p.
       double zm = Math.sqrt(Math.abs(v));
@@ -436,10 +524,9 @@ private int quadit (double uu, double vv) {
          relstp = Math.sqrt(relstp);
          u = u - u * relstp;
          v = v + v * relstp;
-         double[] temp2 = new double[2];
-         quadsd(nn, u, v, p, qp, temp2);
-         a = temp2[0];
-         b = temp2[1];
+         quadsd(nn, u, v, p, qp, rem);
+         a = rem[0];
+         b = rem[1];
          for (int i = 1; i <= 5; i++) {
            int type = calcsc();
            nextk(type); }
@@ -532,10 +619,9 @@ private RealitOut realit (double sss) {
 // Returns an integer (type) indicating how the calculations are
 // normalized to avoid overflow.
 private int calcsc() {
-   double[] temp = new double[2];
-   quadsd(n, u, v, k, qk, temp);                           // synthetic division of k by the quadratic 1,u,v
-   c = temp[0];
-   d = temp[1];
+   quadsd(n, u, v, k, qk, rem);                            // synthetic division of k by the quadratic 1,u,v
+   c = rem[0];
+   d = rem[1];
    if (Math.abs(c) <= Math.abs(k[n]) * 100 * eta || Math.abs(d) <= Math.abs(k[n - 1]) * 100 * eta) {
       return 3; }                                          // type=3 indicates the quadratic is almost a factor c of k
    if (Math.abs(d) < Math.abs(c)) {
@@ -582,10 +668,11 @@ private void nextk (int type) {
          k[i] = a3 * qk[i - 2] - a7 * qp[i-1]; }}}
 
 // Compute new estimates of the quadratic coefficients using the scalars computed in calcsc.
+// The result is returned in a reused array and must be consumed before the next call.
 private double[] newest (int type) {
    // Use formulas appropriate to setting of type.
    if (type == 3) {                                        // if type=3 the quadratic is zeroed
-      return new double[]{0, 0}; }
+      return zeroNewest(); }
    double a4, a5;
    if (type == 2) {
       a4 = (a + g) * f + h;
@@ -602,10 +689,17 @@ private double[] newest (int type) {
    double c4 = c1 - c2 - c3;
    double temp = a5 + b1 * a4 - c4;
    if (temp == 0) {
-      return new double[]{0, 0}; }
+      return zeroNewest(); }
    double uu = u - (u * (c3 + c2) + v * (b1 * a1 + b2 * a7)) / temp;
    double vv = v * (1 + c4 / temp);
-   return new double[]{uu, vv}; }
+   newestOut[0] = uu;
+   newestOut[1] = vv;
+   return newestOut; }
+
+private double[] zeroNewest() {
+   newestOut[0] = 0;
+   newestOut[1] = 0;
+   return newestOut; }
 
 } // end class GlobalEnvironment
 
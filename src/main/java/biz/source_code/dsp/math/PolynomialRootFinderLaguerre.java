@@ -27,13 +27,16 @@
 
 package biz.source_code.dsp.math;
 
-import biz.source_code.dsp.util.ArrayUtils;
-
 /**
 * A root finder for polynomials with complex coefficients.
 * It uses Laguerre's method to find the zeros of a polynomial.
 *
 * <p>
+* The computation works on primitive values and does not allocate objects in the iteration loops.
+* When the roots of many polynomials have to be found, a {@link Workspace} can be reused
+* to avoid the allocation of the work arrays.
+*
+* <p>
 * This class is based on C source code by Anthony J. Fisher.
 *
 * <p>
@@ -43,12 +46,27 @@ public class PolynomialRootFinderLaguerre {
 
 private static final double EPSS = 1E-14;
 
+/**
+* Reusable work buffers for the root finder.
+* A workspace grows as needed and must not be used by multiple threads concurrently.
+*/
+public static final class Workspace {
+   private double[]          aRe = new double[0];          // deflated polynomial
+   private double[]          aIm = new double[0];
+   private double[]          zeroIm = new double[0];       // imaginary parts of real coefficients, all 0
+   private double            xRe;                          // result of laguer()
+   private double            xIm;
+   private void ensureCapacity (int n) {
+      if (aRe.length < n) {
+         aRe = new double[n];
+         aIm = new double[n];
+         zeroIm = new double[n]; }}}
+
 // Dummy constructor to suppress Javadoc.
 private PolynomialRootFinderLaguerre() {}
 
 /**
 * Finds the zeros of a real polynomial.
-* The coefficients are copied into a complex array and then the complex <code>findRoots()</code> is called.
 *
 * @param coeffs
 *    The polynomial coefficients in order of decreasing powers.
@@ -56,7 +74,38 @@ private PolynomialRootFinderLaguerre() {}
 *    The zeros of the polynomial.
 */
 public static Complex[] findRoots (double[] coeffs) {
-   return findRoots(ArrayUtils.toComplex(coeffs)); }
+   return findRoots(coeffs, new Workspace()); }
+
+/**
+* Finds the zeros of a real polynomial, using a reusable workspace.
+*
+* @param coeffs
+*    The polynomial coefficients in order of decreasing powers.
+* @param ws
+*    The workspace.
+* @return
+*    The zeros of the polynomial.
+*/
+public static Complex[] findRoots (double[] coeffs, Workspace ws) {
+   ComplexArray zeros = new ComplexArray(coeffs.length - 1);
+   ws.ensureCapacity(coeffs.length);
+   findRoots(coeffs, ws.zeroIm, zeros, ws);
+   return zeros.toComplex(); }
+
+/**
+* Finds the zeros of many real polynomials with a single workspace.
+*
+* @param coeffs
+*    The coefficients of the polynomials, each in order of decreasing powers.
+* @return
+*    The zeros of the polynomials. <code>result[i]</code> contains the zeros of polynomial <code>coeffs[i]</code>.
+*/
+public static Complex[][] findRoots (double[][] coeffs) {
+   Workspace ws = new Workspace();
+   Complex[][] result = new Complex[coeffs.length][];
+   for (int i = 0; i < coeffs.length; i++) {
+      result[i] = findRoots(coeffs[i], ws); }
+   return result; }
 
 /**
 * Finds the zeros of a complex polynomial.
@@ -71,65 +120,125 @@ public static Complex[] findRoots (double[] coeffs) {
 *    The zeros of the polynomial.
 */
 public static Complex[] findRoots (Complex[] coeffs) {
-   int n = coeffs.length - 1;
-   Complex[] zeros = new Complex[n];
-   Complex[] a = coeffs;
+   ComplexArray c = ComplexArray.fromComplex(coeffs);
+   ComplexArray zeros = new ComplexArray(coeffs.length - 1);
+   findRoots(c, zeros, new Workspace());
+   return zeros.toComplex(); }
+
+/**
+* Finds the zeros of a complex polynomial without allocating memory (once the workspace has grown to the required size).
+*
+* @param coeffs
+*    The polynomial coefficients in order of decreasing powers.
+* @param zeros
+*    Receives the zeros of the polynomial. Must have the length <code>coeffs.length() - 1</code>.
+* @param ws
+*    The workspace.
+*/
+public static void findRoots (ComplexArray coeffs, ComplexArray zeros, Workspace ws) {
+   findRoots(coeffs.re, coeffs.im, zeros, ws); }
+
+// cIm may be longer than cRe.
+private static void findRoots (double[] cRe, double[] cIm, ComplexArray zeros, Workspace ws) {
+   int n = cRe.length - 1;
+   if (zeros.length() != n) {
+      throw new IllegalArgumentException("Wrong length of zeros array."); }
+   ws.ensureCapacity(n + 1);
+   double[] aRe = ws.aRe;
+   double[] aIm = ws.aIm;
+   System.arraycopy(cRe, 0, aRe, 0, n + 1);
+   System.arraycopy(cIm, 0, aIm, 0, n + 1);
    for (int i = 0; i < n; i++) {
-      Complex zero;
+      int deg = n - i;
       int ctr = 0;
       while (true) {
-         Complex startX = (ctr == 0) ? new Complex(0) : randomStart();
-         zero = laguer(a, startX);
-         if (zero != null) {
+         boolean first = ctr == 0;
+         double startRe = first ? 0 : Math.random() * 2 - 1;
+         double startIm = first ? 0 : Math.random() * 2 - 1;
+         if (laguer(aRe, aIm, deg, startRe, startIm, ws)) {
             break; }
          if (ctr++ > 1000) {
             throw new RuntimeException("Root finding aborted in random loop."); }}
-      zeros[i] = zero;
-      a = PolynomialUtils.deflate(a, zero, 0); }
+      zeros.re[i] = ws.xRe;
+      zeros.im[i] = ws.xIm;
+      deflate(aRe, aIm, deg, ws.xRe, ws.xIm); }
    // Polish the roots found in the first pass.
    for (int i = 0; i < n; i++) {
-      zeros[i] = laguer(coeffs, zeros[i]);
-      if (zeros[i] == null) {
-         throw new RuntimeException("Polish failed."); }}
-  return zeros; }
+      if (!laguer(cRe, cIm, n, zeros.re[i], zeros.im[i], ws)) {
+         throw new RuntimeException("Polish failed."); }
+      zeros.re[i] = ws.xRe;
+      zeros.im[i] = ws.xIm; }}
+
+// In-place forward deflation of the polynomial a[0..n] by (x - z). The result is stored in a[0..n-1].
+private static void deflate (double[] aRe, double[] aIm, int n, double zRe, double zIm) {
+   for (int i = 1; i < n; i++) {
+      double pr = aRe[i - 1];
+      double pi = aIm[i - 1];
+      aRe[i] += zRe * pr - zIm * pi;
+      aIm[i] += zRe * pi + zIm * pr; }}
 
-private static Complex laguer (Complex[] a, Complex startX) {
-   int n = a.length - 1;
-   Complex cn = new Complex(n);
-   Complex x = startX;
+// Returns true and stores the zero into ws.xRe/xIm when the iteration converged.
+private static boolean laguer (double[] aRe, double[] aIm, int n, double startRe, double startIm, Workspace ws) {
+   double xr = startRe;
+   double xi = startIm;
    for (int iter = 0; iter < 80; iter++) {
-      Complex b = a[0];
-      double err = b.abs();
-      Complex d = Complex.ZERO;
-      Complex f = Complex.ZERO;
-      double absX = x.abs();
+      double br = aRe[0];
+      double bi = aIm[0];
+      double err = Math.hypot(br, bi);
+      double dr = 0;
+      double di = 0;
+      double fr = 0;
+      double fi = 0;
+      double absX = Math.hypot(xr, xi);
       for (int i = 1; i <= n; i++) {
-         f = x.mul(f).add(d);
-         d = x.mul(d).add(b);
-         b = x.mul(b).add(a[i]);
-         err = b.abs() + absX * err; }
+         double t;
+         t  = xr * fr - xi * fi + dr;                      // f = x * f + d
+         fi = xr * fi + xi * fr + di;
+         fr = t;
+         t  = xr * dr - xi * di + br;                      // d = x * d + b
+         di = xr * di + xi * dr + bi;
+         dr = t;
+         t  = xr * br - xi * bi + aRe[i];                  // b = x * b + a[i]
+         bi = xr * bi + xi * br + aIm[i];
+         br = t;
+         err = Math.sqrt(br * br + bi * bi) + absX * err; }  // error bound estimate, sqrt() is much faster than hypot()
       err *= EPSS;
-      if (b.abs() <= err) {
-         return x; }
-      Complex g = d.div(b);
-      Complex g2 = g.mul(g);
-      Complex h = g2.sub(Complex.TWO.mul(f.div(b)));
-      Complex sq = cn.sub(Complex.ONE).mul( cn.mul(h).sub(g2) ).sqrt();
-      Complex gp = g.add(sq);
-      Complex gm = g.sub(sq);
-      double abp = gp.abs();
-      double abm = gm.abs();
+      if (Math.hypot(br, bi) <= err) {
+         ws.xRe = xr;
+         ws.xIm = xi;
+         return true; }
+      double m = br * br + bi * bi;
+      double gr = (dr * br + di * bi) / m;                 // g = d / b
+      double gi = (di * br - dr * bi) / m;
+      double g2r = gr * gr - gi * gi;                      // g2 = g * g
+      double g2i = 2 * gr * gi;
+      double hr = g2r - 2 * (fr * br + fi * bi) / m;       // h = g2 - 2 * f / b
+      double hi = g2i - 2 * (fi * br - fr * bi) / m;
+      double ur = (n - 1) * (n * hr - g2r);                // u = (n - 1) * (n * h - g2)
+      double ui = (n - 1) * (n * hi - g2i);
+      double sqr = 0;                                      // sq = sqrt(u)
+      double sqi = 0;
+      if (ur != 0 || ui != 0) {
+         double mu = Math.hypot(ur, ui);
+         sqr = Math.sqrt((mu + ur) / 2);
+         sqi = Math.copySign(1, ui) * Math.sqrt((mu - ur) / 2); }
+      double gpr = gr + sqr;
+      double gpi = gi + sqi;
+      double gmr = gr - sqr;
+      double gmi = gi - sqi;
+      double abp = Math.hypot(gpr, gpi);
+      double abm = Math.hypot(gmr, gmi);
       if (abp < abm) {
-         gp = gm; }
-      Complex dx;
+         gpr = gmr;
+         gpi = gmi; }
       if (abp > 0 || abm > 0) {
-         dx = cn.div(gp); }
+         double mg = gpr * gpr + gpi * gpi;                // dx = n / gp
+         xr -= n * gpr / mg;
+         xi += n * gpi / mg; }
        else {
-         dx = new Complex(Math.log(1 + absX), iter + 1).exp(); }
-      x = x.sub(dx); }
-   return null; }                                          // too many iterations
-
-private static Complex randomStart() {
-   return new Complex(Math.random() * 2 - 1, Math.random() * 2 - 1); }
+         double r = 1 + absX;                              // dx = exp(log(1 + |x|) + i * (iter + 1))
+         xr -= r * Math.cos(iter + 1);
+         xi -= r * Math.sin(iter + 1); }}
+   return false; }                                         // too many iterations
 
 }
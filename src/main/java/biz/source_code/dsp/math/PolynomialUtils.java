@@ -12,6 +12,10 @@
 
 package biz.source_code.dsp.math;
 
+import biz.source_code.dsp.transform.Fft;
+import java.util.Arrays;
+import java.util.Comparator;
+
 /**
 * Polynomial utility routines.
 *
@@ -23,6 +27,16 @@ package biz.source_code.dsp.math;
 */
 public class PolynomialUtils {
 
+/**
+* The minimum number of coefficients of both factors for which {@link #multiply} uses FFT convolution.
+*/
+public static final int      fftMinLength = 64;
+
+/**
+* The maximum number of zeros that {@link #expand} multiplies sequentially. Larger sets of zeros are split by a product tree.
+*/
+public static final int      expandLeafSize = 8;
+
 // Dummy constructor to suppress Javadoc.
 private PolynomialUtils() {}
 
@@ -50,10 +64,42 @@ public static class RationalFraction {
 public static Complex evaluate (double[] a, Complex x) {
    if (a.length == 0) {
       throw new IllegalArgumentException(); }
-   Complex sum = new Complex(a[0]);
-   for (int i = 1; i < a.length; i++) {
-      sum = sum.mul(x).add(a[i]); }
-   return sum; }
+   double xr = x.re();
+   double xi = x.im();
+   double sr = a[0];
+   double si = 0;
+   for (int i = 1; i < a.length; i++) {                    // Horner scheme with primitive accumulators
+      double t = sr * xr - si * xi + a[i];
+      si = sr * xi + si * xr;
+      sr = t; }
+   return new Complex(sr, si); }
+
+/**
+* Computes the values of a polynomial with real coefficients for a vector of x values.
+* This method does not allocate memory.
+*
+* @param a
+*    The coefficients of the polynomial, ordered in descending powers.
+* @param x
+*    The x values for which the polynomial is to be evaluated.
+* @param out
+*    Receives the results. May be the same object as <code>x</code>.
+*/
+public static void evaluate (double[] a, ComplexArray x, ComplexArray out) {
+   if (a.length == 0) {
+      throw new IllegalArgumentException(); }
+   int n = x.length();
+   for (int j = 0; j < n; j++) {
+      double xr = x.re[j];
+      double xi = x.im[j];
+      double sr = a[0];
+      double si = 0;
+      for (int i = 1; i < a.length; i++) {
+         double t = sr * xr - si * xi + a[i];
+         si = sr * xi + si * xr;
+         sr = t; }
+      out.re[j] = sr;
+      out.im[j] = si; }}
 
 /**
 * Computes the value of a rational fraction.
@@ -66,8 +112,15 @@ public static Complex evaluate (RationalFraction f, Complex x) {
 
 /**
 * Multiplies two polynomials with real coefficients.
+*
+* <p>
+* When both polynomials have at least {@link #fftMinLength} coefficients, the product is computed
+* by FFT convolution with O(n log n) operations, otherwise by direct convolution.
+* With FFT convolution, the rounding errors are relative to the largest coefficients.
 */
 public static double[] multiply (double[] a1, double[] a2) {
+   if (a1.length >= fftMinLength && a2.length >= fftMinLength) {
+      return multiplyFft(a1, a2); }
    int n1 = a1.length - 1;
    int n2 = a2.length - 1;
    int n3 = n1 + n2;
@@ -83,21 +136,110 @@ public static double[] multiply (double[] a1, double[] a2) {
 
 /**
 * Multiplies two polynomials with complex coefficients.
+*
+* <p>
+* FFT convolution is used for large polynomials, as in {@link #multiply(double[], double[])}.
 */
 public static Complex[] multiply (Complex[] a1, Complex[] a2) {
-   int n1 = a1.length - 1;
-   int n2 = a2.length - 1;
+   ComplexArray a3 = new ComplexArray(a1.length + a2.length - 1);
+   multiply(ComplexArray.fromComplex(a1), ComplexArray.fromComplex(a2), a3);
+   return a3.toComplex(); }
+
+/**
+* Multiplies two polynomials with complex coefficients.
+* This version works on split arrays.
+*
+* <p>
+* When both polynomials have at least {@link #fftMinLength} coefficients, FFT convolution is used,
+* which allocates a temporary buffer. Otherwise this method does not allocate memory.
+*
+* @param a1
+*    The coefficients of the first polynomial, ordered in descending powers.
+* @param a2
+*    The coefficients of the second polynomial.
+* @param a3
+*    Receives the coefficients of the product. Must have the length <code>a1.length + a2.length - 1</code>
+*    and must be distinct from <code>a1</code> and <code>a2</code>.
+*/
+public static void multiply (ComplexArray a1, ComplexArray a2, ComplexArray a3) {
+   int n1 = a1.length() - 1;
+   int n2 = a2.length() - 1;
    int n3 = n1 + n2;
-   Complex[] a3 = new Complex[n3 + 1];
+   if (a3.length() != n3 + 1) {
+      throw new IllegalArgumentException("Wrong result array length."); }
+   if (n1 + 1 >= fftMinLength && n2 + 1 >= fftMinLength) {
+      multiplyFft(a1, a2, a3);
+      return; }
    for (int i = 0; i <= n3; i++) {
-      Complex t = Complex.ZERO;
+      double tr = 0;
+      double ti = 0;
       int p1 = Math.max(0, i - n2);
       int p2 = Math.min(n1, i);
       for (int j = p1; j <= p2; j++) {
-         t = t.add( a1[n1 - j].mul( a2[n2 - i + j] )); }
-      a3[n3 - i] = t; }
+         double r1 = a1.re[n1 - j];
+         double i1 = a1.im[n1 - j];
+         double r2 = a2.re[n2 - i + j];
+         double i2 = a2.im[n2 - i + j];
+         tr += r1 * r2 - i1 * i2;
+         ti += r1 * i2 + i1 * r2; }
+      a3.re[n3 - i] = tr;
+      a3.im[n3 - i] = ti; }}
+
+// Real polynomial multiplication by FFT convolution.
+// The coefficient order does not matter, because the reversed product is the product of the reversed factors.
+private static double[] multiplyFft (double[] a1, double[] a2) {
+   int len3 = a1.length + a2.length - 1;
+   int n = Fft.nextPowerOf2(len3);
+   Fft fft = Fft.getInstance(n);
+   double[] b1 = new double[n];
+   double[] b2 = new double[n];
+   System.arraycopy(a1, 0, b1, 0, a1.length);
+   System.arraycopy(a2, 0, b2, 0, a2.length);
+   fft.realForward(b1);
+   fft.realForward(b2);
+   b1[0] *= b2[0];                                         // DC
+   b1[1] *= b2[1];                                         // Nyquist frequency
+   for (int k = 2; k < n; k += 2) {
+      double r1 = b1[k];
+      double i1 = b1[k + 1];
+      double r2 = b2[k];
+      double i2 = b2[k + 1];
+      b1[k]     = r1 * r2 - i1 * i2;
+      b1[k + 1] = r1 * i2 + i1 * r2; }
+   fft.realInverse(b1, true);
+   double[] a3 = new double[len3];
+   System.arraycopy(b1, 0, a3, 0, len3);
    return a3; }
 
+// Complex polynomial multiplication by FFT convolution.
+private static void multiplyFft (ComplexArray a1, ComplexArray a2, ComplexArray a3) {
+   int len1 = a1.length();
+   int len2 = a2.length();
+   int len3 = a3.length();
+   int n = Fft.nextPowerOf2(len3);
+   Fft fft = Fft.getInstance(n);
+   double[] b1 = new double[2 * n];                        // interleaved complex values
+   double[] b2 = new double[2 * n];
+   for (int i = 0; i < len1; i++) {
+      b1[2 * i]     = a1.re[i];
+      b1[2 * i + 1] = a1.im[i]; }
+   for (int i = 0; i < len2; i++) {
+      b2[2 * i]     = a2.re[i];
+      b2[2 * i + 1] = a2.im[i]; }
+   fft.complexForward(b1);
+   fft.complexForward(b2);
+   for (int k = 0; k < 2 * n; k += 2) {
+      double r1 = b1[k];
+      double i1 = b1[k + 1];
+      double r2 = b2[k];
+      double i2 = b2[k + 1];
+      b1[k]     = r1 * r2 - i1 * i2;
+      b1[k + 1] = r1 * i2 + i1 * r2; }
+   fft.complexInverse(b1, true);
+   for (int i = 0; i < len3; i++) {
+      a3.re[i] = b1[2 * i];
+      a3.im[i] = b1[2 * i + 1]; }}
+
 /**
 * Forward deflation of a polynomial with a known zero.
 * Divides the polynomial with coefficients <code>a[]</code> by <code>(x - z)</code>,
@@ -126,6 +268,12 @@ public static Complex[] deflate (Complex[] a, Complex z, double eps) {
 /**
 * Computes the coefficients of a polynomial from it's complex zeros.
 *
+* <p>
+* Up to {@link #expandLeafSize} zeros, the factors are multiplied into the coefficients one by one.
+* For more zeros, a product tree is used: the zeros are sorted by angle, the zeros at even and odd positions
+* are expanded recursively and the two partial products are multiplied, using FFT convolution for large degrees.
+* This is faster and for most sets of zeros also more accurate than sequential multiplication.
+*
 * @param zeros
 *    The zeros of the polynomial.
 *    The polynomial formula is:
@@ -134,13 +282,70 @@ public static Complex[] deflate (Complex[] a, Complex z, double eps) {
 *    The coefficients of the expanded polynomial, ordered in descending powers.
 */
 public static Complex[] expand (Complex[] zeros) {
-   int n = zeros.length;
-   if (n == 0) {
-      return new Complex[]{Complex.ONE}; }
-   Complex[] a = new Complex[]{Complex.ONE, zeros[0].neg()};   // start with (x - zeros[0])
-   for (int i = 1; i < n; i++) {
-      Complex[] a2 = new Complex[]{Complex.ONE, zeros[i].neg()};
-      a = multiply(a, a2); }                                   // multiply factor (x - zeros[i]) into coefficients
-   return a; }
+   ComplexArray a = new ComplexArray(zeros.length + 1);
+   expand(ComplexArray.fromComplex(zeros), a);
+   return a.toComplex(); }
+
+/**
+* Computes the coefficients of a polynomial from it's complex zeros.
+* This version works on split arrays. See {@link #expand(Complex[])}.
+*
+* @param zeros
+*    The zeros of the polynomial.
+* @param a
+*    Receives the coefficients of the expanded polynomial, ordered in descending powers.
+*    Must have the length <code>zeros.length() + 1</code>.
+*/
+public static void expand (ComplexArray zeros, ComplexArray a) {
+   int n = zeros.length();
+   if (a.length() != n + 1) {
+      throw new IllegalArgumentException("Wrong result array length."); }
+   if (n <= expandLeafSize) {
+      expandSequential(zeros.re, zeros.im, 0, 1, n, a.re, a.im);
+      return; }
+   // The zeros are sorted by angle, so that the zeros of each partial product of the product tree
+   // are spread around the origin. This avoids large intermediate coefficients and cancellation.
+   final double[] args = new double[n];
+   Integer[] order = new Integer[n];
+   for (int i = 0; i < n; i++) {
+      args[i] = Math.atan2(zeros.im[i], zeros.re[i]);
+      order[i] = i; }
+   Arrays.sort(order, new Comparator<Integer>() {
+      @Override public int compare (Integer i1, Integer i2) {
+         return Double.compare(args[i1], args[i2]); }});
+   double[] zRe = new double[n];
+   double[] zIm = new double[n];
+   for (int i = 0; i < n; i++) {
+      zRe[i] = zeros.re[order[i]];
+      zIm[i] = zeros.im[order[i]]; }
+   expand(zRe, zIm, 0, 1, n, a.re, a.im); }
+
+// Expands the factors for the zeros z[p], z[p + stride], z[p + 2 * stride], ... (n zeros) into re[0..n] / im[0..n].
+// The zeros are split into the even and odd positions instead of two contiguous halves. With zeros ordered by angle,
+// the zeros of each partial product are then spread evenly around the origin.
+private static void expand (double[] zRe, double[] zIm, int p, int stride, int n, double[] re, double[] im) {
+   if (n <= expandLeafSize) {
+      expandSequential(zRe, zIm, p, stride, n, re, im);
+      return; }
+   int n1 = (n + 1) / 2;
+   int n2 = n / 2;
+   ComplexArray a1 = new ComplexArray(n1 + 1);
+   ComplexArray a2 = new ComplexArray(n2 + 1);
+   expand(zRe, zIm, p, 2 * stride, n1, a1.re, a1.im);
+   expand(zRe, zIm, p + stride, 2 * stride, n2, a2.re, a2.im);
+   multiply(a1, a2, new ComplexArray(re, im)); }
+
+private static void expandSequential (double[] zRe, double[] zIm, int p, int stride, int n, double[] re, double[] im) {
+   re[0] = 1;                                              // start with 1
+   im[0] = 0;
+   for (int j = 1; j <= n; j++) {
+      re[j] = 0;
+      im[j] = 0; }
+   for (int i = 0; i < n; i++) {                           // multiply factor (x - zeros[i]) into coefficients, in-place
+      double zr = zRe[p + i * stride];
+      double zi = zIm[p + i * stride];
+      for (int j = i + 1; j >= 1; j--) {
+         re[j] -= re[j - 1] * zr - im[j - 1] * zi;
+         im[j] -= re[j - 1] * zi + im[j - 1] * zr; }}}
 
 }
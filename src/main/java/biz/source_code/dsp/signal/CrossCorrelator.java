@@ -0,0 +1,298 @@
+// Copyright 2015 Christian d'Heureuse, Inventec Informatik AG, Zurich, Switzerland
+// www.source-code.biz, www.inventec.ch/chdh
+//
+// This module is multi-licensed and may be used under the terms
+// of any of the following licenses:
+//
+//  EPL, Eclipse Public License, V1.0 or later, http://www.eclipse.org/legal
+//  LGPL, GNU Lesser General Public License, V2.1 or later, http://www.gnu.org/licenses/lgpl.html
+//
+// Please contact the author if you need another license.
+// This module is provided "as is", without warranties of any kind.
+
+package biz.source_code.dsp.signal;
+
+import biz.source_code.dsp.sound.AudioIo.AudioSignal;
+import biz.source_code.dsp.transform.Fft;
+
+/**
+* FFT-based cross-correlation, auto-correlation and time delay estimation.
+*
+* <p>The cross-correlation of two blocks <code>x</code> and <code>y</code> of <code>blockSize</code> samples
+* is computed for the lags <code>-maxLag .. maxLag</code>:
+* <pre>
+*    r[lag] = sum(n) x[n + lag] * y[n]
+* </pre>
+* When <code>x</code> is a delayed copy of <code>y</code>, the peak of <code>r</code> is at the delay.
+* The blocks are zero-padded to avoid circular aliasing, so the result is identical to the direct computation.
+*
+* <p>For the correlation of many channel pairs, the spectrum of each channel should be computed only once
+* with {@link #computeSpectrum(float[], int, double[])} and the pairs then correlated with {@link #correlateSpectra}.
+*
+* <p>The generalized cross-correlation with phase transform (GCC-PHAT) normalizes the magnitudes of the
+* cross spectrum. It produces a sharper peak and is more robust for time delay estimation in reverberant rooms.
+*
+* <p>Objects of this class contain work buffers and are not thread-safe.
+*/
+public class CrossCorrelator {
+
+/**
+* The weighting of the cross spectrum.
+*/
+public enum Weighting {
+   /** Plain cross-correlation. */
+   none,
+   /** Phase transform (GCC-PHAT). */
+   phat };
+
+/**
+* A correlation peak.
+*/
+public static class Peak {
+   /** The lag of the peak in samples, with sub-sample precision. */
+   public double             lag;
+   /** The interpolated correlation value at the peak. */
+   public double             value; }
+
+private static final double  phatEps = 1E-30;               // lower limit for the magnitude in the PHAT weighting
+
+private int                  blockSize;
+private int                  maxLag;
+private int                  fftSize;
+private Fft                  fft;
+private double[]             buf1;                         // work buffers
+private double[]             buf2;
+private double[]             buf3;
+private double[]             corrBuf;
+
+/**
+* Creates a cross-correlator.
+*
+* @param blockSize
+*    The number of samples in the blocks to be correlated.
+* @param maxLag
+*    The maximum absolute lag for which the correlation is computed.
+*/
+public CrossCorrelator (int blockSize, int maxLag) {
+   if (blockSize < 1 || maxLag < 0) {
+      throw new IllegalArgumentException(); }
+   this.blockSize = blockSize;
+   this.maxLag = maxLag;
+   fftSize = Math.max(2, Fft.nextPowerOf2(blockSize + maxLag));
+   fft = Fft.getInstance(fftSize);
+   buf1 = new double[fftSize];
+   buf2 = new double[fftSize];
+   buf3 = new double[fftSize];
+   corrBuf = new double[2 * maxLag + 1]; }
+
+/**
+* Returns the block size.
+*/
+public int getBlockSize() {
+   return blockSize; }
+
+/**
+* Returns the maximum lag.
+*/
+public int getMaxLag() {
+   return maxLag; }
+
+/**
+* Returns the FFT size, which is also the size of the spectrum arrays.
+*/
+public int getFftSize() {
+   return fftSize; }
+
+/**
+* Computes the zero-padded spectrum of a block.
+*
+* @param x
+*    The signal.
+* @param pos
+*    The position of the first sample of the block in <code>x</code>.
+* @param spectrum
+*    An array of {@link #getFftSize} elements that receives the spectrum in the packed format of {@link Fft}.
+*/
+public void computeSpectrum (float[] x, int pos, double[] spectrum) {
+   for (int i = 0; i < blockSize; i++) {
+      spectrum[i] = x[pos + i]; }
+   for (int i = blockSize; i < fftSize; i++) {
+      spectrum[i] = 0; }
+   fft.realForward(spectrum, 0); }
+
+/**
+* Computes the zero-padded spectrum of a block.
+* See {@link #computeSpectrum(float[], int, double[])}.
+*/
+public void computeSpectrum (double[] x, int pos, double[] spectrum) {
+   System.arraycopy(x, pos, spectrum, 0, blockSize);
+   for (int i = blockSize; i < fftSize; i++) {
+      spectrum[i] = 0; }
+   fft.realForward(spectrum, 0); }
+
+/**
+* Computes the cross-correlation from two spectra computed by {@link #computeSpectrum(float[], int, double[])}.
+*
+* @param spectrum1
+*    The spectrum of <code>x</code>.
+* @param spectrum2
+*    The spectrum of <code>y</code>.
+* @param weighting
+*    The weighting of the cross spectrum.
+* @param out
+*    An array of <code>2 * maxLag + 1</code> elements that receives the correlation values.
+*    <code>out[maxLag + lag]</code> is the value for <code>lag</code>.
+*/
+public void correlateSpectra (double[] spectrum1, double[] spectrum2, Weighting weighting, double[] out) {
+   double[] a = buf1;
+   boolean phat = weighting == Weighting.phat;
+   a[0] = weight(spectrum1[0] * spectrum2[0], phat);
+   a[1] = weight(spectrum1[1] * spectrum2[1], phat);
+   for (int k = 1; k < fftSize / 2; k++) {
+      double xr = spectrum1[2 * k];
+      double xi = spectrum1[2 * k + 1];
+      double yr = spectrum2[2 * k];
+      double yi = spectrum2[2 * k + 1];
+      double re = xr * yr + xi * yi;                       // X[k] * conj(Y[k])
+      double im = xi * yr - xr * yi;
+      if (phat) {
+         double m = Math.max(Math.hypot(re, im), phatEps);
+         re /= m;
+         im /= m; }
+      a[2 * k]     = re;
+      a[2 * k + 1] = im; }
+   fft.realInverse(a, 0, true);
+   for (int lag = -maxLag; lag <= maxLag; lag++) {
+      out[maxLag + lag] = a[(lag + fftSize) % fftSize]; }}
+
+private static double weight (double v, boolean phat) {
+   if (!phat) {
+      return v; }
+   return (Math.abs(v) < phatEps) ? 0 : Math.signum(v); }
+
+/**
+* Computes the cross-correlation of two blocks.
+*
+* @param x
+*    The first signal.
+* @param xPos
+*    The position of the block in <code>x</code>.
+* @param y
+*    The second signal.
+* @param yPos
+*    The position of the block in <code>y</code>.
+* @param weighting
+*    The weighting of the cross spectrum.
+* @param out
+*    An array of <code>2 * maxLag + 1</code> elements that receives the correlation values.
+*    <code>out[maxLag + lag]</code> is the value for <code>lag</code>.
+*/
+public void correlate (float[] x, int xPos, float[] y, int yPos, Weighting weighting, double[] out) {
+   computeSpectrum(x, xPos, buf2);
+   computeSpectrum(y, yPos, buf3);
+   correlateSpectra(buf2, buf3, weighting, out); }
+
+/**
+* Computes the cross-correlation of two blocks.
+* See {@link #correlate(float[], int, float[], int, Weighting, double[])}.
+*/
+public void correlate (double[] x, int xPos, double[] y, int yPos, Weighting weighting, double[] out) {
+   computeSpectrum(x, xPos, buf2);
+   computeSpectrum(y, yPos, buf3);
+   correlateSpectra(buf2, buf3, weighting, out); }
+
+/**
+* Computes the auto-correlation of a block for the lags <code>0 .. maxLag</code>.
+*
+* @param x
+*    The signal.
+* @param pos
+*    The position of the block in <code>x</code>.
+* @param out
+*    An array of <code>maxLag + 1</code> elements that receives the auto-correlation values.
+*/
+public void autoCorrelate (float[] x, int pos, double[] out) {
+   computeSpectrum(x, pos, buf2);
+   autoCorrelateSpectrum(buf2, out); }
+
+/**
+* Computes the auto-correlation of a block for the lags <code>0 .. maxLag</code>.
+* See {@link #autoCorrelate(float[], int, double[])}.
+*/
+public void autoCorrelate (double[] x, int pos, double[] out) {
+   computeSpectrum(x, pos, buf2);
+   autoCorrelateSpectrum(buf2, out); }
+
+private void autoCorrelateSpectrum (double[] spectrum, double[] out) {
+   double[] a = buf1;
+   a[0] = spectrum[0] * spectrum[0];
+   a[1] = spectrum[1] * spectrum[1];
+   for (int k = 1; k < fftSize / 2; k++) {
+      double re = spectrum[2 * k];
+      double im = spectrum[2 * k + 1];
+      a[2 * k]     = re * re + im * im;                    // |X[k]|^2
+      a[2 * k + 1] = 0; }
+   fft.realInverse(a, 0, true);
+   System.arraycopy(a, 0, out, 0, maxLag + 1); }
+
+/**
+* Finds the maximum of a cross-correlation and interpolates its position with a parabola
+* through the maximum and its two neighbors.
+*
+* @param r
+*    The correlation values. <code>r[maxLag + lag]</code> is the value for <code>lag</code>.
+* @param maxLag
+*    The maximum lag.
+* @return
+*    The peak.
+*/
+public static Peak findPeak (double[] r, int maxLag) {
+   int n = 2 * maxLag + 1;
+   int p = 0;
+   for (int i = 1; i < n; i++) {
+      if (r[i] > r[p]) {
+         p = i; }}
+   Peak peak = new Peak();
+   peak.lag = p - maxLag;
+   peak.value = r[p];
+   if (p > 0 && p < n - 1) {
+      double y0 = r[p - 1];
+      double y1 = r[p];
+      double y2 = r[p + 1];
+      double d = y0 - 2 * y1 + y2;
+      if (d < 0) {
+         double delta = 0.5 * (y0 - y2) / d;
+         peak.lag += delta;
+         peak.value = y1 - 0.25 * (y0 - y2) * delta; }}
+   return peak; }
+
+/**
+* Estimates the time delay between two blocks.
+*
+* @return
+*    The peak of the cross-correlation. A positive lag means that <code>x</code> is delayed relative to <code>y</code>.
+*/
+public Peak estimateDelay (float[] x, int xPos, float[] y, int yPos, Weighting weighting) {
+   correlate(x, xPos, y, yPos, weighting, corrBuf);
+   return findPeak(corrBuf, maxLag); }
+
+/**
+* Estimates the time delay between two channels of an audio signal.
+*
+* @param signal
+*    The audio signal.
+* @param channel1
+*    The channel index of <code>x</code>.
+* @param channel2
+*    The channel index of <code>y</code>.
+* @param pos
+*    The position of the block in the signal.
+* @param weighting
+*    The weighting of the cross spectrum.
+* @return
+*    The peak of the cross-correlation. A positive lag means that <code>channel1</code> is delayed relative to <code>channel2</code>.
+*/
+public Peak estimateDelay (AudioSignal signal, int channel1, int channel2, int pos, Weighting weighting) {
+   return estimateDelay(signal.data[channel1], pos, signal.data[channel2], pos, weighting); }
+
+}
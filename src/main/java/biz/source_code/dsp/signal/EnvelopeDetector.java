@@ -16,7 +16,7 @@ import biz.source_code.dsp.filter.FilterCharacteristicsType;
 import biz.source_code.dsp.filter.FilterPassType;
 import biz.source_code.dsp.filter.IirFilter;
 import biz.source_code.dsp.filter.IirFilterCoefficients;
-import biz.source_code.dsp.filter.IirFilterDesignFisher;
+import biz.source_code.dsp.filter.IirFilterDesignCache;
 
 /**
 * An envelope detector.
@@ -45,7 +45,7 @@ public EnvelopeDetector (int samplingRate) {
    double filterRipple = -0.5;
    double fcf1Rel = lowerFilterCutoffFreq / samplingRate;
    double fcf2Rel = upperFilterCutoffFreq / samplingRate;
-   IirFilterCoefficients coeffs = IirFilterDesignFisher.design(FilterPassType.bandpass, FilterCharacteristicsType.chebyshev, filterOrder, filterRipple, fcf1Rel, fcf2Rel);
+   IirFilterCoefficients coeffs = IirFilterDesignCache.getFisher(FilterPassType.bandpass, FilterCharacteristicsType.chebyshev, filterOrder, filterRipple, fcf1Rel, fcf2Rel);
    IirFilter iirFilter = new IirFilter(coeffs);
    init(samplingRate, attackTime, releaseTime, iirFilter); }
 
@@ -0,0 +1,170 @@
+// Copyright 2015 Christian d'Heureuse, Inventec Informatik AG, Zurich, Switzerland
+// www.source-code.biz, www.inventec.ch/chdh
+//
+// This module is multi-licensed and may be used under the terms
+// of any of the following licenses:
+//
+//  EPL, Eclipse Public License, V1.0 or later, http://www.eclipse.org/legal
+//  LGPL, GNU Lesser General Public License, V2.1 or later, http://www.gnu.org/licenses/lgpl.html
+//
+// Please contact the author if you need another license.
+// This module is provided "as is", without warranties of any kind.
+
+package biz.source_code.dsp.signal;
+
+import biz.source_code.dsp.transform.Stft;
+
+/**
+* Power spectral density (PSD) estimator using Welch's method.
+*
+* <p>The input signal is processed incrementally, in blocks of arbitrary size.
+* It is split into overlapping windowed segments. The periodograms of the segments are averaged
+* in a fixed buffer, so the memory usage does not depend on the length of the signal.
+*
+* <p>Two averaging modes are supported:
+* <ul>
+* <li>Linear averaging: All segments have the same weight (running mean).
+* <li>Exponential averaging: Older segments fade out with a configurable time constant.
+*     This is useful for monitoring streams of unlimited length.
+* </ul>
+*
+* <p>The result is a one-sided power spectral density with the unit <code>V^2/Hz</code>
+* (when the signal has the unit <code>V</code>).
+*
+* <p>
+* Reference: <a href="http://en.wikipedia.org/wiki/Welch%27s_method">Wikipedia</a>.
+*/
+public class WelchPsdEstimator {
+
+/**
+* The averaging mode.
+*/
+public enum Averaging {
+   linear, exponential };
+
+private int                  segmentSize;
+private double               samplingRate;
+private Averaging            averaging;
+private double               expWeight;                    // weight of a new segment for exponential averaging
+private double               densityScale;                 // converts |X[k]|^2 into a one-sided density
+private Stft                 stft;
+private double[]             avgBuf;                       // averaged |X[k]|^2, k = 0 .. segmentSize/2
+private long                 segmentCount;
+private Stft.FrameHandler    frameHandler;
+
+/**
+* Creates a Welch PSD estimator.
+*
+* @param segmentSize
+*    The segment size (FFT size). Must be a power of 2.
+* @param hopSize
+*    The number of samples between the start of two successive segments.
+*    <code>segmentSize / 2</code> is a typical value (50% overlap).
+* @param window
+*    The window function, an array of <code>segmentSize</code> values, or <code>null</code> for a rectangular window.
+* @param samplingRate
+*    The sampling rate in Hz.
+* @param averaging
+*    The averaging mode.
+* @param timeConstant
+*    The number of segments for 1/e decay of the weight of old segments for exponential averaging.
+*    Ignored for linear averaging.
+*/
+public WelchPsdEstimator (int segmentSize, int hopSize, double[] window, double samplingRate, Averaging averaging, double timeConstant) {
+   if (averaging == Averaging.exponential && !(timeConstant > 0)) {
+      throw new IllegalArgumentException("Invalid time constant."); }
+   this.segmentSize = segmentSize;
+   this.samplingRate = samplingRate;
+   this.averaging = averaging;
+   expWeight = (averaging == Averaging.exponential) ? 1 - Math.exp(-1 / timeConstant) : 0;
+   stft = new Stft(segmentSize, hopSize, window);         // validates the parameters
+   double sumSqr = 0;
+   for (int i = 0; i < segmentSize; i++) {
+      double w = (window == null) ? 1 : window[i];
+      sumSqr += w * w; }
+   densityScale = 1 / (samplingRate * sumSqr);
+   avgBuf = new double[segmentSize / 2 + 1];
+   frameHandler = new Stft.FrameHandler() {
+      @Override public void processFrame (double[] spectrum) {
+         addPeriodogram(spectrum); }}; }
+
+/**
+* Processes a block of input samples.
+*/
+public void process (float[] in, int pos, int len) {
+   stft.process(in, pos, len, frameHandler); }
+
+/**
+* Processes a block of input samples.
+*/
+public void process (double[] in, int pos, int len) {
+   stft.process(in, pos, len, frameHandler); }
+
+private void addPeriodogram (double[] spectrum) {
+   int m = segmentSize / 2;
+   segmentCount++;
+   double g = (averaging == Averaging.linear) ? 1.0 / segmentCount : Math.max(expWeight, 1.0 / segmentCount);
+      // For exponential averaging, the first segments are averaged linearly until the weight reaches expWeight.
+   avgBuf[0] += g * (spectrum[0] * spectrum[0] - avgBuf[0]);
+   if (m == 0) {
+      return; }
+   avgBuf[m] += g * (spectrum[1] * spectrum[1] - avgBuf[m]);
+   for (int k = 1; k < m; k++) {
+      double re = spectrum[2 * k];
+      double im = spectrum[2 * k + 1];
+      avgBuf[k] += g * (re * re + im * im - avgBuf[k]); }}
+
+/**
+* Returns the number of segments that have been averaged.
+*/
+public long getSegmentCount() {
+   return segmentCount; }
+
+/**
+* Returns the number of frequency bins of the PSD (<code>segmentSize / 2 + 1</code>).
+*/
+public int getBinCount() {
+   return avgBuf.length; }
+
+/**
+* Returns the frequency in Hz of a frequency bin.
+*/
+public double getFrequency (int bin) {
+   return bin * samplingRate / segmentSize; }
+
+/**
+* Returns the frequency resolution (bin width) in Hz.
+*/
+public double getBinWidth() {
+   return samplingRate / segmentSize; }
+
+/**
+* Stores the current one-sided power spectral density estimate into an array.
+*
+* @param out
+*    An array with at least {@link #getBinCount} elements. The PSD values are stored in <code>V^2/Hz</code>.
+*/
+public void getPsd (double[] out) {
+   int m = segmentSize / 2;
+   for (int k = 0; k <= m; k++) {
+      boolean twoSided = k > 0 && k < m;                   // these bins also represent the negative frequencies
+      out[k] = avgBuf[k] * densityScale * (twoSided ? 2 : 1); }}
+
+/**
+* Returns the current one-sided power spectral density estimate in a new array.
+*/
+public double[] getPsd() {
+   double[] a = new double[avgBuf.length];
+   getPsd(a);
+   return a; }
+
+/**
+* Resets the averaged spectrum and the internal state.
+*/
+public void reset() {
+   stft.reset();
+   for (int k = 0; k < avgBuf.length; k++) {
+      avgBuf[k] = 0; }
+   segmentCount = 0; }
+
+}
@@ -12,14 +12,13 @@
 
 package biz.source_code.dsp.sound;
 
-import java.io.InputStream;
 import java.io.IOException;
-import java.io.File;
-import java.util.Arrays;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import javax.sound.sampled.AudioFormat;
 import javax.sound.sampled.AudioFormat.Encoding;
-import javax.sound.sampled.AudioFileFormat;
-import javax.sound.sampled.AudioInputStream;
 import javax.sound.sampled.AudioSystem;
 import javax.sound.sampled.SourceDataLine;
 
@@ -76,10 +75,8 @@ private AudioIo() {}
 *    Number of samples (frames) to be written.
 */
 public static void saveWavFile (String fileName, AudioSignal signal, int pos, int len) throws Exception {
-   AudioFormat format = new AudioFormat(signal.samplingRate, 16, signal.getChannels(), true, false);
-   AudioBytesPackerStream audioBytesPackerStream = new AudioBytesPackerStream(format, signal.data, pos, len);
-   AudioInputStream audioInputStream = new AudioInputStream(audioBytesPackerStream, format, len);
-   AudioSystem.write(audioInputStream, AudioFileFormat.Type.WAVE, new File(fileName)); }
+   try (WavFileWriter writer = new WavFileWriter(fileName, signal.samplingRate, signal.getChannels())) {
+      writer.write(signal.data, pos, len); }}
 
 /**
 * Writes an audio signal into a WAV file.
@@ -96,44 +93,22 @@ public static void saveWavFile (String fileName, float[] buf, int samplingRate)
    signal.data = new float[][]{buf};
    saveWavFile(fileName, signal); }
 
-private static class AudioBytesPackerStream extends InputStream {
-   AudioFormat     format;
-   float[][]       inBufs;
-   int             inOffs;
-   int             inLen;
-   int             pos;
-   public AudioBytesPackerStream (AudioFormat format, float[][] inBufs, int inOffs, int inLen) {
-      this.format = format;
-      this.inBufs = inBufs;
-      this.inOffs = inOffs;
-      this.inLen  = inLen; }
-   @Override
-   public int read() throws IOException {
-      throw new AssertionError("Not implemented."); }
-   @Override
-   public int read (byte[] outBuf, int outOffs, int outLen) throws IOException {
-      int remFrames = inLen - pos;
-      if (remFrames <= 0) {
-         return -1; }
-      int reqFrames = outLen / format.getFrameSize();
-      int trFrames = Math.min(remFrames, reqFrames);
-      packAudioStreamBytes(format, inBufs, inOffs + pos, outBuf, outOffs, trFrames);
-      pos += trFrames;
-      return trFrames * format.getFrameSize(); }}
-
 /**
 * Loads an audio signal from a WAV file.
+*
+* <p>
+* The WAV file is parsed directly with {@link WavFileHeader}, without Java Sound.
+* For files that do not fit into memory, {@link WavFileReader} can be used.
 */
 public static AudioSignal loadWavFile (String fileName) throws Exception {
-   AudioInputStream stream = null;
-   try {
+   try (FileChannel fileChannel = FileChannel.open(Paths.get(fileName), StandardOpenOption.READ)) {
+      WavFileHeader header = WavFileHeader.read(fileChannel);
+      AudioFormat format = header.getFormat();
       AudioSignal signal = new AudioSignal();
-      stream = AudioSystem.getAudioInputStream(new File(fileName));
-      AudioFormat format = stream.getFormat();
       signal.samplingRate = Math.round(format.getSampleRate());
       int frameSize = format.getFrameSize();
       int channels = format.getChannels();
-      long totalFramesLong = stream.getFrameLength();
+      long totalFramesLong = header.getFrameCount();
       if (totalFramesLong > Integer.MAX_VALUE) {
          throw new IOException("Sound file too long."); }
       int totalFrames = (int)totalFramesLong;
@@ -141,32 +116,20 @@ public static AudioSignal loadWavFile (String fileName) throws Exception {
       for (int channel = 0; channel < channels; channel++) {
          signal.data[channel] = new float[totalFrames]; }
       final int blockFrames = 0x4000;
-      byte[] blockBuf = new byte[frameSize * blockFrames];
+      ByteBuffer blockBuf = ByteBuffer.allocate(frameSize * blockFrames);
+      long filePos = header.getDataOffset();
       int pos = 0;
       while (pos < totalFrames) {
          int reqFrames = Math.min(totalFrames - pos, blockFrames);
-         int trBytes = stream.read(blockBuf, 0, reqFrames * frameSize);
-         if (trBytes <= 0) {
-            if (format.getEncoding() == Encoding.PCM_FLOAT && pos * frameSize == totalFrames) {
-               // Workaround for JDK bug JDK-8038139 / JI-9011075.
-               // http://bugs.java.com/bugdatabase/view_bug.do?bug_id=8038139
-               // https://bugs.openjdk.java.net/browse/JDK-8038139
-               truncateSignal(signal, pos);
-               break; }
-            throw new IOException("Unexpected EOF while reading WAV file. totalFrames=" + totalFrames + " pos=" + pos + " frameSize=" + frameSize + "."); }
-         if (trBytes % frameSize != 0) {
-            throw new IOException("Length of transmitted data is not a multiple of frame size. reqFrames=" + reqFrames + " trBytes=" + trBytes + " frameSize=" + frameSize + "."); }
-         int trFrames = trBytes / frameSize;
-         unpackAudioStreamBytes(format, blockBuf, 0, signal.data, pos, trFrames);
-         pos += trFrames; }
-      return signal; }
-    finally {
-      if (stream != null) {
-         stream.close(); }}}
-
-private static void truncateSignal (AudioSignal signal, int length) {
-   for (int channel = 0; channel < signal.getChannels(); channel++) {
-      signal.data[channel] = Arrays.copyOf(signal.data[channel], length); }}
+         blockBuf.clear();
+         blockBuf.limit(reqFrames * frameSize);
+         while (blockBuf.hasRemaining()) {
+            if (fileChannel.read(blockBuf, filePos + blockBuf.position()) < 0) {
+               throw new IOException("Unexpected EOF while reading WAV file. totalFrames=" + totalFrames + " pos=" + pos + " frameSize=" + frameSize + "."); }}
+         unpackAudioStreamBytes(format, blockBuf.array(), 0, signal.data, pos, reqFrames);
+         filePos += reqFrames * frameSize;
+         pos += reqFrames; }
+      return signal; }}
 
 /**
 * Plays an audio signal on the default system audio output device.
@@ -14,7 +14,7 @@ package biz.source_code.dsp.sound;
 
 import biz.source_code.dsp.filter.FilterPassType;
 import biz.source_code.dsp.filter.IirFilterCoefficients;
-import biz.source_code.dsp.filter.IirFilterDesignExstrom;
+import biz.source_code.dsp.filter.IirFilterDesignCache;
 import javax.sound.sampled.AudioFormat;
 import javax.sound.sampled.AudioInputStream;
 
@@ -49,7 +49,7 @@ public static AudioInputStream getAudioInputStream (AudioInputStream in, FilterP
    double sampleRate = format.getSampleRate();
    double fcf1Rel = fcf1 / sampleRate;
    double fcf2Rel = fcf2 / sampleRate;
-   IirFilterCoefficients coeffs = IirFilterDesignExstrom.design(filterPassType, filterOrder, fcf1Rel, fcf2Rel);
+   IirFilterCoefficients coeffs = IirFilterDesignCache.getExstrom(filterPassType, filterOrder, fcf1Rel, fcf2Rel);
    return IirFilterAudioInputStream.getAudioInputStream(in, coeffs); }
 
 }
@@ -15,7 +15,7 @@ package biz.source_code.dsp.sound;
 import biz.source_code.dsp.filter.FilterCharacteristicsType;
 import biz.source_code.dsp.filter.FilterPassType;
 import biz.source_code.dsp.filter.IirFilterCoefficients;
-import biz.source_code.dsp.filter.IirFilterDesignFisher;
+import biz.source_code.dsp.filter.IirFilterDesignCache;
 import javax.sound.sampled.AudioFormat;
 import javax.sound.sampled.AudioInputStream;
 
@@ -56,7 +56,7 @@ public static AudioInputStream getAudioInputStream (AudioInputStream in, FilterP
    double sampleRate = format.getSampleRate();
    double fcf1Rel = fcf1 / sampleRate;
    double fcf2Rel = fcf2 / sampleRate;
-   IirFilterCoefficients coeffs = IirFilterDesignFisher.design(filterPassType, filterCharacteristicsType, filterOrder, ripple, fcf1Rel, fcf2Rel);
+   IirFilterCoefficients coeffs = IirFilterDesignCache.getFisher(filterPassType, filterCharacteristicsType, filterOrder, ripple, fcf1Rel, fcf2Rel);
    return IirFilterAudioInputStream.getAudioInputStream(in, coeffs); }
 
 }
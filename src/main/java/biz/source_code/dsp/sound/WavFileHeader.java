@@ -0,0 +1,311 @@
+// Copyright 2015 Christian d'Heureuse, Inventec Informatik AG, Zurich, Switzerland
+// www.source-code.biz, www.inventec.ch/chdh
+//
+// This module is multi-licensed and may be used under the terms
+// of any of the following licenses:
+//
+//  EPL, Eclipse Public License, V1.0 or later, http://www.eclipse.org/legal
+//  LGPL, GNU Lesser General Public License, V2.1 or later, http://www.gnu.org/licenses/lgpl.html
+//
+// Please contact the author if you need another license.
+// This module is provided "as is", without warranties of any kind.
+
+package biz.source_code.dsp.sound;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioFormat.Encoding;
+
+/**
+* The header information of a WAV file, parsed directly from the RIFF chunks.
+*
+* <p>
+* Besides standard RIFF WAVE files, RF64/BW64 and Wave64 files are supported.
+* These formats have 64 bit sizes and can be larger than 4 GB.
+*
+* <p>
+* The <code>fmt</code>, <code>data</code>, <code>fact</code> and <code>LIST</code> chunks are evaluated,
+* all other chunks are skipped. <code>WAVE_FORMAT_PCM</code>, <code>WAVE_FORMAT_IEEE_FLOAT</code> and
+* <code>WAVE_FORMAT_EXTENSIBLE</code> with a PCM or IEEE float sub-format are supported.
+* The sample data is described by an <code>AudioFormat</code>, which can be used with
+* {@link AudioIo#unpackAudioStreamBytes}.
+*
+* <p>
+* Reference: <a href="http://en.wikipedia.org/wiki/WAV">Wikipedia</a>,
+* <a href="http://www-mmsp.ece.mcgill.ca/Documents/AudioFormats/WAVE/WAVE.html">WAVE file format specifications</a>,
+* <a href="https://tech.ebu.ch/docs/tech/tech3306v1_1.pdf">EBU Tech 3306 (RF64)</a>.
+*/
+public class WavFileHeader {
+
+/** Format tag for integer PCM data. */
+public static final int      WAVE_FORMAT_PCM = 1;
+/** Format tag for IEEE floating-point data. */
+public static final int      WAVE_FORMAT_IEEE_FLOAT = 3;
+/** Format tag for the extensible format, which has the actual format tag in the sub-format GUID. */
+public static final int      WAVE_FORMAT_EXTENSIBLE = 0xFFFE;
+
+/**
+* The container type of a WAV file.
+*/
+public enum FileType {
+   /** Standard RIFF WAVE file, limited to 4 GB. */
+   riff,
+   /** RF64 file (EBU Tech 3306, also BW64), with 64 bit sizes in a <code>ds64</code> chunk. */
+   rf64,
+   /** Sony Wave64 file, with GUIDs as chunk IDs and 64 bit chunk sizes. */
+   wave64 };
+
+// Wave64 GUIDs, also used by WavFileWriter.
+static final byte[]          w64RiffGuid = {'r', 'i', 'f', 'f', 0x2E, (byte)0x91, (byte)0xCF, 0x11, (byte)0xA5, (byte)0xD6, 0x28, (byte)0xDB, 0x04, (byte)0xC1, 0x00, 0x00};
+static final byte[]          w64ListGuid = {'l', 'i', 's', 't', 0x2F, (byte)0x91, (byte)0xCF, 0x11, (byte)0xA5, (byte)0xD6, 0x28, (byte)0xDB, 0x04, (byte)0xC1, 0x00, 0x00};
+static final byte[]          w64WaveGuid = {'w', 'a', 'v', 'e', (byte)0xF3, (byte)0xAC, (byte)0xD3, 0x11, (byte)0x8C, (byte)0xD1, 0x00, (byte)0xC0, 0x4F, (byte)0x8E, (byte)0xDB, (byte)0x8A};
+static final byte[]          w64FmtGuid  = {'f', 'm', 't', ' ', (byte)0xF3, (byte)0xAC, (byte)0xD3, 0x11, (byte)0x8C, (byte)0xD1, 0x00, (byte)0xC0, 0x4F, (byte)0x8E, (byte)0xDB, (byte)0x8A};
+static final byte[]          w64FactGuid = {'f', 'a', 'c', 't', (byte)0xF3, (byte)0xAC, (byte)0xD3, 0x11, (byte)0x8C, (byte)0xD1, 0x00, (byte)0xC0, 0x4F, (byte)0x8E, (byte)0xDB, (byte)0x8A};
+static final byte[]          w64DataGuid = {'d', 'a', 't', 'a', (byte)0xF3, (byte)0xAC, (byte)0xD3, 0x11, (byte)0x8C, (byte)0xD1, 0x00, (byte)0xC0, 0x4F, (byte)0x8E, (byte)0xDB, (byte)0x8A};
+
+// The last 14 bytes of the sub-format GUID of WAVE_FORMAT_EXTENSIBLE, after the 2 bytes of the format tag.
+private static final byte[]  subFormatGuidSuffix = {0, 0, 0, 0, 0x10, 0, (byte)0x80, 0, 0, (byte)0xAA, 0, 0x38, (byte)0x9B, 0x71};
+
+private FileType             fileType;
+private AudioFormat          format;
+private int                  formatTag;                    // format tag, resolved from the sub-format for WAVE_FORMAT_EXTENSIBLE
+private int                  validBitsPerSample;
+private int                  channelMask;
+private long                 dataOffset;
+private long                 dataSize;
+private long                 factSampleLength = -1;
+private Map<String,String>   info = new LinkedHashMap<String,String>();
+
+private WavFileHeader() {}
+
+/**
+* Reads the header of a WAV file.
+*
+* <p>
+* All chunks of the file are parsed, including those behind the <code>data</code> chunk.
+* A data chunk which is longer than the file (a truncated file) is shortened to the file size.
+*
+* @param channel
+*    The file channel. The current position of the channel is not used and not changed.
+*/
+public static WavFileHeader read (FileChannel channel) throws IOException {
+   WavFileHeader header = new WavFileHeader();
+   header.parse(channel);
+   return header; }
+
+private void parse (FileChannel channel) throws IOException {
+   long fileSize = channel.size();
+   ByteBuffer buf = readBytes(channel, 0, (int)Math.min(fileSize, 40));
+   String riffId = (buf.limit() >= 12) ? getFourCc(buf, 0) : "";
+   if ((riffId.equals("RIFF") || riffId.equals("RF64") || riffId.equals("BW64")) && getFourCc(buf, 8).equals("WAVE")) {
+      fileType = riffId.equals("RIFF") ? FileType.riff : FileType.rf64;
+      parseRiffChunks(channel, fileSize); }
+    else if (buf.limit() >= 40 && isGuid(buf, 0, w64RiffGuid) && isGuid(buf, 24, w64WaveGuid)) {
+      fileType = FileType.wave64;
+      parseWave64Chunks(channel, fileSize); }
+    else {
+      throw new IOException("Not a WAV file."); }
+   if (format == null) {
+      throw new IOException("No format chunk found in WAV file."); }
+   if (dataOffset == 0) {
+      throw new IOException("No data chunk found in WAV file."); }}
+
+// Parses the chunks of a RIFF or RF64 file.
+// In an RF64 file, the sizes of the large chunks are 0xFFFFFFFF and the actual sizes are stored in the ds64 chunk.
+private void parseRiffChunks (FileChannel channel, long fileSize) throws IOException {
+   long ds64DataSize = -1;
+   Map<String,Long> ds64Table = new HashMap<String,Long>();
+   long pos = 12;
+   while (pos + 8 <= fileSize) {
+      ByteBuffer chunkHeader = readBytes(channel, pos, 8);
+      String chunkId = getFourCc(chunkHeader, 0);
+      long chunkSize = chunkHeader.getInt(4) & 0xFFFFFFFFL;
+      long chunkPos = pos + 8;
+      if (fileType == FileType.rf64 && chunkId.equals("ds64") && chunkSize >= 28) {
+         ByteBuffer ds64 = readBytes(channel, chunkPos, (int)Math.min(chunkSize, 0x10000));
+         ds64DataSize = ds64.getLong(8);
+         int tableLength = ds64.getInt(24);
+         for (int i = 0; i < tableLength && 28 + 12 * i + 12 <= ds64.limit(); i++) {
+            ds64Table.put(getFourCc(ds64, 28 + 12 * i), ds64.getLong(28 + 12 * i + 4)); }}
+       else if (fileType == FileType.rf64 && chunkSize == 0xFFFFFFFFL) {
+         Long size = chunkId.equals("data") ? Long.valueOf(ds64DataSize) : ds64Table.get(chunkId);
+         if (size == null || size < 0) {
+            throw new IOException("Missing ds64 size for chunk \"" + chunkId + "\" in RF64 file."); }
+         chunkSize = size; }
+      processChunk(channel, chunkId, chunkPos, Math.min(chunkSize, fileSize - chunkPos));
+      pos = chunkPos + chunkSize + (chunkSize & 1); }}     // chunks are padded to an even size
+
+// Parses the chunks of a Wave64 file.
+// The chunk IDs are GUIDs, the chunk sizes are 64 bit values that include the 24 byte chunk header,
+// and the chunks are aligned to 8 bytes.
+private void parseWave64Chunks (FileChannel channel, long fileSize) throws IOException {
+   long pos = 40;
+   while (pos + 24 <= fileSize) {
+      ByteBuffer chunkHeader = readBytes(channel, pos, 24);
+      long chunkSize = chunkHeader.getLong(16);
+      if (chunkSize < 24) {
+         throw new IOException("Invalid chunk size in Wave64 file."); }
+      String chunkId = isGuid(chunkHeader, 0, w64FmtGuid)  ? "fmt " :
+                       isGuid(chunkHeader, 0, w64FactGuid) ? "fact" :
+                       isGuid(chunkHeader, 0, w64DataGuid) ? "data" :
+                       isGuid(chunkHeader, 0, w64ListGuid) ? "LIST" : "";
+      long chunkPos = pos + 24;
+      processChunk(channel, chunkId, chunkPos, Math.min(chunkSize - 24, fileSize - chunkPos));
+      pos += (chunkSize + 7) & ~7L; }}
+
+// Evaluates the content of a chunk. availableSize is the chunk size, limited to the file size.
+private void processChunk (FileChannel channel, String chunkId, long chunkPos, long availableSize) throws IOException {
+   switch (chunkId) {
+      case "fmt ": {
+         parseFormatChunk(readBytes(channel, chunkPos, (int)Math.min(availableSize, 0x10000)));
+         break; }
+      case "fact": {
+         if (availableSize >= 8 && fileType == FileType.wave64) {
+            factSampleLength = readBytes(channel, chunkPos, 8).getLong(0); }
+          else if (availableSize >= 4) {
+            factSampleLength = readBytes(channel, chunkPos, 4).getInt(0) & 0xFFFFFFFFL; }
+         break; }
+      case "LIST": {
+         parseListChunk(readBytes(channel, chunkPos, (int)Math.min(availableSize, 0x100000)));
+         break; }
+      case "data": {
+         dataOffset = chunkPos;
+         dataSize = availableSize;
+         break; }}}
+
+private void parseFormatChunk (ByteBuffer buf) throws IOException {
+   if (buf.limit() < 16) {
+      throw new IOException("Invalid format chunk in WAV file."); }
+   formatTag = buf.getShort(0) & 0xFFFF;
+   int channels = buf.getShort(2) & 0xFFFF;
+   int samplingRate = buf.getInt(4);
+   int blockAlign = buf.getShort(12) & 0xFFFF;
+   int sampleBits = buf.getShort(14) & 0xFFFF;
+   validBitsPerSample = sampleBits;
+   if (formatTag == WAVE_FORMAT_EXTENSIBLE) {
+      if (buf.limit() < 40 || (buf.getShort(16) & 0xFFFF) < 22) {
+         throw new IOException("Invalid extensible format chunk in WAV file."); }
+      int validBits = buf.getShort(18) & 0xFFFF;
+      if (validBits != 0) {
+         validBitsPerSample = validBits; }
+      channelMask = buf.getInt(20);
+      formatTag = buf.getShort(24) & 0xFFFF;
+      for (int i = 0; i < subFormatGuidSuffix.length; i++) {
+         if (buf.get(26 + i) != subFormatGuidSuffix[i]) {
+            throw new UnsupportedOperationException("WAV sub-format GUID not supported."); }}}
+   Encoding encoding;
+   switch (formatTag) {
+      case WAVE_FORMAT_PCM:        encoding = (sampleBits <= 8) ? Encoding.PCM_UNSIGNED : Encoding.PCM_SIGNED; break;
+      case WAVE_FORMAT_IEEE_FLOAT: encoding = Encoding.PCM_FLOAT; break;
+      default: throw new UnsupportedOperationException("WAV format tag " + formatTag + " not supported."); }
+   if (channels < 1 || samplingRate <= 0 || blockAlign != channels * ((sampleBits + 7) / 8)) {
+      throw new IOException("Invalid format chunk in WAV file."); }
+   format = new AudioFormat(encoding, samplingRate, sampleBits, channels, blockAlign, samplingRate, false); }
+
+// Parses a LIST chunk of type INFO. Each sub-chunk contains a zero-terminated text.
+private void parseListChunk (ByteBuffer buf) {
+   if (buf.limit() < 4 || !getFourCc(buf, 0).equals("INFO")) {
+      return; }
+   int pos = 4;
+   while (pos + 8 <= buf.limit()) {
+      String id = getFourCc(buf, pos);
+      int size = buf.getInt(pos + 4);
+      if (size < 0 || pos + 8 + size > buf.limit()) {
+         return; }
+      StringBuilder s = new StringBuilder();
+      for (int i = 0; i < size; i++) {
+         char c = (char)(buf.get(pos + 8 + i) & 0xFF);     // ISO-8859-1
+         if (c == 0) {
+            break; }
+         s.append(c); }
+      info.put(id, s.toString());
+      pos += 8 + size + (size & 1); }}
+
+private static ByteBuffer readBytes (FileChannel channel, long pos, int len) throws IOException {
+   ByteBuffer buf = ByteBuffer.allocate(len).order(ByteOrder.LITTLE_ENDIAN);
+   while (buf.hasRemaining()) {
+      if (channel.read(buf, pos + buf.position()) < 0) {
+         throw new IOException("Unexpected EOF in WAV file header."); }}
+   buf.flip();
+   return buf; }
+
+private static boolean isGuid (ByteBuffer buf, int pos, byte[] guid) {
+   for (int i = 0; i < 16; i++) {
+      if (buf.get(pos + i) != guid[i]) {
+         return false; }}
+   return true; }
+
+private static String getFourCc (ByteBuffer buf, int pos) {
+   char[] a = new char[4];
+   for (int i = 0; i < 4; i++) {
+      a[i] = (char)(buf.get(pos + i) & 0xFF); }
+   return new String(a); }
+
+/**
+* Returns the container type of the file.
+*/
+public FileType getFileType() {
+   return fileType; }
+
+/**
+* Returns the audio format of the sample data.
+*/
+public AudioFormat getFormat() {
+   return format; }
+
+/**
+* Returns the format tag. For <code>WAVE_FORMAT_EXTENSIBLE</code>, the format tag of the sub-format is returned.
+*/
+public int getFormatTag() {
+   return formatTag; }
+
+/**
+* Returns the number of valid bits per sample. This may be less than the sample size of the format.
+*/
+public int getValidBitsPerSample() {
+   return validBitsPerSample; }
+
+/**
+* Returns the speaker position mask of <code>WAVE_FORMAT_EXTENSIBLE</code>, or 0.
+*/
+public int getChannelMask() {
+   return channelMask; }
+
+/**
+* Returns the file position of the sample data.
+*/
+public long getDataOffset() {
+   return dataOffset; }
+
+/**
+* Returns the size of the sample data in bytes.
+*/
+public long getDataSize() {
+   return dataSize; }
+
+/**
+* Returns the number of frames in the data chunk.
+*/
+public long getFrameCount() {
+   return dataSize / format.getFrameSize(); }
+
+/**
+* Returns the sample length of the <code>fact</code> chunk, or -1 if the file has no <code>fact</code> chunk.
+*/
+public long getFactSampleLength() {
+   return factSampleLength; }
+
+/**
+* Returns the texts of the <code>LIST INFO</code> chunk, keyed by the chunk IDs (e.g. <code>INAM</code>, <code>IART</code>).
+*/
+public Map<String,String> getInfo() {
+   return Collections.unmodifiableMap(info); }
+
+}
@@ -0,0 +1,197 @@
+// Copyright 2015 Christian d'Heureuse, Inventec Informatik AG, Zurich, Switzerland
+// www.source-code.biz, www.inventec.ch/chdh
+//
+// This module is multi-licensed and may be used under the terms
+// of any of the following licenses:
+//
+//  EPL, Eclipse Public License, V1.0 or later, http://www.eclipse.org/legal
+//  LGPL, GNU Lesser General Public License, V2.1 or later, http://www.gnu.org/licenses/lgpl.html
+//
+// Please contact the author if you need another license.
+// This module is provided "as is", without warranties of any kind.
+
+package biz.source_code.dsp.sound;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import javax.sound.sampled.AudioFormat;
+
+/**
+* A WAV file reader with random access, based on a memory-mapped file.
+*
+* <p>
+* In contrast to {@link AudioIo#loadWavFile}, the audio data is not loaded into memory.
+* The data chunk of the WAV file is mapped into memory in windows of limited size and the sample values
+* are decoded on demand into buffers of the caller. Files of any length can be processed with bounded memory.
+*
+* <p>
+* Frames can be read at arbitrary positions with {@link #read(long, float[][], int, int)},
+* or sequentially with {@link #read(float[][], int, int)}.
+* Signed PCM (16, 24 and 32 bits) and 32 bit floating-point sample formats are supported.
+* The header is parsed by {@link WavFileHeader}. RF64 and Wave64 files larger than 4 GB are supported.
+*
+* <p>
+* This class is not thread-safe.
+*/
+public class WavFileReader implements Closeable {
+
+/**
+* The default size of the memory-mapped windows in bytes.
+*/
+public static final int      defaultMapWindowSize = 0x40000000;      // 1 GB
+
+private static final int     blockFrames = 0x1000;         // number of frames decoded per block
+
+private FileChannel          channel;
+private WavFileHeader        header;
+private AudioFormat          format;
+private int                  frameSize;
+private long                 dataOffset;                   // file position of the audio data
+private long                 frameCount;
+private long                 position;                     // current frame position for sequential reading
+private int                  windowFrames;                 // number of frames per memory-mapped window
+private MappedByteBuffer     window;                       // currently mapped window or null
+private long                 windowStart;                  // frame position of the mapped window
+private int                  windowLength;                 // number of frames in the mapped window
+private byte[]               blockBuf;
+
+/**
+* Opens a WAV file.
+*
+* @param fileName
+*    The name of the WAV file.
+*/
+public WavFileReader (String fileName) throws IOException {
+   this(fileName, defaultMapWindowSize); }
+
+/**
+* Opens a WAV file with a specific size of the memory-mapped windows.
+*
+* @param fileName
+*    The name of the WAV file.
+* @param mapWindowSize
+*    The maximum size in bytes of the memory-mapped windows.
+*    Larger windows reduce the number of mapping operations, smaller windows reduce the address space usage.
+*/
+public WavFileReader (String fileName, int mapWindowSize) throws IOException {
+   channel = FileChannel.open(Paths.get(fileName), StandardOpenOption.READ);
+   try {
+      header = WavFileHeader.read(channel); }
+    catch (IOException | RuntimeException e) {
+      channel.close();
+      throw e; }
+   format = header.getFormat();
+   frameSize = format.getFrameSize();
+   dataOffset = header.getDataOffset();
+   frameCount = header.getFrameCount();
+   windowFrames = Math.max(1, mapWindowSize / frameSize);
+   blockBuf = new byte[blockFrames * frameSize]; }
+
+/**
+* Returns the header information of the WAV file.
+*/
+public WavFileHeader getHeader() {
+   return header; }
+
+/**
+* Returns the audio format of the sample data.
+*/
+public AudioFormat getFormat() {
+   return format; }
+
+/**
+* Returns the sampling rate in Hz.
+*/
+public int getSamplingRate() {
+   return Math.round(format.getSampleRate()); }
+
+/**
+* Returns the number of channels.
+*/
+public int getChannels() {
+   return format.getChannels(); }
+
+/**
+* Returns the signal length in samples (frames).
+*/
+public long getFrameCount() {
+   return frameCount; }
+
+/**
+* Returns the current position for sequential reading, in frames.
+*/
+public long getPosition() {
+   return position; }
+
+/**
+* Sets the current position for sequential reading, in frames.
+*/
+public void setPosition (long newPosition) {
+   if (newPosition < 0 || newPosition > frameCount) {
+      throw new IllegalArgumentException("Invalid position."); }
+   position = newPosition; }
+
+/**
+* Reads frames sequentially, starting at the current position.
+*
+* @param outBufs
+*    The output buffers, one for each channel.
+* @param outPos
+*    The position of the first sample in the output buffers.
+* @param frames
+*    The maximum number of frames to read.
+* @return
+*    The number of frames read. This is less than <code>frames</code> only at the end of the data
+*    and 0 when the end of the data has been reached.
+*/
+public int read (float[][] outBufs, int outPos, int frames) throws IOException {
+   int n = (int)Math.min(frames, frameCount - position);
+   read(position, outBufs, outPos, n);
+   position += n;
+   return n; }
+
+/**
+* Reads frames at an arbitrary position. The current position for sequential reading is not changed.
+*
+* @param framePos
+*    The position of the first frame to read.
+* @param outBufs
+*    The output buffers, one for each channel.
+* @param outPos
+*    The position of the first sample in the output buffers.
+* @param frames
+*    The number of frames to read.
+*/
+public void read (long framePos, float[][] outBufs, int outPos, int frames) throws IOException {
+   if (framePos < 0 || frames < 0 || framePos + frames > frameCount) {
+      throw new IllegalArgumentException("Frame range out of bounds."); }
+   while (frames > 0) {
+      if (window == null || framePos < windowStart || framePos >= windowStart + windowLength) {
+         mapWindow(framePos); }
+      int windowPos = (int)(framePos - windowStart);
+      int n = Math.min(Math.min(frames, windowLength - windowPos), blockFrames);
+      window.position(windowPos * frameSize);
+      window.get(blockBuf, 0, n * frameSize);
+      AudioIo.unpackAudioStreamBytes(format, blockBuf, 0, outBufs, outPos, n);
+      framePos += n;
+      outPos += n;
+      frames -= n; }}
+
+private void mapWindow (long framePos) throws IOException {
+   windowStart = framePos / windowFrames * windowFrames;
+   windowLength = (int)Math.min(windowFrames, frameCount - windowStart);
+   window = null;                                          // the previous window is released by the garbage collector
+   window = channel.map(FileChannel.MapMode.READ_ONLY, dataOffset + windowStart * frameSize, (long)windowLength * frameSize); }
+
+/**
+* Closes the WAV file.
+*/
+@Override public void close() throws IOException {
+   window = null;
+   channel.close(); }
+
+}
@@ -0,0 +1,297 @@
+// Copyright 2015 Christian d'Heureuse, Inventec Informatik AG, Zurich, Switzerland
+// www.source-code.biz, www.inventec.ch/chdh
+//
+// This module is multi-licensed and may be used under the terms
+// of any of the following licenses:
+//
+//  EPL, Eclipse Public License, V1.0 or later, http://www.eclipse.org/legal
+//  LGPL, GNU Lesser General Public License, V2.1 or later, http://www.gnu.org/licenses/lgpl.html
+//
+// Please contact the author if you need another license.
+// This module is provided "as is", without warranties of any kind.
+
+package biz.source_code.dsp.sound;
+
+import biz.source_code.dsp.sound.WavFileHeader.FileType;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioFormat.Encoding;
+
+/**
+* A WAV file writer for incremental (streaming) output.
+*
+* <p>
+* The audio data is written in blocks, as it is produced. The length of the signal does not have to be known
+* in advance. The data is written through a large direct buffer into a file channel and the sizes in the
+* RIFF header are patched when the file is closed.
+*
+* <p>
+* Signed PCM (16, 24 and 32 bits) and 32 bit floating-point sample formats are supported.
+* Files with more than 2 channels or more than 16 bits per sample are written with <code>WAVE_FORMAT_EXTENSIBLE</code>.
+* Files larger than 4 GB can be written in the RF64 or Wave64 format.
+*
+* <p>
+* This class is not thread-safe.
+*/
+public class WavFileWriter implements Closeable {
+
+/**
+* The default size of the output buffer in bytes.
+*/
+public static final int      defaultBufferSize = 0x100000;           // 1 MB
+
+private static final long    maxRiffSize = 0xFFFFFFFFL;
+
+private FileChannel          channel;
+private AudioFormat          format;
+private int                  frameSize;
+private ByteBuffer           buffer;
+private byte[]               blockBuf;
+private int                  blockFrames;
+private long                 frameCount;
+private FileType             fileType;
+private long                 ds64ChunkPos;                 // file position of the ds64 chunk data (RF64 only)
+private long                 factChunkPos = -1;            // file position of the fact chunk data or -1
+private long                 dataChunkPos;                 // file position of the data chunk header
+private long                 dataOffset;                   // file position of the sample data
+private boolean              closed;
+
+/**
+* Creates a WAV file for 16 bit signed PCM data.
+*
+* @param fileName
+*    The name of the WAV file.
+* @param samplingRate
+*    The sampling rate in Hz.
+* @param channels
+*    The number of channels.
+*/
+public WavFileWriter (String fileName, int samplingRate, int channels) throws IOException {
+   this(fileName, new AudioFormat(samplingRate, 16, channels, true, false), FileType.riff, defaultBufferSize); }
+
+/**
+* Creates a standard RIFF WAV file.
+* The parameters are the same as for {@link #WavFileWriter(String, AudioFormat, FileType, int)}.
+*/
+public WavFileWriter (String fileName, AudioFormat format, int bufferSize) throws IOException {
+   this(fileName, format, FileType.riff, bufferSize); }
+
+/**
+* Creates a WAV file.
+*
+* @param fileName
+*    The name of the WAV file.
+* @param format
+*    The audio format of the sample data. Must be little-endian signed PCM with 16, 24 or 32 bits,
+*    or little-endian 32 bit floating-point PCM.
+* @param fileType
+*    The container type. A standard RIFF WAV file is limited to 4 GB, RF64 and Wave64 files have no size limit.
+* @param bufferSize
+*    The size of the output buffer in bytes.
+*/
+public WavFileWriter (String fileName, AudioFormat format, FileType fileType, int bufferSize) throws IOException {
+   Encoding encoding = format.getEncoding();
+   int sampleBits = format.getSampleSizeInBits();
+   boolean pcmOk = encoding == Encoding.PCM_SIGNED && (sampleBits == 16 || sampleBits == 24 || sampleBits == 32);
+   boolean floatOk = encoding == Encoding.PCM_FLOAT && sampleBits == 32;
+   if (!(pcmOk || floatOk) || format.isBigEndian() || format.getChannels() < 1) {
+      throw new UnsupportedOperationException("Audio format not supported for WAV files: " + format); }
+   this.format = format;
+   this.fileType = fileType;
+   frameSize = format.getFrameSize();
+   buffer = ByteBuffer.allocateDirect(Math.max(bufferSize, Math.max(256, frameSize))).order(ByteOrder.LITTLE_ENDIAN);
+   blockFrames = Math.max(1, Math.min(0x1000, buffer.capacity() / frameSize));
+   blockBuf = new byte[blockFrames * frameSize];
+   channel = FileChannel.open(Paths.get(fileName), StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+   writeHeader(); }
+
+// Writes the header with preliminary sizes.
+private void writeHeader() {
+   boolean isFloat = format.getEncoding() == Encoding.PCM_FLOAT;
+   switch (fileType) {
+      case riff: case rf64: {
+         putFourCc(fileType == FileType.rf64 ? "RF64" : "RIFF");
+         buffer.putInt(fileType == FileType.rf64 ? -1 : 0);  // RIFF size, patched on close
+         putFourCc("WAVE");
+         if (fileType == FileType.rf64) {
+            putFourCc("ds64");
+            buffer.putInt(28);
+            ds64ChunkPos = buffer.position();
+            buffer.putLong(0);                             // RIFF size, patched on close
+            buffer.putLong(0);                             // data size, patched on close
+            buffer.putLong(0);                             // sample count, patched on close
+            buffer.putInt(0); }                            // table length
+         putFourCc("fmt ");
+         buffer.putInt(getFormatChunkSize());
+         putFormatChunk();
+         if (isFloat) {                                    // a fact chunk is required for non-PCM formats
+            putFourCc("fact");
+            buffer.putInt(4);
+            factChunkPos = buffer.position();
+            buffer.putInt(0); }
+         dataChunkPos = buffer.position();
+         putFourCc("data");
+         buffer.putInt(fileType == FileType.rf64 ? -1 : 0);  // data size, patched on close
+         break; }
+      case wave64: {
+         buffer.put(WavFileHeader.w64RiffGuid);
+         buffer.putLong(0);                                // file size, patched on close
+         buffer.put(WavFileHeader.w64WaveGuid);
+         int formatChunkSize = getFormatChunkSize();
+         buffer.put(WavFileHeader.w64FmtGuid);
+         buffer.putLong(24 + formatChunkSize);
+         putFormatChunk();
+         putPadding(formatChunkSize);
+         if (isFloat) {
+            buffer.put(WavFileHeader.w64FactGuid);
+            buffer.putLong(24 + 8);
+            factChunkPos = buffer.position();
+            buffer.putLong(0); }
+         dataChunkPos = buffer.position();
+         buffer.put(WavFileHeader.w64DataGuid);
+         buffer.putLong(0);                                // chunk size, patched on close
+         break; }
+      default: {
+         throw new AssertionError(); }}
+   dataOffset = buffer.position(); }
+
+private int getFormatChunkSize() {
+   boolean isFloat = format.getEncoding() == Encoding.PCM_FLOAT;
+   return isExtensible() ? 40 : (isFloat ? 18 : 16); }
+
+private boolean isExtensible() {
+   return format.getChannels() > 2 || format.getSampleSizeInBits() > 16; }
+
+private void putFormatChunk() {
+   int channels = format.getChannels();
+   int sampleBits = format.getSampleSizeInBits();
+   int samplingRate = Math.round(format.getSampleRate());
+   boolean isFloat = format.getEncoding() == Encoding.PCM_FLOAT;
+   int formatTag = isFloat ? WavFileHeader.WAVE_FORMAT_IEEE_FLOAT : WavFileHeader.WAVE_FORMAT_PCM;
+   boolean extensible = isExtensible();
+   buffer.putShort((short)(extensible ? WavFileHeader.WAVE_FORMAT_EXTENSIBLE : formatTag));
+   buffer.putShort((short)channels);
+   buffer.putInt(samplingRate);
+   buffer.putInt(samplingRate * frameSize);
+   buffer.putShort((short)frameSize);
+   buffer.putShort((short)sampleBits);
+   if (extensible) {
+      buffer.putShort((short)22);                          // size of the extension
+      buffer.putShort((short)sampleBits);                  // valid bits per sample
+      buffer.putInt(0);                                    // channel mask, no speaker assignment
+      buffer.putShort((short)formatTag);                   // sub-format GUID
+      buffer.put(new byte[]{0, 0, 0, 0, 0x10, 0, (byte)0x80, 0, 0, (byte)0xAA, 0, 0x38, (byte)0x9B, 0x71}); }
+    else if (isFloat) {
+      buffer.putShort((short)0); }}                        // size of the extension
+
+// Pads a Wave64 chunk to a multiple of 8 bytes.
+private void putPadding (long size) {
+   for (long i = size; i % 8 != 0; i++) {
+      buffer.put((byte)0); }}
+
+private void putFourCc (String s) {
+   for (int i = 0; i < 4; i++) {
+      buffer.put((byte)s.charAt(i)); }}
+
+/**
+* Returns the audio format of the sample data.
+*/
+public AudioFormat getFormat() {
+   return format; }
+
+/**
+* Returns the number of frames written so far.
+*/
+public long getFrameCount() {
+   return frameCount; }
+
+/**
+* Writes a block of frames.
+*
+* @param inBufs
+*    The input buffers, one for each channel. The normal value range is -1 .. 1, values outside are clipped.
+* @param inPos
+*    The position of the first sample in the input buffers.
+* @param frames
+*    The number of frames to write.
+*/
+public void write (float[][] inBufs, int inPos, int frames) throws IOException {
+   if (closed) {
+      throw new IOException("WAV file writer closed."); }
+   if (fileType == FileType.riff && dataOffset - 8 + (frameCount + frames) * frameSize > maxRiffSize) {
+      throw new IOException("WAV file too large. RF64 or Wave64 must be used for files larger than 4 GB."); }
+   while (frames > 0) {
+      int n = Math.min(frames, blockFrames);
+      int bytes = n * frameSize;
+      AudioIo.packAudioStreamBytes(format, inBufs, inPos, blockBuf, 0, n);
+      if (buffer.remaining() < bytes) {
+         flushBuffer(); }
+      buffer.put(blockBuf, 0, bytes);
+      frameCount += n;
+      inPos += n;
+      frames -= n; }}
+
+private void flushBuffer() throws IOException {
+   buffer.flip();
+   while (buffer.hasRemaining()) {
+      channel.write(buffer); }
+   buffer.clear(); }
+
+/**
+* Patches the sizes in the header and closes the WAV file.
+*/
+@Override public void close() throws IOException {
+   if (closed) {
+      return; }
+   closed = true;
+   try {
+      long dataSize = frameCount * frameSize;
+      switch (fileType) {
+         case riff: case rf64: {
+            if (dataSize % 2 != 0) {
+               buffer.put((byte)0); }                      // pad byte
+            flushBuffer();
+            long riffSize = dataOffset + dataSize + (dataSize % 2) - 8;
+            if (fileType == FileType.riff) {
+               patchInt(4, riffSize);
+               patchInt(dataChunkPos + 4, dataSize); }
+             else {
+               patchLong(ds64ChunkPos, riffSize);
+               patchLong(ds64ChunkPos + 8, dataSize);
+               patchLong(ds64ChunkPos + 16, frameCount); }
+            if (factChunkPos >= 0) {
+               patchInt(factChunkPos, Math.min(frameCount, 0xFFFFFFFFL)); }
+            break; }
+         case wave64: {
+            putPadding(dataSize);
+            flushBuffer();
+            long paddedDataSize = (dataSize + 7) & ~7L;
+            patchLong(16, dataOffset + paddedDataSize);
+            patchLong(dataChunkPos + 16, 24 + dataSize);
+            if (factChunkPos >= 0) {
+               patchLong(factChunkPos, frameCount); }
+            break; }
+         default: {
+            throw new AssertionError(); }}}
+    finally {
+      channel.close(); }}
+
+private void patchLong (long pos, long v) throws IOException {
+   ByteBuffer buf = ByteBuffer.allocate(8).order(ByteOrder.LITTLE_ENDIAN);
+   buf.putLong(0, v);
+   while (buf.hasRemaining()) {
+      channel.write(buf, pos + buf.position()); }}
+
+private void patchInt (long pos, long v) throws IOException {
+   ByteBuffer buf = ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN);
+   buf.putInt(0, (int)v);
+   while (buf.hasRemaining()) {
+      channel.write(buf, pos + buf.position()); }}
+
+}
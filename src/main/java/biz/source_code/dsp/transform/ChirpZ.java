@@ -0,0 +1,200 @@
+// Copyright 2015 Christian d'Heureuse, Inventec Informatik AG, Zurich, Switzerland
+// www.source-code.biz, www.inventec.ch/chdh
+//
+// This module is multi-licensed and may be used under the terms
+// of any of the following licenses:
+//
+//  EPL, Eclipse Public License, V1.0 or later, http://www.eclipse.org/legal
+//  LGPL, GNU Lesser General Public License, V2.1 or later, http://www.gnu.org/licenses/lgpl.html
+//
+// Please contact the author if you need another license.
+// This module is provided "as is", without warranties of any kind.
+
+package biz.source_code.dsp.transform;
+
+/**
+* Chirp-z transform (zoom FFT) for equally spaced frequency points on the unit circle.
+*
+* <p>The transform evaluates the DFT of <code>n</code> real input values at <code>m</code> arbitrary
+* frequencies <code>f[k] = startFrequency + k * frequencyStep</code>:
+* <pre>
+*    X[k] = sum(i=0..n-1) x[i] * exp(-2 * PI * j * f[k] * i / samplingRate)
+* </pre>
+* The frequencies are not restricted to multiples of <code>samplingRate / n</code>,
+* so a narrow band can be analyzed with a much higher resolution than with a normal DFT of the same signal.
+*
+* <p>The transform is computed with Bluestein's algorithm, which uses FFTs of size
+* <code>L &gt;= n + m - 1</code>, in O(L log L).
+* The chirp tables and the spectrum of the convolution kernel are precomputed in the constructor.
+* Objects of this class contain a work buffer and are not thread-safe.
+*
+* <p>The result is not normalized. For <code>0 &lt; f[k] &lt; samplingRate / 2</code>,
+* the amplitude of a sinusoidal component is <code>|X[k]| * 2 / n</code>.
+*
+* <p>
+* Reference: <a href="http://en.wikipedia.org/wiki/Chirp_Z-transform">Wikipedia</a>.
+*/
+public class ChirpZ {
+
+private int                  n;                            // number of input values
+private int                  m;                            // number of output frequencies
+private double               startFrequency;
+private double               frequencyStep;
+private double               samplingRate;
+private Fft                  fft;
+private double[]             preChirp;                     // exp(-j * (w0 * i + dw * i^2 / 2)), i = 0 .. n-1, interleaved
+private double[]             postChirp;                    // exp(-j * dw * k^2 / 2), k = 0 .. m-1, interleaved
+private double[]             kernelSpectrum;               // FFT of exp(j * dw * i^2 / 2), i = -(n-1) .. m-1
+private double[]             buf;                          // work buffer, L complex values
+private double[]             complexBuf;                   // work buffer for the magnitudes, m complex values
+
+/**
+* Creates a chirp-z transform object.
+*
+* @param n
+*    The number of input values.
+* @param m
+*    The number of output frequencies.
+* @param startFrequency
+*    The first frequency in Hz.
+* @param frequencyStep
+*    The distance between the frequencies in Hz.
+* @param samplingRate
+*    The sampling rate in Hz.
+*/
+public ChirpZ (int n, int m, double startFrequency, double frequencyStep, double samplingRate) {
+   if (n < 1 || m < 1 || !(samplingRate > 0)) {
+      throw new IllegalArgumentException(); }
+   this.n = n;
+   this.m = m;
+   this.startFrequency = startFrequency;
+   this.frequencyStep = frequencyStep;
+   this.samplingRate = samplingRate;
+   int fftSize = Fft.nextPowerOf2(n + m - 1);
+   fft = Fft.getInstance(fftSize);
+   double w0 = 2 * Math.PI * startFrequency / samplingRate;
+   double dw = 2 * Math.PI * frequencyStep / samplingRate;
+   preChirp = new double[2 * n];
+   for (int i = 0; i < n; i++) {
+      double w = reduceAngle(w0 * i) + reduceAngle(dw / 2 * ((double)i * i));
+      preChirp[2 * i]     = Math.cos(w);
+      preChirp[2 * i + 1] = -Math.sin(w); }
+   postChirp = new double[2 * m];
+   for (int k = 0; k < m; k++) {
+      double w = reduceAngle(dw / 2 * ((double)k * k));
+      postChirp[2 * k]     = Math.cos(w);
+      postChirp[2 * k + 1] = -Math.sin(w); }
+   kernelSpectrum = new double[2 * fftSize];
+   for (int i = -(n - 1); i < m; i++) {
+      double w = reduceAngle(dw / 2 * ((double)i * i));
+      int p = (i < 0) ? fftSize + i : i;
+      kernelSpectrum[2 * p]     = Math.cos(w);
+      kernelSpectrum[2 * p + 1] = Math.sin(w); }
+   fft.complexForward(kernelSpectrum, 0);
+   buf = new double[2 * fftSize];
+   complexBuf = new double[2 * m]; }
+
+private static double reduceAngle (double w) {
+   return Math.IEEEremainder(w, 2 * Math.PI); }
+
+/**
+* Returns the number of input values.
+*/
+public int getInputSize() {
+   return n; }
+
+/**
+* Returns the number of output frequencies.
+*/
+public int getOutputSize() {
+   return m; }
+
+/**
+* Returns the frequency in Hz of an output value.
+*/
+public double getFrequency (int k) {
+   return startFrequency + k * frequencyStep; }
+
+/**
+* Returns the sampling rate in Hz.
+*/
+public double getSamplingRate() {
+   return samplingRate; }
+
+/**
+* Computes the chirp-z transform.
+*
+* @param x
+*    The input values, <code>n</code> values starting at <code>pos</code>.
+* @param pos
+*    The position of the first input value.
+* @param out
+*    The output array, receives <code>m</code> interleaved complex values (<code>2 * m</code> doubles).
+*/
+public void transform (double[] x, int pos, double[] out) {
+   for (int i = 0; i < n; i++) {
+      double v = x[pos + i];
+      buf[2 * i]     = v * preChirp[2 * i];
+      buf[2 * i + 1] = v * preChirp[2 * i + 1]; }
+   convolve(out); }
+
+/**
+* Computes the chirp-z transform.
+* See {@link #transform(double[], int, double[])}.
+*/
+public void transform (float[] x, int pos, double[] out) {
+   for (int i = 0; i < n; i++) {
+      double v = x[pos + i];
+      buf[2 * i]     = v * preChirp[2 * i];
+      buf[2 * i + 1] = v * preChirp[2 * i + 1]; }
+   convolve(out); }
+
+private void convolve (double[] out) {
+   int bufLen = buf.length;
+   for (int i = 2 * n; i < bufLen; i++) {
+      buf[i] = 0; }
+   fft.complexForward(buf, 0);
+   for (int i = 0; i < bufLen; i += 2) {
+      double ar = buf[i];
+      double ai = buf[i + 1];
+      double br = kernelSpectrum[i];
+      double bi = kernelSpectrum[i + 1];
+      buf[i]     = ar * br - ai * bi;
+      buf[i + 1] = ar * bi + ai * br; }
+   fft.complexInverse(buf, 0, true);
+   for (int k = 0; k < m; k++) {
+      double ar = buf[2 * k];
+      double ai = buf[2 * k + 1];
+      double cr = postChirp[2 * k];
+      double ci = postChirp[2 * k + 1];
+      out[2 * k]     = ar * cr - ai * ci;
+      out[2 * k + 1] = ar * ci + ai * cr; }}
+
+/**
+* Computes the chirp-z transform and returns the normalized magnitudes.
+* For sinusoidal components between 0 and the Nyquist frequency, the magnitudes represent the amplitudes.
+*
+* @param x
+*    The input values, <code>n</code> values starting at <code>pos</code>.
+* @param pos
+*    The position of the first input value.
+* @param out
+*    The output array, receives <code>m</code> magnitudes.
+*/
+public void transformMagnitudes (float[] x, int pos, double[] out) {
+   transform(x, pos, complexBuf);
+   computeMagnitudes(out); }
+
+/**
+* Computes the chirp-z transform and returns the normalized magnitudes.
+* See {@link #transformMagnitudes(float[], int, double[])}.
+*/
+public void transformMagnitudes (double[] x, int pos, double[] out) {
+   transform(x, pos, complexBuf);
+   computeMagnitudes(out); }
+
+private void computeMagnitudes (double[] out) {
+   for (int k = 0; k < m; k++) {
+      out[k] = Math.hypot(complexBuf[2 * k], complexBuf[2 * k + 1]) * 2 / n; }}
+
+}
@@ -0,0 +1,375 @@
+// Copyright 2015 Christian d'Heureuse, Inventec Informatik AG, Zurich, Switzerland
+// www.source-code.biz, www.inventec.ch/chdh
+//
+// This module is multi-licensed and may be used under the terms
+// of any of the following licenses:
+//
+//  EPL, Eclipse Public License, V1.0 or later, http://www.eclipse.org/legal
+//  LGPL, GNU Lesser General Public License, V2.1 or later, http://www.gnu.org/licenses/lgpl.html
+//
+// Please contact the author if you need another license.
+// This module is provided "as is", without warranties of any kind.
+
+package biz.source_code.dsp.transform;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+* Constant-Q transform (CQT) with logarithmically spaced frequency bins.
+*
+* <p>The center frequencies are <code>f[k] = minFrequency * 2^(k / binsPerOctave)</code>.
+* Each bin is computed with a windowed complex sinusoid whose length is inversely proportional
+* to its frequency, so that the ratio of frequency to bandwidth (Q) is constant.
+*
+* <p>The transform uses the method of Brown and Puckette: the temporal kernels are transformed into
+* the frequency domain once, small values are discarded and the remaining sparse spectral kernel is
+* applied to the FFT of each frame. The spectral kernels are immutable and are held in a shared,
+* size-bounded cache, keyed by the sampling rate, the frequency range and the number of bins per octave.
+*
+* <p>The result is normalized so that the magnitude of a bin is the amplitude of a sinusoid at its
+* center frequency. Objects of this class contain work buffers and are not thread-safe.
+*
+* <p>
+* Reference: <a href="http://en.wikipedia.org/wiki/Constant-Q_transform">Wikipedia</a>.
+*/
+public class ConstantQ {
+
+/**
+* Processes the constant-Q spectra of a stream.
+*/
+public interface FrameHandler {
+   /**
+   * Called for each frame.
+   *
+   * @param cq
+   *    The constant-Q spectrum, {@link #getBinCount} interleaved complex values.
+   *    The array is reused for the next frame.
+   */
+   void processFrame (double[] cq); }
+
+private static final double  sparsityThreshold = 0.0054;   // relative to the maximum magnitude of a kernel
+private static final int     maxCacheEntries = 16;
+private static final int     maxBatchChunkSize = 0x400000; // maximum number of values in a batch work array
+
+private static final LinkedHashMap<CacheKey,Kernel> cache = new LinkedHashMap<CacheKey,Kernel>(16, 0.75f, true) {
+   private static final long serialVersionUID = 1;
+   @Override protected boolean removeEldestEntry (Map.Entry<CacheKey,Kernel> eldest) {
+      return size() > maxCacheEntries; }};
+
+private Kernel               kernel;
+private int                  hopSize;
+private Fft                  fft;
+private Stft                 stft;                         // lazily created for streaming
+private Stft.FrameHandler    stftHandler;                  // forwards the STFT frames of a stream to streamHandler
+private FrameHandler         streamHandler;                // handler of the current process() call
+private double[]             frameBuf;                     // work buffers
+private double[]             cqBuf;
+
+/**
+* Creates a constant-Q transform object.
+*
+* @param samplingRate
+*    The sampling rate in Hz.
+* @param minFrequency
+*    The center frequency of the lowest bin in Hz.
+* @param maxFrequency
+*    The upper limit for the center frequency of the highest bin in Hz. Must be below the Nyquist frequency.
+* @param binsPerOctave
+*    The number of bins per octave, e.g. 12 for semitones.
+* @param hopSize
+*    The number of samples between the start of two successive frames, for the streaming and batch methods.
+*/
+public ConstantQ (double samplingRate, double minFrequency, double maxFrequency, int binsPerOctave, int hopSize) {
+   if (!(minFrequency > 0) || !(maxFrequency >= minFrequency) || !(maxFrequency < samplingRate / 2) || binsPerOctave < 1 || hopSize < 1) {
+      throw new IllegalArgumentException(); }
+   kernel = getKernel(samplingRate, minFrequency, maxFrequency, binsPerOctave);
+   this.hopSize = hopSize;
+   fft = Fft.getInstance(kernel.fftSize);
+   frameBuf = new double[kernel.fftSize];
+   cqBuf = new double[2 * kernel.binCount]; }
+
+/**
+* Returns the number of frequency bins.
+*/
+public int getBinCount() {
+   return kernel.binCount; }
+
+/**
+* Returns the center frequency in Hz of a bin.
+*/
+public double getFrequency (int bin) {
+   return kernel.minFrequency * Math.pow(2, (double)bin / kernel.binsPerOctave); }
+
+/**
+* Returns the Q factor (the ratio of center frequency to bandwidth).
+*/
+public double getQ() {
+   return kernel.q; }
+
+/**
+* Returns the frame size. This is the FFT size, which is determined by the longest temporal kernel.
+*/
+public int getFrameSize() {
+   return kernel.fftSize; }
+
+/**
+* Returns the hop size.
+*/
+public int getHopSize() {
+   return hopSize; }
+
+/**
+* Returns the number of non-zero values in the sparse spectral kernel.
+*/
+public int getKernelSize() {
+   return kernel.re.length; }
+
+/**
+* Computes the constant-Q spectrum from the FFT of a frame.
+*
+* @param spectrum
+*    The FFT of a frame of {@link #getFrameSize} samples, in the packed format of {@link Fft}.
+* @param out
+*    Receives {@link #getBinCount} interleaved complex values.
+*/
+public void transformSpectrum (double[] spectrum, double[] out) {
+   transformSpectrum(kernel, spectrum, 0, out); }
+
+private static void transformSpectrum (Kernel kernel, double[] a, int pos, double[] out) {
+   int half = kernel.fftSize / 2;
+   for (int k = 0; k < kernel.binCount; k++) {
+      double sumRe = 0;
+      double sumIm = 0;
+      for (int p = kernel.rowStart[k]; p < kernel.rowStart[k + 1]; p++) {
+         int j = kernel.column[p];
+         double xr;
+         double xi;
+         if (j == 0) {
+            xr = a[pos]; xi = 0; }
+          else if (j == half) {
+            xr = a[pos + 1]; xi = 0; }
+          else {
+            xr = a[pos + 2 * j]; xi = a[pos + 2 * j + 1]; }
+         double kr = kernel.re[p];
+         double ki = kernel.im[p];
+         sumRe += xr * kr - xi * ki;
+         sumIm += xr * ki + xi * kr; }
+      out[2 * k]     = sumRe;
+      out[2 * k + 1] = sumIm; }}
+
+/**
+* Computes the constant-Q spectrum of a frame.
+*
+* @param x
+*    The input signal, {@link #getFrameSize} samples starting at <code>pos</code>.
+* @param pos
+*    The position of the first sample of the frame.
+* @param out
+*    Receives {@link #getBinCount} interleaved complex values.
+*/
+public void transform (float[] x, int pos, double[] out) {
+   for (int i = 0; i < kernel.fftSize; i++) {
+      frameBuf[i] = x[pos + i]; }
+   fft.realForward(frameBuf, 0);
+   transformSpectrum(frameBuf, out); }
+
+/**
+* Computes the constant-Q spectrum of a frame.
+* See {@link #transform(float[], int, double[])}.
+*/
+public void transform (double[] x, int pos, double[] out) {
+   System.arraycopy(x, pos, frameBuf, 0, kernel.fftSize);
+   fft.realForward(frameBuf, 0);
+   transformSpectrum(frameBuf, out); }
+
+/**
+* Computes the constant-Q magnitudes of a frame.
+*
+* @param x
+*    The input signal, {@link #getFrameSize} samples starting at <code>pos</code>.
+* @param pos
+*    The position of the first sample of the frame.
+* @param out
+*    Receives {@link #getBinCount} magnitudes.
+*/
+public void transformMagnitudes (float[] x, int pos, double[] out) {
+   transform(x, pos, cqBuf);
+   computeMagnitudes(cqBuf, out, 0, kernel.binCount); }
+
+private static void computeMagnitudes (double[] cq, double[] out, int outPos, int binCount) {
+   for (int k = 0; k < binCount; k++) {
+      out[outPos + k] = Math.hypot(cq[2 * k], cq[2 * k + 1]); }}
+
+/**
+* Processes a block of input samples of a stream.
+* The frame handler is called for each complete frame.
+* The first frame is complete after {@link #getFrameSize} samples.
+*/
+public void process (float[] in, int pos, int len, FrameHandler handler) {
+   Stft stft = getStft();
+   streamHandler = handler;
+   try {
+      stft.process(in, pos, len, stftHandler); }
+    finally {
+      streamHandler = null; }}
+
+/**
+* Resets the state of the stream.
+*/
+public void reset() {
+   if (stft != null) {
+      stft.reset(); }}
+
+private Stft getStft() {
+   if (stft == null) {
+      stft = new Stft(kernel.fftSize, hopSize, null);
+      stftHandler = new Stft.FrameHandler() {
+         @Override public void processFrame (double[] spectrum) {
+            transformSpectrum(spectrum, cqBuf);
+            streamHandler.processFrame(cqBuf); }}; }
+   return stft; }
+
+/**
+* Computes the constant-Q magnitudes of a sequence of frames.
+*
+* <p>The frames are transformed in chunks with the batch methods of {@link Fft}.
+*
+* @param x
+*    The input signal.
+* @param pos
+*    The position of the first sample of the first frame.
+* @param frameCount
+*    The number of frames. The frames start at <code>pos + i * hopSize</code>.
+* @param parallel
+*    <code>true</code> to distribute the work over multiple threads.
+* @return
+*    An array <code>[frameCount][binCount]</code> of magnitudes.
+*/
+public double[][] computeMagnitudes (float[] x, int pos, int frameCount, boolean parallel) {
+   int fftSize = kernel.fftSize;
+   int binCount = kernel.binCount;
+   double[][] out = new double[frameCount][binCount];
+   int chunkFrames = Math.max(1, Math.min(frameCount, maxBatchChunkSize / fftSize));
+   double[] a = new double[chunkFrames * fftSize];
+   double[] cq = new double[2 * binCount];
+   for (int frame0 = 0; frame0 < frameCount; frame0 += chunkFrames) {
+      int frames = Math.min(chunkFrames, frameCount - frame0);
+      for (int f = 0; f < frames; f++) {
+         int p = pos + (frame0 + f) * hopSize;
+         for (int i = 0; i < fftSize; i++) {
+            a[f * fftSize + i] = x[p + i]; }}
+      fft.realForwardBatch(a, 0, fftSize, frames, parallel);
+      for (int f = 0; f < frames; f++) {
+         transformSpectrum(kernel, a, f * fftSize, cq);
+         computeMagnitudes(cq, out[frame0 + f], 0, binCount); }}
+   return out; }
+
+//--- Kernel -------------------------------------------------------------------
+
+// Sparse spectral kernel in compressed row format. The values are conjugated and divided by fftSize.
+private static class Kernel {
+   double                    minFrequency;
+   int                       binsPerOctave;
+   int                       binCount;
+   double                    q;
+   int                       fftSize;
+   int[]                     rowStart;                     // binCount + 1 entries
+   int[]                     column;                       // FFT bin index
+   double[]                  re;
+   double[]                  im; }
+
+private static Kernel getKernel (double samplingRate, double minFrequency, double maxFrequency, int binsPerOctave) {
+   CacheKey key = new CacheKey(samplingRate, minFrequency, maxFrequency, binsPerOctave);
+   synchronized (cache) {
+      Kernel k = cache.get(key);
+      if (k != null) {
+         return k; }}
+   Kernel k = computeKernel(samplingRate, minFrequency, maxFrequency, binsPerOctave);   // computed outside of the lock
+   synchronized (cache) {
+      Kernel k2 = cache.get(key);
+      if (k2 != null) {
+         return k2; }
+      cache.put(key, k);
+      return k; }}
+
+private static Kernel computeKernel (double samplingRate, double minFrequency, double maxFrequency, int binsPerOctave) {
+   Kernel kernel = new Kernel();
+   kernel.minFrequency = minFrequency;
+   kernel.binsPerOctave = binsPerOctave;
+   int binCount = (int)Math.floor(binsPerOctave * Math.log(maxFrequency / minFrequency) / Math.log(2) + 1E-9) + 1;
+   kernel.binCount = binCount;
+   double q = 1 / (Math.pow(2, 1.0 / binsPerOctave) - 1);
+   kernel.q = q;
+   int fftSize = Fft.nextPowerOf2((int)Math.ceil(q * samplingRate / minFrequency));
+   kernel.fftSize = fftSize;
+   Fft fft = Fft.getInstance(fftSize);
+   int half = fftSize / 2;
+   int[] rowStart = new int[binCount + 1];
+   int[] column = new int[16];
+   double[] re = new double[16];
+   double[] im = new double[16];
+   int nnz = 0;
+   double[] buf = new double[2 * fftSize];
+   for (int k = 0; k < binCount; k++) {
+      double f = minFrequency * Math.pow(2, (double)k / binsPerOctave);
+      int len = Math.min(fftSize, (int)Math.ceil(q * samplingRate / f));
+      double[] w = WindowFunction.compute(WindowFunctionType.hamming, len, 0, false);
+      double wSum = 0;
+      for (int i = 0; i < len; i++) {
+         wSum += w[i]; }
+      Arrays.fill(buf, 0);
+      int start = (fftSize - len) / 2;                     // the temporal kernels are centered in the frame
+      for (int i = 0; i < len; i++) {
+         double v = 2 * w[i] / wSum;
+         double phi = 2 * Math.PI * f / samplingRate * (i - len / 2);
+         buf[2 * (start + i)]     = v * Math.cos(phi);
+         buf[2 * (start + i) + 1] = v * Math.sin(phi); }
+      fft.complexForward(buf, 0);
+      double maxMag = 0;
+      for (int j = 0; j <= half; j++) {
+         maxMag = Math.max(maxMag, Math.hypot(buf[2 * j], buf[2 * j + 1])); }
+      rowStart[k] = nnz;
+      for (int j = 0; j <= half; j++) {
+         double kr = buf[2 * j];
+         double ki = buf[2 * j + 1];
+         if (Math.hypot(kr, ki) < sparsityThreshold * maxMag) {
+            continue; }
+         if (nnz == column.length) {
+            column = Arrays.copyOf(column, 2 * nnz);
+            re = Arrays.copyOf(re, 2 * nnz);
+            im = Arrays.copyOf(im, 2 * nnz); }
+         column[nnz] = j;
+         re[nnz] = kr / fftSize;
+         im[nnz] = -ki / fftSize;                          // conjugate
+         nnz++; }}
+   rowStart[binCount] = nnz;
+   kernel.rowStart = rowStart;
+   kernel.column = Arrays.copyOf(column, nnz);
+   kernel.re = Arrays.copyOf(re, nnz);
+   kernel.im = Arrays.copyOf(im, nnz);
+   return kernel; }
+
+//--- Cache key ----------------------------------------------------------------
+
+private static class CacheKey {
+   private final double      samplingRate;
+   private final double      minFrequency;
+   private final double      maxFrequency;
+   private final int         binsPerOctave;
+   CacheKey (double samplingRate, double minFrequency, double maxFrequency, int binsPerOctave) {
+      this.samplingRate = samplingRate; this.minFrequency = minFrequency; this.maxFrequency = maxFrequency; this.binsPerOctave = binsPerOctave; }
+   @Override public boolean equals (Object obj) {
+      if (!(obj instanceof CacheKey)) {
+         return false; }
+      CacheKey k = (CacheKey)obj;
+      return Double.compare(samplingRate, k.samplingRate) == 0 && Double.compare(minFrequency, k.minFrequency) == 0 &&
+             Double.compare(maxFrequency, k.maxFrequency) == 0 && binsPerOctave == k.binsPerOctave; }
+   @Override public int hashCode() {
+      int h = Double.valueOf(samplingRate).hashCode();
+      h = h * 31 + Double.valueOf(minFrequency).hashCode();
+      h = h * 31 + Double.valueOf(maxFrequency).hashCode();
+      return h * 31 + binsPerOctave; }}
+
+}
@@ -0,0 +1,197 @@
+// Copyright 2015 Christian d'Heureuse, Inventec Informatik AG, Zurich, Switzerland
+// www.source-code.biz, www.inventec.ch/chdh
+//
+// This module is multi-licensed and may be used under the terms
+// of any of the following licenses:
+//
+//  EPL, Eclipse Public License, V1.0 or later, http://www.eclipse.org/legal
+//  LGPL, GNU Lesser General Public License, V2.1 or later, http://www.gnu.org/licenses/lgpl.html
+//
+// Please contact the author if you need another license.
+// This module is provided "as is", without warranties of any kind.
+
+package biz.source_code.dsp.transform;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+* Discrete cosine transform (DCT), computed with the FFT.
+*
+* <p>The following unnormalized definitions are used (<code>N</code> = transform size):
+* <pre>
+*    DCT-II:   X[k] = sum(n=0..N-1) x[n] * cos(PI / N * (n + 1/2) * k)
+*    DCT-III:  X[k] = x[0] / 2 + sum(n=1..N-1) x[n] * cos(PI / N * n * (k + 1/2))
+*    DCT-IV:   X[k] = sum(n=0..N-1) x[n] * cos(PI / N * (n + 1/2) * (k + 1/2))
+* </pre>
+* DCT-III is the inverse of DCT-II and DCT-IV is its own inverse, both up to a factor of <code>2 / N</code>.
+*
+* <p>The transforms are computed in O(N log N) with {@link Fft}.
+* The twiddle factor tables are cached and shared between <code>Dct</code> objects of the same size.
+* Each <code>Dct</code> object contains a work buffer, so that the transforms do not allocate memory.
+* Objects of this class are therefore not thread-safe.
+*
+* <p>The input and output arrays may be the same (in-place transform).
+*
+* <p>
+* Reference: <a href="http://en.wikipedia.org/wiki/Discrete_cosine_transform">Wikipedia</a>.
+*/
+public class Dct {
+
+private static final ConcurrentHashMap<Integer,Tables> tablesCache = new ConcurrentHashMap<>();
+
+private int                  n;
+private Tables               tables;
+private Fft                  fft;                          // real FFT of size n, for DCT-II and DCT-III
+private Fft                  halfFft;                      // complex FFT of size n/2, for DCT-IV
+private double[]             buf;                          // work buffer
+
+/**
+* Creates a DCT object.
+*
+* @param n
+*    The transform size. Must be a power of 2 and at least 2.
+*/
+public Dct (int n) {
+   if (n < 2 || !Fft.isPowerOf2(n)) {
+      throw new IllegalArgumentException("DCT size " + n + " is not a power of 2 >= 2."); }
+   this.n = n;
+   tables = getTables(n);
+   fft = Fft.getInstance(n);
+   halfFft = Fft.getInstance(n / 2);
+   buf = new double[n]; }
+
+/**
+* Returns the transform size.
+*/
+public int getSize() {
+   return n; }
+
+/**
+* Computes the DCT-II.
+*
+* @param in
+*    The input array, <code>n</code> values starting at <code>inPos</code>.
+* @param inPos
+*    The position of the first input value.
+* @param out
+*    The output array, <code>n</code> values are stored starting at <code>outPos</code>.
+* @param outPos
+*    The position of the first output value.
+*/
+public void dct2 (double[] in, int inPos, double[] out, int outPos) {
+   // Algorithm by J. Makhoul: The even samples in ascending order, followed by the odd samples in descending order.
+   int m = n / 2;
+   for (int i = 0; i < m; i++) {
+      buf[i]         = in[inPos + 2 * i];
+      buf[n - 1 - i] = in[inPos + 2 * i + 1]; }
+   fft.realForward(buf, 0);
+   out[outPos]     = buf[0];
+   out[outPos + m] = buf[1] * tables.cos2[m];
+   for (int k = 1; k < m; k++) {
+      double re = buf[2 * k];
+      double im = buf[2 * k + 1];
+      double c = tables.cos2[k];
+      double s = tables.sin2[k];
+      out[outPos + k]     = re * c + im * s;               // Re(V[k] * exp(-i * PI * k / (2 * n)))
+      out[outPos + n - k] = re * s - im * c; }}
+
+/**
+* Computes the DCT-II in-place.
+*/
+public void dct2 (double[] a) {
+   dct2(a, 0, a, 0); }
+
+/**
+* Computes the DCT-III.
+* The parameters are the same as for {@link #dct2(double[], int, double[], int)}.
+*/
+public void dct3 (double[] in, int inPos, double[] out, int outPos) {
+   int m = n / 2;
+   buf[0] = in[inPos];
+   buf[1] = in[inPos + m] / tables.cos2[m];
+   for (int k = 1; k < m; k++) {
+      double x1 = in[inPos + k];
+      double x2 = in[inPos + n - k];
+      double c = tables.cos2[k];
+      double s = tables.sin2[k];
+      buf[2 * k]     = x1 * c + x2 * s;                    // V[k] = exp(i * PI * k / (2 * n)) * (X[k] - i * X[n - k])
+      buf[2 * k + 1] = x1 * s - x2 * c; }
+   fft.realInverse(buf, 0, false);
+   for (int i = 0; i < m; i++) {
+      out[outPos + 2 * i]     = buf[i] / 2;
+      out[outPos + 2 * i + 1] = buf[n - 1 - i] / 2; }}
+
+/**
+* Computes the DCT-III in-place.
+*/
+public void dct3 (double[] a) {
+   dct3(a, 0, a, 0); }
+
+/**
+* Computes the DCT-IV.
+* The parameters are the same as for {@link #dct2(double[], int, double[], int)}.
+*/
+public void dct4 (double[] in, int inPos, double[] out, int outPos) {
+   // The DCT-IV is computed with a complex FFT of size n/2 and pre- and post-twiddling.
+   int m = n / 2;
+   for (int i = 0; i < m; i++) {
+      double re = in[inPos + 2 * i];
+      double im = in[inPos + n - 1 - 2 * i];
+      double c = tables.cos4pre[i];
+      double s = tables.sin4pre[i];
+      buf[2 * i]     = re * c + im * s;                    // (x[2i] + i * x[n-1-2i]) * exp(-i * PI * (i + 1/4) / n)
+      buf[2 * i + 1] = im * c - re * s; }
+   halfFft.complexForward(buf, 0);
+   for (int k = 0; k < m; k++) {
+      double re = buf[2 * k];
+      double im = buf[2 * k + 1];
+      double c = tables.cos4post[k];
+      double s = tables.sin4post[k];
+      out[outPos + 2 * k]         = re * c + im * s;       // Re(T[k] * exp(-i * PI * k / n))
+      out[outPos + n - 1 - 2 * k] = re * s - im * c; }}    // -Im(T[k] * exp(-i * PI * k / n))
+
+/**
+* Computes the DCT-IV in-place.
+*/
+public void dct4 (double[] a) {
+   dct4(a, 0, a, 0); }
+
+//--- Tables -------------------------------------------------------------------
+
+private static class Tables {
+   double[]                  cos2;                         // cos(PI * k / (2 * n)), k = 0 .. n/2
+   double[]                  sin2;                         // sin(PI * k / (2 * n)), k = 0 .. n/2
+   double[]                  cos4pre;                      // cos(PI * (i + 1/4) / n), i = 0 .. n/2-1
+   double[]                  sin4pre;
+   double[]                  cos4post;                     // cos(PI * k / n), k = 0 .. n/2-1
+   double[]                  sin4post;
+   Tables (int n) {
+      int m = n / 2;
+      cos2 = new double[m + 1];
+      sin2 = new double[m + 1];
+      for (int k = 0; k <= m; k++) {
+         double w = Math.PI * k / (2 * n);
+         cos2[k] = Math.cos(w);
+         sin2[k] = Math.sin(w); }
+      cos4pre  = new double[m];
+      sin4pre  = new double[m];
+      cos4post = new double[m];
+      sin4post = new double[m];
+      for (int i = 0; i < m; i++) {
+         double w1 = Math.PI * (i + 0.25) / n;
+         cos4pre[i] = Math.cos(w1);
+         sin4pre[i] = Math.sin(w1);
+         double w2 = Math.PI * i / n;
+         cos4post[i] = Math.cos(w2);
+         sin4post[i] = Math.sin(w2); }}}
+
+private static Tables getTables (int n) {
+   Tables t = tablesCache.get(n);
+   if (t == null) {
+      t = new Tables(n);
+      Tables oldT = tablesCache.putIfAbsent(n, t);
+      if (oldT != null) {
+         t = oldT; }}
+   return t; }
+
+}
@@ -13,6 +13,7 @@
 package biz.source_code.dsp.transform;
 
 import biz.source_code.dsp.math.Complex;
+import biz.source_code.dsp.math.ComplexArray;
 
 /**
 * Discrete Fourier transform (DFT).
@@ -23,6 +24,9 @@ import biz.source_code.dsp.math.Complex;
 *
 * <p>See <a href="http://dsp.stackexchange.com/questions/11376/why-are-magnitudes-normalised-during-synthesis-idft-not-analysis-dft" target="_top">this Stackexchange entry</a>
 * for a discussion of magnitude normalization.
+*
+* <p>When the input signal has been multiplied with a window function, the normalized magnitudes
+* have to be divided by the coherent gain of the window (see {@link WindowFunction#getCoherentGain}).
 */
 public class Dft {
 
@@ -50,17 +54,20 @@ public class Dft {
 *    A complex number that corresponds to the amplitude and phase of a sinusoidal frequency component.
 */
 public static Complex directDftSingle (double[] x, int pos, int len, int relativeFrequency, boolean normalize) {
-   Complex acc = Complex.ZERO;
    double w = -2 * Math.PI / len * relativeFrequency;
+   double accRe = 0;                                       // primitive accumulators, to avoid one object per sample
+   double accIm = 0;
    for (int p = 0; p < len; p++) {
-      Complex c = Complex.fromPolar(x[pos + p], w * p);
-      acc = acc.add(c); }
+      accRe += x[pos + p] * Math.cos(w * p);
+      accIm += x[pos + p] * Math.sin(w * p); }
    if (normalize) {
       boolean half = relativeFrequency > 0 && 2 * relativeFrequency < len;
          // For the frequencies between 0 and len/2 we have to duplicate the
          // magnitudes, when we use only one of the two complex conjugate values.
-      acc = acc.div(half ? len / 2.0 : len); }
-   return acc; }
+      double d = half ? len / 2.0 : len;
+      accRe /= d;
+      accIm /= d; }
+   return new Complex(accRe, accIm); }
 
 /**
 * Computes the DFT on real numbers for a single frequency.
@@ -121,6 +128,29 @@ public static Complex[] directDft (double[] x) {
       r[frequency] = directDftSingle(x, 0, x.length, frequency, false); }
    return r; }
 
+/**
+* Computes the DFT on an array of real numbers, without allocating objects.
+* This is the same as {@link #directDft(double[])}, but the result is stored into a {@link ComplexArray}.
+*
+* @param x
+*    The input values (samples).
+* @param out
+*    The output vector for the complex spectrum. Must have the same length as <code>x</code>.
+*/
+public static void directDft (double[] x, ComplexArray out) {
+   int len = x.length;
+   if (out.length() != len) {
+      throw new IllegalArgumentException("Output vector length does not match input length."); }
+   for (int frequency = 0; frequency < len; frequency++) {
+      double w = -2 * Math.PI / len * frequency;
+      double accRe = 0;
+      double accIm = 0;
+      for (int p = 0; p < len; p++) {
+         accRe += x[p] * Math.cos(w * p);
+         accIm += x[p] * Math.sin(w * p); }
+      out.re[frequency] = accRe;
+      out.im[frequency] = accIm; }}
+
 /**
 * Computes the DFT on an array of real numbers and returns the complex result.
 *
@@ -184,8 +214,8 @@ public static Complex[] goertzelSpectrum (double[] x) {
 * Computes a kind of inverse DFT on an array of complex numbers that represent a spectrum,
 * and returns the result as an array of real numbers.
 *
-* <p>This is a reference implementation without any optimization.
-* It's simple to understand, but slow.
+* <p>When the output length is a power of 2, the inverse real FFT of {@link Fft} is used.
+* Otherwise the sinusoidal components are summed up directly, which is simple to understand, but slow.
 *
 * <p>This is the inverse function for {@link #directDftSpectrum} and {@link #goertzelSpectrum}.
 *
@@ -199,12 +229,26 @@ public static Complex[] goertzelSpectrum (double[] x) {
 */
 public static double[] synthesizeFromSpectrum (Complex[] x, boolean odd) {
    int len = x.length * 2 - (odd ? 1 : 2);
+   if (len >= 2 && Fft.isPowerOf2(len)) {
+      return synthesizeFromSpectrumFft(x, len); }
    double[] r = new double[len];
    for (int frequency = 0; frequency < x.length; frequency++) {
       Complex f = x[frequency];
       synthesizeSinusoidal(r, frequency, f.abs(), f.arg()); }
    return r; }
 
+// Converts the normalized spectrum into the packed FFT format and computes the inverse real FFT.
+private static double[] synthesizeFromSpectrumFft (Complex[] x, int len) {
+   int m = len / 2;
+   double[] a = new double[len];
+   a[0] = x[0].re() * len;
+   a[1] = x[m].re() * len;
+   for (int frequency = 1; frequency < m; frequency++) {
+      a[2 * frequency]     = x[frequency].re() * m;        // undo the normalization, see goertzelSingle()
+      a[2 * frequency + 1] = x[frequency].im() * m; }
+   Fft.getInstance(len).realInverse(a, 0, true);
+   return a; }
+
 private static void synthesizeSinusoidal (double[] a, int frequency, double amplitude, double phase) {
    double w = 2 * Math.PI / a.length * frequency;
    for (int p = 0; p < a.length; p++) {
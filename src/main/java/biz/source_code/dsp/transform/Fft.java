@@ -0,0 +1,650 @@
+// Copyright 2015 Christian d'Heureuse, Inventec Informatik AG, Zurich, Switzerland
+// www.source-code.biz, www.inventec.ch/chdh
+//
+// This module is multi-licensed and may be used under the terms
+// of any of the following licenses:
+//
+//  EPL, Eclipse Public License, V1.0 or later, http://www.eclipse.org/legal
+//  LGPL, GNU Lesser General Public License, V2.1 or later, http://www.gnu.org/licenses/lgpl.html
+//
+// Please contact the author if you need another license.
+// This module is provided "as is", without warranties of any kind.
+
+package biz.source_code.dsp.transform;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+* Fast Fourier transform (FFT).
+*
+* <p>An <code>Fft</code> object is a precomputed "plan" for a fixed transform size.
+* It contains the twiddle factors and the bit reversal permutation table.
+* Plans are immutable and can be shared between threads.
+* They are obtained with {@link #getInstance} and are cached.
+*
+* <p>The transform size must be a power of 2.
+* All transforms are computed in-place on primitive arrays, without allocating memory.
+*
+* <p>Complex data is stored interleaved: <code>a[2*i]</code> is the real part and
+* <code>a[2*i+1]</code> the imaginary part of element <code>i</code>.
+*
+* <p>The spectrum of a real signal of length <code>n</code> is stored in "packed" format
+* in an array of length <code>n</code>:
+* <pre>
+*    a[0]       = Re X[0]        (DC, the imaginary part is always 0)
+*    a[1]       = Re X[n/2]      (Nyquist frequency, the imaginary part is always 0)
+*    a[2*k]     = Re X[k]        for 0 &lt; k &lt; n/2
+*    a[2*k+1]   = Im X[k]        for 0 &lt; k &lt; n/2
+* </pre>
+*
+* <p>The forward transforms are not normalized.
+* The inverse transforms divide the result by <code>n</code> when <code>scale</code> is <code>true</code>.
+*
+* <p>All transforms are also available for <code>float</code> arrays. The single-precision versions
+* use the same plans, with single-precision twiddle factor tables that are created on first use.
+* They compute in <code>float</code> arithmetic and halve the memory bandwidth, at the cost of accuracy
+* (the relative error is in the order of <code>1E-7 * log2(n)</code>).
+*
+* <p>The batch methods transform many equal-size frames that are stored in a single array
+* with a fixed distance (stride) between the frames. Optionally, the frames are distributed
+* over multiple threads.
+*/
+public class Fft {
+
+private static final ConcurrentHashMap<Integer,Fft> planCache = new ConcurrentHashMap<>();
+private static final int     minParallelTaskSize = 0x10000; // minimum number of values processed by a parallel task
+private static ForkJoinPool  forkJoinPool;                 // lazily created, shared by all plans
+
+private final int            n;                            // transform size
+private final double[]       cosTab;                       // cos(2 * PI * i / n), for i = 0 .. n/2-1
+private final double[]       sinTab;                       // sin(2 * PI * i / n), for i = 0 .. n/2-1
+private final int[]          bitRevTab;                    // bit reversal permutation for n elements
+private Fft                  halfPlan;                     // plan for n/2, used for the real transforms
+private volatile float[]     cosTabF;                      // single-precision tables, lazily created
+private volatile float[]     sinTabF;
+
+private Fft (int n) {
+   this.n = n;
+   int n2 = n / 2;
+   cosTab = new double[n2];
+   sinTab = new double[n2];
+   for (int i = 0; i < n2; i++) {
+      double w = 2 * Math.PI * i / n;
+      cosTab[i] = Math.cos(w);
+      sinTab[i] = Math.sin(w); }
+   bitRevTab = new int[n];
+   int bits = Integer.numberOfTrailingZeros(n);
+   for (int i = 0; i < n; i++) {
+      bitRevTab[i] = (bits == 0) ? 0 : Integer.reverse(i) >>> (32 - bits); }}
+
+/**
+* Returns the FFT plan for the specified transform size.
+*
+* @param n
+*    The transform size. Must be a power of 2.
+* @return
+*    A shared, cached <code>Fft</code> object.
+*/
+public static Fft getInstance (int n) {
+   if (!isPowerOf2(n)) {
+      throw new IllegalArgumentException("FFT size " + n + " is not a power of 2."); }
+   Fft plan = planCache.get(n);
+   if (plan == null) {
+      plan = new Fft(n);
+      Fft oldPlan = planCache.putIfAbsent(n, plan);
+      if (oldPlan != null) {
+         plan = oldPlan; }}
+   return plan; }
+
+/**
+* Returns the transform size.
+*/
+public int getSize() {
+   return n; }
+
+/**
+* Returns <code>true</code> if <code>n</code> is a positive power of 2.
+*/
+public static boolean isPowerOf2 (int n) {
+   return n > 0 && (n & (n - 1)) == 0; }
+
+/**
+* Returns the smallest power of 2 that is greater than or equal to <code>n</code>.
+*/
+public static int nextPowerOf2 (int n) {
+   if (n <= 1) {
+      return 1; }
+   int p = Integer.highestOneBit(n - 1) << 1;
+   if (p <= 0) {
+      throw new IllegalArgumentException("Size too large for FFT."); }
+   return p; }
+
+private Fft getHalfPlan() {
+   Fft p = halfPlan;
+   if (p == null) {
+      p = getInstance(n / 2);
+      halfPlan = p; }                                      // benign race, the plans are immutable
+   return p; }
+
+//--- Complex transforms -------------------------------------------------------
+
+/**
+* Computes the forward DFT of complex data in-place.
+*
+* @param a
+*    Interleaved complex data, <code>n</code> complex values (<code>2 * n</code> doubles), starting at <code>pos</code>.
+* @param pos
+*    The index of the first element in <code>a</code>.
+*/
+public void complexForward (double[] a, int pos) {
+   transform(a, pos, false); }
+
+/**
+* Computes the forward DFT of complex data in-place.
+* Equivalent to <code>complexForward(a, 0)</code>.
+*/
+public void complexForward (double[] a) {
+   transform(a, 0, false); }
+
+/**
+* Computes the inverse DFT of complex data in-place.
+*
+* @param a
+*    Interleaved complex data, <code>n</code> complex values (<code>2 * n</code> doubles), starting at <code>pos</code>.
+* @param pos
+*    The index of the first element in <code>a</code>.
+* @param scale
+*    <code>true</code> to divide the result by <code>n</code>.
+*/
+public void complexInverse (double[] a, int pos, boolean scale) {
+   transform(a, pos, true);
+   if (scale) {
+      scale(a, pos, 2 * n, 1.0 / n); }}
+
+/**
+* Computes the inverse DFT of complex data in-place.
+* Equivalent to <code>complexInverse(a, 0, scale)</code>.
+*/
+public void complexInverse (double[] a, boolean scale) {
+   complexInverse(a, 0, scale); }
+
+// Iterative radix-2 decimation-in-time FFT.
+private void transform (double[] a, int pos, boolean inverse) {
+   if (a.length - pos < 2 * n) {
+      throw new IllegalArgumentException("Array too small for FFT size " + n + "."); }
+   for (int i = 0; i < n; i++) {
+      int j = bitRevTab[i];
+      if (j > i) {
+         int pi = pos + 2 * i;
+         int pj = pos + 2 * j;
+         double tr = a[pi];     a[pi]     = a[pj];     a[pj]     = tr;
+         double ti = a[pi + 1]; a[pi + 1] = a[pj + 1]; a[pj + 1] = ti; }}
+   double sign = inverse ? 1 : -1;
+   for (int len = 2; len <= n; len <<= 1) {
+      int half = len >> 1;
+      int tabStep = n / len;
+      for (int i = 0; i < n; i += len) {
+         for (int j = 0; j < half; j++) {
+            double wr = cosTab[j * tabStep];
+            double wi = sign * sinTab[j * tabStep];
+            int p1 = pos + 2 * (i + j);
+            int p2 = p1 + 2 * half;
+            double xr = a[p2];
+            double xi = a[p2 + 1];
+            double tr = xr * wr - xi * wi;
+            double ti = xr * wi + xi * wr;
+            double ur = a[p1];
+            double ui = a[p1 + 1];
+            a[p1]     = ur + tr;
+            a[p1 + 1] = ui + ti;
+            a[p2]     = ur - tr;
+            a[p2 + 1] = ui - ti; }}}}
+
+//--- Single-precision complex transforms -------------------------------------
+
+/**
+* Computes the forward DFT of single-precision complex data in-place.
+* See {@link #complexForward(double[], int)}.
+*/
+public void complexForward (float[] a, int pos) {
+   transform(a, pos, false); }
+
+/**
+* Computes the forward DFT of single-precision complex data in-place.
+* Equivalent to <code>complexForward(a, 0)</code>.
+*/
+public void complexForward (float[] a) {
+   transform(a, 0, false); }
+
+/**
+* Computes the inverse DFT of single-precision complex data in-place.
+* See {@link #complexInverse(double[], int, boolean)}.
+*/
+public void complexInverse (float[] a, int pos, boolean scale) {
+   transform(a, pos, true);
+   if (scale) {
+      scale(a, pos, 2 * n, 1.0f / n); }}
+
+/**
+* Computes the inverse DFT of single-precision complex data in-place.
+* Equivalent to <code>complexInverse(a, 0, scale)</code>.
+*/
+public void complexInverse (float[] a, boolean scale) {
+   complexInverse(a, 0, scale); }
+
+private void createFloatTables() {
+   if (sinTabF != null) {
+      return; }
+   int n2 = n / 2;
+   float[] c = new float[n2];
+   float[] s = new float[n2];
+   for (int i = 0; i < n2; i++) {
+      c[i] = (float)cosTab[i];
+      s[i] = (float)sinTab[i]; }
+   cosTabF = c;
+   sinTabF = s; }                                          // benign race, sinTabF is written last
+
+// Single-precision version of transform(double[], int, boolean).
+private void transform (float[] a, int pos, boolean inverse) {
+   if (a.length - pos < 2 * n) {
+      throw new IllegalArgumentException("Array too small for FFT size " + n + "."); }
+   createFloatTables();
+   float[] cosTabF = this.cosTabF;
+   float[] sinTabF = this.sinTabF;
+   for (int i = 0; i < n; i++) {
+      int j = bitRevTab[i];
+      if (j > i) {
+         int pi = pos + 2 * i;
+         int pj = pos + 2 * j;
+         float tr = a[pi];     a[pi]     = a[pj];     a[pj]     = tr;
+         float ti = a[pi + 1]; a[pi + 1] = a[pj + 1]; a[pj + 1] = ti; }}
+   float sign = inverse ? 1 : -1;
+   for (int len = 2; len <= n; len <<= 1) {
+      int half = len >> 1;
+      int tabStep = n / len;
+      for (int i = 0; i < n; i += len) {
+         for (int j = 0; j < half; j++) {
+            float wr = cosTabF[j * tabStep];
+            float wi = sign * sinTabF[j * tabStep];
+            int p1 = pos + 2 * (i + j);
+            int p2 = p1 + 2 * half;
+            float xr = a[p2];
+            float xi = a[p2 + 1];
+            float tr = xr * wr - xi * wi;
+            float ti = xr * wi + xi * wr;
+            float ur = a[p1];
+            float ui = a[p1 + 1];
+            a[p1]     = ur + tr;
+            a[p1 + 1] = ui + ti;
+            a[p2]     = ur - tr;
+            a[p2 + 1] = ui - ti; }}}}
+
+//--- Real transforms ----------------------------------------------------------
+
+/**
+* Computes the forward DFT of real data in-place.
+*
+* <p>The real transform of size <code>n</code> is computed with a complex transform of size <code>n/2</code>.
+*
+* @param a
+*    On input: <code>n</code> real values, starting at <code>pos</code>.
+*    On output: the spectrum in packed format (see class description).
+* @param pos
+*    The index of the first element in <code>a</code>.
+*/
+public void realForward (double[] a, int pos) {
+   if (a.length - pos < n) {
+      throw new IllegalArgumentException("Array too small for FFT size " + n + "."); }
+   if (n == 1) {
+      return; }
+   int m = n / 2;
+   getHalfPlan().transform(a, pos, false);
+   // Separate the spectra of the even and odd samples and combine them.
+   double zr0 = a[pos];
+   double zi0 = a[pos + 1];
+   a[pos]     = zr0 + zi0;
+   a[pos + 1] = zr0 - zi0;
+   for (int k = 1; k <= m / 2; k++) {
+      int p1 = pos + 2 * k;
+      int p2 = pos + 2 * (m - k);
+      double z1r = a[p1];
+      double z1i = a[p1 + 1];
+      double z2r = a[p2];
+      double z2i = a[p2 + 1];
+      double er = (z1r + z2r) / 2;                         // even part E[k] = (Z[k] + conj(Z[m-k])) / 2
+      double ei = (z1i - z2i) / 2;
+      double or = (z1i + z2i) / 2;                         // odd part O[k] = (Z[k] - conj(Z[m-k])) / 2i
+      double oi = (z2r - z1r) / 2;
+      double wr = cosTab[k];
+      double wi = -sinTab[k];
+      double tr = or * wr - oi * wi;                       // W^k * O[k]
+      double ti = or * wi + oi * wr;
+      a[p1]     = er + tr;                                 // X[k] = E[k] + W^k * O[k]
+      a[p1 + 1] = ei + ti;
+      a[p2]     = er - tr;                                 // X[m-k] = conj(E[k] - W^k * O[k])
+      a[p2 + 1] = ti - ei; }}
+
+/**
+* Computes the forward DFT of real data in-place.
+* Equivalent to <code>realForward(a, 0)</code>.
+*/
+public void realForward (double[] a) {
+   realForward(a, 0); }
+
+/**
+* Computes the inverse DFT of a spectrum in packed format, in-place.
+* This is the inverse function of {@link #realForward(double[], int)}.
+*
+* @param a
+*    On input: the spectrum in packed format (see class description), starting at <code>pos</code>.
+*    On output: <code>n</code> real values.
+* @param pos
+*    The index of the first element in <code>a</code>.
+* @param scale
+*    <code>true</code> to divide the result by <code>n</code>.
+*/
+public void realInverse (double[] a, int pos, boolean scale) {
+   if (a.length - pos < n) {
+      throw new IllegalArgumentException("Array too small for FFT size " + n + "."); }
+   if (n == 1) {
+      return; }
+   int m = n / 2;
+   double x0 = a[pos];
+   double xm = a[pos + 1];
+   a[pos]     = x0 + xm;
+   a[pos + 1] = x0 - xm;
+   for (int k = 1; k <= m / 2; k++) {
+      int p1 = pos + 2 * k;
+      int p2 = pos + 2 * (m - k);
+      double x1r = a[p1];
+      double x1i = a[p1 + 1];
+      double x2r = a[p2];
+      double x2i = a[p2 + 1];
+      double er = x1r + x2r;                               // 2 * E[k] = X[k] + conj(X[m-k])
+      double ei = x1i - x2i;
+      double tr = x1r - x2r;                               // 2 * W^k * O[k] = X[k] - conj(X[m-k])
+      double ti = x1i + x2i;
+      double wr = cosTab[k];
+      double wi = sinTab[k];
+      double or = tr * wr - ti * wi;                       // 2 * O[k] = W^-k * (2 * W^k * O[k])
+      double oi = tr * wi + ti * wr;
+      a[p1]     = er - oi;                                 // 2 * Z[k] = 2 * E[k] + 2i * O[k]
+      a[p1 + 1] = ei + or;
+      a[p2]     = er + oi;                                 // 2 * Z[m-k] = conj(2 * E[k]) + 2i * conj(O[k])
+      a[p2 + 1] = or - ei; }
+   getHalfPlan().transform(a, pos, true);
+   if (scale) {
+      scale(a, pos, n, 1.0 / n); }}
+
+/**
+* Computes the inverse DFT of a spectrum in packed format, in-place.
+* Equivalent to <code>realInverse(a, 0, scale)</code>.
+*/
+public void realInverse (double[] a, boolean scale) {
+   realInverse(a, 0, scale); }
+
+//--- Single-precision real transforms ----------------------------------------
+
+/**
+* Computes the forward DFT of single-precision real data in-place.
+* See {@link #realForward(double[], int)}.
+*/
+public void realForward (float[] a, int pos) {
+   if (a.length - pos < n) {
+      throw new IllegalArgumentException("Array too small for FFT size " + n + "."); }
+   if (n == 1) {
+      return; }
+   int m = n / 2;
+   getHalfPlan().transform(a, pos, false);
+   createFloatTables();
+   float[] cosTabF = this.cosTabF;
+   float[] sinTabF = this.sinTabF;
+   float zr0 = a[pos];
+   float zi0 = a[pos + 1];
+   a[pos]     = zr0 + zi0;
+   a[pos + 1] = zr0 - zi0;
+   for (int k = 1; k <= m / 2; k++) {
+      int p1 = pos + 2 * k;
+      int p2 = pos + 2 * (m - k);
+      float z1r = a[p1];
+      float z1i = a[p1 + 1];
+      float z2r = a[p2];
+      float z2i = a[p2 + 1];
+      float er = (z1r + z2r) * 0.5f;
+      float ei = (z1i - z2i) * 0.5f;
+      float or = (z1i + z2i) * 0.5f;
+      float oi = (z2r - z1r) * 0.5f;
+      float wr = cosTabF[k];
+      float wi = -sinTabF[k];
+      float tr = or * wr - oi * wi;
+      float ti = or * wi + oi * wr;
+      a[p1]     = er + tr;
+      a[p1 + 1] = ei + ti;
+      a[p2]     = er - tr;
+      a[p2 + 1] = ti - ei; }}
+
+/**
+* Computes the forward DFT of single-precision real data in-place.
+* Equivalent to <code>realForward(a, 0)</code>.
+*/
+public void realForward (float[] a) {
+   realForward(a, 0); }
+
+/**
+* Computes the inverse DFT of a single-precision spectrum in packed format, in-place.
+* See {@link #realInverse(double[], int, boolean)}.
+*/
+public void realInverse (float[] a, int pos, boolean scale) {
+   if (a.length - pos < n) {
+      throw new IllegalArgumentException("Array too small for FFT size " + n + "."); }
+   if (n == 1) {
+      return; }
+   int m = n / 2;
+   createFloatTables();
+   float[] cosTabF = this.cosTabF;
+   float[] sinTabF = this.sinTabF;
+   float x0 = a[pos];
+   float xm = a[pos + 1];
+   a[pos]     = x0 + xm;
+   a[pos + 1] = x0 - xm;
+   for (int k = 1; k <= m / 2; k++) {
+      int p1 = pos + 2 * k;
+      int p2 = pos + 2 * (m - k);
+      float x1r = a[p1];
+      float x1i = a[p1 + 1];
+      float x2r = a[p2];
+      float x2i = a[p2 + 1];
+      float er = x1r + x2r;
+      float ei = x1i - x2i;
+      float tr = x1r - x2r;
+      float ti = x1i + x2i;
+      float wr = cosTabF[k];
+      float wi = sinTabF[k];
+      float or = tr * wr - ti * wi;
+      float oi = tr * wi + ti * wr;
+      a[p1]     = er - oi;
+      a[p1 + 1] = ei + or;
+      a[p2]     = er + oi;
+      a[p2 + 1] = or - ei; }
+   getHalfPlan().transform(a, pos, true);
+   if (scale) {
+      scale(a, pos, n, 1.0f / n); }}
+
+/**
+* Computes the inverse DFT of a single-precision spectrum in packed format, in-place.
+* Equivalent to <code>realInverse(a, 0, scale)</code>.
+*/
+public void realInverse (float[] a, boolean scale) {
+   realInverse(a, 0, scale); }
+
+//--- Batch transforms ---------------------------------------------------------
+
+private enum BatchOp {
+   complexForward, complexInverse, complexInverseScaled, realForward, realInverse, realInverseScaled }
+
+/**
+* Computes the forward DFT of multiple frames of complex data in-place.
+*
+* @param a
+*    The frame matrix. Each frame contains <code>n</code> interleaved complex values.
+* @param pos
+*    The index of the first element of the first frame in <code>a</code>.
+* @param stride
+*    The distance between the starts of two successive frames. Must be at least <code>2 * n</code>.
+* @param frames
+*    The number of frames.
+* @param parallel
+*    <code>true</code> to distribute the frames over multiple threads.
+*/
+public void complexForwardBatch (double[] a, int pos, int stride, int frames, boolean parallel) {
+   batch(BatchOp.complexForward, a, pos, stride, frames, 2 * n, parallel); }
+
+/**
+* Computes the inverse DFT of multiple frames of complex data in-place.
+* The parameters are the same as for {@link #complexForwardBatch}.
+*
+* @param scale
+*    <code>true</code> to divide the result by <code>n</code>.
+*/
+public void complexInverseBatch (double[] a, int pos, int stride, int frames, boolean scale, boolean parallel) {
+   batch(scale ? BatchOp.complexInverseScaled : BatchOp.complexInverse, a, pos, stride, frames, 2 * n, parallel); }
+
+/**
+* Computes the forward DFT of multiple frames of real data in-place.
+* The results are stored in packed format.
+*
+* @param a
+*    The frame matrix. Each frame contains <code>n</code> real values.
+* @param pos
+*    The index of the first element of the first frame in <code>a</code>.
+* @param stride
+*    The distance between the starts of two successive frames. Must be at least <code>n</code>.
+* @param frames
+*    The number of frames.
+* @param parallel
+*    <code>true</code> to distribute the frames over multiple threads.
+*/
+public void realForwardBatch (double[] a, int pos, int stride, int frames, boolean parallel) {
+   batch(BatchOp.realForward, a, pos, stride, frames, n, parallel); }
+
+/**
+* Computes the inverse DFT of multiple frames of packed spectra in-place.
+* The parameters are the same as for {@link #realForwardBatch}.
+*
+* @param scale
+*    <code>true</code> to divide the result by <code>n</code>.
+*/
+public void realInverseBatch (double[] a, int pos, int stride, int frames, boolean scale, boolean parallel) {
+   batch(scale ? BatchOp.realInverseScaled : BatchOp.realInverse, a, pos, stride, frames, n, parallel); }
+
+/**
+* Computes the forward DFT of multiple frames of single-precision complex data in-place.
+* See {@link #complexForwardBatch(double[], int, int, int, boolean)}.
+*/
+public void complexForwardBatch (float[] a, int pos, int stride, int frames, boolean parallel) {
+   batch(BatchOp.complexForward, a, pos, stride, frames, 2 * n, parallel); }
+
+/**
+* Computes the inverse DFT of multiple frames of single-precision complex data in-place.
+* See {@link #complexInverseBatch(double[], int, int, int, boolean, boolean)}.
+*/
+public void complexInverseBatch (float[] a, int pos, int stride, int frames, boolean scale, boolean parallel) {
+   batch(scale ? BatchOp.complexInverseScaled : BatchOp.complexInverse, a, pos, stride, frames, 2 * n, parallel); }
+
+/**
+* Computes the forward DFT of multiple frames of single-precision real data in-place.
+* See {@link #realForwardBatch(double[], int, int, int, boolean)}.
+*/
+public void realForwardBatch (float[] a, int pos, int stride, int frames, boolean parallel) {
+   batch(BatchOp.realForward, a, pos, stride, frames, n, parallel); }
+
+/**
+* Computes the inverse DFT of multiple frames of single-precision packed spectra in-place.
+* See {@link #realInverseBatch(double[], int, int, int, boolean, boolean)}.
+*/
+public void realInverseBatch (float[] a, int pos, int stride, int frames, boolean scale, boolean parallel) {
+   batch(scale ? BatchOp.realInverseScaled : BatchOp.realInverse, a, pos, stride, frames, n, parallel); }
+
+// The frame matrix a is a double[] or a float[].
+private void batch (BatchOp op, Object a, int pos, int stride, int frames, int frameLen, boolean parallel) {
+   if (stride < frameLen || frames < 0) {
+      throw new IllegalArgumentException("Invalid stride or number of frames."); }
+   if (frames == 0) {
+      return; }
+   int arrayLen = (a instanceof float[]) ? ((float[])a).length : ((double[])a).length;
+   if (pos < 0 || pos + (long)(frames - 1) * stride + frameLen > arrayLen) {
+      throw new IllegalArgumentException("Array too small for frame matrix."); }
+   int framesPerTask = Math.max(1, minParallelTaskSize / frameLen);
+   if (!parallel || frames <= framesPerTask) {
+      batchSequential(op, a, pos, stride, 0, frames);
+      return; }
+   getForkJoinPool().invoke(new BatchTask(op, a, pos, stride, 0, frames, framesPerTask)); }
+
+private void batchSequential (BatchOp op, Object a, int pos, int stride, int frame1, int frame2) {
+   if (a instanceof float[]) {
+      batchSequential(op, (float[])a, pos, stride, frame1, frame2);
+      return; }
+   batchSequential(op, (double[])a, pos, stride, frame1, frame2); }
+
+private void batchSequential (BatchOp op, double[] a, int pos, int stride, int frame1, int frame2) {
+   for (int frame = frame1; frame < frame2; frame++) {
+      int p = pos + frame * stride;
+      switch (op) {
+         case complexForward:       transform(a, p, false);       break;
+         case complexInverse:       transform(a, p, true);        break;
+         case complexInverseScaled: complexInverse(a, p, true);   break;
+         case realForward:          realForward(a, p);            break;
+         case realInverse:          realInverse(a, p, false);     break;
+         case realInverseScaled:    realInverse(a, p, true);      break;
+         default: throw new AssertionError(); }}}
+
+private void batchSequential (BatchOp op, float[] a, int pos, int stride, int frame1, int frame2) {
+   for (int frame = frame1; frame < frame2; frame++) {
+      int p = pos + frame * stride;
+      switch (op) {
+         case complexForward:       transform(a, p, false);       break;
+         case complexInverse:       transform(a, p, true);        break;
+         case complexInverseScaled: complexInverse(a, p, true);   break;
+         case realForward:          realForward(a, p);            break;
+         case realInverse:          realInverse(a, p, false);     break;
+         case realInverseScaled:    realInverse(a, p, true);      break;
+         default: throw new AssertionError(); }}}
+
+private static synchronized ForkJoinPool getForkJoinPool() {
+   if (forkJoinPool == null) {
+      forkJoinPool = new ForkJoinPool(); }
+   return forkJoinPool; }
+
+private class BatchTask extends RecursiveAction {
+   private static final long serialVersionUID = 1;
+   private final BatchOp     op;
+   private final Object      a;                            // double[] or float[]
+   private final int         pos;
+   private final int         stride;
+   private final int         frame1;                       // first frame
+   private final int         frame2;                       // last frame + 1
+   private final int         framesPerTask;
+   BatchTask (BatchOp op, Object a, int pos, int stride, int frame1, int frame2, int framesPerTask) {
+      this.op = op; this.a = a; this.pos = pos; this.stride = stride;
+      this.frame1 = frame1; this.frame2 = frame2; this.framesPerTask = framesPerTask; }
+   @Override protected void compute() {
+      if (frame2 - frame1 <= framesPerTask) {
+         batchSequential(op, a, pos, stride, frame1, frame2);
+         return; }
+      int mid = (frame1 + frame2) >>> 1;
+      invokeAll(new BatchTask(op, a, pos, stride, frame1, mid, framesPerTask),
+                new BatchTask(op, a, pos, stride, mid, frame2, framesPerTask)); }}
+
+//------------------------------------------------------------------------------
+
+private static void scale (double[] a, int pos, int len, double f) {
+   for (int i = 0; i < len; i++) {
+      a[pos + i] *= f; }}
+
+private static void scale (float[] a, int pos, int len, float f) {
+   for (int i = 0; i < len; i++) {
+      a[pos + i] *= f; }}
+
+}
@@ -0,0 +1,196 @@
+// Copyright 2015 Christian d'Heureuse, Inventec Informatik AG, Zurich, Switzerland
+// www.source-code.biz, www.inventec.ch/chdh
+//
+// This module is multi-licensed and may be used under the terms
+// of any of the following licenses:
+//
+//  EPL, Eclipse Public License, V1.0 or later, http://www.eclipse.org/legal
+//  LGPL, GNU Lesser General Public License, V2.1 or later, http://www.gnu.org/licenses/lgpl.html
+//
+// Please contact the author if you need another license.
+// This module is provided "as is", without warranties of any kind.
+
+package biz.source_code.dsp.transform;
+
+/**
+* Inverse short-time Fourier transform with weighted overlap-add (WOLA) resynthesis.
+*
+* <p>This is the counterpart of {@link Stft}.
+* Each spectrum frame is transformed back with an inverse real FFT, multiplied with the
+* synthesis window and added into an overlap-add buffer.
+* For each frame, <code>hopSize</code> completed output samples are delivered.
+*
+* <p>For perfect reconstruction, the product of the analysis and synthesis windows, overlap-added
+* with the hop size, must be constant (the "COLA" condition, constant overlap-add).
+* This is verified when the object is created.
+* The output is divided by this constant.
+*
+* <p>When the frames of an {@link Stft} with the same parameters are passed unmodified, frame <code>j</code>
+* produces the samples <code>j * hopSize</code> to <code>j * hopSize + hopSize - 1</code> of the original signal.
+* The first <code>frameSize - hopSize</code> samples are not reconstructed completely, because
+* there are no preceding frames that overlap with them.
+*
+* <p>Objects of this class are not thread-safe.
+*/
+public class InverseStft {
+
+private static final double  colaEps = 1E-9;
+
+private int                  frameSize;
+private int                  hopSize;
+private double[]             synthesisWindow;
+private double               outputScale;                  // 1 / overlap-add gain
+private Fft                  fft;
+private double[]             frameBuf;                     // work buffer for the inverse FFT
+private double[]             olaBuf;                       // overlap-add ring buffer
+private int                  olaPos;                       // start position of the current frame in olaBuf
+
+/**
+* Creates an inverse STFT.
+*
+* @param frameSize
+*    The frame size (FFT size). Must be a power of 2.
+* @param hopSize
+*    The number of samples between the start of two successive frames.
+* @param analysisWindow
+*    The window that has been used for the analysis, or <code>null</code> for a rectangular window.
+* @param synthesisWindow
+*    The window to be applied to the resynthesized frames, or <code>null</code> for a rectangular window.
+* @throws IllegalArgumentException
+*    If the windows and the hop size do not fulfill the condition for perfect reconstruction.
+*/
+public InverseStft (int frameSize, int hopSize, double[] analysisWindow, double[] synthesisWindow) {
+   if (hopSize < 1 || hopSize > frameSize) {
+      throw new IllegalArgumentException("Invalid hop size."); }
+   if (synthesisWindow != null && synthesisWindow.length != frameSize) {
+      throw new IllegalArgumentException("Window size does not match frame size."); }
+   this.frameSize = frameSize;
+   this.hopSize = hopSize;
+   this.synthesisWindow = synthesisWindow;
+   outputScale = 1 / computeOverlapAddGain(analysisWindow, synthesisWindow, frameSize, hopSize);
+   fft = Fft.getInstance(frameSize);
+   frameBuf = new double[frameSize];
+   olaBuf = new double[frameSize]; }
+
+/**
+* Computes the overlap-add gain of an analysis/synthesis window pair and verifies the condition
+* for perfect reconstruction.
+*
+* @param analysisWindow
+*    The analysis window, or <code>null</code> for a rectangular window.
+* @param synthesisWindow
+*    The synthesis window, or <code>null</code> for a rectangular window.
+* @param frameSize
+*    The frame size.
+* @param hopSize
+*    The hop size.
+* @return
+*    The constant sum of the overlapping window products.
+* @throws IllegalArgumentException
+*    If the sum is not constant.
+*/
+public static double computeOverlapAddGain (double[] analysisWindow, double[] synthesisWindow, int frameSize, int hopSize) {
+   double[] s = computeOverlapAddSum(analysisWindow, synthesisWindow, frameSize, hopSize);
+   double gain = s[0];
+   if (!(gain > 0) || getMaxRelativeDeviation(s) > colaEps) {
+      throw new IllegalArgumentException("The windows and the hop size do not fulfill the condition for perfect reconstruction."); }
+   return gain; }
+
+/**
+* Returns <code>true</code> if an analysis/synthesis window pair and the hop size allow perfect reconstruction.
+*
+* @param eps
+*    The maximum relative deviation of the overlap-add sum from a constant.
+*/
+public static boolean isPerfectReconstruction (double[] analysisWindow, double[] synthesisWindow, int frameSize, int hopSize, double eps) {
+   double[] s = computeOverlapAddSum(analysisWindow, synthesisWindow, frameSize, hopSize);
+   return s[0] > 0 && getMaxRelativeDeviation(s) <= eps; }
+
+// Returns the sum of the overlapping window products for the positions 0 .. hopSize-1.
+private static double[] computeOverlapAddSum (double[] analysisWindow, double[] synthesisWindow, int frameSize, int hopSize) {
+   if (hopSize < 1 || hopSize > frameSize) {
+      throw new IllegalArgumentException("Invalid hop size."); }
+   if ((analysisWindow != null && analysisWindow.length != frameSize) || (synthesisWindow != null && synthesisWindow.length != frameSize)) {
+      throw new IllegalArgumentException("Window size does not match frame size."); }
+   double[] s = new double[hopSize];
+   for (int i = 0; i < frameSize; i++) {
+      double wa = (analysisWindow == null) ? 1 : analysisWindow[i];
+      double ws = (synthesisWindow == null) ? 1 : synthesisWindow[i];
+      s[i % hopSize] += wa * ws; }
+   return s; }
+
+private static double getMaxRelativeDeviation (double[] s) {
+   double maxDev = 0;
+   for (int i = 1; i < s.length; i++) {
+      maxDev = Math.max(maxDev, Math.abs(s[i] - s[0])); }
+   return maxDev / Math.abs(s[0]); }
+
+/**
+* Returns the frame size.
+*/
+public int getFrameSize() {
+   return frameSize; }
+
+/**
+* Returns the hop size.
+*/
+public int getHopSize() {
+   return hopSize; }
+
+/**
+* Processes a spectrum frame and delivers <code>hopSize</code> output samples.
+*
+* @param spectrum
+*    The spectrum of the frame in packed format (see {@link Fft}). It is not modified.
+* @param out
+*    The output buffer.
+* @param outPos
+*    The position in <code>out</code> where the <code>hopSize</code> output samples are stored.
+*/
+public void processFrame (double[] spectrum, float[] out, int outPos) {
+   addFrame(spectrum);
+   for (int i = 0; i < hopSize; i++) {
+      out[outPos + i] = (float)nextOutputSample(); }}
+
+/**
+* Processes a spectrum frame and delivers <code>hopSize</code> output samples.
+*
+* @param spectrum
+*    The spectrum of the frame in packed format (see {@link Fft}). It is not modified.
+* @param out
+*    The output buffer.
+* @param outPos
+*    The position in <code>out</code> where the <code>hopSize</code> output samples are stored.
+*/
+public void processFrame (double[] spectrum, double[] out, int outPos) {
+   addFrame(spectrum);
+   for (int i = 0; i < hopSize; i++) {
+      out[outPos + i] = nextOutputSample(); }}
+
+private void addFrame (double[] spectrum) {
+   System.arraycopy(spectrum, 0, frameBuf, 0, frameSize);
+   fft.realInverse(frameBuf, 0, true);
+   int p = olaPos;
+   for (int i = 0; i < frameSize; i++) {
+      double v = frameBuf[i];
+      olaBuf[p] += (synthesisWindow == null) ? v : v * synthesisWindow[i];
+      if (++p == frameSize) {
+         p = 0; }}}
+
+// Fetches the oldest sample from the overlap-add buffer and clears its position for the next frame.
+private double nextOutputSample() {
+   double v = olaBuf[olaPos] * outputScale;
+   olaBuf[olaPos] = 0;
+   if (++olaPos == frameSize) {
+      olaPos = 0; }
+   return v; }
+
+/**
+* Resets the internal state.
+*/
+public void reset() {
+   for (int i = 0; i < frameSize; i++) {
+      olaBuf[i] = 0; }
+   olaPos = 0; }
+
+}
@@ -0,0 +1,182 @@
+// Copyright 2015 Christian d'Heureuse, Inventec Informatik AG, Zurich, Switzerland
+// www.source-code.biz, www.inventec.ch/chdh
+//
+// This module is multi-licensed and may be used under the terms
+// of any of the following licenses:
+//
+//  EPL, Eclipse Public License, V1.0 or later, http://www.eclipse.org/legal
+//  LGPL, GNU Lesser General Public License, V2.1 or later, http://www.gnu.org/licenses/lgpl.html
+//
+// Please contact the author if you need another license.
+// This module is provided "as is", without warranties of any kind.
+
+package biz.source_code.dsp.transform;
+
+/**
+* Modified discrete cosine transform (MDCT) and its inverse (IMDCT).
+*
+* <p>The MDCT transforms a block of <code>2 * N</code> input values into <code>N</code> coefficients:
+* <pre>
+*    X[k] = sum(n=0..2N-1) w[n] * x[n] * cos(PI / N * (n + 1/2 + N/2) * (k + 1/2))
+* </pre>
+* The IMDCT produces a block of <code>2 * N</code> values, which are multiplied with the window:
+* <pre>
+*    y[n] = w[n] * 2 / N * sum(k=0..N-1) X[k] * cos(PI / N * (n + 1/2 + N/2) * (k + 1/2))
+* </pre>
+* When the blocks overlap by 50% and the window fulfills the Princen-Bradley condition
+* (see {@link #isPrincenBradley}), the overlap-added IMDCT output blocks reproduce the input signal
+* (time-domain aliasing cancellation, TDAC).
+* Without a window, the overlap-added output is twice the input signal.
+*
+* <p>The transforms are computed with the DCT-IV of {@link Dct}, in O(N log N).
+* Objects of this class contain work buffers and are not thread-safe.
+*
+* <p>
+* Reference: <a href="http://en.wikipedia.org/wiki/Modified_discrete_cosine_transform">Wikipedia</a>.
+*/
+public class Mdct {
+
+private int                  n;                            // number of coefficients
+private double[]             window;                       // 2 * n values or null
+private Dct                  dct;
+private double[]             buf;                          // work buffer
+
+/**
+* Creates an MDCT object.
+*
+* @param n
+*    The number of MDCT coefficients (half the block size). Must be a power of 2 and at least 2.
+* @param window
+*    The window for the analysis and the synthesis, an array of <code>2 * n</code> values,
+*    or <code>null</code> for no windowing.
+*/
+public Mdct (int n, double[] window) {
+   if (window != null && window.length != 2 * n) {
+      throw new IllegalArgumentException("Window size must be 2 * n."); }
+   this.n = n;
+   this.window = window;
+   dct = new Dct(n);
+   buf = new double[n]; }
+
+/**
+* Returns the number of MDCT coefficients.
+*/
+public int getSize() {
+   return n; }
+
+/**
+* Computes the MDCT of a block.
+*
+* @param in
+*    The input array, <code>2 * n</code> values starting at <code>inPos</code>.
+* @param inPos
+*    The position of the first input value.
+* @param out
+*    The output array, <code>n</code> coefficients are stored starting at <code>outPos</code>.
+* @param outPos
+*    The position of the first output value.
+*/
+public void forward (double[] in, int inPos, double[] out, int outPos) {
+   // The input block (a, b, c, d) is folded into (-c_r - d, a - b_r), where _r denotes reversal.
+   int h = n / 2;
+   for (int i = 0; i < h; i++) {
+      int p1 = 3 * h - 1 - i;                              // c_r
+      int p2 = 3 * h + i;                                  // d
+      buf[i] = -win(in, inPos, p1) - win(in, inPos, p2); }
+   for (int i = h; i < n; i++) {
+      int p1 = i - h;                                      // a
+      int p2 = 3 * h - 1 - i;                              // b_r
+      buf[i] = win(in, inPos, p1) - win(in, inPos, p2); }
+   dct.dct4(buf, 0, out, outPos); }
+
+private double win (double[] in, int inPos, int p) {
+   double v = in[inPos + p];
+   return (window == null) ? v : v * window[p]; }
+
+/**
+* Computes the IMDCT of a block of coefficients.
+* The output block has to be overlap-added with the previous and the next output blocks.
+*
+* @param in
+*    The input array, <code>n</code> coefficients starting at <code>inPos</code>.
+* @param inPos
+*    The position of the first input value.
+* @param out
+*    The output array, <code>2 * n</code> values are stored starting at <code>outPos</code>.
+* @param outPos
+*    The position of the first output value.
+*/
+public void inverse (double[] in, int inPos, double[] out, int outPos) {
+   // The DCT-IV result (w1, w2) is unfolded into (w2, -w2_r, -w1_r, -w1) * 2 / n.
+   dct.dct4(in, inPos, buf, 0);
+   int h = n / 2;
+   double scale = 2.0 / n;
+   for (int i = 0; i < h; i++) {
+      double w1 = buf[i] * scale;
+      double w2 = buf[h + i] * scale;
+      setOut(out, outPos, i,             w2);
+      setOut(out, outPos, n - 1 - i,    -w2);
+      setOut(out, outPos, 3 * h - 1 - i, -w1);
+      setOut(out, outPos, 3 * h + i,    -w1); }}
+
+private void setOut (double[] out, int outPos, int p, double v) {
+   out[outPos + p] = (window == null) ? v : v * window[p]; }
+
+//--- TDAC windows -------------------------------------------------------------
+
+/**
+* Returns the sine window for an MDCT with <code>n</code> coefficients.
+*
+* @return
+*    An array of <code>2 * n</code> values.
+*/
+public static double[] getSineWindow (int n) {
+   double[] w = new double[2 * n];
+   for (int i = 0; i < 2 * n; i++) {
+      w[i] = Math.sin(Math.PI * (i + 0.5) / (2 * n)); }
+   return w; }
+
+/**
+* Returns the Kaiser-Bessel-derived (KBD) window for an MDCT with <code>n</code> coefficients.
+*
+* @param n
+*    The number of MDCT coefficients.
+* @param alpha
+*    The alpha parameter of the KBD window (the Kaiser beta is <code>PI * alpha</code>).
+* @return
+*    An array of <code>2 * n</code> values.
+*/
+public static double[] getKbdWindow (int n, double alpha) {
+   double[] kaiser = WindowFunction.get(WindowFunctionType.kaiser, n + 1, Math.PI * alpha, false).getDoubleTable();
+   double total = 0;
+   for (int i = 0; i <= n; i++) {
+      total += kaiser[i]; }
+   double[] w = new double[2 * n];
+   double sum = 0;
+   for (int i = 0; i < n; i++) {
+      sum += kaiser[i];
+      double v = Math.sqrt(sum / total);
+      w[i] = v;
+      w[2 * n - 1 - i] = v; }
+   return w; }
+
+/**
+* Verifies the Princen-Bradley condition <code>w[i]^2 + w[i + n]^2 = 1</code> and the symmetry of an MDCT window.
+* This condition is required for perfect reconstruction with TDAC.
+*
+* @param window
+*    The window, an array of <code>2 * n</code> values.
+* @param eps
+*    The maximum allowed deviation.
+*/
+public static boolean isPrincenBradley (double[] window, double eps) {
+   int n = window.length / 2;
+   if (window.length != 2 * n) {
+      return false; }
+   for (int i = 0; i < n; i++) {
+      double s = window[i] * window[i] + window[i + n] * window[i + n];
+      if (Math.abs(s - 1) > eps || Math.abs(window[i] - window[2 * n - 1 - i]) > eps) {
+         return false; }}
+   return true; }
+
+}
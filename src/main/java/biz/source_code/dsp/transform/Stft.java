@@ -0,0 +1,133 @@
+// Copyright 2015 Christian d'Heureuse, Inventec Informatik AG, Zurich, Switzerland
+// www.source-code.biz, www.inventec.ch/chdh
+//
+// This module is multi-licensed and may be used under the terms
+// of any of the following licenses:
+//
+//  EPL, Eclipse Public License, V1.0 or later, http://www.eclipse.org/legal
+//  LGPL, GNU Lesser General Public License, V2.1 or later, http://www.gnu.org/licenses/lgpl.html
+//
+// Please contact the author if you need another license.
+// This module is provided "as is", without warranties of any kind.
+
+package biz.source_code.dsp.transform;
+
+/**
+* Streaming short-time Fourier transform (STFT).
+*
+* <p>The input signal is processed in blocks of arbitrary size.
+* Each time <code>hopSize</code> new samples are available, the last <code>frameSize</code> samples
+* are multiplied with the analysis window and transformed with a real FFT.
+* The resulting spectrum (in the packed format described in {@link Fft}) is passed to a
+* {@link FrameHandler}.
+*
+* <p>The first frame is produced after <code>frameSize</code> samples.
+* See {@link InverseStft} for the resynthesis.
+*
+* <p>Objects of this class are not thread-safe.
+*/
+public class Stft {
+
+/**
+* Receives the spectrum frames produced by an {@link Stft}.
+*/
+public interface FrameHandler {
+   /**
+   * Called for each new frame.
+   *
+   * @param spectrum
+   *    The spectrum of the frame in packed format (see {@link Fft}).
+   *    The array is reused for the next frame. It may be modified by the handler.
+   */
+   public void processFrame (double[] spectrum); }
+
+private int                  frameSize;
+private int                  hopSize;
+private double[]             window;
+private Fft                  fft;
+private double[]             inBuf;                        // input ring buffer
+private int                  inBufPos;                     // current write position in inBuf
+private int                  inBufFill;                    // number of samples until the next frame
+private double[]             frameBuf;                     // work buffer for the FFT
+
+/**
+* Creates a streaming STFT.
+*
+* @param frameSize
+*    The frame size (FFT size). Must be a power of 2.
+* @param hopSize
+*    The number of samples between the start of two successive frames.
+*    Must be between 1 and <code>frameSize</code>.
+* @param window
+*    The analysis window, an array of <code>frameSize</code> values, or <code>null</code> for a rectangular window.
+*/
+public Stft (int frameSize, int hopSize, double[] window) {
+   if (hopSize < 1 || hopSize > frameSize) {
+      throw new IllegalArgumentException("Invalid hop size."); }
+   if (window != null && window.length != frameSize) {
+      throw new IllegalArgumentException("Window size does not match frame size."); }
+   this.frameSize = frameSize;
+   this.hopSize = hopSize;
+   this.window = window;
+   fft = Fft.getInstance(frameSize);
+   inBuf = new double[frameSize];
+   frameBuf = new double[frameSize];
+   inBufFill = frameSize; }
+
+/**
+* Returns the frame size.
+*/
+public int getFrameSize() {
+   return frameSize; }
+
+/**
+* Returns the hop size.
+*/
+public int getHopSize() {
+   return hopSize; }
+
+/**
+* Processes a block of input samples.
+* <code>handler.processFrame()</code> is called for each frame that is completed.
+*/
+public void process (float[] in, int pos, int len, FrameHandler handler) {
+   for (int i = 0; i < len; i++) {
+      inBuf[inBufPos] = in[pos + i];
+      inBufPos = (inBufPos + 1) % frameSize;
+      if (--inBufFill == 0) {
+         computeFrame();
+         handler.processFrame(frameBuf); }}}
+
+/**
+* Processes a block of input samples.
+* <code>handler.processFrame()</code> is called for each frame that is completed.
+*/
+public void process (double[] in, int pos, int len, FrameHandler handler) {
+   for (int i = 0; i < len; i++) {
+      inBuf[inBufPos] = in[pos + i];
+      inBufPos = (inBufPos + 1) % frameSize;
+      if (--inBufFill == 0) {
+         computeFrame();
+         handler.processFrame(frameBuf); }}}
+
+// Copies the last frameSize samples into frameBuf, applies the window and computes the FFT.
+private void computeFrame() {
+   int p = inBufPos;                                       // oldest sample in the ring buffer
+   for (int i = 0; i < frameSize; i++) {
+      double v = inBuf[p];
+      frameBuf[i] = (window == null) ? v : v * window[i];
+      if (++p == frameSize) {
+         p = 0; }}
+   fft.realForward(frameBuf, 0);
+   inBufFill = hopSize; }
+
+/**
+* Resets the internal state.
+*/
+public void reset() {
+   for (int i = 0; i < frameSize; i++) {
+      inBuf[i] = 0; }
+   inBufPos = 0;
+   inBufFill = frameSize; }
+
+}
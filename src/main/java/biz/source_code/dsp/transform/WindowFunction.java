@@ -0,0 +1,356 @@
+// Copyright 2015 Christian d'Heureuse, Inventec Informatik AG, Zurich, Switzerland
+// www.source-code.biz, www.inventec.ch/chdh
+//
+// This module is multi-licensed and may be used under the terms
+// of any of the following licenses:
+//
+//  EPL, Eclipse Public License, V1.0 or later, http://www.eclipse.org/legal
+//  LGPL, GNU Lesser General Public License, V2.1 or later, http://www.gnu.org/licenses/lgpl.html
+//
+// Please contact the author if you need another license.
+// This module is provided "as is", without warranties of any kind.
+
+package biz.source_code.dsp.transform;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+* A precomputed window function table.
+*
+* <p>
+* <code>WindowFunction</code> objects are immutable. They are obtained with {@link #get} and
+* are held in a shared, size-bounded cache (least recently used entries are evicted first).
+* The tables returned by {@link #getDoubleTable} and {@link #getFloatTable} are shared and must not be modified.
+*
+* <p>
+* A "periodic" window (DFT-even) is intended for spectral analysis and overlap-add processing with the FFT.
+* A "symmetric" window is intended for FIR filter design.
+*
+* <p>
+* The gain constants can be used to normalize spectra of windowed signals.
+* For example, an amplitude spectrum computed with {@link Dft#goertzelSpectrum} of a windowed signal
+* has to be divided by the coherent gain to get the amplitudes of the sinusoidal components.
+*
+* <p>
+* Reference: <a href="http://en.wikipedia.org/wiki/Window_function">Wikipedia</a>.
+*/
+public final class WindowFunction {
+
+private static final int     maxCacheEntries = 64;
+
+/**
+* Default parameter for the Kaiser window (beta).
+*/
+public static final double   defaultKaiserBeta = 8.6;
+
+/**
+* Default parameter for the Tukey window (alpha, ratio of the tapered part).
+*/
+public static final double   defaultTukeyAlpha = 0.5;
+
+/**
+* Default parameter for the Dolph-Chebyshev window (sidelobe attenuation in dB).
+*/
+public static final double   defaultChebyshevAttenuation = 100;
+
+private static final LinkedHashMap<CacheKey,WindowFunction> cache = new LinkedHashMap<CacheKey,WindowFunction>(16, 0.75f, true) {
+   private static final long serialVersionUID = 1;
+   @Override protected boolean removeEldestEntry (Map.Entry<CacheKey,WindowFunction> eldest) {
+      return size() > maxCacheEntries; }};
+
+private final WindowFunctionType type;
+private final int            size;
+private final double         parameter;
+private final boolean        periodic;
+private final double[]       doubleTable;
+private final float[]        floatTable;
+private final double         coherentGain;
+private final double         powerGain;
+
+private WindowFunction (WindowFunctionType type, int size, double parameter, boolean periodic) {
+   this.type = type;
+   this.size = size;
+   this.parameter = parameter;
+   this.periodic = periodic;
+   doubleTable = compute(type, size, parameter, periodic);
+   floatTable = new float[size];
+   double sum = 0;
+   double sumSqr = 0;
+   for (int i = 0; i < size; i++) {
+      double v = doubleTable[i];
+      floatTable[i] = (float)v;
+      sum += v;
+      sumSqr += v * v; }
+   coherentGain = sum / size;
+   powerGain = sumSqr / size; }
+
+/**
+* Returns a cached window function.
+*
+* @param type
+*    The window function type.
+* @param size
+*    The number of values in the window table.
+* @param parameter
+*    The parameter of the window function. Only used for:
+*    Kaiser (beta), Tukey (alpha, 0 .. 1) and Dolph-Chebyshev (sidelobe attenuation in dB).
+* @param periodic
+*    <code>true</code> for a periodic window (for spectral analysis),
+*    <code>false</code> for a symmetric window (for filter design).
+* @return
+*    A shared <code>WindowFunction</code> object.
+*/
+public static WindowFunction get (WindowFunctionType type, int size, double parameter, boolean periodic) {
+   if (size < 1) {
+      throw new IllegalArgumentException("Invalid window size."); }
+   if (!hasParameter(type)) {
+      parameter = 0; }                                     // to avoid duplicate cache entries
+   CacheKey key = new CacheKey(type, size, parameter, periodic);
+   synchronized (cache) {
+      WindowFunction w = cache.get(key);
+      if (w != null) {
+         return w; }}
+   WindowFunction w = new WindowFunction(type, size, parameter, periodic);   // computed outside of the lock
+   synchronized (cache) {
+      WindowFunction w2 = cache.get(key);
+      if (w2 != null) {
+         return w2; }
+      cache.put(key, w);
+      return w; }}
+
+/**
+* Returns a cached periodic window function with the default parameter.
+*/
+public static WindowFunction get (WindowFunctionType type, int size) {
+   return get(type, size, getDefaultParameter(type), true); }
+
+/**
+* Returns the default parameter for a window function type.
+*/
+public static double getDefaultParameter (WindowFunctionType type) {
+   switch (type) {
+      case kaiser:         return defaultKaiserBeta;
+      case tukey:          return defaultTukeyAlpha;
+      case dolphChebyshev: return defaultChebyshevAttenuation;
+      default:             return 0; }}
+
+private static boolean hasParameter (WindowFunctionType type) {
+   return type == WindowFunctionType.kaiser || type == WindowFunctionType.tukey || type == WindowFunctionType.dolphChebyshev; }
+
+/**
+* Returns the window function type.
+*/
+public WindowFunctionType getType() {
+   return type; }
+
+/**
+* Returns the window size.
+*/
+public int getSize() {
+   return size; }
+
+/**
+* Returns the window function parameter.
+*/
+public double getParameter() {
+   return parameter; }
+
+/**
+* Returns <code>true</code> for a periodic window and <code>false</code> for a symmetric window.
+*/
+public boolean isPeriodic() {
+   return periodic; }
+
+/**
+* Returns the window values as a <code>double</code> array.
+* The array is shared and must not be modified.
+*/
+public double[] getDoubleTable() {
+   return doubleTable; }
+
+/**
+* Returns the window values as a <code>float</code> array.
+* The array is shared and must not be modified.
+*/
+public float[] getFloatTable() {
+   return floatTable; }
+
+/**
+* Returns the coherent gain (the mean of the window values).
+* This is the factor by which the amplitude of a sinusoidal component is attenuated by the window.
+*/
+public double getCoherentGain() {
+   return coherentGain; }
+
+/**
+* Returns the power gain (the mean of the squared window values).
+* This is the factor by which the power of broadband noise is attenuated by the window.
+*/
+public double getPowerGain() {
+   return powerGain; }
+
+/**
+* Returns the equivalent noise bandwidth (ENBW) in DFT bins.
+*/
+public double getEnbw() {
+   return powerGain / (coherentGain * coherentGain); }
+
+/**
+* Multiplies <code>size</code> values in <code>a</code>, starting at <code>pos</code>, with the window values.
+*/
+public void apply (double[] a, int pos) {
+   for (int i = 0; i < size; i++) {
+      a[pos + i] *= doubleTable[i]; }}
+
+/**
+* Multiplies <code>size</code> values in <code>a</code>, starting at <code>pos</code>, with the window values.
+*/
+public void apply (float[] a, int pos) {
+   for (int i = 0; i < size; i++) {
+      a[pos + i] *= floatTable[i]; }}
+
+//--- Window computation -------------------------------------------------------
+
+/**
+* Computes the values of a window function.
+* In contrast to {@link #get}, the result is not cached.
+*
+* @param type
+*    The window function type.
+* @param size
+*    The number of values.
+* @param parameter
+*    The parameter of the window function (see {@link #get}).
+* @param periodic
+*    <code>true</code> for a periodic window, <code>false</code> for a symmetric window.
+* @return
+*    A new array with the window values.
+*/
+public static double[] compute (WindowFunctionType type, int size, double parameter, boolean periodic) {
+   if (size < 1) {
+      throw new IllegalArgumentException("Invalid window size."); }
+   if (size == 1) {
+      return new double[]{1}; }
+   if (periodic) {                                         // a periodic window is a truncated symmetric window
+      double[] w = computeSymmetric(type, size + 1, parameter);
+      double[] w2 = new double[size];
+      System.arraycopy(w, 0, w2, 0, size);
+      return w2; }
+   return computeSymmetric(type, size, parameter); }
+
+private static double[] computeSymmetric (WindowFunctionType type, int n, double parameter) {
+   switch (type) {
+      case rectangular:    return computeCosineSum(n, new double[]{1});
+      case hann:           return computeCosineSum(n, new double[]{0.5, 0.5});
+      case hamming:        return computeCosineSum(n, new double[]{0.54, 0.46});
+      case blackmanHarris: return computeCosineSum(n, new double[]{0.35875, 0.48829, 0.14128, 0.01168});
+      case flatTop:        return computeCosineSum(n, new double[]{0.21557895, 0.41663158, 0.277263158, 0.083578947, 0.006947368});
+      case kaiser:         return computeKaiser(n, parameter);
+      case tukey:          return computeTukey(n, parameter);
+      case dolphChebyshev: return computeDolphChebyshev(n, parameter);
+      default:
+         throw new UnsupportedOperationException("Window function type " + type + " not yet implemented."); }}
+
+// Generalized cosine window: w[i] = c[0] - c[1] * cos(x) + c[2] * cos(2x) - ...
+private static double[] computeCosineSum (int n, double[] c) {
+   double[] w = new double[n];
+   for (int i = 0; i < n; i++) {
+      double x = 2 * Math.PI * i / (n - 1);
+      double v = 0;
+      for (int j = 0; j < c.length; j++) {
+         double t = c[j] * Math.cos(j * x);
+         v += (j % 2 == 0) ? t : -t; }
+      w[i] = v; }
+   return w; }
+
+private static double[] computeKaiser (int n, double beta) {
+   double[] w = new double[n];
+   double d = besselI0(beta);
+   for (int i = 0; i < n; i++) {
+      double r = 2.0 * i / (n - 1) - 1;
+      w[i] = besselI0(beta * Math.sqrt(Math.max(0, 1 - r * r))) / d; }
+   return w; }
+
+// Modified Bessel function of the first kind, order 0, computed with its power series.
+private static double besselI0 (double x) {
+   double sum = 1;
+   double term = 1;
+   double x2 = x * x / 4;
+   for (int k = 1; k < 500; k++) {
+      term *= x2 / ((double)k * k);
+      sum += term;
+      if (term < sum * 1E-17) {
+         break; }}
+   return sum; }
+
+private static double[] computeTukey (int n, double alpha) {
+   if (alpha < 0 || alpha > 1) {
+      throw new IllegalArgumentException("Tukey alpha must be between 0 and 1."); }
+   double[] w = new double[n];
+   for (int i = 0; i < n; i++) {
+      double x = (double)i / (n - 1);
+      if (x < alpha / 2) {
+         w[i] = 0.5 * (1 - Math.cos(2 * Math.PI * x / alpha)); }
+       else if (x > 1 - alpha / 2) {
+         w[i] = 0.5 * (1 - Math.cos(2 * Math.PI * (1 - x) / alpha)); }
+       else {
+         w[i] = 1; }}
+   return w; }
+
+// The Dolph-Chebyshev window is computed as the inverse DFT of the Chebyshev polynomial
+// sampled on the unit circle. The O(n^2) DFT is acceptable, because the result is cached.
+private static double[] computeDolphChebyshev (int n, double attenuation) {
+   if (attenuation <= 0) {
+      throw new IllegalArgumentException("Chebyshev attenuation must be positive."); }
+   int order = n - 1;
+   double x0 = Math.cosh(acosh(Math.pow(10, attenuation / 20)) / order);
+   double[] p = new double[n];
+   for (int k = 0; k < n; k++) {
+      double x = x0 * Math.cos(Math.PI * k / n);
+      if (x > 1) {
+         p[k] = Math.cosh(order * acosh(x)); }
+       else if (x < -1) {
+         p[k] = ((n % 2 == 0) ? -1 : 1) * Math.cosh(order * acosh(-x)); }
+       else {
+         p[k] = Math.cos(order * Math.acos(x)); }}
+   double[] w = new double[n];
+   double phaseShift = (n % 2 == 0) ? Math.PI / n : 0;      // half sample shift for even sizes
+   int half = n / 2;
+   for (int i = (n % 2 == 0) ? 1 : 0; i <= half; i++) {
+      double sum = 0;
+      for (int k = 0; k < n; k++) {
+         sum += p[k] * Math.cos(phaseShift * k - 2 * Math.PI * k * i / n); }
+      // The DFT result is centered at index 0 and has to be shifted to the center of the window.
+      int pos = (n % 2 == 0) ? half - 1 + i : half + i;
+      w[pos] = sum;
+      w[n - 1 - pos] = sum; }
+   double max = 0;
+   for (int i = 0; i < n; i++) {
+      max = Math.max(max, w[i]); }
+   for (int i = 0; i < n; i++) {
+      w[i] /= max; }
+   return w; }
+
+private static double acosh (double x) {
+   return Math.log(x + Math.sqrt(x * x - 1)); }
+
+//--- Cache key ----------------------------------------------------------------
+
+private static class CacheKey {
+   private final WindowFunctionType type;
+   private final int         size;
+   private final double      parameter;
+   private final boolean     periodic;
+   CacheKey (WindowFunctionType type, int size, double parameter, boolean periodic) {
+      this.type = type; this.size = size; this.parameter = parameter; this.periodic = periodic; }
+   @Override public boolean equals (Object obj) {
+      if (!(obj instanceof CacheKey)) {
+         return false; }
+      CacheKey k = (CacheKey)obj;
+      return type == k.type && size == k.size && Double.compare(parameter, k.parameter) == 0 && periodic == k.periodic; }
+   @Override public int hashCode() {
+      long b = Double.doubleToLongBits(parameter);
+      return ((type.hashCode() * 31 + size) * 31 + (int)(b ^ (b >>> 32))) * 31 + (periodic ? 1 : 0); }}
+
+}
@@ -0,0 +1,22 @@
+// Copyright 2015 Christian d'Heureuse, Inventec Informatik AG, Zurich, Switzerland
+// www.source-code.biz, www.inventec.ch/chdh
+//
+// This module is multi-licensed and may be used under the terms
+// of any of the following licenses:
+//
+//  EPL, Eclipse Public License, V1.0 or later, http://www.eclipse.org/legal
+//  LGPL, GNU Lesser General Public License, V2.1 or later, http://www.gnu.org/licenses/lgpl.html
+//
+// Please contact the author if you need another license.
+// This module is provided "as is", without warranties of any kind.
+
+package biz.source_code.dsp.transform;
+
+/**
+* The window function type.
+*
+* <p>
+* Reference: <a href="http://en.wikipedia.org/wiki/Window_function">Wikipedia</a>.
+*/
+public enum WindowFunctionType {
+   rectangular, hann, hamming, blackmanHarris, kaiser, flatTop, tukey, dolphChebyshev };
@@ -13,6 +13,7 @@
 package biz.source_code.dsp.util;
 
 import biz.source_code.dsp.math.Complex;
+import biz.source_code.dsp.math.ComplexArray;
 import java.util.Arrays;
 import java.util.Comparator;
 
@@ -103,6 +104,15 @@ public static Complex[] multiply (Complex[] a, double f) {
       a2[i] = a[i].mul(f); }
    return a2; }
 
+/**
+* Returns a new vector where each element of the vector <code>a</code> is multiplied with the factor <code>f</code>.
+* In contrast to the <code>Complex[]</code> version, this does not allocate an object per element.
+*/
+public static ComplexArray multiply (ComplexArray a, double f) {
+   ComplexArray a2 = new ComplexArray(a.length());
+   a.scale(f, a2);
+   return a2; }
+
 /**
 * Returns a new array where each element of the array <code>a</code> is divided by <code>f</code>.
 */
@@ -121,6 +131,18 @@ public static Complex[] divide (Complex[] a, double f) {
       a2[i] = a[i].div(f); }
    return a2; }
 
+/**
+* Returns a new vector where each element of the vector <code>a</code> is divided by <code>f</code>.
+* In contrast to the <code>Complex[]</code> version, this does not allocate an object per element.
+*/
+public static ComplexArray divide (ComplexArray a, double f) {
+   int n = a.length();
+   ComplexArray a2 = new ComplexArray(n);
+   for (int i = 0; i < n; i++) {
+      a2.re[i] = a.re[i] / f;
+      a2.im[i] = a.im[i] / f; }
+   return a2; }
+
 //--- Reorder / sort -----------------------------------------------------------
 
 /**
@@ -20,7 +20,8 @@ public class TestBesselFilterDesign {
 public static void main (String[] args) {
    listPolynomialCoefficients();
    listFrequencyScalingFactors();
-   listFilterPoles(); }
+   listFilterPoles();
+   testPoleTable(); }
 
 private static void listPolynomialCoefficients() {
    System.out.println("\nBessel polynomials:");
@@ -47,4 +48,18 @@ private static void listFilterPoles() {
       Complex[] poles = BesselFilterDesign.computePoles(n);
       System.out.println(n + ": " + ArrayUtils.toString(poles)); }}
 
+// The poles from the pole table must be equal to the directly computed poles.
+private static void testPoleTable() {
+   for (int n = 1; n <= BesselFilterDesign.maxTableOrder + 2; n++) {
+      Complex[] poles1 = BesselFilterDesign.computePoles(n);
+      poles1[0] = Complex.ZERO;                            // must not modify the table
+      Complex[] poles2 = BesselFilterDesign.computePoles(n);
+      Complex[] poles3 = BesselFilterDesign.computePolesDirect(n);
+      if (poles2.length != n || poles3.length != n) {
+         throw new RuntimeException("Wrong number of poles for order " + n + "."); }
+      for (int i = 0; i < n; i++) {
+         if (!poles2[i].equals(poles3[i])) {
+            throw new RuntimeException("Pole table differs for order " + n + " at position " + i + "."); }}}
+   System.out.println("\nPole table ok."); }
+
 }
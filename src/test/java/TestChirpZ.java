@@ -0,0 +1,70 @@
+// Copyright 2015 Christian d'Heureuse, Inventec Informatik AG, Zurich, Switzerland
+// www.source-code.biz, www.inventec.ch/chdh
+//
+// This module is multi-licensed and may be used under the terms
+// of any of the following licenses:
+//
+//  EPL, Eclipse Public License, V1.0 or later, http://www.eclipse.org/legal
+//  LGPL, GNU Lesser General Public License, V2.1 or later, http://www.gnu.org/licenses/lgpl.html
+//
+// Please contact the author if you need another license.
+// This module is provided "as is", without warranties of any kind.
+import biz.source_code.dsp.transform.ChirpZ;
+import java.util.Random;
+
+// Test program for the ChirpZ class.
+public class TestChirpZ {
+
+private static Random            random = new Random(1414213);
+
+public static void main (String[] args) {
+   testDirect(100, 37, 45, 0.37, 1000);
+   testDirect(64, 64, 0, 1000.0 / 64, 1000);
+   testDirect(1, 1, 10, 1, 100);
+   testDirect(333, 500, -200, 1.1, 800);
+   testHum();
+   System.out.println("TestChirpZ completed."); }
+
+// Compares the chirp-z transform with a direct DFT evaluation.
+private static void testDirect (int n, int m, double startFrequency, double frequencyStep, double samplingRate) {
+   double[] x = new double[n];
+   for (int i = 0; i < n; i++) {
+      x[i] = random.nextGaussian(); }
+   ChirpZ cz = new ChirpZ(n, m, startFrequency, frequencyStep, samplingRate);
+   double[] out = new double[2 * m];
+   cz.transform(x, 0, out);
+   for (int k = 0; k < m; k++) {
+      double w = -2 * Math.PI * cz.getFrequency(k) / samplingRate;
+      double re = 0;
+      double im = 0;
+      for (int i = 0; i < n; i++) {
+         re += x[i] * Math.cos(w * i);
+         im += x[i] * Math.sin(w * i); }
+      verifyEqual(out[2 * k], re, 1E-9 * n);
+      verifyEqual(out[2 * k + 1], im, 1E-9 * n); }}
+
+// A 50.13 Hz sine is located within a 45-65 Hz band with 0.01 Hz resolution.
+private static void testHum() {
+   final int samplingRate = 4000;
+   final int n = 200 * samplingRate;
+   final double frequency = 50.13;
+   final double amplitude = 0.25;
+   float[] x = new float[n];
+   for (int i = 0; i < n; i++) {
+      x[i] = (float)(amplitude * Math.sin(2 * Math.PI * frequency * i / samplingRate + 0.3) + 0.1 * random.nextGaussian()); }
+   int m = 2001;
+   ChirpZ cz = new ChirpZ(n, m, 45, 0.01, samplingRate);
+   double[] mag = new double[m];
+   cz.transformMagnitudes(x, 0, mag);
+   int peak = 0;
+   for (int k = 1; k < m; k++) {
+      if (mag[k] > mag[peak]) {
+         peak = k; }}
+   verifyEqual(cz.getFrequency(peak), frequency, 1E-6);
+   verifyEqual(mag[peak], amplitude, 1E-3); }
+
+private static void verifyEqual (double v1, double v2, double eps) {
+   if (Math.abs(v1 - v2) > eps) {
+      throw new RuntimeException("Difference detected: " + v1 + " " + v2 + " diff=" + Math.abs(v1 - v2) + " eps=" + eps + "."); }}
+
+}
@@ -0,0 +1,109 @@
+// Copyright 2015 Christian d'Heureuse, Inventec Informatik AG, Zurich, Switzerland
+// www.source-code.biz, www.inventec.ch/chdh
+//
+// This module is multi-licensed and may be used under the terms
+// of any of the following licenses:
+//
+//  EPL, Eclipse Public License, V1.0 or later, http://www.eclipse.org/legal
+//  LGPL, GNU Lesser General Public License, V2.1 or later, http://www.gnu.org/licenses/lgpl.html
+//
+// Please contact the author if you need another license.
+// This module is provided "as is", without warranties of any kind.
+import biz.source_code.dsp.transform.ConstantQ;
+import java.util.Random;
+
+// Test program for the ConstantQ class.
+public class TestConstantQ {
+
+private static Random            random = new Random(1732050);
+
+public static void main (String[] args) {
+   testDirect();
+   testSine();
+   testStreamingAndBatch();
+   System.out.println("TestConstantQ completed."); }
+
+// Compares the sparse spectral kernel result with a direct evaluation of the temporal kernels.
+// The results differ slightly, because small kernel values are discarded.
+private static void testDirect() {
+   final int samplingRate = 8000;
+   ConstantQ cqt = new ConstantQ(samplingRate, 100, 3000, 12, 512);
+   int frameSize = cqt.getFrameSize();
+   float[] x = new float[frameSize];
+   for (int i = 0; i < frameSize; i++) {
+      x[i] = (float)random.nextGaussian(); }
+   double[] out = new double[2 * cqt.getBinCount()];
+   cqt.transform(x, 0, out);
+   double q = cqt.getQ();
+   for (int k = 0; k < cqt.getBinCount(); k++) {
+      double f = cqt.getFrequency(k);
+      int len = (int)Math.ceil(q * samplingRate / f);
+      int start = (frameSize - len) / 2;
+      double wSum = 0;
+      double wSqrSum = 0;
+      for (int i = 0; i < len; i++) {
+         wSum += hamming(i, len);
+         wSqrSum += hamming(i, len) * hamming(i, len); }
+      double re = 0;
+      double im = 0;
+      for (int i = 0; i < len; i++) {
+         double v = 2 * hamming(i, len) / wSum * x[start + i];
+         double phi = 2 * Math.PI * f / samplingRate * (i - len / 2);
+         re += v * Math.cos(phi);
+         im -= v * Math.sin(phi); }
+      double eps = 0.05 * 2 * Math.sqrt(wSqrSum) / wSum;  // 5% of the standard deviation of the result for white noise
+      verifyEqual(out[2 * k], re, eps);
+      verifyEqual(out[2 * k + 1], im, eps); }}
+
+private static double hamming (int i, int len) {
+   return 0.54 - 0.46 * Math.cos(2 * Math.PI * i / (len - 1)); }
+
+// The magnitude of the bin at the frequency of a sine is its amplitude.
+private static void testSine() {
+   final int samplingRate = 22050;
+   final double amplitude = 0.7;
+   ConstantQ cqt = new ConstantQ(samplingRate, 55, 7040, 24, 1024);
+   int bin = 50;
+   double f = cqt.getFrequency(bin);
+   float[] x = new float[cqt.getFrameSize()];
+   for (int i = 0; i < x.length; i++) {
+      x[i] = (float)(amplitude * Math.sin(2 * Math.PI * f * i / samplingRate + 1)); }
+   double[] mag = new double[cqt.getBinCount()];
+   cqt.transformMagnitudes(x, 0, mag);
+   verifyEqual(mag[bin], amplitude, 0.01 * amplitude);
+   verifyEqual(mag[bin - 4], 0, 0.02 * amplitude);
+   verifyEqual(mag[bin + 4], 0, 0.02 * amplitude); }
+
+// The streaming, batch and single-frame methods produce the same results.
+private static void testStreamingAndBatch() {
+   final int hopSize = 300;
+   final ConstantQ cqt = new ConstantQ(16000, 200, 7000, 12, hopSize);
+   final ConstantQ cqt2 = new ConstantQ(16000, 200, 7000, 12, hopSize);
+   final int frameCount = 40;
+   final float[] x = new float[cqt.getFrameSize() + (frameCount - 1) * hopSize];
+   for (int i = 0; i < x.length; i++) {
+      x[i] = (float)random.nextGaussian(); }
+   final double[][] batch = cqt.computeMagnitudes(x, 0, frameCount, true);
+   final double[] mag = new double[cqt.getBinCount()];
+   for (int frame = 0; frame < frameCount; frame++) {
+      cqt.transformMagnitudes(x, frame * hopSize, mag);
+      for (int k = 0; k < mag.length; k++) {
+         verifyEqual(batch[frame][k], mag[k], 1E-9); }}
+   final int[] frameNo = new int[1];
+   ConstantQ.FrameHandler handler = new ConstantQ.FrameHandler() {
+      @Override public void processFrame (double[] cq) {
+         int frame = frameNo[0]++;
+         if (frame >= frameCount) {
+            return; }
+         for (int k = 0; k < cqt2.getBinCount(); k++) {
+            verifyEqual(Math.hypot(cq[2 * k], cq[2 * k + 1]), batch[frame][k], 1E-9); }}};
+   for (int pos = 0; pos < x.length; pos += 77) {
+      cqt2.process(x, pos, Math.min(77, x.length - pos), handler); }
+   if (frameNo[0] != frameCount) {
+      throw new RuntimeException("Wrong frame count " + frameNo[0] + "."); }}
+
+private static void verifyEqual (double v1, double v2, double eps) {
+   if (Math.abs(v1 - v2) > eps) {
+      throw new RuntimeException("Difference detected: " + v1 + " " + v2 + " diff=" + Math.abs(v1 - v2) + " eps=" + eps + "."); }}
+
+}
@@ -0,0 +1,119 @@
+// Copyright 2015 Christian d'Heureuse, Inventec Informatik AG, Zurich, Switzerland
+// www.source-code.biz, www.inventec.ch/chdh
+//
+// This module is multi-licensed and may be used under the terms
+// of any of the following licenses:
+//
+//  EPL, Eclipse Public License, V1.0 or later, http://www.eclipse.org/legal
+//  LGPL, GNU Lesser General Public License, V2.1 or later, http://www.gnu.org/licenses/lgpl.html
+//
+// Please contact the author if you need another license.
+// This module is provided "as is", without warranties of any kind.
+import biz.source_code.dsp.signal.CrossCorrelator;
+import biz.source_code.dsp.sound.AudioIo.AudioSignal;
+import java.util.Random;
+
+// Test program for the CrossCorrelator class.
+public class TestCrossCorrelator {
+
+private static Random            random = new Random(2718281);
+
+public static void main (String[] args) {
+   testDirect(100, 30, CrossCorrelator.Weighting.none);
+   testDirect(256, 256, CrossCorrelator.Weighting.none);
+   testDirect(1, 0, CrossCorrelator.Weighting.none);
+   testAuto(300, 50);
+   testDelay(1024, 64, 17, CrossCorrelator.Weighting.none);
+   testDelay(1024, 64, -23, CrossCorrelator.Weighting.phat);
+   testFractionalDelay(2048, 32, 5.3);
+   testAudioSignal();
+   System.out.println("TestCrossCorrelator completed."); }
+
+// Compares the FFT-based cross-correlation with the direct computation.
+private static void testDirect (int blockSize, int maxLag, CrossCorrelator.Weighting weighting) {
+   float[] x = genRandom(blockSize);
+   float[] y = genRandom(blockSize);
+   CrossCorrelator cc = new CrossCorrelator(blockSize, maxLag);
+   double[] r = new double[2 * maxLag + 1];
+   cc.correlate(x, 0, y, 0, weighting, r);
+   double[] r2 = new double[2 * maxLag + 1];
+   double[] sx = new double[cc.getFftSize()];
+   double[] sy = new double[cc.getFftSize()];
+   cc.computeSpectrum(x, 0, sx);
+   cc.computeSpectrum(y, 0, sy);
+   cc.correlateSpectra(sx, sy, weighting, r2);
+   for (int lag = -maxLag; lag <= maxLag; lag++) {
+      double sum = 0;
+      for (int n = 0; n < blockSize; n++) {
+         if (n + lag >= 0 && n + lag < blockSize) {
+            sum += (double)x[n + lag] * y[n]; }}
+      verifyEqual(r[maxLag + lag], sum, 1E-9);
+      verifyEqual(r2[maxLag + lag], sum, 1E-9); }}
+
+private static void testAuto (int blockSize, int maxLag) {
+   double[] x = new double[blockSize];
+   for (int i = 0; i < blockSize; i++) {
+      x[i] = random.nextGaussian(); }
+   CrossCorrelator cc = new CrossCorrelator(blockSize, maxLag);
+   double[] r = new double[maxLag + 1];
+   cc.autoCorrelate(x, 0, r);
+   for (int lag = 0; lag <= maxLag; lag++) {
+      double sum = 0;
+      for (int n = 0; n + lag < blockSize; n++) {
+         sum += x[n + lag] * x[n]; }
+      verifyEqual(r[lag], sum, 1E-9); }}
+
+// x is a copy of y, delayed by an integer number of samples.
+private static void testDelay (int blockSize, int maxLag, int delay, CrossCorrelator.Weighting weighting) {
+   float[] s = genRandom(blockSize + 2 * maxLag);
+   float[] y = new float[blockSize];
+   float[] x = new float[blockSize];
+   for (int i = 0; i < blockSize; i++) {
+      y[i] = s[maxLag + i];
+      x[i] = s[maxLag + i - delay] + (float)(0.1 * random.nextGaussian()); }
+   CrossCorrelator cc = new CrossCorrelator(blockSize, maxLag);
+   CrossCorrelator.Peak peak = cc.estimateDelay(x, 0, y, 0, weighting);
+   verifyEqual(peak.lag, delay, 0.1); }
+
+// Band-limited signal with a fractional delay, the peak position is interpolated.
+private static void testFractionalDelay (int blockSize, int maxLag, double delay) {
+   float[] x = new float[blockSize];
+   float[] y = new float[blockSize];
+   for (int k = 0; k < 20; k++) {
+      double f = 0.002 + 0.003 * k + 0.001 * random.nextDouble();
+      double p = 2 * Math.PI * random.nextDouble();
+      for (int i = 0; i < blockSize; i++) {
+         y[i] += (float)Math.sin(2 * Math.PI * f * i + p);
+         x[i] += (float)Math.sin(2 * Math.PI * f * (i - delay) + p); }}
+   CrossCorrelator cc = new CrossCorrelator(blockSize, maxLag);
+   CrossCorrelator.Peak peak = cc.estimateDelay(x, 0, y, 0, CrossCorrelator.Weighting.none);
+   verifyEqual(peak.lag, delay, 0.1); }
+
+private static void testAudioSignal() {
+   final int blockSize = 512;
+   final int delay = 7;
+   AudioSignal signal = new AudioSignal();
+   signal.samplingRate = 44100;
+   signal.data = new float[2][];
+   float[] s = genRandom(2 * blockSize + delay);
+   signal.data[0] = new float[2 * blockSize];
+   signal.data[1] = new float[2 * blockSize];
+   for (int i = 0; i < 2 * blockSize; i++) {
+      signal.data[0][i] = s[i];
+      signal.data[1][i] = s[i + delay]; }
+   CrossCorrelator cc = new CrossCorrelator(blockSize, 20);
+   for (int pos = 0; pos < 2 * blockSize; pos += blockSize) {
+      CrossCorrelator.Peak peak = cc.estimateDelay(signal, 0, 1, pos, CrossCorrelator.Weighting.phat);
+      verifyEqual(peak.lag, delay, 0.1); }}
+
+private static float[] genRandom (int n) {
+   float[] a = new float[n];
+   for (int i = 0; i < n; i++) {
+      a[i] = (float)random.nextGaussian(); }
+   return a; }
+
+private static void verifyEqual (double v1, double v2, double eps) {
+   if (Math.abs(v1 - v2) > eps) {
+      throw new RuntimeException("Difference detected: " + v1 + " " + v2 + " diff=" + Math.abs(v1 - v2) + " eps=" + eps + "."); }}
+
+}
@@ -0,0 +1,144 @@
+// Copyright 2015 Christian d'Heureuse, Inventec Informatik AG, Zurich, Switzerland
+// www.source-code.biz, www.inventec.ch/chdh
+//
+// This module is multi-licensed and may be used under the terms
+// of any of the following licenses:
+//
+//  EPL, Eclipse Public License, V1.0 or later, http://www.eclipse.org/legal
+//  LGPL, GNU Lesser General Public License, V2.1 or later, http://www.gnu.org/licenses/lgpl.html
+//
+// Please contact the author if you need another license.
+// This module is provided "as is", without warranties of any kind.
+
+import biz.source_code.dsp.transform.Dct;
+import biz.source_code.dsp.transform.Mdct;
+import java.util.Random;
+
+// Test program for the Dct and Mdct classes.
+// The fast transforms are compared with direct O(N^2) implementations of the definitions.
+public class TestDct {
+
+private static Random            random = new Random(4455123);
+
+public static void main (String[] args) {
+   for (int bits = 1; bits <= 10; bits++) {
+      int n = 1 << bits;
+      for (int i = 0; i < 10; i++) {
+         testDct(n);
+         testMdct(n); }
+      testTdac(n, Mdct.getSineWindow(n));
+      testTdac(n, Mdct.getKbdWindow(n, 4)); }
+   System.out.println("TestDct completed."); }
+
+private static void testDct (int n) {
+   double eps = 1E-11 * n;
+   double[] x = genRandomArray(n);
+   Dct dct = new Dct(n);
+   double[] y = x.clone();
+   dct.dct2(y);
+   verifyEqual(y, directDct2(x), eps);
+   double[] z = y.clone();
+   dct.dct3(z);
+   verifyEqual(z, directDct3(y), eps);
+   verifyEqual(z, multiply(x, n / 2.0), eps);               // DCT-III(DCT-II(x)) = n/2 * x
+   double[] u = new double[n + 3];
+   dct.dct4(x, 0, u, 3);
+   double[] u2 = new double[n];
+   System.arraycopy(u, 3, u2, 0, n);
+   verifyEqual(u2, directDct4(x), eps);
+   dct.dct4(u2);
+   verifyEqual(u2, multiply(x, n / 2.0), eps); }           // DCT-IV(DCT-IV(x)) = n/2 * x
+
+private static void testMdct (int n) {
+   double eps = 1E-11 * n;
+   double[] x = genRandomArray(2 * n);
+   double[] w = Mdct.getSineWindow(n);
+   Mdct mdct = new Mdct(n, w);
+   double[] y = new double[n];
+   mdct.forward(x, 0, y, 0);
+   double[] y2 = new double[n];
+   for (int k = 0; k < n; k++) {
+      double s = 0;
+      for (int i = 0; i < 2 * n; i++) {
+         s += w[i] * x[i] * Math.cos(Math.PI / n * (i + 0.5 + n / 2.0) * (k + 0.5)); }
+      y2[k] = s; }
+   verifyEqual(y, y2, eps);
+   double[] z = new double[2 * n];
+   mdct.inverse(y, 0, z, 0);
+   double[] z2 = new double[2 * n];
+   for (int i = 0; i < 2 * n; i++) {
+      double s = 0;
+      for (int k = 0; k < n; k++) {
+         s += y[k] * Math.cos(Math.PI / n * (i + 0.5 + n / 2.0) * (k + 0.5)); }
+      z2[i] = w[i] * s * 2 / n; }
+   verifyEqual(z, z2, eps); }
+
+// Verifies the perfect reconstruction of a signal with overlapping MDCT blocks.
+private static void testTdac (int n, double[] window) {
+   if (!Mdct.isPrincenBradley(window, 1E-12)) {
+      throw new RuntimeException("Window does not fulfill the Princen-Bradley condition."); }
+   int blocks = 10;
+   double[] x = genRandomArray((blocks + 1) * n);
+   double[] out = new double[(blocks + 1) * n];
+   Mdct mdct = new Mdct(n, window);
+   double[] coeffs = new double[n];
+   double[] block = new double[2 * n];
+   for (int b = 0; b < blocks; b++) {
+      mdct.forward(x, b * n, coeffs, 0);
+      mdct.inverse(coeffs, 0, block, 0);
+      for (int i = 0; i < 2 * n; i++) {
+         out[b * n + i] += block[i]; }}
+   for (int i = n; i < blocks * n; i++) {                  // the first and last half blocks are not complete
+      if (Math.abs(out[i] - x[i]) > 1E-10) {
+         throw new RuntimeException("TDAC reconstruction error at position " + i + ": " + x[i] + " " + out[i] + "."); }}}
+
+private static double[] directDct2 (double[] x) {
+   int n = x.length;
+   double[] r = new double[n];
+   for (int k = 0; k < n; k++) {
+      double s = 0;
+      for (int i = 0; i < n; i++) {
+         s += x[i] * Math.cos(Math.PI / n * (i + 0.5) * k); }
+      r[k] = s; }
+   return r; }
+
+private static double[] directDct3 (double[] x) {
+   int n = x.length;
+   double[] r = new double[n];
+   for (int k = 0; k < n; k++) {
+      double s = x[0] / 2;
+      for (int i = 1; i < n; i++) {
+         s += x[i] * Math.cos(Math.PI / n * i * (k + 0.5)); }
+      r[k] = s; }
+   return r; }
+
+private static double[] directDct4 (double[] x) {
+   int n = x.length;
+   double[] r = new double[n];
+   for (int k = 0; k < n; k++) {
+      double s = 0;
+      for (int i = 0; i < n; i++) {
+         s += x[i] * Math.cos(Math.PI / n * (i + 0.5) * (k + 0.5)); }
+      r[k] = s; }
+   return r; }
+
+private static double[] multiply (double[] a, double f) {
+   double[] r = new double[a.length];
+   for (int i = 0; i < a.length; i++) {
+      r[i] = a[i] * f; }
+   return r; }
+
+private static double[] genRandomArray (int n) {
+   double[] a = new double[n];
+   for (int i = 0; i < n; i++) {
+      a[i] = random.nextDouble() * 2 - 1; }
+   return a; }
+
+private static void verifyEqual (double[] a1, double[] a2, double eps) {
+   if (a1.length != a2.length) {
+      throw new RuntimeException("Array sizes are not equal."); }
+   for (int i = 0; i < a1.length; i++) {
+      if (Math.abs(a1[i] - a2[i]) > eps) {
+         throw new RuntimeException("Difference detected in arrays at position " + i + ": " + a1[i] + " " + a2[i] + " diff=" + Math.abs(a1[i] - a2[i]) + " eps=" + eps + "."); }}}
+
+}
@@ -11,7 +11,9 @@
 // This module is provided "as is", without warranties of any kind.
 
 import biz.source_code.dsp.math.Complex;
+import biz.source_code.dsp.math.ComplexArray;
 import biz.source_code.dsp.transform.Dft;
+import biz.source_code.dsp.transform.Fft;
 import biz.source_code.dsp.util.ArrayUtils;
 import java.util.Random;
 
@@ -26,6 +28,9 @@ public static void main (String[] args) {
    testDft();
    testDftSynth();
    testDftSynthRandom();
+   testFftRandom();
+   testFftBatch();
+   testFftFloat();
    System.out.println("TestDft completed."); }
 
 // Test directDft() and goertzel() with known result.
@@ -54,8 +59,11 @@ private static void testDft() {
 private static void checkDftResult (double[] a, Complex[] b, double eps) {
    Complex[] c1 = Dft.directDft(a);
    Complex[] c2 = Dft.goertzel(a);
+   ComplexArray c3 = new ComplexArray(a.length);
+   Dft.directDft(a, c3);
    verifyEqual(c1, b, eps);
-   verifyEqual(c2, b, eps); }
+   verifyEqual(c2, b, eps);
+   verifyEqual(c3.toComplex(), b, eps); }
 
 // Test directDftSpectrum() and goertzelSpectrum() with synthesizeFromSpectrum().
 private static void testDftSynth() {
@@ -83,6 +91,107 @@ private static void checkDftSynth (double[] a) {
    double[] c = Dft.synthesizeFromSpectrum(b1, odd);
    verifyEqual(a, c); }
 
+// Use random numbers to compare the real and complex FFT with directDft().
+private static void testFftRandom() {
+   for (int i = 0; i < 10000; i++) {
+      int n = 1 << random.nextInt(9);
+      double[] a = genRandomArray(n, 1E4);
+      checkFft(a); }}
+
+private static void checkFft (double[] a) {
+   int n = a.length;
+   Complex[] b = Dft.directDft(a);
+   double fftEps = 1E-9 * n;
+   // Real forward transform, packed format.
+   double[] packed = a.clone();
+   Fft fft = Fft.getInstance(n);
+   fft.realForward(packed);
+   Complex[] c = new Complex[n];
+   c[0] = new Complex(packed[0]);
+   if (n > 1) {
+      c[n / 2] = new Complex(packed[1]); }
+   for (int k = 1; k < n / 2; k++) {
+      c[k] = new Complex(packed[2 * k], packed[2 * k + 1]);
+      c[n - k] = c[k].conj(); }
+   verifyEqual(b, c, fftEps);
+   fft.realInverse(packed, true);
+   verifyEqual(a, packed, fftEps);
+   // Complex forward transform.
+   double[] interleaved = new double[2 * n];
+   for (int i = 0; i < n; i++) {
+      interleaved[2 * i] = a[i]; }
+   fft.complexForward(interleaved);
+   for (int k = 0; k < n; k++) {
+      c[k] = new Complex(interleaved[2 * k], interleaved[2 * k + 1]); }
+   verifyEqual(b, c, fftEps);
+   fft.complexInverse(interleaved, true);
+   for (int i = 0; i < n; i++) {
+      if (Math.abs(interleaved[2 * i] - a[i]) > fftEps || Math.abs(interleaved[2 * i + 1]) > fftEps) {
+         throw new RuntimeException("Complex FFT round trip failed at position " + i + "."); }}}
+
+// Compares the batch transforms with single frame transforms.
+private static void testFftBatch() {
+   for (int i = 0; i < 100; i++) {
+      int n = 1 << random.nextInt(11);
+      int frames = 1 + random.nextInt(500);
+      int stride = 2 * n + random.nextInt(5);
+      boolean parallel = random.nextBoolean();
+      Fft fft = Fft.getInstance(n);
+      double[] a = genRandomArray(frames * stride + 3, 1E4);
+      double[] b = a.clone();
+      fft.realForwardBatch(b, 3, stride, frames, parallel);
+      double[] c = a.clone();
+      for (int frame = 0; frame < frames; frame++) {
+         fft.realForward(c, 3 + frame * stride); }
+      verifyEqual(b, c, 0);
+      fft.complexForwardBatch(b, 3, stride, frames, parallel);
+      for (int frame = 0; frame < frames; frame++) {
+         fft.complexForward(c, 3 + frame * stride); }
+      verifyEqual(b, c, 0);
+      fft.complexInverseBatch(b, 3, stride, frames, true, parallel);
+      fft.realInverseBatch(b, 3, stride, frames, true, parallel);
+      verifyEqual(a, b, 1E-9 * n); }}
+
+// Compares the single-precision FFT with the double-precision FFT.
+private static void testFftFloat() {
+   for (int i = 0; i < 200; i++) {
+      int n = 1 << random.nextInt(14);
+      Fft fft = Fft.getInstance(n);
+      double[] a = genRandomArray(2 * n, 1);
+      float[] af = new float[2 * n];
+      for (int j = 0; j < 2 * n; j++) {
+         af[j] = (float)a[j]; }
+      double floatEps = 1E-6 * Math.sqrt(n) * (1 + Integer.numberOfTrailingZeros(n));
+      double[] b = a.clone();
+      float[] bf = af.clone();
+      fft.realForward(b, 0);
+      fft.realForward(bf, 0);
+      verifyEqual(b, toDouble(bf), floatEps);
+      fft.realInverse(bf, 0, true);
+      verifyEqual(a, toDouble(bf), floatEps);
+      b = a.clone();
+      bf = af.clone();
+      fft.complexForward(b);
+      fft.complexForward(bf);
+      verifyEqual(b, toDouble(bf), floatEps);
+      fft.complexInverse(bf, true);
+      verifyEqual(a, toDouble(bf), floatEps);
+      int frames = 1 + random.nextInt(20);
+      float[] cf = new float[frames * n];
+      for (int j = 0; j < cf.length; j++) {
+         cf[j] = (float)random.nextGaussian(); }
+      float[] df = cf.clone();
+      fft.realForwardBatch(cf, 0, n, frames, true);
+      for (int frame = 0; frame < frames; frame++) {
+         fft.realForward(df, frame * n); }
+      verifyEqual(toDouble(cf), toDouble(df), 0); }}
+
+private static double[] toDouble (float[] a) {
+   double[] b = new double[a.length];
+   for (int i = 0; i < a.length; i++) {
+      b[i] = a[i]; }
+   return b; }
+
 static double[] genRandomArray (int n, double maxValue) {
    double[] a = new double[n];
    for (int i = 0; i < n; i++) {
@@ -0,0 +1,165 @@
+// Copyright 2015 Christian d'Heureuse, Inventec Informatik AG, Zurich, Switzerland
+// www.source-code.biz, www.inventec.ch/chdh
+//
+// This module is multi-licensed and may be used under the terms
+// of any of the following licenses:
+//
+//  EPL, Eclipse Public License, V1.0 or later, http://www.eclipse.org/legal
+//  LGPL, GNU Lesser General Public License, V2.1 or later, http://www.gnu.org/licenses/lgpl.html
+//
+// Please contact the author if you need another license.
+// This module is provided "as is", without warranties of any kind.
+
+import biz.source_code.dsp.filter.EllipticFilterDesign;
+import biz.source_code.dsp.filter.FilterCharacteristicsType;
+import biz.source_code.dsp.filter.FilterPassType;
+import biz.source_code.dsp.filter.IirFilterCoefficients;
+import biz.source_code.dsp.filter.IirFilterDesignFisher;
+import biz.source_code.dsp.filter.IirFilterFrequencyResponse;
+
+// Test program for the elliptic and Chebyshev type 2 filter designs.
+public class TestEllipticFilterDesign {
+
+private static final double  eps = 0.01;                   // tolerance in dB
+
+public static void main (String[] args) {
+   testEllipticLowpass();
+   testEllipticBandpass();
+   testChebyshev2Lowpass();
+   testChebyshev2Highpass();
+   testOrderComparison();
+   testInvalidParms();
+   System.out.println("TestEllipticFilterDesign completed."); }
+
+// The passband ripple and the stopband gain must be met exactly.
+private static void testEllipticLowpass() {
+   for (int order = 2; order <= 7; order++) {
+      double fc = 0.1;
+      IirFilterCoefficients coeffs = IirFilterDesignFisher.design(FilterPassType.lowpass, FilterCharacteristicsType.elliptic, order, -1, -40, fc, 0);
+      double fs = computeStopbandEdge(order, -1, -40, fc);
+      double[] gains = computeGains(coeffs);
+      checkRange(gains, 0, fc, -1, 0, "passband order " + order);
+      checkRange(gains, fs, 0.5, -999, -40, "stopband order " + order);
+      verifyEqual(computeGain(coeffs, fc), -1, "passband edge order " + order); }}
+
+private static void testEllipticBandpass() {
+   IirFilterCoefficients coeffs = IirFilterDesignFisher.design(FilterPassType.bandpass, FilterCharacteristicsType.elliptic, 4, -0.5, -50, 0.1, 0.2);
+   double[] gains = computeGains(coeffs);
+   checkRange(gains, 0.1, 0.2, -0.5, 0, "bandpass passband");
+   verifyEqual(computeGain(coeffs, 0.1), -0.5, "bandpass lower edge");
+   verifyEqual(computeGain(coeffs, 0.2), -0.5, "bandpass upper edge");
+   checkRange(gains, 0, 0.06, -999, -50, "bandpass lower stopband");
+   checkRange(gains, 0.28, 0.5, -999, -50, "bandpass upper stopband"); }
+
+// For Chebyshev type 2 filters, the cutoff frequency is the stopband edge and the passband is monotonic.
+private static void testChebyshev2Lowpass() {
+   for (int order = 1; order <= 8; order++) {
+      double fc = 0.2;
+      IirFilterCoefficients coeffs = IirFilterDesignFisher.design(FilterPassType.lowpass, FilterCharacteristicsType.chebyshev2, order, 0, -50, fc, 0);
+      double[] gains = computeGains(coeffs);
+      checkRange(gains, fc, 0.5, -999, -50, "chebyshev2 stopband order " + order);
+      verifyEqual(gains[0], 0, "chebyshev2 DC gain order " + order);
+      verifyEqual(computeGain(coeffs, fc), -50, "chebyshev2 stopband edge order " + order);
+      for (int i = 1; i < gains.length && getFrequency(i) < 0.5 * fc; i++) {
+         verify(gains[i] <= gains[i - 1] + 1E-9, "Chebyshev type 2 passband not monotonic for order " + order + "."); }}}
+
+private static void testChebyshev2Highpass() {
+   IirFilterCoefficients coeffs = IirFilterDesignFisher.design(FilterPassType.highpass, FilterCharacteristicsType.chebyshev2, 5, 0, -60, 0.25, 0);
+   double[] gains = computeGains(coeffs);
+   checkRange(gains, 0, 0.25, -999, -60, "chebyshev2 highpass stopband");
+   verifyEqual(gains[gains.length - 1], 0, "chebyshev2 highpass Nyquist gain"); }
+
+// An elliptic filter reaches the stopband gain with a much lower order than a Butterworth filter.
+private static void testOrderComparison() {
+   double fc = 0.1;
+   double fs = 0.13;
+   int ellipticOrder = findMinOrder(FilterCharacteristicsType.elliptic, fc, fs);
+   int butterworthOrder = findMinOrder(FilterCharacteristicsType.butterworth, fc, fs);
+   verify(ellipticOrder <= butterworthOrder / 2, "Elliptic order " + ellipticOrder + " not less than half of Butterworth order " + butterworthOrder + "."); }
+
+// Finds the minimum order for 1 dB passband ripple at fc and 60 dB attenuation above fs.
+private static int findMinOrder (FilterCharacteristicsType charType, double fc, double fs) {
+   for (int order = 1; order <= 40; order++) {
+      IirFilterCoefficients coeffs;
+      if (charType == FilterCharacteristicsType.butterworth) {
+         // The Butterworth cutoff frequency is the -3 dB point, so it is shifted to place the -1 dB point at fc.
+         double w = Math.tan(Math.PI * fc) * Math.pow((Math.pow(10, 0.3) - 1) / (Math.pow(10, 0.1) - 1), 0.5 / order);
+         coeffs = IirFilterDesignFisher.design(FilterPassType.lowpass, charType, order, 0, Math.atan(w) / Math.PI, 0); }
+       else {
+         coeffs = IirFilterDesignFisher.design(FilterPassType.lowpass, charType, order, -1, -60, fc, 0); }
+      if (computeGain(coeffs, fc) >= -1 - eps && computeGain(coeffs, fs) <= -60 + eps) {
+         return order; }}
+   throw new RuntimeException("No order found for " + charType + "."); }
+
+private static void testInvalidParms() {
+   verifyFails(FilterCharacteristicsType.elliptic, -1, Double.NaN);
+   verifyFails(FilterCharacteristicsType.elliptic, -1, -0.5);      // stopband gain above ripple
+   verifyFails(FilterCharacteristicsType.chebyshev2, 0, 3); }
+
+private static void verifyFails (FilterCharacteristicsType charType, double ripple, double stopbandGain) {
+   try {
+      IirFilterDesignFisher.design(FilterPassType.lowpass, charType, 4, ripple, stopbandGain, 0.1, 0);
+      throw new RuntimeException("No exception for " + charType + " " + ripple + " " + stopbandGain + "."); }
+    catch (IllegalArgumentException e) {}}
+
+// Returns the stopband edge of a digital elliptic lowpass filter.
+private static double computeStopbandEdge (int order, double ripple, double stopbandGain, double fc) {
+   double k = EllipticFilterDesign.computeSelectivity(order, ripple, stopbandGain);
+   return Math.atan(Math.tan(Math.PI * fc) / k) / Math.PI; }
+
+//------------------------------------------------------------------------------
+
+private static final int     fftSize = 4096;
+private static final IirFilterFrequencyResponse gridResponse = new IirFilterFrequencyResponse(fftSize);
+
+private static double getFrequency (int i) {
+   return (double)i / fftSize; }
+
+// Returns the gains in dB on the uniform grid, relative to the peak gain.
+// For even orders, the filters are normalized to 0 dB at DC, so the passband ripple lies above 0 dB.
+private static double[] computeGains (IirFilterCoefficients coeffs) {
+   double[] mags = new double[gridResponse.getPointCount()];
+   gridResponse.computeMagnitudes(coeffs, mags);
+   double[] gains = toDb(mags);
+   double peak = Double.NEGATIVE_INFINITY;
+   for (double g : gains) {
+      peak = Math.max(peak, g); }
+   for (int i = 0; i < gains.length; i++) {
+      gains[i] -= peak; }
+   return gains; }
+
+// Returns the gain in dB at a frequency, relative to the peak gain.
+private static double computeGain (IirFilterCoefficients coeffs, double f) {
+   double[] gains = computeGains(coeffs);
+   double peak = 0;
+   for (int i = 0; i < gains.length; i++) {
+      if (gains[i] == 0) {
+         peak = getFrequency(i); }}
+   IirFilterFrequencyResponse fr = new IirFilterFrequencyResponse(new double[]{f, peak});
+   double[] mags = new double[2];
+   fr.computeMagnitudes(coeffs, mags);
+   return 20 * Math.log10(mags[0] / mags[1]); }
+
+private static double[] toDb (double[] mags) {
+   double[] a = new double[mags.length];
+   for (int i = 0; i < a.length; i++) {
+      a[i] = 20 * Math.log10(mags[i]); }
+   return a; }
+
+private static void checkRange (double[] gains, double f1, double f2, double min, double max, String id) {
+   for (int i = 0; i < gains.length; i++) {
+      double f = getFrequency(i);
+      if (f < f1 || f > f2) {
+         continue; }
+      if (gains[i] < min - eps || gains[i] > max + eps) {
+         throw new RuntimeException("Gain " + gains[i] + " dB at frequency " + f + " out of range for " + id + "."); }}}
+
+private static void verifyEqual (double gain, double expectedGain, String id) {
+   if (Math.abs(gain - expectedGain) > eps) {
+      throw new RuntimeException("Gain " + gain + " dB differs from " + expectedGain + " dB for " + id + "."); }}
+
+private static void verify (boolean b, String msg) {
+   if (!b) {
+      throw new RuntimeException(msg); }}
+
+}
@@ -0,0 +1,83 @@
+// Copyright 2015 Christian d'Heureuse, Inventec Informatik AG, Zurich, Switzerland
+// www.source-code.biz, www.inventec.ch/chdh
+//
+// This module is multi-licensed and may be used under the terms
+// of any of the following licenses:
+//
+//  EPL, Eclipse Public License, V1.0 or later, http://www.eclipse.org/legal
+//  LGPL, GNU Lesser General Public License, V2.1 or later, http://www.gnu.org/licenses/lgpl.html
+//
+// Please contact the author if you need another license.
+// This module is provided "as is", without warranties of any kind.
+
+import biz.source_code.dsp.filter.FilterCharacteristicsType;
+import biz.source_code.dsp.filter.FilterPassType;
+import biz.source_code.dsp.filter.IirFilterCoefficients;
+import biz.source_code.dsp.filter.IirFilterDesignCache;
+import biz.source_code.dsp.filter.IirFilterDesignExstrom;
+import biz.source_code.dsp.filter.IirFilterDesignFisher;
+import java.util.Arrays;
+
+// Test program for the IirFilterDesignCache class.
+public class TestIirFilterDesignCache {
+
+public static void main (String[] args) {
+   testHitsAndMisses();
+   testEviction();
+   testIsolation();
+   System.out.println("TestIirFilterDesignCache completed."); }
+
+private static void testHitsAndMisses() {
+   IirFilterDesignCache.clear();
+   IirFilterCoefficients c1 = IirFilterDesignCache.getFisher(FilterPassType.bandpass, FilterCharacteristicsType.chebyshev, 4, -0.5, 0.1, 0.2);
+   IirFilterCoefficients c2 = IirFilterDesignCache.getFisher(FilterPassType.bandpass, FilterCharacteristicsType.chebyshev, 4, -0.5, 0.1, 0.2);
+   verify(c1 != c2, "Cached design returned without copying.");
+   verifyEqual(c1, c2);
+   verifyEqual(c1, IirFilterDesignFisher.design(FilterPassType.bandpass, FilterCharacteristicsType.chebyshev, 4, -0.5, 0.1, 0.2));
+   // Unused parameters must not produce separate entries.
+   IirFilterCoefficients c3 = IirFilterDesignCache.getFisher(FilterPassType.lowpass, FilterCharacteristicsType.butterworth, 3, 0, 0.1, 0);
+   IirFilterCoefficients c4 = IirFilterDesignCache.getFisher(FilterPassType.lowpass, FilterCharacteristicsType.butterworth, 3, -1, 0.1, 0.3);
+   verifyEqual(c3, c4);
+   verifyEqual(c3, IirFilterDesignFisher.design(FilterPassType.lowpass, FilterCharacteristicsType.butterworth, 3, 0, 0.1, 0));
+   // The design method is part of the key.
+   IirFilterCoefficients c5 = IirFilterDesignCache.getExstrom(FilterPassType.lowpass, 3, 0.1, 0);
+   verifyEqual(c5, IirFilterDesignExstrom.design(FilterPassType.lowpass, 3, 0.1, 0));
+   verify(IirFilterDesignCache.getHitCount() == 2, "Wrong hit count (unused parameters not normalized?).");
+   verify(IirFilterDesignCache.getMissCount() == 3, "Wrong miss count.");
+   verify(IirFilterDesignCache.getSize() == 3, "Wrong cache size."); }
+
+private static void testEviction() {
+   IirFilterDesignCache.clear();
+   IirFilterDesignCache.setMaxSize(4);
+   try {
+      for (int i = 1; i <= 10; i++) {
+         IirFilterDesignCache.getExstrom(FilterPassType.highpass, 2, i / 100.0, 0); }
+      verify(IirFilterDesignCache.getSize() == 4, "Cache size not bounded.");
+      IirFilterDesignCache.getExstrom(FilterPassType.highpass, 2, 0.10, 0);     // most recent entry
+      IirFilterDesignCache.getExstrom(FilterPassType.highpass, 2, 0.01, 0);     // evicted entry
+      verify(IirFilterDesignCache.getHitCount() == 1 && IirFilterDesignCache.getMissCount() == 11, "Wrong eviction order."); }
+    finally {
+      IirFilterDesignCache.setMaxSize(IirFilterDesignCache.defaultMaxSize); }}
+
+// Modifying a returned object must not affect later users of the same design.
+private static void testIsolation() {
+   IirFilterDesignCache.clear();
+   IirFilterCoefficients c1 = IirFilterDesignCache.getFisher(FilterPassType.lowpass, FilterCharacteristicsType.bessel, 4, 0, 0.2, 0);
+   double[] a = c1.a.clone();
+   double[] b = c1.b.clone();
+   for (int i = 0; i < c1.b.length; i++) {
+      c1.b[i] *= 2; }
+   c1.a[1] = 0;
+   c1.a = new double[]{1};
+   IirFilterCoefficients c2 = IirFilterDesignCache.getFisher(FilterPassType.lowpass, FilterCharacteristicsType.bessel, 4, 0, 0.2, 0);
+   verify(IirFilterDesignCache.getHitCount() == 1, "Second call not served from the cache.");
+   verify(Arrays.equals(c2.a, a) && Arrays.equals(c2.b, b), "Cached coefficients modified through a returned object."); }
+
+private static void verifyEqual (IirFilterCoefficients c1, IirFilterCoefficients c2) {
+   verify(Arrays.equals(c1.a, c2.a) && Arrays.equals(c1.b, c2.b), "Cached coefficients differ from direct design."); }
+
+private static void verify (boolean ok, String msg) {
+   if (!ok) {
+      throw new RuntimeException(msg); }}
+
+}
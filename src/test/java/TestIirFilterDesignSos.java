@@ -0,0 +1,88 @@
+// Copyright 2015 Christian d'Heureuse, Inventec Informatik AG, Zurich, Switzerland
+// www.source-code.biz, www.inventec.ch/chdh
+//
+// This module is multi-licensed and may be used under the terms
+// of any of the following licenses:
+//
+//  EPL, Eclipse Public License, V1.0 or later, http://www.eclipse.org/legal
+//  LGPL, GNU Lesser General Public License, V2.1 or later, http://www.gnu.org/licenses/lgpl.html
+//
+// Please contact the author if you need another license.
+// This module is provided "as is", without warranties of any kind.
+
+import biz.source_code.dsp.filter.FilterCharacteristicsType;
+import biz.source_code.dsp.filter.FilterPassType;
+import biz.source_code.dsp.filter.IirFilter;
+import biz.source_code.dsp.filter.IirFilterCoefficients;
+import biz.source_code.dsp.filter.IirFilterDesignFisher;
+import biz.source_code.dsp.filter.SosFilter;
+import biz.source_code.dsp.filter.SosFilterCoefficients;
+import java.util.Random;
+
+// Test program for IirFilterDesignFisher.designSos() and the SosFilter class.
+public class TestIirFilterDesignSos {
+
+public static void main (String[] args) {
+   testCompareWithDesign();
+   testFilter();
+   testHighOrder();
+   System.out.println("TestIirFilterDesignSos completed."); }
+
+// The multiplied-out sections must be equal to the coefficients of the single IIR filter design.
+private static void testCompareWithDesign() {
+   for (FilterPassType passType : FilterPassType.values()) {
+      for (FilterCharacteristicsType charType : FilterCharacteristicsType.values()) {
+         for (int order = 1; order <= 8; order++) {
+            IirFilterCoefficients coeffs1 = IirFilterDesignFisher.design(passType, charType, order, -0.5, -40, 0.1, 0.2);
+            SosFilterCoefficients sosCoeffs = IirFilterDesignFisher.designSos(passType, charType, order, -0.5, -40, 0.1, 0.2);
+            IirFilterCoefficients coeffs2 = sosCoeffs.toIirFilterCoefficients();
+            String id = passType + " " + charType + " " + order;
+            verify(sosCoeffs.getSectionCount() == (coeffs1.a.length) / 2, "Wrong number of sections for " + id + ".");
+            verifyEqual(coeffs2.a, coeffs1.a, id);
+            verifyEqual(coeffs2.b, coeffs1.b, id); }}}}
+
+// The cascaded sections filter must produce the same output as the single IIR filter.
+private static void testFilter() {
+   Random random = new Random(3311);
+   IirFilterCoefficients coeffs = IirFilterDesignFisher.design(FilterPassType.bandstop, FilterCharacteristicsType.chebyshev, 3, -1, 0.15, 0.25);
+   SosFilterCoefficients sosCoeffs = IirFilterDesignFisher.designSos(FilterPassType.bandstop, FilterCharacteristicsType.chebyshev, 3, -1, 0.15, 0.25);
+   IirFilter filter1 = new IirFilter(coeffs);
+   SosFilter filter2 = new SosFilter(sosCoeffs);
+   for (int i = 0; i < 10000; i++) {
+      double x = random.nextGaussian();
+      double y1 = filter1.step(x);
+      double y2 = filter2.step(x);
+      verify(Math.abs(y1 - y2) < 1E-9, "Filter outputs differ at position " + i + ": " + y1 + " " + y2 + "."); }}
+
+// A narrow high order bandpass filter, which cannot be realized as a single IIR filter.
+private static void testHighOrder() {
+   SosFilterCoefficients sosCoeffs = IirFilterDesignFisher.designSos(FilterPassType.bandpass, FilterCharacteristicsType.butterworth, 24, 0, 0.1, 0.11);
+   verify(sosCoeffs.getSectionCount() == 24, "Wrong number of sections.");
+   verify(Math.abs(measureGain(sosCoeffs, 0.105) - 1) < 1E-3, "Wrong gain at the center frequency.");
+   verify(Math.abs(measureGain(sosCoeffs, 0.1) - Math.sqrt(0.5)) < 0.05, "Wrong gain at the lower cutoff frequency.");
+   verify(Math.abs(measureGain(sosCoeffs, 0.11) - Math.sqrt(0.5)) < 0.05, "Wrong gain at the upper cutoff frequency.");
+   verify(measureGain(sosCoeffs, 0.2) < 1E-10, "Wrong stopband gain."); }
+
+// Measures the steady state gain of the filter for a sine signal.
+private static double measureGain (SosFilterCoefficients sosCoeffs, double f) {
+   SosFilter filter = new SosFilter(sosCoeffs);
+   double max = 0;
+   for (int i = 0; i < 40000; i++) {
+      double y = filter.step(Math.sin(2 * Math.PI * f * i));
+      if (i >= 30000) {
+         max = Math.max(max, Math.abs(y)); }}
+   return max; }
+
+private static void verifyEqual (double[] a1, double[] a2, String id) {
+   verify(a1.length == a2.length, "Different number of coefficients for " + id + ".");
+   double max = 0;
+   for (double v : a2) {
+      max = Math.max(max, Math.abs(v)); }
+   for (int i = 0; i < a1.length; i++) {
+      verify(Math.abs(a1[i] - a2[i]) < 1E-9 * max, "Coefficients differ for " + id + " at position " + i + ": " + a1[i] + " " + a2[i] + "."); }}
+
+private static void verify (boolean ok, String msg) {
+   if (!ok) {
+      throw new RuntimeException(msg); }}
+
+}
@@ -0,0 +1,119 @@
+// Copyright 2015 Christian d'Heureuse, Inventec Informatik AG, Zurich, Switzerland
+// www.source-code.biz, www.inventec.ch/chdh
+//
+// This module is multi-licensed and may be used under the terms
+// of any of the following licenses:
+//
+//  EPL, Eclipse Public License, V1.0 or later, http://www.eclipse.org/legal
+//  LGPL, GNU Lesser General Public License, V2.1 or later, http://www.gnu.org/licenses/lgpl.html
+//
+// Please contact the author if you need another license.
+// This module is provided "as is", without warranties of any kind.
+
+import biz.source_code.dsp.filter.FilterCharacteristicsType;
+import biz.source_code.dsp.filter.FilterPassType;
+import biz.source_code.dsp.filter.IirFilterCoefficients;
+import biz.source_code.dsp.filter.IirFilterDesignFisher;
+import biz.source_code.dsp.filter.IirFilterFrequencyResponse;
+import biz.source_code.dsp.math.Complex;
+import biz.source_code.dsp.math.ComplexArray;
+import biz.source_code.dsp.math.PolynomialUtils;
+
+// Test program for the IirFilterFrequencyResponse class.
+public class TestIirFilterFrequencyResponse {
+
+public static void main (String[] args) {
+   testDelay();
+   testFisherFilters();
+   testFolding();
+   System.out.println("TestIirFilterFrequencyResponse completed."); }
+
+// A pure delay of 3 samples has the gain 1 and the group delay 3.
+private static void testDelay() {
+   IirFilterCoefficients coeffs = new IirFilterCoefficients();
+   coeffs.b = new double[]{0, 0, 0, 1};
+   coeffs.a = new double[]{1};
+   IirFilterFrequencyResponse[] grids = {new IirFilterFrequencyResponse(64), IirFilterFrequencyResponse.createLogarithmic(0.001, 0.5, 50)};
+   for (IirFilterFrequencyResponse fr : grids) {
+      int n = fr.getPointCount();
+      double[] mag = new double[n];
+      double[] phase = new double[n];
+      double[] delay = new double[n];
+      fr.computeMagnitudes(coeffs, mag);
+      fr.computePhases(coeffs, phase);
+      fr.computeGroupDelays(coeffs, delay);
+      for (int i = 0; i < n; i++) {
+         double f = fr.getFrequency(i);
+         Complex expected = Complex.expj(-2 * Math.PI * f * 3);
+         verify(Math.abs(mag[i] - 1) < 1E-12, "Wrong delay gain.");
+         verify(Math.abs(phase[i] - expected.arg()) < 1E-9 || Math.abs(Math.abs(phase[i] - expected.arg()) - 2 * Math.PI) < 1E-9, "Wrong delay phase.");
+         verify(Math.abs(delay[i] - 3) < 1E-9, "Wrong group delay."); }}}
+
+// Compares both grids with direct evaluation of the transfer function and the group delay with a numerical derivative of the phase.
+private static void testFisherFilters() {
+   IirFilterCoefficients[] filters = {
+      IirFilterDesignFisher.design(FilterPassType.lowpass, FilterCharacteristicsType.butterworth, 6, 0, 0.1, 0),
+      IirFilterDesignFisher.design(FilterPassType.bandpass, FilterCharacteristicsType.chebyshev, 4, -1, 0.1, 0.2),
+      IirFilterDesignFisher.design(FilterPassType.highpass, FilterCharacteristicsType.bessel, 5, 0, 0.05, 0) };
+   int fftSize = 1024;
+   IirFilterFrequencyResponse uniform = new IirFilterFrequencyResponse(fftSize);
+   double[] grid = new double[uniform.getPointCount()];
+   for (int i = 0; i < grid.length; i++) {
+      grid[i] = uniform.getFrequency(i); }
+   IirFilterFrequencyResponse arbitrary = new IirFilterFrequencyResponse(grid);
+   for (IirFilterCoefficients coeffs : filters) {
+      PolynomialUtils.RationalFraction tf = new PolynomialUtils.RationalFraction();
+      tf.top = coeffs.b;
+      tf.bottom = coeffs.a;
+      for (IirFilterFrequencyResponse fr : new IirFilterFrequencyResponse[]{uniform, arbitrary}) {
+         int n = fr.getPointCount();
+         ComplexArray h = new ComplexArray(n);
+         double[] mag = new double[n];
+         double[] delay = new double[n];
+         fr.computeResponse(coeffs, h);
+         fr.computeMagnitudes(coeffs, mag);
+         fr.computeGroupDelays(coeffs, delay);
+         for (int i = 0; i < n; i++) {
+            Complex expected = PolynomialUtils.evaluate(tf, Complex.expj(2 * Math.PI * fr.getFrequency(i)));    // a and b have the same length
+            verify(h.get(i).equals(expected, 1E-9), "Response differs at frequency " + fr.getFrequency(i) + ".");
+            verify(Math.abs(mag[i] - expected.abs()) < 1E-9, "Magnitude differs at frequency " + fr.getFrequency(i) + "."); }
+         for (int i = 1; i < n - 1; i++) {
+            if (mag[i] < 1E-2) {                           // the numerical derivative is not accurate in the stopband
+               continue; }
+            double f = fr.getFrequency(i);
+            double df = 1E-5;
+            Complex h1 = PolynomialUtils.evaluate(tf, Complex.expj(2 * Math.PI * (f - df)));
+            Complex h2 = PolynomialUtils.evaluate(tf, Complex.expj(2 * Math.PI * (f + df)));
+            double numDelay = -h2.div(h1).arg() / (2 * Math.PI * 2 * df);
+            verify(Math.abs(delay[i] - numDelay) < 1E-5 * Math.max(1, Math.abs(delay[i])), "Group delay differs at frequency " + f + ": " + delay[i] + " " + numDelay + "."); }}}}
+
+// Filters with more coefficients than the FFT size.
+private static void testFolding() {
+   IirFilterCoefficients coeffs = new IirFilterCoefficients();
+   coeffs.b = new double[37];
+   for (int i = 0; i < coeffs.b.length; i++) {
+      coeffs.b[i] = Math.sin(i * 0.7) / (i + 1); }
+   coeffs.a = new double[]{1, -0.5, 0.25};
+   IirFilterFrequencyResponse uniform = new IirFilterFrequencyResponse(16);
+   double[] grid = new double[uniform.getPointCount()];
+   for (int i = 0; i < grid.length; i++) {
+      grid[i] = uniform.getFrequency(i); }
+   IirFilterFrequencyResponse arbitrary = new IirFilterFrequencyResponse(grid);
+   int n = grid.length;
+   ComplexArray h1 = new ComplexArray(n);
+   ComplexArray h2 = new ComplexArray(n);
+   double[] d1 = new double[n];
+   double[] d2 = new double[n];
+   uniform.computeResponse(coeffs, h1);
+   arbitrary.computeResponse(coeffs, h2);
+   uniform.computeGroupDelays(coeffs, d1);
+   arbitrary.computeGroupDelays(coeffs, d2);
+   for (int i = 0; i < n; i++) {
+      verify(h1.get(i).equals(h2.get(i), 1E-12), "Folded response differs.");
+      verify(Math.abs(d1[i] - d2[i]) < 1E-9, "Folded group delay differs."); }}
+
+private static void verify (boolean ok, String msg) {
+   if (!ok) {
+      throw new RuntimeException(msg); }}
+
+}
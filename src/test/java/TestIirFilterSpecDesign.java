@@ -0,0 +1,104 @@
+// Copyright 2015 Christian d'Heureuse, Inventec Informatik AG, Zurich, Switzerland
+// www.source-code.biz, www.inventec.ch/chdh
+//
+// This module is multi-licensed and may be used under the terms
+// of any of the following licenses:
+//
+//  EPL, Eclipse Public License, V1.0 or later, http://www.eclipse.org/legal
+//  LGPL, GNU Lesser General Public License, V2.1 or later, http://www.gnu.org/licenses/lgpl.html
+//
+// Please contact the author if you need another license.
+// This module is provided "as is", without warranties of any kind.
+
+import biz.source_code.dsp.filter.FilterCharacteristicsType;
+import biz.source_code.dsp.filter.FilterPassType;
+import biz.source_code.dsp.filter.IirFilterFrequencyResponse;
+import biz.source_code.dsp.filter.IirFilterSpecDesign;
+
+// Test program for the IirFilterSpecDesign class.
+public class TestIirFilterSpecDesign {
+
+private static final double  eps = 0.01;                   // tolerance in dB
+private static final int     fftSize = 8192;
+private static final IirFilterFrequencyResponse gridResponse = new IirFilterFrequencyResponse(fftSize);
+
+private static final FilterCharacteristicsType[] types = {
+   FilterCharacteristicsType.butterworth, FilterCharacteristicsType.chebyshev,
+   FilterCharacteristicsType.chebyshev2, FilterCharacteristicsType.elliptic };
+
+public static void main (String[] args) {
+   testSpecs();
+   testMinOrder();
+   testSelection();
+   testInvalidSpecs();
+   System.out.println("TestIirFilterSpecDesign completed."); }
+
+// All designs must meet their specification.
+private static void testSpecs() {
+   for (FilterCharacteristicsType type : types) {
+      testSpec(type, FilterPassType.lowpass,  0.1,  0,    0.15, 0,    -1,   -40);
+      testSpec(type, FilterPassType.highpass, 0.3,  0,    0.25, 0,    -0.5, -60);
+      testSpec(type, FilterPassType.bandpass, 0.1,  0.2,  0.07, 0.26, -1,   -45);
+      testSpec(type, FilterPassType.bandstop, 0.08, 0.35, 0.15, 0.2,  -2,   -30); }}
+
+private static void testSpec (FilterCharacteristicsType type, FilterPassType passType, double fPass1, double fPass2, double fStop1, double fStop2,
+      double ripple, double stopbandGain) {
+   IirFilterSpecDesign.Result r = IirFilterSpecDesign.design(type, passType, fPass1, fPass2, fStop1, fStop2, ripple, stopbandGain);
+   String id = type + " " + passType + " order " + r.filterOrder;
+   int n = (passType == FilterPassType.bandpass || passType == FilterPassType.bandstop) ? 2 * r.filterOrder : r.filterOrder;
+   verify(r.multiplicationsPerSample == 2 * n + 1, "Wrong cost for " + id + ".");
+   verify(r.multiplicationsPerSample == IirFilterSpecDesign.computeMultiplicationsPerSample(passType, r.filterOrder), "Cost mismatch for " + id + ".");
+   double[] mags = new double[gridResponse.getPointCount()];
+   gridResponse.computeMagnitudes(r.coeffs, mags);
+   double peak = 0;
+   for (double m : mags) {
+      peak = Math.max(peak, m); }
+   for (int i = 0; i < mags.length; i++) {
+      double f = (double)i / fftSize;
+      double gain = 20 * Math.log10(mags[i] / peak);
+      boolean inPassband, inStopband;
+      switch (passType) {
+         case lowpass:  inPassband = f <= fPass1; inStopband = f >= fStop1; break;
+         case highpass: inPassband = f >= fPass1; inStopband = f <= fStop1; break;
+         case bandpass: inPassband = f >= fPass1 && f <= fPass2; inStopband = f <= fStop1 || f >= fStop2; break;
+         default:       inPassband = f <= fPass1 || f >= fPass2; inStopband = f >= fStop1 && f <= fStop2; break; }
+      if (inPassband && gain < ripple - eps) {
+         throw new RuntimeException("Passband gain " + gain + " dB at " + f + " below spec for " + id + "."); }
+      if (inStopband && gain > stopbandGain + eps) {
+         throw new RuntimeException("Stopband gain " + gain + " dB at " + f + " above spec for " + id + "."); }}}
+
+// Known minimum orders for a lowpass specification with a transition band from 0.1 to 0.15, 1 dB ripple and 40 dB attenuation.
+private static void testMinOrder() {
+   int[] expectedOrders = {12, 6, 6, 4};
+   for (int i = 0; i < types.length; i++) {
+      int order = IirFilterSpecDesign.computeMinOrder(types[i], FilterPassType.lowpass, 0.1, 0, 0.15, 0, -1, -40);
+      verify(order == expectedOrders[i], "Wrong minimum order " + order + " for " + types[i] + "."); }}
+
+// The elliptic filter is the cheapest for a narrow transition band, the Butterworth filter is preferred when the orders are equal.
+private static void testSelection() {
+   IirFilterSpecDesign.Result r1 = IirFilterSpecDesign.design(FilterPassType.lowpass, 0.1, 0, 0.12, 0, -0.5, -60);
+   verify(r1.filterCharacteristicsType == FilterCharacteristicsType.elliptic, "Elliptic filter not selected.");
+   IirFilterSpecDesign.Result r2 = IirFilterSpecDesign.design(FilterPassType.lowpass, 0.01, 0, 0.4, 0, -3, -20);
+   verify(r2.filterCharacteristicsType == FilterCharacteristicsType.butterworth, "Butterworth filter not selected.");
+   verify(r2.filterOrder == 1, "Wrong order for Butterworth filter."); }
+
+private static void testInvalidSpecs() {
+   verifyFails(FilterPassType.lowpass, 0.2, 0, 0.1, 0, -1, -40);      // stopband below passband
+   verifyFails(FilterPassType.bandpass, 0.1, 0.2, 0.15, 0.3, -1, -40); // overlapping bands
+   verifyFails(FilterPassType.lowpass, 0.1, 0, 0.2, 0, -1, -0.5);      // stopband gain above ripple
+   try {
+      IirFilterSpecDesign.computeMinOrder(FilterCharacteristicsType.bessel, FilterPassType.lowpass, 0.1, 0, 0.2, 0, -1, -40);
+      throw new RuntimeException("No exception for Bessel filter."); }
+    catch (IllegalArgumentException e) {}}
+
+private static void verifyFails (FilterPassType passType, double fPass1, double fPass2, double fStop1, double fStop2, double ripple, double stopbandGain) {
+   try {
+      IirFilterSpecDesign.design(passType, fPass1, fPass2, fStop1, fStop2, ripple, stopbandGain);
+      throw new RuntimeException("No exception for invalid specification."); }
+    catch (IllegalArgumentException e) {}}
+
+private static void verify (boolean b, String msg) {
+   if (!b) {
+      throw new RuntimeException(msg); }}
+
+}
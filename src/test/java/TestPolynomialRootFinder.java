@@ -12,6 +12,7 @@
 
 import biz.source_code.dsp.math.Complex;
 import biz.source_code.dsp.math.PolynomialUtils;
+import biz.source_code.dsp.math.PolynomialRootFinderAberth;
 import biz.source_code.dsp.math.PolynomialRootFinderLaguerre;
 import biz.source_code.dsp.math.PolynomialRootFinderJenkinsTraub;
 import biz.source_code.dsp.util.ArrayUtils;
@@ -31,6 +32,10 @@ public static void main (String[] args) {
    testRealZeros();
    testComplexZeros();
    testRandom();
+   testLaguerreBatch();
+   testJenkinsTraubBatch();
+   testAberthRandom();
+   testAberthHighDegree();
    System.out.println("ok"); }
 
 // Test with polynomials that have only real zeros.
@@ -110,6 +115,66 @@ private static void verifyRandomZeros (double[] coeffs) {
       dump(coeffs);
       throw e; }}
 
+// Test the batch version of the Laguerre root finder with a reused workspace.
+private static void testLaguerreBatch() {
+   double[][] coeffs = new double[200][];
+   for (int i = 0; i < coeffs.length; i++) {
+      coeffs[i] = genRandomCoefficients(1 + random.nextInt(15)); }
+   Complex[][] zeros = PolynomialRootFinderLaguerre.findRoots(coeffs);
+   for (int i = 0; i < coeffs.length; i++) {
+      double[] coeffs2Real = ArrayUtils.toDouble(PolynomialUtils.expand(zeros[i]), 1E-7);
+      verifyEqual(scaleCoefficients(coeffs[i]), coeffs2Real, 1E-7); }}
+
+// The batch version and a reused workspace must produce exactly the same results as single calls.
+private static void testJenkinsTraubBatch() {
+   double[][] coeffs = new double[1000][];
+   for (int i = 0; i < coeffs.length; i++) {
+      coeffs[i] = genRandomCoefficients(1 + random.nextInt(15)); }
+   Complex[][] zeros1 = PolynomialRootFinderJenkinsTraub.findRoots(coeffs, false);
+   Complex[][] zeros2 = PolynomialRootFinderJenkinsTraub.findRoots(coeffs, true);
+   for (int i = 0; i < coeffs.length; i++) {
+      Complex[] zeros = PolynomialRootFinderJenkinsTraub.findRoots(coeffs[i]);
+      verifyEqual(zeros1[i], zeros);
+      verifyEqual(zeros2[i], zeros); }}
+
+// Test the Aberth-Ehrlich root finder with randomly generated polynomials.
+private static void testAberthRandom() {
+   for (int cnt = 0; cnt < 20000; cnt++) {
+      double[] coeffs = genRandomCoefficients(1 + random.nextInt(15));
+      Complex[] zeros = PolynomialRootFinderAberth.findRoots(coeffs);
+      double[] coeffs2Real = ArrayUtils.toDouble(PolynomialUtils.expand(zeros), randomEps);
+      verifyEqual(scaleCoefficients(coeffs), coeffs2Real, randomEps); }
+   // Polynomial with a double zero, which is found with reduced accuracy.
+   Complex[] zeros = PolynomialRootFinderAberth.findRoots(new double[]{30, -166, -542, 2838, 1520, -800});
+   double[] realZeros = ArrayUtils.sortByMagnitude(ArrayUtils.toDouble(zeros, 1E-6));
+   verifyEqual(realZeros, ArrayUtils.sortByMagnitude(new double[]{5, 5, -4, -4.0/5, 1.0/3}), 1E-6); }
+
+// Test the Aberth-Ehrlich root finder with polynomials of high degree, sequential and parallel.
+private static void testAberthHighDegree() {
+   // x^n - 1, the zeros are the n-th roots of unity.
+   int n = 256;
+   double[] coeffs = new double[n + 1];
+   coeffs[0] = 1;
+   coeffs[n] = -1;
+   Complex[] zeros = PolynomialRootFinderAberth.findRoots(coeffs, true);
+   for (Complex z : zeros) {
+      if (Math.abs(z.abs() - 1) > 1E-12 || !z.pow(n).equals(Complex.ONE, 1E-9)) {
+         throw new RuntimeException("Wrong root of unity " + z + "."); }}
+   // Polynomial with random coefficients.
+   n = 150;
+   coeffs = new double[n + 1];
+   for (int i = 0; i <= n; i++) {
+      coeffs[i] = random.nextGaussian(); }
+   Complex[] zeros1 = PolynomialRootFinderAberth.findRoots(coeffs, false);
+   Complex[] zeros2 = PolynomialRootFinderAberth.findRoots(coeffs, true);
+   verifyEqual(zeros1, zeros2);
+   for (Complex z : zeros1) {
+      double bound = 0;
+      for (int i = 0; i <= n; i++) {
+         bound = bound * z.abs() + Math.abs(coeffs[i]); }
+      if (PolynomialUtils.evaluate(coeffs, z).abs() > 1E-12 * bound) {
+         throw new RuntimeException("Residual too large for root " + z + "."); }}}
+
 // Returns scaled polynomial coefficients so that the first coefficient is 1.
 private static double[] scaleCoefficients (double[] a) {
    return ArrayUtils.divide(a, a[0]); }
@@ -11,8 +11,10 @@
 // This module is provided "as is", without warranties of any kind.
 
 import biz.source_code.dsp.math.Complex;
+import biz.source_code.dsp.math.ComplexArray;
 import biz.source_code.dsp.math.PolynomialUtils;
 import biz.source_code.dsp.util.ArrayUtils;
+import java.util.Random;
 
 // Test program for the PolynomialUtils class.
 public class TestPolynomialUtils {
@@ -23,6 +25,9 @@ public static void main (String[] args) {
    testRealMultiply();
    testExpand();
    testDeflate();
+   testComplexArray();
+   testFftMultiply();
+   testExpandTree();
    System.out.println("ok"); }
 
 private static void testRealMultiply() {
@@ -73,6 +78,128 @@ private static void verifyDeflate (double[] a, double z, double[] expectedQuotie
    double[] quotient = ArrayUtils.toDouble(complexQuotient, eps);
    verifyEqual(quotient, expectedQuotient); }
 
+// Compares the ComplexArray versions with the Complex versions.
+private static void testComplexArray() {
+   Random random = new Random(8812);
+   for (int n = 1; n < 20; n++) {
+      Complex[] c1 = new Complex[n];
+      Complex[] c2 = new Complex[n + 3];
+      for (int i = 0; i < c1.length; i++) {
+         c1[i] = new Complex(random.nextGaussian(), random.nextGaussian()); }
+      for (int i = 0; i < c2.length; i++) {
+         c2[i] = new Complex(random.nextGaussian(), random.nextGaussian()); }
+      ComplexArray v1 = ComplexArray.fromComplex(c1);
+      ComplexArray v2 = ComplexArray.fromComplex(c2);
+      ComplexArray v3 = new ComplexArray(2 * n + 2);
+      PolynomialUtils.multiply(v1, v2, v3);
+      verifyEqual(v3.toComplex(), PolynomialUtils.multiply(c1, c2));
+      verifyEqual(ArrayUtils.multiply(v1, 3).toComplex(), ArrayUtils.multiply(c1, 3));
+      verifyEqual(ArrayUtils.divide(v1, 3).toComplex(), ArrayUtils.divide(c1, 3));
+      double[] a = new double[n];
+      for (int i = 0; i < n; i++) {
+         a[i] = random.nextGaussian(); }
+      ComplexArray x = ComplexArray.fromComplex(c1);
+      ComplexArray y = new ComplexArray(n);
+      PolynomialUtils.evaluate(a, x, y);
+      ComplexArray prod = new ComplexArray(n);
+      x.mul(y, prod);
+      ComplexArray quot = new ComplexArray(n);
+      prod.div(y, quot);
+      double[] abs = new double[n];
+      double[] arg = new double[n];
+      x.abs(abs);
+      x.arg(arg);
+      ComplexArray polar = new ComplexArray(n);
+      polar.setPolar(abs, arg);
+      for (int i = 0; i < n; i++) {
+         Complex xi = c1[i];
+         Complex yi = PolynomialUtils.evaluate(a, xi);
+         verifyEqual(y.get(i), yi);
+         verifyEqual(prod.get(i), xi.mul(yi));
+         verifyEqual(quot.get(i), xi);
+         verifyEqual(polar.get(i), xi); }
+      x.conj();
+      x.scale(2);
+      x.add(v1, x);
+      x.sub(v1, x);
+      for (int i = 0; i < n; i++) {
+         verifyEqual(x.get(i), c1[i].conj().mul(2)); }}}
+
+// Compares FFT convolution with direct convolution, for sizes around the threshold.
+private static void testFftMultiply() {
+   Random random = new Random(2291);
+   int m = PolynomialUtils.fftMinLength;
+   int[] sizes = {m - 1, m, m + 1, 3 * m, 1000};
+   for (int n1 : sizes) {
+      for (int n2 : sizes) {
+         double[] a1 = new double[n1];
+         double[] a2 = new double[n2];
+         ComplexArray c1 = new ComplexArray(n1);
+         ComplexArray c2 = new ComplexArray(n2);
+         for (int i = 0; i < n1; i++) {
+            a1[i] = random.nextGaussian();
+            c1.set(i, random.nextGaussian(), random.nextGaussian()); }
+         for (int i = 0; i < n2; i++) {
+            a2[i] = random.nextGaussian();
+            c2.set(i, random.nextGaussian(), random.nextGaussian()); }
+         double[] a3 = PolynomialUtils.multiply(a1, a2);
+         ComplexArray c3 = new ComplexArray(n1 + n2 - 1);
+         PolynomialUtils.multiply(c1, c2, c3);
+         for (int i = 0; i < n1 + n2 - 1; i++) {
+            double sr = 0;
+            double tr = 0;
+            double ti = 0;
+            for (int j = Math.max(0, i - n2 + 1); j <= Math.min(i, n1 - 1); j++) {
+               sr += a1[j] * a2[i - j];
+               tr += c1.re[j] * c2.re[i - j] - c1.im[j] * c2.im[i - j];
+               ti += c1.re[j] * c2.im[i - j] + c1.im[j] * c2.re[i - j]; }
+            if (Math.abs(a3[i] - sr) > 1E-10 || Math.abs(c3.re[i] - tr) > 1E-10 || Math.abs(c3.im[i] - ti) > 1E-10) {
+               throw new RuntimeException("FFT multiplication failed for sizes " + n1 + "/" + n2 + " at position " + i + "."); }}}}}
+
+// Tests the product tree expansion with the roots of unity and with random zeros.
+private static void testExpandTree() {
+   int n = 2000;
+   Complex[] zeros = new Complex[n];
+   for (int i = 0; i < n; i++) {
+      zeros[i] = Complex.expj(2 * Math.PI * i / n); }
+   Complex[] a = PolynomialUtils.expand(zeros);            // x^n - 1
+   for (int i = 0; i <= n; i++) {
+      double expected = (i == 0) ? 1 : (i == n) ? -1 : 0;
+      if (!a[i].equals(new Complex(expected), 1E-12)) {
+         throw new RuntimeException("Product tree expansion failed at position " + i + ": " + a[i] + "."); }}
+   // Random zeros inside the unit circle, compared with sequential expansion.
+   Random random = new Random(554);
+   n = 300;
+   zeros = new Complex[n];
+   for (int i = 0; i < n; i++) {
+      zeros[i] = Complex.expj(random.nextDouble() * 2 * Math.PI).mul(random.nextDouble()); }
+   a = PolynomialUtils.expand(zeros);
+   double[] re = new double[n + 1];
+   double[] im = new double[n + 1];
+   re[0] = 1;
+   for (int i = 0; i < n; i++) {
+      double zr = zeros[i].re();
+      double zi = zeros[i].im();
+      for (int j = i + 1; j >= 1; j--) {
+         re[j] -= re[j - 1] * zr - im[j - 1] * zi;
+         im[j] -= re[j - 1] * zi + im[j - 1] * zr; }}
+   double max = 0;
+   for (int i = 0; i <= n; i++) {
+      max = Math.max(max, Math.hypot(re[i], im[i])); }
+   for (int i = 0; i <= n; i++) {
+      if (Math.hypot(a[i].re() - re[i], a[i].im() - im[i]) > 1E-11 * max) {
+         throw new RuntimeException("Product tree expansion differs from sequential expansion at position " + i + "."); }}}
+
+private static void verifyEqual (Complex[] a1, Complex[] a2) {
+   if (a1.length != a2.length) {
+      throw new RuntimeException("Array sizes are not equal."); }
+   for (int i = 0; i < a1.length; i++) {
+      verifyEqual(a1[i], a2[i]); }}
+
+private static void verifyEqual (Complex c1, Complex c2) {
+   if (!c1.equals(c2, eps)) {
+      throw new RuntimeException("Difference detected: " + c1 + " " + c2 + "."); }}
+
 private static void verifyEqual (double[] a1, double[] a2) {
    if (a1.length != a2.length) {
       throw new RuntimeException("Array sizes are not equal."); }
@@ -0,0 +1,110 @@
+// Copyright 2015 Christian d'Heureuse, Inventec Informatik AG, Zurich, Switzerland
+// www.source-code.biz, www.inventec.ch/chdh
+//
+// This module is multi-licensed and may be used under the terms
+// of any of the following licenses:
+//
+//  EPL, Eclipse Public License, V1.0 or later, http://www.eclipse.org/legal
+//  LGPL, GNU Lesser General Public License, V2.1 or later, http://www.gnu.org/licenses/lgpl.html
+//
+// Please contact the author if you need another license.
+// This module is provided "as is", without warranties of any kind.
+
+import biz.source_code.dsp.filter.FilterCharacteristicsType;
+import biz.source_code.dsp.filter.FilterPassType;
+import biz.source_code.dsp.filter.IirFilterCoefficients;
+import biz.source_code.dsp.filter.IirFilterDesignFisher;
+import biz.source_code.dsp.filter.SosFilter;
+import biz.source_code.dsp.filter.SosFilterCoefficientGrid;
+import java.util.Random;
+
+// Test program for the SosFilterCoefficientGrid class.
+public class TestSosFilterCoefficientGrid {
+
+public static void main (String[] args) {
+   testGridPoints();
+   testErrorConvergence();
+   testBandpass();
+   testStability();
+   testModulation();
+   System.out.println("TestSosFilterCoefficientGrid completed."); }
+
+// At the grid points, the table values must describe the same filter as the direct design.
+private static void testGridPoints() {
+   SosFilterCoefficientGrid grid = new SosFilterCoefficientGrid(FilterPassType.highpass, FilterCharacteristicsType.chebyshev, 5, -1, 0, 0.001, 0.4, 100);
+   verify(grid.getSectionCount() == 3, "Wrong section count.");
+   for (int i = 0; i < 100; i += 9) {
+      double f = 0.001 * Math.pow(400, i / 99.0);
+      IirFilterCoefficients coeffs1 = IirFilterDesignFisher.design(FilterPassType.highpass, FilterCharacteristicsType.chebyshev, 5, -1, f, 0);
+      IirFilterCoefficients coeffs2 = grid.getSosFilterCoefficients(f, 0).toIirFilterCoefficients();
+      verifyEqual(coeffs2.a, coeffs1.a, 1E-9);
+      verifyEqual(coeffs2.b, coeffs1.b, 1E-9); }}
+
+// The interpolation error must decrease quadratically with the grid density.
+private static void testErrorConvergence() {
+   double error1 = new SosFilterCoefficientGrid(FilterPassType.lowpass, FilterCharacteristicsType.elliptic, 4, -1, -50, 0.0005, 0.45, 64).computeMaxError();
+   double error2 = new SosFilterCoefficientGrid(FilterPassType.lowpass, FilterCharacteristicsType.elliptic, 4, -1, -50, 0.0005, 0.45, 256).computeMaxError();
+   verify(error1 < 0.05, "Interpolation error too large: " + error1);
+   verify(error2 < error1 / 8, "Interpolation error does not converge: " + error1 + " " + error2); }
+
+// The section pairing of bandpass filters changes across the grid. The interpolated filter must still be accurate.
+private static void testBandpass() {
+   SosFilterCoefficientGrid grid = new SosFilterCoefficientGrid(FilterPassType.bandpass, FilterCharacteristicsType.butterworth, 2, 0, 0,
+      0.001, 0.3, 256, 0.1, 0.7, 31);
+   verify(grid.computeMaxError() < 1E-3, "Bandpass interpolation error too large.");
+   Random random = new Random(4711);
+   for (int i = 0; i < 200; i++) {
+      double f = 0.001 * Math.pow(300, random.nextDouble());
+      double bw = 0.1 + 0.6 * random.nextDouble();
+      double r = Math.pow(2, bw / 2);
+      IirFilterCoefficients coeffs1 = IirFilterDesignFisher.design(FilterPassType.bandpass, FilterCharacteristicsType.butterworth, 2, 0, f / r, f * r);
+      IirFilterCoefficients coeffs2 = grid.getSosFilterCoefficients(f, bw).toIirFilterCoefficients();
+      verifyEqual(coeffs2.a, coeffs1.a, 1E-3); }}
+
+// The interpolated sections must be inside the stability triangle.
+private static void testStability() {
+   SosFilterCoefficientGrid grid = new SosFilterCoefficientGrid(FilterPassType.bandstop, FilterCharacteristicsType.elliptic, 3, -0.5, -40, 0.002, 0.3, 20, 0.2, 0.7, 4);
+   double[] packed = new double[5 * grid.getSectionCount()];
+   Random random = new Random(123);
+   for (int i = 0; i < 1000; i++) {
+      grid.interpolate(0.001 + 0.35 * random.nextDouble(), random.nextDouble(), packed);
+      for (int k = 0; k < grid.getSectionCount(); k++) {
+         double a1 = packed[5 * k + 3];
+         double a2 = packed[5 * k + 4];
+         verify(Math.abs(a2) < 1 && Math.abs(a1) < 1 + a2, "Unstable section."); }}}
+
+// A filter with a swept cutoff frequency must match the directly designed filter once the cutoff frequency is held constant.
+private static void testModulation() {
+   SosFilterCoefficientGrid grid = new SosFilterCoefficientGrid(FilterPassType.lowpass, FilterCharacteristicsType.butterworth, 4, 0, 0, 0.0005, 0.45, 1024);
+   SosFilter filter1 = new SosFilter(grid.getSosFilterCoefficients(0.01, 0));
+   double[] packed = new double[5 * grid.getSectionCount()];
+   Random random = new Random(99);
+   for (int i = 0; i < 20000; i++) {
+      if (i % 16 == 0) {
+         grid.interpolate(0.01 * Math.pow(30, (1 + Math.sin(i * 0.001)) / 2), packed);
+         filter1.setCoefficients(packed); }
+      double y = filter1.step(random.nextGaussian());
+      verify(Math.abs(y) < 100, "Modulated filter is unstable."); }
+   grid.interpolate(0.05, packed);
+   filter1.setCoefficients(packed);
+   SosFilter filter2 = new SosFilter(IirFilterDesignFisher.designSos(FilterPassType.lowpass, FilterCharacteristicsType.butterworth, 4, 0, 0.05, 0));
+   for (int i = 0; i < 5000; i++) {                        // let the state of filter1 settle
+      double x = random.nextGaussian();
+      filter1.step(x);
+      filter2.step(x); }
+   for (int i = 0; i < 1000; i++) {
+      double x = random.nextGaussian();
+      double y1 = filter1.step(x);
+      double y2 = filter2.step(x);
+      verify(Math.abs(y1 - y2) < 1E-3, "Filter outputs differ: " + y1 + " " + y2); }}
+
+private static void verifyEqual (double[] a1, double[] a2, double eps) {
+   verify(a1.length == a2.length, "Array lengths differ.");
+   for (int i = 0; i < a1.length; i++) {
+      verify(Math.abs(a1[i] - a2[i]) <= eps, "Coefficients differ at position " + i + ": " + a1[i] + " " + a2[i] + "."); }}
+
+private static void verify (boolean b, String msg) {
+   if (!b) {
+      throw new RuntimeException(msg); }}
+
+}
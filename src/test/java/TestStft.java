@@ -0,0 +1,82 @@
+// Copyright 2015 Christian d'Heureuse, Inventec Informatik AG, Zurich, Switzerland
+// www.source-code.biz, www.inventec.ch/chdh
+//
+// This module is multi-licensed and may be used under the terms
+// of any of the following licenses:
+//
+//  EPL, Eclipse Public License, V1.0 or later, http://www.eclipse.org/legal
+//  LGPL, GNU Lesser General Public License, V2.1 or later, http://www.gnu.org/licenses/lgpl.html
+//
+// Please contact the author if you need another license.
+// This module is provided "as is", without warranties of any kind.
+
+import biz.source_code.dsp.transform.InverseStft;
+import biz.source_code.dsp.transform.Stft;
+import java.util.Random;
+
+// Test program for the Stft and InverseStft classes.
+// Verifies that the STFT analysis followed by the overlap-add resynthesis reproduces the input signal.
+public class TestStft {
+
+private static final double      eps = 1E-9;
+
+private static Random            random = new Random(7733121);
+
+public static void main (String[] args) {
+   testReconstruction(512, 256, genPeriodicHann(512), null);
+   testReconstruction(512, 128, genPeriodicHann(512), genPeriodicHann(512));
+   testReconstruction(256, 64, genSqrtPeriodicHann(256), genSqrtPeriodicHann(256));
+   testReconstruction(64, 64, null, null);
+   testNonCola();
+   System.out.println("TestStft completed."); }
+
+private static void testReconstruction (int frameSize, int hopSize, double[] analysisWindow, double[] synthesisWindow) {
+   int len = 20 * frameSize + random.nextInt(frameSize);
+   final double[] in = new double[len];
+   for (int i = 0; i < len; i++) {
+      in[i] = random.nextDouble() * 2 - 1; }
+   final double[] out = new double[len + frameSize];
+   Stft stft = new Stft(frameSize, hopSize, analysisWindow);
+   final InverseStft istft = new InverseStft(frameSize, hopSize, analysisWindow, synthesisWindow);
+   final int[] outPos = new int[1];
+   Stft.FrameHandler handler = new Stft.FrameHandler() {
+      @Override public void processFrame (double[] spectrum) {
+         istft.processFrame(spectrum, out, outPos[0]);
+         outPos[0] += istft.getHopSize(); }};
+   int p = 0;
+   while (p < len) {                                       // feed the signal in blocks of random size
+      int blockLen = Math.min(len - p, 1 + random.nextInt(3 * frameSize));
+      stft.process(in, p, blockLen, handler);
+      p += blockLen; }
+   for (int i = frameSize - hopSize; i < outPos[0]; i++) {
+      if (Math.abs(in[i] - out[i]) > eps) {
+         throw new RuntimeException("Reconstruction error at position " + i + ": " + in[i] + " " + out[i] + "."); }}}
+
+private static void testNonCola() {
+   double[] w = genSymmetricHann(512);
+   if (InverseStft.isPerfectReconstruction(w, null, 512, 256, 1E-6)) {
+      throw new RuntimeException("Symmetric Hann window should not be accepted."); }
+   try {
+      new InverseStft(512, 256, w, null);
+      throw new RuntimeException("Exception expected."); }
+    catch (IllegalArgumentException e) {}}
+
+private static double[] genPeriodicHann (int n) {
+   double[] w = new double[n];
+   for (int i = 0; i < n; i++) {
+      w[i] = 0.5 - 0.5 * Math.cos(2 * Math.PI * i / n); }
+   return w; }
+
+private static double[] genSqrtPeriodicHann (int n) {
+   double[] w = genPeriodicHann(n);
+   for (int i = 0; i < n; i++) {
+      w[i] = Math.sqrt(w[i]); }
+   return w; }
+
+private static double[] genSymmetricHann (int n) {
+   double[] w = new double[n];
+   for (int i = 0; i < n; i++) {
+      w[i] = 0.5 - 0.5 * Math.cos(2 * Math.PI * i / (n - 1)); }
+   return w; }
+
+}
@@ -0,0 +1,168 @@
+// Copyright 2015 Christian d'Heureuse, Inventec Informatik AG, Zurich, Switzerland
+// www.source-code.biz, www.inventec.ch/chdh
+//
+// This module is multi-licensed and may be used under the terms
+// of any of the following licenses:
+//
+//  EPL, Eclipse Public License, V1.0 or later, http://www.eclipse.org/legal
+//  LGPL, GNU Lesser General Public License, V2.1 or later, http://www.gnu.org/licenses/lgpl.html
+//
+// Please contact the author if you need another license.
+// This module is provided "as is", without warranties of any kind.
+
+import biz.source_code.dsp.sound.AudioIo;
+import biz.source_code.dsp.sound.AudioIo.AudioSignal;
+import biz.source_code.dsp.sound.WavFileHeader;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import javax.sound.sampled.AudioFormat.Encoding;
+
+// Test program for the WavFileHeader class and AudioIo.loadWavFile().
+public class TestWavFileHeader {
+
+private static final byte[]  pcmGuid   = {1, 0, 0, 0, 0, 0, 0x10, 0, (byte)0x80, 0, 0, (byte)0xAA, 0, 0x38, (byte)0x9B, 0x71};
+private static final byte[]  floatGuid = {3, 0, 0, 0, 0, 0, 0x10, 0, (byte)0x80, 0, 0, (byte)0xAA, 0, 0x38, (byte)0x9B, 0x71};
+
+public static void main (String[] args) throws Exception {
+   File file = File.createTempFile("TestWavFileHeader", ".wav");
+   try {
+      testFloat(file);
+      testExtensibleFloat(file);
+      testExtensiblePcm(file);
+      testUnsignedPcm(file);
+      testInvalidFiles(file); }
+    finally {
+      file.delete(); }
+   System.out.println("TestWavFileHeader completed."); }
+
+// A plain IEEE float file with a fact chunk. Java Sound had problems with such files (JDK-8038139).
+private static void testFloat (File file) throws Exception {
+   float[] values = {0, 0.5f, -0.25f, 1, -1, 0.125f};
+   byte[] data = floatBytes(values);
+   writeWavFile(file, fmtChunk(3, 2, 44100, 32, null, 0), chunk("fact", intBytes(3, 4)), chunk("data", data));
+   WavFileHeader header = readHeader(file);
+   verify(header.getFormat().getEncoding() == Encoding.PCM_FLOAT, "Wrong float encoding.");
+   verify(header.getFrameCount() == 3 && header.getFactSampleLength() == 3, "Wrong float frame count.");
+   AudioSignal signal = AudioIo.loadWavFile(file.getPath());
+   verify(signal.samplingRate == 44100 && signal.getChannels() == 2 && signal.getLength() == 3, "Wrong float signal format.");
+   for (int i = 0; i < values.length; i++) {
+      verify(signal.data[i % 2][i / 2] == values[i], "Wrong float sample value at position " + i + "."); }}
+
+// An extensible float file with a LIST INFO chunk behind the data chunk.
+private static void testExtensibleFloat (File file) throws Exception {
+   float[] values = {0.75f, -0.5f, 0.25f};
+   byte[] info = concat("INFO".getBytes("US-ASCII"), chunk("INAM", "Test\0".getBytes("US-ASCII")), chunk("IART", "Ab\0".getBytes("US-ASCII")));
+   writeWavFile(file, fmtChunk(0xFFFE, 1, 96000, 32, floatGuid, 4), chunk("data", floatBytes(values)), chunk("LIST", info));
+   WavFileHeader header = readHeader(file);
+   verify(header.getFormatTag() == WavFileHeader.WAVE_FORMAT_IEEE_FLOAT, "Wrong extensible float format tag.");
+   verify(header.getChannelMask() == 4, "Wrong channel mask.");
+   verify(header.getFactSampleLength() == -1, "Wrong fact sample length.");
+   verify("Test".equals(header.getInfo().get("INAM")) && "Ab".equals(header.getInfo().get("IART")), "Wrong info texts.");
+   AudioSignal signal = AudioIo.loadWavFile(file.getPath());
+   verify(signal.samplingRate == 96000 && signal.getLength() == 3, "Wrong extensible float signal format.");
+   for (int i = 0; i < values.length; i++) {
+      verify(signal.data[0][i] == values[i], "Wrong extensible float sample value at position " + i + "."); }}
+
+// An extensible 24 bit PCM file with 20 valid bits.
+private static void testExtensiblePcm (File file) throws Exception {
+   int[] values = {0x40000 << 4, -0x40000 << 4, 0x7FFFF << 4, 0};
+   ByteArrayOutputStream data = new ByteArrayOutputStream();
+   for (int v : values) {
+      data.write(intBytes(v, 3)); }
+   writeWavFile(file, fmtChunk(0xFFFE, 2, 48000, 24, pcmGuid, 3), chunk("data", data.toByteArray()));
+   WavFileHeader header = readHeader(file);
+   verify(header.getFormatTag() == WavFileHeader.WAVE_FORMAT_PCM && header.getValidBitsPerSample() == 20, "Wrong extensible PCM format.");
+   AudioSignal signal = AudioIo.loadWavFile(file.getPath());
+   verify(signal.getChannels() == 2 && signal.getLength() == 2, "Wrong extensible PCM signal format.");
+   for (int i = 0; i < values.length; i++) {
+      verify(signal.data[i % 2][i / 2] == values[i] / (float)0x7FFFFF, "Wrong extensible PCM sample value at position " + i + "."); }}
+
+// 8 bit WAV PCM data is unsigned.
+private static void testUnsignedPcm (File file) throws Exception {
+   writeWavFile(file, fmtChunk(1, 1, 8000, 8, null, 0), chunk("data", new byte[]{(byte)0x80, (byte)0xFF}));
+   WavFileHeader header = readHeader(file);
+   verify(header.getFormat().getEncoding() == Encoding.PCM_UNSIGNED, "Wrong 8 bit PCM encoding.");
+   try {
+      AudioIo.loadWavFile(file.getPath());
+      throw new RuntimeException("No exception for 8 bit PCM file."); }
+    catch (UnsupportedOperationException e) {}}
+
+private static void testInvalidFiles (File file) throws Exception {
+   writeBytes(file, "This is not a WAV file.".getBytes("US-ASCII"));
+   verifyFails(file, IOException.class);
+   writeWavFile(file, fmtChunk(1, 1, 8000, 16, null, 0));
+   verifyFails(file, IOException.class);                  // no data chunk
+   byte[] otherGuid = pcmGuid.clone();
+   otherGuid[15] = 0;
+   writeWavFile(file, fmtChunk(0xFFFE, 1, 8000, 16, otherGuid, 0), chunk("data", new byte[2]));
+   verifyFails(file, UnsupportedOperationException.class); }
+
+private static void verifyFails (File file, Class<? extends Exception> exceptionClass) throws Exception {
+   try {
+      readHeader(file);
+      throw new RuntimeException("No exception for invalid file."); }
+    catch (Exception e) {
+      if (!exceptionClass.isInstance(e)) {
+         throw e; }}}
+
+private static WavFileHeader readHeader (File file) throws IOException {
+   try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+      return WavFileHeader.read(channel); }}
+
+//--- WAV file construction ----------------------------------------------------
+
+private static byte[] fmtChunk (int formatTag, int channels, int samplingRate, int sampleBits, byte[] subFormatGuid, int channelMask) throws IOException {
+   int blockAlign = channels * sampleBits / 8;
+   ByteArrayOutputStream out = new ByteArrayOutputStream();
+   out.write(intBytes(formatTag, 2));
+   out.write(intBytes(channels, 2));
+   out.write(intBytes(samplingRate, 4));
+   out.write(intBytes(samplingRate * blockAlign, 4));
+   out.write(intBytes(blockAlign, 2));
+   out.write(intBytes(sampleBits, 2));
+   if (subFormatGuid != null) {
+      out.write(intBytes(22, 2));
+      out.write(intBytes(formatTag == 0xFFFE && subFormatGuid[0] == 1 ? 20 : sampleBits, 2));
+      out.write(intBytes(channelMask, 4));
+      out.write(subFormatGuid); }
+   return chunk("fmt ", out.toByteArray()); }
+
+private static byte[] chunk (String id, byte[] data) throws IOException {
+   byte[] pad = new byte[data.length % 2];
+   return concat(id.getBytes("US-ASCII"), intBytes(data.length, 4), data, pad); }
+
+private static void writeWavFile (File file, byte[]... chunks) throws IOException {
+   byte[] body = concat(chunks);
+   writeBytes(file, concat("RIFF".getBytes("US-ASCII"), intBytes(4 + body.length, 4), "WAVE".getBytes("US-ASCII"), body)); }
+
+private static void writeBytes (File file, byte[] a) throws IOException {
+   try (FileOutputStream out = new FileOutputStream(file)) {
+      out.write(a); }}
+
+private static byte[] concat (byte[]... arrays) throws IOException {
+   ByteArrayOutputStream out = new ByteArrayOutputStream();
+   for (byte[] a : arrays) {
+      out.write(a); }
+   return out.toByteArray(); }
+
+private static byte[] floatBytes (float[] values) throws IOException {
+   ByteArrayOutputStream out = new ByteArrayOutputStream();
+   for (float v : values) {
+      out.write(intBytes(Float.floatToIntBits(v), 4)); }
+   return out.toByteArray(); }
+
+private static byte[] intBytes (int v, int len) {
+   byte[] a = new byte[len];
+   for (int i = 0; i < len; i++) {
+      a[i] = (byte)(v >>> (8 * i)); }
+   return a; }
+
+private static void verify (boolean b, String msg) {
+   if (!b) {
+      throw new RuntimeException(msg); }}
+
+}
@@ -0,0 +1,104 @@
+// Copyright 2015 Christian d'Heureuse, Inventec Informatik AG, Zurich, Switzerland
+// www.source-code.biz, www.inventec.ch/chdh
+//
+// This module is multi-licensed and may be used under the terms
+// of any of the following licenses:
+//
+//  EPL, Eclipse Public License, V1.0 or later, http://www.eclipse.org/legal
+//  LGPL, GNU Lesser General Public License, V2.1 or later, http://www.gnu.org/licenses/lgpl.html
+//
+// Please contact the author if you need another license.
+// This module is provided "as is", without warranties of any kind.
+
+import biz.source_code.dsp.sound.AudioIo;
+import biz.source_code.dsp.sound.AudioIo.AudioSignal;
+import biz.source_code.dsp.sound.WavFileReader;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.util.Random;
+
+// Test program for the WavFileReader class.
+public class TestWavFileReader {
+
+public static void main (String[] args) throws Exception {
+   File file = File.createTempFile("TestWavFileReader", ".wav");
+   try {
+      testRead(file);
+      test24BitWithExtraChunk(file); }
+    finally {
+      file.delete(); }
+   System.out.println("TestWavFileReader completed."); }
+
+// Compares random access and sequential reads with AudioIo.loadWavFile().
+private static void testRead (File file) throws Exception {
+   Random random = new Random(1234);
+   AudioSignal signal = new AudioSignal();
+   signal.samplingRate = 22050;
+   signal.data = new float[2][10007];
+   for (int channel = 0; channel < 2; channel++) {
+      for (int i = 0; i < signal.getLength(); i++) {
+         signal.data[channel][i] = random.nextFloat() * 2 - 1; }}
+   AudioIo.saveWavFile(file.getPath(), signal);
+   AudioSignal signal2 = AudioIo.loadWavFile(file.getPath());
+   try (WavFileReader reader = new WavFileReader(file.getPath(), 1000)) {   // small windows to test the window switching
+      verify(reader.getSamplingRate() == 22050 && reader.getChannels() == 2, "Wrong format.");
+      verify(reader.getFrameCount() == signal.getLength(), "Wrong frame count.");
+      float[][] buf = new float[2][1000];
+      for (int i = 0; i < 100; i++) {                      // random access
+         int pos = random.nextInt(signal.getLength());
+         int len = random.nextInt(Math.min(1000, signal.getLength() - pos) + 1);
+         reader.read(pos, buf, 0, len);
+         verifyEqual(buf, 0, signal2.data, pos, len); }
+      int pos = 0;
+      while (true) {                                       // sequential
+         int len = reader.read(buf, 7, 777);
+         if (len == 0) {
+            break; }
+         verifyEqual(buf, 7, signal2.data, pos, len);
+         pos += len; }
+      verify(pos == signal.getLength(), "Wrong sequential length.");
+      reader.setPosition(10000);
+      verify(reader.read(buf, 0, 1000) == 7, "Wrong length at end of data."); }}
+
+// A 24 bit mono file with a LIST chunk of odd size before the data chunk.
+private static void test24BitWithExtraChunk (File file) throws Exception {
+   int[] values = {0, 1, -1, 0x7FFFFF, -0x7FFFFF, 0x123456, -0x123456};
+   byte[] listChunk = {'L', 'I', 'S', 'T', 3, 0, 0, 0, 'a', 'b', 'c', 0};
+   byte[] fmtChunk = {'f', 'm', 't', ' ', 16, 0, 0, 0, 1, 0, 1, 0, (byte)0x80, (byte)0xBB, 0, 0, 0, 0x65, 4, 0, 3, 0, 24, 0};
+   int dataSize = values.length * 3;
+   int riffSize = 4 + fmtChunk.length + listChunk.length + 8 + dataSize;
+   try (FileOutputStream out = new FileOutputStream(file)) {
+      out.write(new byte[]{'R', 'I', 'F', 'F'});
+      out.write(toBytes(riffSize, 4));
+      out.write(new byte[]{'W', 'A', 'V', 'E'});
+      out.write(fmtChunk);
+      out.write(listChunk);
+      out.write(new byte[]{'d', 'a', 't', 'a'});
+      out.write(toBytes(dataSize, 4));
+      for (int v : values) {
+         out.write(toBytes(v, 3)); }}
+   try (WavFileReader reader = new WavFileReader(file.getPath())) {
+      verify(reader.getSamplingRate() == 48000 && reader.getChannels() == 1, "Wrong 24 bit format.");
+      verify(reader.getFrameCount() == values.length, "Wrong 24 bit frame count.");
+      float[][] buf = new float[1][values.length];
+      reader.read(0, buf, 0, values.length);
+      for (int i = 0; i < values.length; i++) {
+         verify(buf[0][i] == values[i] / (float)0x7FFFFF, "Wrong 24 bit sample value at position " + i + "."); }}}
+
+private static byte[] toBytes (int v, int len) {
+   byte[] a = new byte[len];
+   for (int i = 0; i < len; i++) {
+      a[i] = (byte)(v >>> (8 * i)); }
+   return a; }
+
+private static void verifyEqual (float[][] a1, int pos1, float[][] a2, int pos2, int len) {
+   for (int channel = 0; channel < a1.length; channel++) {
+      for (int i = 0; i < len; i++) {
+         if (a1[channel][pos1 + i] != a2[channel][pos2 + i]) {
+            throw new RuntimeException("Sample values differ at channel " + channel + " position " + (pos2 + i) + "."); }}}}
+
+private static void verify (boolean b, String msg) {
+   if (!b) {
+      throw new RuntimeException(msg); }}
+
+}
@@ -0,0 +1,124 @@
+// Copyright 2015 Christian d'Heureuse, Inventec Informatik AG, Zurich, Switzerland
+// www.source-code.biz, www.inventec.ch/chdh
+//
+// This module is multi-licensed and may be used under the terms
+// of any of the following licenses:
+//
+//  EPL, Eclipse Public License, V1.0 or later, http://www.eclipse.org/legal
+//  LGPL, GNU Lesser General Public License, V2.1 or later, http://www.gnu.org/licenses/lgpl.html
+//
+// Please contact the author if you need another license.
+// This module is provided "as is", without warranties of any kind.
+
+import biz.source_code.dsp.sound.AudioIo;
+import biz.source_code.dsp.sound.AudioIo.AudioSignal;
+import biz.source_code.dsp.sound.WavFileHeader;
+import biz.source_code.dsp.sound.WavFileHeader.FileType;
+import biz.source_code.dsp.sound.WavFileReader;
+import biz.source_code.dsp.sound.WavFileWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioFormat.Encoding;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+
+// Test program for the WavFileWriter class.
+public class TestWavFileWriter {
+
+public static void main (String[] args) throws Exception {
+   File file = File.createTempFile("TestWavFileWriter", ".wav");
+   try {
+      for (FileType fileType : FileType.values()) {
+         testFormat(file, fileType, new AudioFormat(44100, 16, 2, true, false), 10000, 1.0 / 32767);
+         testFormat(file, fileType, new AudioFormat(48000, 24, 1, true, false), 3333, 1.0 / 8388607);      // odd data size, padded
+         testFormat(file, fileType, new AudioFormat(Encoding.PCM_FLOAT, 96000, 32, 3, 12, 96000, false), 5000, 0); }
+      testFormat(file, FileType.riff, new AudioFormat(Encoding.PCM_FLOAT, 8000, 32, 300, 1200, 8000, false), 500, 0);     // frame larger than the buffer size
+      testJavaSoundCompatibility(file);
+      testLargeFile(file); }
+    finally {
+      file.delete(); }
+   System.out.println("TestWavFileWriter completed."); }
+
+// Writes a random signal in blocks of random size and reads it back.
+private static void testFormat (File file, FileType fileType, AudioFormat format, int length, double eps) throws Exception {
+   Random random = new Random(length);
+   int channels = format.getChannels();
+   float[][] signal = new float[channels][length];
+   for (int channel = 0; channel < channels; channel++) {
+      for (int i = 0; i < length; i++) {
+         signal[channel][i] = random.nextFloat() * 2 - 1; }}
+   try (WavFileWriter writer = new WavFileWriter(file.getPath(), format, fileType, 1000)) {    // small buffer to test the flushing
+      int pos = 0;
+      while (pos < length) {
+         int n = Math.min(length - pos, random.nextInt(700));
+         writer.write(signal, pos, n);
+         pos += n; }
+      verify(writer.getFrameCount() == length, "Wrong frame count."); }
+   long dataSize = (long)length * format.getFrameSize();
+   try (WavFileReader reader = new WavFileReader(file.getPath())) {
+      WavFileHeader header = reader.getHeader();
+      verify(header.getFileType() == fileType, "Wrong file type.");
+      verify(reader.getFormat().matches(format), "Wrong format " + reader.getFormat() + ".");
+      verify(header.getDataSize() == dataSize, "Wrong data size.");
+      long paddedDataSize = (fileType == FileType.wave64) ? (dataSize + 7) / 8 * 8 : dataSize + dataSize % 2;
+      verify(file.length() == header.getDataOffset() + paddedDataSize, "Wrong file size.");
+      if (format.getEncoding() == Encoding.PCM_FLOAT) {
+         verify(header.getFactSampleLength() == length, "Wrong fact sample length."); }
+      float[][] buf = new float[channels][length];
+      verify(reader.read(buf, 0, length) == length, "Wrong read length.");
+      for (int channel = 0; channel < channels; channel++) {
+         for (int i = 0; i < length; i++) {
+            verify(Math.abs(buf[channel][i] - signal[channel][i]) <= eps, "Sample values differ at channel " + channel + " position " + i + "."); }}}}
+
+// AudioIo.saveWavFile() uses WavFileWriter. The file must be readable by Java Sound.
+private static void testJavaSoundCompatibility (File file) throws Exception {
+   AudioSignal signal = new AudioSignal();
+   signal.samplingRate = 8000;
+   signal.data = new float[][]{{0, 0.5f, -0.5f, 1, -1}};
+   AudioIo.saveWavFile(file.getPath(), signal);
+   try (AudioInputStream stream = AudioSystem.getAudioInputStream(file)) {
+      AudioFormat format = stream.getFormat();
+      verify(format.getSampleRate() == 8000 && format.getChannels() == 1 && format.getSampleSizeInBits() == 16, "Wrong Java Sound format.");
+      verify(stream.getFrameLength() == 5, "Wrong Java Sound frame length."); }}
+
+// An RF64 file with more than 2^31 frames (more than 4 GB). The file is extended sparsely, so it does not occupy disk space.
+private static void testLargeFile (File file) throws Exception {
+   long frameCount = (1L << 31) + 1000;
+   try (WavFileWriter writer = new WavFileWriter(file.getPath(), new AudioFormat(8000, 16, 1, true, false), FileType.rf64, 1000)) {
+      writer.write(new float[][]{{0.25f, -0.25f}}, 0, 2); }
+   long dataOffset;
+   try (WavFileReader reader = new WavFileReader(file.getPath())) {
+      dataOffset = reader.getHeader().getDataOffset(); }
+   try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.WRITE)) {
+      ByteBuffer samples = ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN);
+      samples.putShort(0, (short)0x4000).putShort(2, (short)-0x4000);
+      channel.write(samples, dataOffset + (frameCount - 2) * 2);            // last 2 frames
+      ByteBuffer sizes = ByteBuffer.allocate(16).order(ByteOrder.LITTLE_ENDIAN);
+      sizes.putLong(0, dataOffset + frameCount * 2 - 8);                     // ds64 RIFF size
+      sizes.putLong(8, frameCount * 2);                                      // ds64 data size
+      channel.write(sizes, 20); }
+   try (WavFileReader reader = new WavFileReader(file.getPath())) {
+      verify(reader.getFrameCount() == frameCount, "Wrong frame count for large file.");
+      float[][] buf = new float[1][2];
+      reader.read(frameCount - 2, buf, 0, 2);
+      verify(buf[0][0] == 0x4000 / 32767f && buf[0][1] == -0x4000 / 32767f, "Wrong sample values at end of large file.");
+      reader.read(0, buf, 0, 2);
+      verify(Math.abs(buf[0][0] - 0.25f) < 1E-4 && Math.abs(buf[0][1] + 0.25f) < 1E-4, "Wrong sample values at start of large file.");
+      reader.setPosition(frameCount - 1);
+      verify(reader.read(buf, 0, 2) == 1 && reader.getPosition() == frameCount, "Wrong sequential read at end of large file."); }
+   try {
+      AudioIo.loadWavFile(file.getPath());
+      throw new RuntimeException("No exception for too long file."); }
+    catch (IOException e) {}}
+
+private static void verify (boolean b, String msg) {
+   if (!b) {
+      throw new RuntimeException(msg); }}
+
+}
@@ -0,0 +1,79 @@
+// Copyright 2015 Christian d'Heureuse, Inventec Informatik AG, Zurich, Switzerland
+// www.source-code.biz, www.inventec.ch/chdh
+//
+// This module is multi-licensed and may be used under the terms
+// of any of the following licenses:
+//
+//  EPL, Eclipse Public License, V1.0 or later, http://www.eclipse.org/legal
+//  LGPL, GNU Lesser General Public License, V2.1 or later, http://www.gnu.org/licenses/lgpl.html
+//
+// Please contact the author if you need another license.
+// This module is provided "as is", without warranties of any kind.
+
+import biz.source_code.dsp.signal.WelchPsdEstimator;
+import biz.source_code.dsp.transform.WindowFunction;
+import biz.source_code.dsp.transform.WindowFunctionType;
+import java.util.Random;
+
+// Test program for the WelchPsdEstimator class.
+public class TestWelchPsdEstimator {
+
+private static Random            random = new Random(3141592);
+
+public static void main (String[] args) {
+   testWhiteNoise(WelchPsdEstimator.Averaging.linear);
+   testWhiteNoise(WelchPsdEstimator.Averaging.exponential);
+   testSine();
+   testInvalidWindow();
+   System.out.println("TestWelchPsdEstimator completed."); }
+
+// The one-sided PSD of white noise with variance v is 2 * v / samplingRate.
+private static void testWhiteNoise (WelchPsdEstimator.Averaging averaging) {
+   final int samplingRate = 8000;
+   final int segmentSize = 256;
+   final double sigma = 0.3;
+   double[] window = WindowFunction.get(WindowFunctionType.hann, segmentSize).getDoubleTable();
+   WelchPsdEstimator estimator = new WelchPsdEstimator(segmentSize, segmentSize / 2, window, samplingRate, averaging, 200);
+   float[] buf = new float[1000];
+   for (int block = 0; block < 500; block++) {
+      for (int i = 0; i < buf.length; i++) {
+         buf[i] = (float)(random.nextGaussian() * sigma); }
+      estimator.process(buf, 0, buf.length); }
+   double[] psd = estimator.getPsd();
+   double sum = 0;
+   for (int k = 1; k < psd.length - 1; k++) {
+      sum += psd[k]; }
+   double mean = sum / (psd.length - 2);
+   double expected = 2 * sigma * sigma / samplingRate;
+   verifyEqual(mean / expected, 1, 0.02); }
+
+// The integral of the PSD over a sine peak is the power of the sine (amplitude^2 / 2).
+private static void testSine() {
+   final int samplingRate = 1000;
+   final int segmentSize = 1024;
+   final double amplitude = 0.8;
+   final double frequency = 123.4;
+   WindowFunction w = WindowFunction.get(WindowFunctionType.blackmanHarris, segmentSize);
+   WelchPsdEstimator estimator = new WelchPsdEstimator(segmentSize, segmentSize / 4, w.getDoubleTable(), samplingRate, WelchPsdEstimator.Averaging.linear, 0);
+   double[] buf = new double[20 * segmentSize];
+   for (int i = 0; i < buf.length; i++) {
+      buf[i] = amplitude * Math.sin(2 * Math.PI * frequency * i / samplingRate); }
+   estimator.process(buf, 0, buf.length);
+   double[] psd = estimator.getPsd();
+   int peak = (int)Math.round(frequency / estimator.getBinWidth());
+   double power = 0;
+   for (int k = peak - 6; k <= peak + 6; k++) {
+      power += psd[k] * estimator.getBinWidth(); }
+   verifyEqual(power, amplitude * amplitude / 2, 1E-3); }
+
+private static void testInvalidWindow() {
+   try {
+      new WelchPsdEstimator(512, 256, new double[256], 1000, WelchPsdEstimator.Averaging.linear, 0);
+      throw new RuntimeException("Exception expected."); }
+    catch (IllegalArgumentException e) {}}
+
+private static void verifyEqual (double v1, double v2, double eps) {
+   if (Math.abs(v1 - v2) > eps) {
+      throw new RuntimeException("Difference detected: " + v1 + " " + v2 + " diff=" + Math.abs(v1 - v2) + " eps=" + eps + "."); }}
+
+}
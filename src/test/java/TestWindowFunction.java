@@ -0,0 +1,85 @@
+// Copyright 2015 Christian d'Heureuse, Inventec Informatik AG, Zurich, Switzerland
+// www.source-code.biz, www.inventec.ch/chdh
+//
+// This module is multi-licensed and may be used under the terms
+// of any of the following licenses:
+//
+//  EPL, Eclipse Public License, V1.0 or later, http://www.eclipse.org/legal
+//  LGPL, GNU Lesser General Public License, V2.1 or later, http://www.gnu.org/licenses/lgpl.html
+//
+// Please contact the author if you need another license.
+// This module is provided "as is", without warranties of any kind.
+
+import biz.source_code.dsp.transform.Fft;
+import biz.source_code.dsp.transform.WindowFunction;
+import biz.source_code.dsp.transform.WindowFunctionType;
+
+// Test program for the WindowFunction class.
+public class TestWindowFunction {
+
+public static void main (String[] args) {
+   testGains();
+   testSymmetry();
+   testChebyshevSidelobes();
+   testCache();
+   System.out.println("TestWindowFunction completed."); }
+
+// Verifies the gain constants with known values.
+private static void testGains() {
+   final int n = 4096;
+   verifyEqual(WindowFunction.get(WindowFunctionType.rectangular, n).getEnbw(), 1, 1E-12);
+   verifyEqual(WindowFunction.get(WindowFunctionType.hann, n).getCoherentGain(), 0.5, 1E-12);
+   verifyEqual(WindowFunction.get(WindowFunctionType.hann, n).getEnbw(), 1.5, 1E-12);
+   verifyEqual(WindowFunction.get(WindowFunctionType.hamming, n).getEnbw(), 1.3628, 1E-4);
+   verifyEqual(WindowFunction.get(WindowFunctionType.blackmanHarris, n).getEnbw(), 2.0044, 1E-4);
+   verifyEqual(WindowFunction.get(WindowFunctionType.flatTop, n).getEnbw(), 3.7702, 1E-4);
+   verifyEqual(WindowFunction.get(WindowFunctionType.tukey, n, 0, true).getEnbw(), 1, 1E-12);
+   verifyEqual(WindowFunction.get(WindowFunctionType.tukey, n, 1, true).getEnbw(), 1.5, 1E-12); }
+
+// Verifies that all symmetric windows are symmetric and have their maximum in the center.
+private static void testSymmetry() {
+   for (WindowFunctionType type : WindowFunctionType.values()) {
+      for (int n = 2; n < 40; n++) {
+         double[] w = WindowFunction.compute(type, n, WindowFunction.getDefaultParameter(type), false);
+         for (int i = 0; i < n; i++) {
+            verifyEqual(w[i], w[n - 1 - i], 1E-12); }
+         verifyEqual(w[n / 2], (n % 2 == 0) ? w[n / 2 - 1] : 1, 1E-8); }}}
+
+// Verifies the sidelobe level of the Dolph-Chebyshev window with a zero-padded FFT.
+private static void testChebyshevSidelobes() {
+   final int n = 51;
+   final double attenuation = 60;
+   double[] w = WindowFunction.compute(WindowFunctionType.dolphChebyshev, n, attenuation, false);
+   int fftSize = 8192;
+   double[] a = new double[fftSize];
+   System.arraycopy(w, 0, a, 0, n);
+   Fft.getInstance(fftSize).realForward(a);
+   double mainLobe = Math.abs(a[0]);
+   double maxSidelobe = 0;
+   boolean inMainLobe = true;
+   double prev = mainLobe;
+   for (int k = 1; k < fftSize / 2; k++) {
+      double m = Math.hypot(a[2 * k], a[2 * k + 1]);
+      if (inMainLobe && m > prev) {
+         inMainLobe = false; }                             // first minimum passed
+      if (!inMainLobe) {
+         maxSidelobe = Math.max(maxSidelobe, m); }
+      prev = m; }
+   double sidelobeDb = 20 * Math.log10(maxSidelobe / mainLobe);
+   verifyEqual(sidelobeDb, -attenuation, 0.01); }
+
+private static void testCache() {
+   WindowFunction w1 = WindowFunction.get(WindowFunctionType.kaiser, 1000);
+   WindowFunction w2 = WindowFunction.get(WindowFunctionType.kaiser, 1000, WindowFunction.defaultKaiserBeta, true);
+   if (w1 != w2) {
+      throw new RuntimeException("Cache failure."); }
+   float[] f = w1.getFloatTable();
+   double[] d = w1.getDoubleTable();
+   for (int i = 0; i < d.length; i++) {
+      verifyEqual(f[i], d[i], 1E-7); }}
+
+private static void verifyEqual (double v1, double v2, double eps) {
+   if (Math.abs(v1 - v2) > eps) {
+      throw new RuntimeException("Difference detected: " + v1 + " " + v2 + " diff=" + Math.abs(v1 - v2) + " eps=" + eps + "."); }}
+
+}